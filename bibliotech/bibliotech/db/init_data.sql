@@ -307,7 +307,7 @@ CREATE TABLE adelino_cunha.exemplar (
     observacao character varying(500),
     numero integer NOT NULL,
     situacao character varying(10) DEFAULT 'disponivel'::character varying,
-    CONSTRAINT exemplar_situacao_check CHECK (((situacao)::text = ANY ((ARRAY['disponivel'::character varying, 'emprestado'::character varying, 'extraviado'::character varying])::text[])))
+    CONSTRAINT exemplar_situacao_check CHECK (((situacao)::text = ANY ((ARRAY['disponivel'::character varying, 'emprestado'::character varying, 'extraviado'::character varying, 'reservado'::character varying])::text[])))
 );
 
 
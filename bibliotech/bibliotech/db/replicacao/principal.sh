@@ -0,0 +1,5 @@
+#!/bin/sh
+# Roda na criacao do banco principal (docker-entrypoint-initdb.d): libera conexoes de replicacao para a replica de
+# leitura. wal_level=replica e max_wal_senders ja sao o padrao do PostgreSQL
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,14 @@
+#!/bin/sh
+# Entrypoint da replica de leitura: na primeira execucao copia o banco principal com pg_basebackup e grava o
+# standby.signal e o primary_conninfo (-R); depois sobe o PostgreSQL como standby, recebendo o WAL do principal
+set -e
+if [ ! -s "$PGDATA/PG_VERSION" ]; then
+    until PGPASSWORD="$POSTGRES_PASSWORD" pg_basebackup -h "$PRINCIPAL_HOST" -p "${PRINCIPAL_PORT:-5432}" \
+            -U "$POSTGRES_USER" -D "$PGDATA" -R -X stream; do
+        echo "Aguardando o banco principal em $PRINCIPAL_HOST..."
+        rm -rf "$PGDATA"/*
+        sleep 2
+    done
+    chmod 700 "$PGDATA"
+fi
+exec postgres
@@ -1,5 +1,6 @@
 package com.bibliotech.bibliotech.auth;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -26,16 +27,23 @@ public class SecurityConfigurations {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authorize -> authorize
+                        // continuacao (ou erro) de uma requisicao ja autorizada, como a conexao de GET /eventos;
+                        // o token nao e lido de novo nesses despachos
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+
                         .requestMatchers(HttpMethod.GET, "/alunos/mais-leitores/export/pdf").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.GET, "/alunos").hasAnyRole("bibliotecario", "aluno_monitor")
                         .requestMatchers(HttpMethod.GET, "/alunos/{id}").authenticated()
                         .requestMatchers(HttpMethod.POST, "/alunos").hasAnyRole("bibliotecario", "aluno_monitor")
+                        .requestMatchers(HttpMethod.POST, "/alunos/importar").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.PUT, "/alunos/{id}").hasAnyRole("bibliotecario", "aluno_monitor")
                         .requestMatchers(HttpMethod.PATCH, "/alunos/inativar/{id}").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.PATCH, "/alunos/ativar/{id}").hasRole("bibliotecario")
+                        .requestMatchers(HttpMethod.GET, "/alunos/emprestimos/{id}").hasAnyRole("bibliotecario", "aluno_monitor")
+                        .requestMatchers(HttpMethod.PATCH, "/alunos/limite-emprestimos/{id}").hasRole("bibliotecario")
 
                         .requestMatchers(HttpMethod.GET, "/autor/buscar").authenticated() //testar
-                        .requestMatchers(HttpMethod.DELETE, "/autor/sem-associacao").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/autor/autocompletar").authenticated()
 
                         .requestMatchers(HttpMethod.POST, "/cronograma").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.GET, "/cronograma").authenticated()
@@ -45,17 +53,29 @@ public class SecurityConfigurations {
 
                         .requestMatchers(HttpMethod.POST, "/emprestimos").hasAnyRole("bibliotecario", "aluno_monitor")
                         .requestMatchers(HttpMethod.GET, "/emprestimos").hasAnyRole("bibliotecario", "aluno_monitor")
+                        .requestMatchers(HttpMethod.GET, "/emprestimos/elegibilidade").hasAnyRole("bibliotecario", "aluno_monitor")
                         .requestMatchers(HttpMethod.GET, "/emprestimos/aluno/{idAluno}").hasAnyRole("bibliotecario", "aluno_monitor")
                         .requestMatchers(HttpMethod.GET, "/emprestimos/livro/{idLivro}").hasAnyRole("bibliotecario", "aluno_monitor")
+                        .requestMatchers(HttpMethod.GET, "/emprestimos/historico/{id}").hasAnyRole("bibliotecario", "aluno_monitor")
+                        .requestMatchers(HttpMethod.GET, "/emprestimos/estado/{id}").hasAnyRole("bibliotecario", "aluno_monitor")
+                        .requestMatchers(HttpMethod.GET, "/emprestimos/estado/aluno/{idAluno}").hasAnyRole("bibliotecario", "aluno_monitor")
                         .requestMatchers(HttpMethod.PATCH, "/emprestimos/renovar/{id}").hasAnyRole("bibliotecario", "aluno_monitor")
                         .requestMatchers(HttpMethod.PATCH, "/emprestimos/cancelar/{id}").hasAnyRole("bibliotecario", "aluno_monitor")
                         .requestMatchers(HttpMethod.PATCH, "/emprestimos/concluir/{id}").hasAnyRole("bibliotecario", "aluno_monitor")
                         .requestMatchers(HttpMethod.POST, "/emprestimos/enviar-email").permitAll()
 
+                        .requestMatchers(HttpMethod.POST, "/reservas").hasAnyRole("bibliotecario", "aluno_monitor")
+                        .requestMatchers(HttpMethod.GET, "/reservas/livro/{idLivro}").hasAnyRole("bibliotecario", "aluno_monitor")
+                        .requestMatchers(HttpMethod.GET, "/reservas/aluno/{idAluno}").hasAnyRole("bibliotecario", "aluno_monitor")
+                        .requestMatchers(HttpMethod.PATCH, "/reservas/cancelar/{id}").hasAnyRole("bibliotecario", "aluno_monitor")
+
+                        .requestMatchers(HttpMethod.GET, "/eventos").hasAnyRole("bibliotecario", "aluno_monitor")
+
                         .requestMatchers(HttpMethod.POST, "/estanteprateleira").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.GET, "/estanteprateleira").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.PUT, "/estanteprateleira/{id}").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.DELETE, "/estanteprateleira/{id}").hasRole("bibliotecario")
+                        .requestMatchers(HttpMethod.GET, "/estanteprateleira/mapa").hasAnyRole("bibliotecario", "aluno_monitor")
                         .requestMatchers(HttpMethod.GET, "/estanteprateleira/{id}").hasAnyRole("bibliotecario", "aluno_monitor")
 
                         .requestMatchers(HttpMethod.POST, "/estantesecao").hasRole("bibliotecario")
@@ -69,12 +89,16 @@ public class SecurityConfigurations {
                         .requestMatchers(HttpMethod.PATCH, "/secoes/{id}").hasRole("bibliotecario")
 
                         .requestMatchers(HttpMethod.POST, "/frequencia-alunos").hasAnyRole("bibliotecario", "aluno_monitor")
+                        .requestMatchers(HttpMethod.POST, "/frequencia-alunos/lote").hasAnyRole("bibliotecario", "aluno_monitor")
                         .requestMatchers(HttpMethod.GET, "/frequencia-alunos/export/pdf").hasRole("bibliotecario")
+                        .requestMatchers(HttpMethod.GET, "/frequencia-alunos/analise").hasRole("bibliotecario")
+                        .requestMatchers(HttpMethod.GET, "/frequencia-alunos/analise/export/pdf").hasRole("bibliotecario")
+                        .requestMatchers(HttpMethod.GET, "/frequencia-alunos/analise/export/csv").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.GET, "/frequencia-alunos").hasAnyRole("bibliotecario", "aluno_monitor")
                         .requestMatchers(HttpMethod.DELETE, "/frequencia-alunos/{id}").hasRole("bibliotecario")
 
                         .requestMatchers(HttpMethod.GET, "/generos/buscar").hasAnyRole("bibliotecario", "aluno_monitor")
-                        .requestMatchers(HttpMethod.DELETE, "/generos/sem-associacao").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/generos/autocompletar").hasAnyRole("bibliotecario", "aluno_monitor")
 
                         .requestMatchers(HttpMethod.POST, "/ocorrencias").hasAnyRole("bibliotecario", "aluno_monitor")
                         .requestMatchers(HttpMethod.POST, "/ocorrencias/export/pdf").hasRole("bibliotecario")
@@ -82,6 +106,7 @@ public class SecurityConfigurations {
                         .requestMatchers(HttpMethod.DELETE, "/ocorrencias/{id}").hasRole("bibliotecario")
 
                         .requestMatchers(HttpMethod.POST, "/turmas").hasRole("bibliotecario")
+                        .requestMatchers(HttpMethod.POST, "/turmas/promover").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.GET, "/turmas/{id}").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.GET, "/turmas/mais-leitoras/export/pdf").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.GET, "/turmas/filtrar").hasAnyRole("bibliotecario", "aluno_monitor")
@@ -99,13 +124,16 @@ public class SecurityConfigurations {
 
                         .requestMatchers(HttpMethod.POST, "/livros").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.POST, "/livros/exemplares").hasRole("bibliotecario")
+                        .requestMatchers(HttpMethod.POST, "/livros/importar").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.GET, "/livros/filtrar").hasAnyRole("bibliotecario", "aluno_monitor")
                         .requestMatchers(HttpMethod.GET, "/livros/exemplares/{id}").authenticated()
+                        .requestMatchers(HttpMethod.GET, "/livros/scan").hasAnyRole("bibliotecario", "aluno_monitor")
                         .requestMatchers(HttpMethod.PATCH, "/livros/{id}").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.PATCH, "/livros/inativar/{id}").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.PATCH, "/livros/ativar/{id}").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.PATCH, "/livros/exemplares/extraviar/{id}").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.PATCH, "/livros/exemplares/atualizar/{id}").hasRole("bibliotecario")
+                        .requestMatchers(HttpMethod.PATCH, "/livros/exemplares/realocar").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.GET, "/livros/relatorio/export/pdf").hasRole("bibliotecario")
                         .requestMatchers(HttpMethod.GET, "/livros/relatorio/acervo/export/pdf").hasRole("bibliotecario")
 
@@ -114,6 +142,8 @@ public class SecurityConfigurations {
 
                         .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
                         .requestMatchers(HttpMethod.GET, "/actuator/health/readiness").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/actuator/info").hasRole("bibliotecario")
+                        .requestMatchers(HttpMethod.GET, "/actuator/metrics/**").hasRole("bibliotecario")
 
                 )
                 .addFilterBefore(securityFilter, UsernamePasswordAuthenticationFilter.class)
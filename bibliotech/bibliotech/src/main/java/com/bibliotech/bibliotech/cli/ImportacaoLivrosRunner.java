@@ -0,0 +1,73 @@
+package com.bibliotech.bibliotech.cli;
+
+import com.bibliotech.bibliotech.dtos.response.ImportacaoLivrosResponseDTO;
+import com.bibliotech.bibliotech.services.ImportacaoLivrosService;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Importacao do acervo pela linha de comando, sem passar pelo limite de upload da API:
+// java -jar bibliotech.jar --spring.main.web-application-type=none --bibliotech.importacao.arquivo=acervo.csv
+// As linhas rejeitadas vao para <arquivo>.erros.csv
+@Component
+@ConditionalOnProperty(name = "bibliotech.importacao.arquivo")
+public class ImportacaoLivrosRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacaoLivrosRunner.class);
+
+    @Autowired
+    private ImportacaoLivrosService importacaoLivrosService;
+
+    @Value("${bibliotech.importacao.arquivo}")
+    private String arquivo;
+
+    @Value("${bibliotech.importacao.separador:;}")
+    private char separador;
+
+    @Value("${bibliotech.importacao.tamanho-lote:500}")
+    private int tamanhoLote;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        Path origem = Path.of(arquivo);
+        Path relatorio = Path.of(arquivo + ".erros.csv");
+
+        CSVFormat formatoRelatorio = CSVFormat.DEFAULT.builder()
+                .setDelimiter(separador)
+                .setHeader("linha", "isbn", "mensagem")
+                .build();
+
+        ImportacaoLivrosResponseDTO resultado;
+        try (Reader reader = Files.newBufferedReader(origem, StandardCharsets.UTF_8);
+             CSVPrinter erros = new CSVPrinter(Files.newBufferedWriter(relatorio, StandardCharsets.UTF_8), formatoRelatorio)) {
+            resultado = importacaoLivrosService.importarCsv(reader, separador, tamanhoLote, erro -> {
+                try {
+                    erros.printRecord(erro.getLinha(), erro.getIsbn(), erro.getMensagem());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+
+        log.info("Importação de {} concluída: {} linhas lidas, {} livros e {} exemplares gravados em {} lotes",
+                origem, resultado.getLinhasLidas(), resultado.getLivrosImportados(), resultado.getExemplaresCriados(),
+                resultado.getLotes());
+        if (resultado.getLinhasRejeitadas() > 0) {
+            log.warn("{} linhas de {} rejeitadas; detalhes em {}", resultado.getLinhasRejeitadas(), origem, relatorio);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.bibliotech.bibliotech.configuration;
+
+import com.bibliotech.bibliotech.services.AutorService;
+import com.bibliotech.bibliotech.services.GenerosService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Tamanho dos indices de autocompletar em /actuator/info
+@Component
+public class AutocompletarInfoContributor implements InfoContributor {
+
+    @Autowired
+    private AutorService autorService;
+    @Autowired
+    private GenerosService generosService;
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        builder.withDetail("autocompletar", Map.of(
+                "autores", autorService.estatisticasAutocompletar(),
+                "generos", generosService.estatisticasAutocompletar()
+        ));
+    }
+}
@@ -0,0 +1,21 @@
+package com.bibliotech.bibliotech.configuration;
+
+import com.bibliotech.bibliotech.services.CacheReferenciasService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.stereotype.Component;
+
+// Acertos, faltas e tamanho do cache de Secao, Estanteprateleira e Turma em /actuator/info
+// (as mesmas contagens saem em /actuator/metrics como hibernate.second.level.cache.*)
+@Component
+public class CacheReferenciasInfoContributor implements InfoContributor {
+
+    @Autowired
+    private CacheReferenciasService cacheReferenciasService;
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        builder.withDetail("cacheReferencias", cacheReferenciasService.estatisticas());
+    }
+}
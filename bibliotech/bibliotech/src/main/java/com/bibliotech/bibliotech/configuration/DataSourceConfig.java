@@ -0,0 +1,71 @@
+package com.bibliotech.bibliotech.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// So entra em acao quando a URL da replica estiver configurada; sem ela o Spring Boot cria o DataSource padrao
+@Configuration
+@ConditionalOnExpression("!'${bibliotech.datasource.replica.url:}'.isEmpty()")
+public class DataSourceConfig {
+
+    @Value("${bibliotech.datasource.replica.url}")
+    private String replicaUrl;
+
+    @Value("${bibliotech.datasource.replica.username:${spring.datasource.username}}")
+    private String replicaUsername;
+
+    @Value("${bibliotech.datasource.replica.password:${spring.datasource.password}}")
+    private String replicaPassword;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource principalDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource principal = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        principal.setPoolName("bibliotech-principal");
+        return principal;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(dataSourceProperties.determineDriverClassName())
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+        replica.setPoolName("bibliotech-replica");
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource principalDataSource, HikariDataSource replicaDataSource) {
+        ReadReplicaRoutingDataSource routingDataSource = new ReadReplicaRoutingDataSource();
+        routingDataSource.setTargetDataSources(Map.of(
+                ReadReplicaRoutingDataSource.Rota.PRINCIPAL, principalDataSource,
+                ReadReplicaRoutingDataSource.Rota.REPLICA, replicaDataSource
+        ));
+        routingDataSource.setDefaultTargetDataSource(principalDataSource);
+        routingDataSource.afterPropertiesSet();
+
+        // O JpaTransactionManager pede a conexao antes de marcar a transacao como readOnly,
+        // entao a escolha do banco precisa esperar o primeiro comando SQL
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
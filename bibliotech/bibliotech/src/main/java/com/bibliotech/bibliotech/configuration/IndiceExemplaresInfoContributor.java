@@ -0,0 +1,20 @@
+package com.bibliotech.bibliotech.configuration;
+
+import com.bibliotech.bibliotech.services.IndiceExemplaresService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.stereotype.Component;
+
+// Tamanho do indice de leitura de codigos em /actuator/info
+@Component
+public class IndiceExemplaresInfoContributor implements InfoContributor {
+
+    @Autowired
+    private IndiceExemplaresService indiceExemplaresService;
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        builder.withDetail("indiceExemplares", indiceExemplaresService.estatisticas());
+    }
+}
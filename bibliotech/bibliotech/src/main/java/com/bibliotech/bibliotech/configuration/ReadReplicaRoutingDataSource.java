@@ -0,0 +1,18 @@
+package com.bibliotech.bibliotech.configuration;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Envia as transacoes marcadas com readOnly = true para a replica e todo o resto para o banco principal
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Rota {
+        PRINCIPAL,
+        REPLICA
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Rota.REPLICA : Rota.PRINCIPAL;
+    }
+}
@@ -1,10 +1,16 @@
 package com.bibliotech.bibliotech.controllers;
 
 import com.bibliotech.bibliotech.dtos.request.AlunoRequestDTO;
+import com.bibliotech.bibliotech.dtos.request.LimiteEmprestimosRequestDTO;
 import com.bibliotech.bibliotech.dtos.response.AlunoResponseDTO;
+import com.bibliotech.bibliotech.dtos.response.ContadorEmprestimosResponseDTO;
+import com.bibliotech.bibliotech.dtos.response.ImportacaoAlunosResponseDTO;
 import com.bibliotech.bibliotech.dtos.response.mappers.AlunoResponseMapper;
 import com.bibliotech.bibliotech.models.Aluno;
+import com.bibliotech.bibliotech.models.enums.SituacaoAluno;
 import com.bibliotech.bibliotech.services.AlunosService;
+import com.bibliotech.bibliotech.services.ContadorEmprestimosService;
+import com.bibliotech.bibliotech.services.ImportacaoAlunosService;
 import com.bibliotech.bibliotech.services.PdfExportService;
 import org.springframework.http.HttpHeaders;
 import jakarta.validation.Valid;
@@ -16,7 +22,12 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -27,11 +38,15 @@ public class AlunoController {
     private final AlunosService alunosService;
     private final AlunoResponseMapper alunoResponseMapper;
     private final PdfExportService pdfExportService;
+    private final ImportacaoAlunosService importacaoAlunosService;
+    private final ContadorEmprestimosService contadorEmprestimosService;
 
-    public AlunoController(AlunosService alunosService, AlunoResponseMapper alunoResponseMapper, PdfExportService pdfExportService) {
+    public AlunoController(AlunosService alunosService, AlunoResponseMapper alunoResponseMapper, PdfExportService pdfExportService, ImportacaoAlunosService importacaoAlunosService, ContadorEmprestimosService contadorEmprestimosService) {
         this.alunosService = alunosService;
         this.alunoResponseMapper = alunoResponseMapper;
         this.pdfExportService = pdfExportService;
+        this.importacaoAlunosService = importacaoAlunosService;
+        this.contadorEmprestimosService = contadorEmprestimosService;
     }
 
     @GetMapping("")
@@ -39,7 +54,7 @@ public class AlunoController {
             @RequestParam(value = "serie", required = false) Integer serie,
             @RequestParam(value = "turma", required = false) String turma,
             @RequestParam(value = "nome", required = false) String nome,
-            @RequestParam(value = "situacao", required = false) String situacao,
+            @RequestParam(value = "situacao", required = false) SituacaoAluno situacao,
             @RequestParam(value = "ativo", required = false) Boolean ativo,
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "size", defaultValue = "10") int size)
@@ -64,6 +79,17 @@ public class AlunoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(AlunoResponseMapper.toDto(alunosService.cadastrarAluno(requestDTO)));
     }
 
+    // Colunas: nome, email, telefone (opcional), idTurma
+    @PostMapping(value = "/importar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportacaoAlunosResponseDTO> importarAlunos(
+            @RequestParam("arquivo") MultipartFile arquivo,
+            @RequestParam(value = "separador", defaultValue = ";") char separador,
+            @RequestParam(value = "tamanhoLote", required = false) Integer tamanhoLote) throws IOException {
+        try (Reader reader = new InputStreamReader(arquivo.getInputStream(), StandardCharsets.UTF_8)) {
+            return ResponseEntity.ok(importacaoAlunosService.importarCsv(reader, separador, tamanhoLote));
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<AlunoResponseDTO> atualizarAluno(
             @PathVariable Integer id,
@@ -83,6 +109,18 @@ public class AlunoController {
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping("/emprestimos/{id}")
+    public ResponseEntity<ContadorEmprestimosResponseDTO> contadorEmprestimos(@PathVariable Integer id) {
+        return ResponseEntity.ok(contadorEmprestimosService.getContador(id));
+    }
+
+    @PatchMapping("/limite-emprestimos/{id}")
+    public ResponseEntity<ContadorEmprestimosResponseDTO> definirLimiteEmprestimos(
+            @PathVariable Integer id,
+            @RequestBody LimiteEmprestimosRequestDTO requestDTO) {
+        return ResponseEntity.ok(contadorEmprestimosService.definirLimite(id, requestDTO.getLimiteEmprestimos()));
+    }
+
     //coloquei a data de inicio como nao obrigatorio para tratar dela bonitinho no service
     @GetMapping("/mais-leitores/export/pdf")
     public ResponseEntity<byte[]> exportTopLeitoresPdf(@RequestParam(required = false) LocalDate dataInicio, @RequestParam(required = false) LocalDate dataFim, @RequestParam(required = false) Integer qtdMax) {
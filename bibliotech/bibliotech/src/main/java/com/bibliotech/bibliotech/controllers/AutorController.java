@@ -1,5 +1,6 @@
 package com.bibliotech.bibliotech.controllers;
 
+import com.bibliotech.bibliotech.dtos.response.AutocompletarResponseDTO;
 import com.bibliotech.bibliotech.models.Autor;
 import com.bibliotech.bibliotech.services.AutorService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,9 +21,9 @@ public class AutorController {
         return ResponseEntity.ok(autorService.buscarPorNomeQueContem(nome));
     }
 
-    @DeleteMapping("/sem-associacao")
-    public ResponseEntity<Void> deletarAutoresSemAssociacao() {
-        autorService.deletarAutoresSemAssociacao();
-        return ResponseEntity.noContent().build();
+    @GetMapping("/autocompletar")
+    public ResponseEntity<List<AutocompletarResponseDTO>> autocompletar(@RequestParam String prefixo,
+                                                                        @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(autorService.autocompletar(prefixo, limite));
     }
 }
\ No newline at end of file
@@ -2,13 +2,18 @@ package com.bibliotech.bibliotech.controllers;
 
 import com.bibliotech.bibliotech.dtos.request.EmprestimoRequestDTO;
 import com.bibliotech.bibliotech.dtos.request.EmprestimoRequestDTOConcluir;
+import com.bibliotech.bibliotech.dtos.response.ElegibilidadeEmprestimoResponseDTO;
 import com.bibliotech.bibliotech.dtos.response.EmprestimoNotificacaoDTO;
 import com.bibliotech.bibliotech.dtos.response.EmprestimoResponseDTO;
 import com.bibliotech.bibliotech.dtos.response.EmprestimoResponseDTOAluno;
 import com.bibliotech.bibliotech.dtos.response.EmprestimoResponseDTOLivro;
+import com.bibliotech.bibliotech.dtos.response.EstadoEmprestimoDTO;
+import com.bibliotech.bibliotech.dtos.response.HistoricoEmprestimoDTO;
 import com.bibliotech.bibliotech.exception.ValidationException;
 import com.bibliotech.bibliotech.models.Emprestimo;
+import com.bibliotech.bibliotech.models.enums.SituacaoEmprestimo;
 import com.bibliotech.bibliotech.services.EmprestimosService;
+import com.bibliotech.bibliotech.services.HistoricoEmprestimosService;
 import com.bibliotech.bibliotech.services.TokenService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -27,10 +32,12 @@ import java.util.List;
 public class EmprestimoController {
 
     private final EmprestimosService emprestimosService;
+    private final HistoricoEmprestimosService historicoEmprestimosService;
 
     @Autowired
-    public EmprestimoController(EmprestimosService emprestimosService) {
+    public EmprestimoController(EmprestimosService emprestimosService, HistoricoEmprestimosService historicoEmprestimosService) {
         this.emprestimosService = emprestimosService;
+        this.historicoEmprestimosService = historicoEmprestimosService;
     }
 
     @PostMapping("")
@@ -39,12 +46,19 @@ public class EmprestimoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(emprestimoResponseDTO);
     }
 
+    @GetMapping("/elegibilidade")
+    public ResponseEntity<ElegibilidadeEmprestimoResponseDTO> verificarElegibilidade(
+            @RequestParam(value = "aluno", required = false) Integer idAluno,
+            @RequestParam(value = "exemplar", required = false) Integer idExemplar) {
+        return ResponseEntity.ok(emprestimosService.verificarElegibilidade(idAluno, idExemplar));
+    }
+
     @GetMapping("")
     public ResponseEntity<Page<EmprestimoResponseDTO>> consultarEmprestimos(
             @RequestParam(value = "nomeAluno", required = false) String nomeAluno,
             @RequestParam(value = "tituloLivro", required = false) String tituloLivro,
             @RequestParam(value = "isbn", required = false) String isbn,
-            @RequestParam(value = "situacao", required = false) String situacao,
+            @RequestParam(value = "situacao", required = false) SituacaoEmprestimo situacao,
             @RequestParam(value = "nomeRealizadoPor", required = false) String nomeRealizadoPor,
             @RequestParam(value = "dataEmprestimo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataEmprestimo,
             @RequestParam(value = "nomeConcluidoPor", required = false) String nomeConcluidoPor,
@@ -105,6 +119,26 @@ public class EmprestimoController {
         return ResponseEntity.ok(emprestimosDTO);
     }
 
+    @GetMapping("/historico/{id}")
+    public ResponseEntity<List<HistoricoEmprestimoDTO>> listarHistorico(@PathVariable Integer id) {
+        return ResponseEntity.ok(historicoEmprestimosService.listarHistorico(id));
+    }
+
+    // Estado do emprestimo no fim do dia informado
+    @GetMapping("/estado/{id}")
+    public ResponseEntity<EstadoEmprestimoDTO> consultarEstado(
+            @PathVariable Integer id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data) {
+        return ResponseEntity.ok(historicoEmprestimosService.consultarEstado(id, data));
+    }
+
+    @GetMapping("/estado/aluno/{idAluno}")
+    public ResponseEntity<List<EstadoEmprestimoDTO>> consultarEstadoDoAluno(
+            @PathVariable Integer idAluno,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data) {
+        return ResponseEntity.ok(historicoEmprestimosService.consultarEstadoDoAluno(idAluno, data));
+    }
+
     @PatchMapping("/renovar/{id}")
     public ResponseEntity<String> renovarPrazo(@PathVariable Integer id) {
         return ResponseEntity.ok(emprestimosService.renovarPrazo(id));
@@ -3,8 +3,10 @@ package com.bibliotech.bibliotech.controllers;
 import com.bibliotech.bibliotech.dtos.EstanteprateleiraDTO;
 import com.bibliotech.bibliotech.dtos.mappers.EstanteprateleiraMapper;
 import com.bibliotech.bibliotech.dtos.response.ExemplarResponseDTO;
+import com.bibliotech.bibliotech.dtos.response.MapaEstantesResponseDTO;
 import com.bibliotech.bibliotech.models.Estanteprateleira;
 import com.bibliotech.bibliotech.services.EstantePrateleiraService;
+import com.bibliotech.bibliotech.services.MapaEstantesService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +23,9 @@ public class EstantePrateleiraController {
     @Autowired
     private EstantePrateleiraService estantePrateleiraService;
 
+    @Autowired
+    private MapaEstantesService mapaEstantesService;
+
     @PostMapping
     public ResponseEntity<EstanteprateleiraDTO> criarEstanteprateleira(@RequestBody EstanteprateleiraDTO request) {
         return ResponseEntity.ok(EstanteprateleiraMapper.toDTO(estantePrateleiraService.adicionarEstanteprateleira(EstanteprateleiraMapper.toEntity(request))));
@@ -42,6 +47,11 @@ public class EstantePrateleiraController {
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping("/mapa")
+    public ResponseEntity<MapaEstantesResponseDTO> mapaDasEstantes() {
+        return ResponseEntity.ok(mapaEstantesService.getMapa());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<List<ExemplarResponseDTO>> listarExemplaresPorEstantePrateleira(@PathVariable Integer id) {
         return ResponseEntity.ok(estantePrateleiraService.listarExemplaresPorEstantePrateleira(id));
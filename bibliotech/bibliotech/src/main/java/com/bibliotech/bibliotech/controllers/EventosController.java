@@ -0,0 +1,33 @@
+package com.bibliotech.bibliotech.controllers;
+
+import com.bibliotech.bibliotech.services.EventosAcervoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/eventos")
+public class EventosController {
+
+    @Autowired
+    private EventosAcervoService eventosAcervoService;
+
+    // Eventos "emprestimo", "exemplar" e "descartados" (o cliente perdeu eventos e deve recarregar a tela)
+    @GetMapping(value = "", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter assinar() {
+        return eventosAcervoService.assinar();
+    }
+
+    // Cliente que fechou a conexao ou conexao que expirou: a resposta ja comecou, nao ha o que devolver
+    @ExceptionHandler({IOException.class, AsyncRequestNotUsableException.class, AsyncRequestTimeoutException.class})
+    public void conexaoEncerrada() {
+    }
+}
@@ -1,12 +1,21 @@
 package com.bibliotech.bibliotech.controllers;
 
+import com.bibliotech.bibliotech.dtos.request.FrequenciaAlunosLoteRequestDTO;
 import com.bibliotech.bibliotech.dtos.request.FrequenciaAlunosRequestDTO;
+import com.bibliotech.bibliotech.dtos.response.AnaliseFrequenciaResponseDTO;
+import com.bibliotech.bibliotech.dtos.response.FrequenciaAlunosLoteResponseDTO;
 import com.bibliotech.bibliotech.dtos.response.FrequenciaAlunosResponseDTO;
 import com.bibliotech.bibliotech.dtos.response.mappers.FrequenciaAlunosResponseMapper;
-import com.bibliotech.bibliotech.models.FrequenciaAlunos;
+import com.bibliotech.bibliotech.models.enums.AgrupamentoFrequencia;
+import com.bibliotech.bibliotech.services.AnaliseFrequenciaService;
+import com.bibliotech.bibliotech.services.CsvExportService;
 import com.bibliotech.bibliotech.services.FrequenciaAlunosService;
 import com.bibliotech.bibliotech.services.PdfExportService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -14,21 +23,29 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 @RestController
 @RequestMapping("/frequencia-alunos")
 public class FrequenciaAlunoController {
+    private static final int TAMANHO_MAXIMO_PAGINA = 1000;
+
     private final FrequenciaAlunosService frequenciaAlunosService;
     private final FrequenciaAlunosResponseMapper frequenciaAlunosResponceMapper;
+    private final AnaliseFrequenciaService analiseFrequenciaService;
     private final PdfExportService pdfExportService;
+    private final CsvExportService csvExportService;
 
-    public FrequenciaAlunoController(FrequenciaAlunosService frequenciaAlunosService, FrequenciaAlunosResponseMapper frequenciaAlunosResponceMapper, PdfExportService pdfExportService) {
+    public FrequenciaAlunoController(FrequenciaAlunosService frequenciaAlunosService, FrequenciaAlunosResponseMapper frequenciaAlunosResponceMapper,
+                                     AnaliseFrequenciaService analiseFrequenciaService, PdfExportService pdfExportService, CsvExportService csvExportService) {
         this.frequenciaAlunosService = frequenciaAlunosService;
         this.frequenciaAlunosResponceMapper = frequenciaAlunosResponceMapper;
+        this.analiseFrequenciaService = analiseFrequenciaService;
         this.pdfExportService = pdfExportService;
+        this.csvExportService = csvExportService;
     }
 
     @PostMapping
@@ -39,34 +56,109 @@ public class FrequenciaAlunoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(frequenciaAlunosResponceMapper.toDto(frequenciaAlunosService.registrarFrequencia(requestDTO)));
     }
 
+    // 201 quando gravou frequencias, 202 quando ficaram no buffer de escrita, 200 quando todos ja tinham frequencia no dia
+    @PostMapping("/lote")
+    public ResponseEntity<FrequenciaAlunosLoteResponseDTO> registrarLote(@RequestBody @Valid FrequenciaAlunosLoteRequestDTO requestDTO, BindingResult bindingResult) {
+        if (bindingResult.hasErrors()) {
+            throw new IllegalArgumentException("Erros de validação encontrados: " + bindingResult.getAllErrors());
+        }
+        FrequenciaAlunosLoteResponseDTO resposta = frequenciaAlunosService.registrarLote(requestDTO);
+        HttpStatus status = resposta.getEnfileiradas() > 0 ? HttpStatus.ACCEPTED
+                : resposta.getRegistradas() > 0 ? HttpStatus.CREATED : HttpStatus.OK;
+        return ResponseEntity.status(status).body(resposta);
+    }
+
+    // data filtra um dia; dataInicio e dataFim, um periodo (sem nenhuma das tres, todo o historico). Paginas de ate
+    // TAMANHO_MAXIMO_PAGINA frequencias, das mais recentes para as mais antigas
     @GetMapping
-    public ResponseEntity<List<FrequenciaAlunosResponseDTO>> filtrarFrequencias(@RequestParam(value = "data", required = false) LocalDate data) {
-        return ResponseEntity.ok(frequenciaAlunosResponceMapper.toDtoList(frequenciaAlunosService.filtrarFrequencias(data)));
+    public ResponseEntity<Page<FrequenciaAlunosResponseDTO>> filtrarFrequencias(
+            @RequestParam(value = "data", required = false) LocalDate data,
+            @RequestParam(value = "dataInicio", required = false) LocalDate dataInicio,
+            @RequestParam(value = "dataFim", required = false) LocalDate dataFim,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "10") int size) {
+        Pageable pageable = PageRequest.of(page, Math.min(size, TAMANHO_MAXIMO_PAGINA));
+        return ResponseEntity.ok(frequenciaAlunosService.filtrarFrequencias(data, dataInicio, dataFim, pageable)
+                .map(frequenciaAlunosResponceMapper::toDto));
     }
 
+    // O PDF e escrito na resposta a medida que as frequencias sao lidas, sem passar por um byte[]
     @GetMapping("/export/pdf")
-    public ResponseEntity<byte[]> exportFrequenciasPdf(@RequestParam(value = "data", required = false) LocalDate data) {
-        if (data == null) {
+    public void exportFrequenciasPdf(@RequestParam(value = "data", required = false) LocalDate data,
+                                     @RequestParam(value = "dataInicio", required = false) LocalDate dataInicio,
+                                     @RequestParam(value = "dataFim", required = false) LocalDate dataFim,
+                                     HttpServletResponse response) throws IOException {
+        if (data == null && dataInicio == null && dataFim == null) {
             throw new IllegalArgumentException("Data não pode ser nula.");
         }
 
-        List<FrequenciaAlunos> frequencias = frequenciaAlunosService.filtrarFrequencias(data);
-
-        if (frequencias.isEmpty()) {
-            throw new IllegalArgumentException("Não há frequências registradas para a data informada.");
+        if (!frequenciaAlunosService.existemFrequencias(data, dataInicio, dataFim)) {
+            throw new IllegalArgumentException(data != null ? "Não há frequências registradas para a data informada."
+                    : "Não há frequências registradas para o período informado.");
         }
 
-        byte[] pdfBytes = pdfExportService.exportFrequenciaAlunosToPdf(frequencias);
+        DateTimeFormatter formato = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        String periodo = data != null ? data.format(formato)
+                : (dataInicio != null ? dataInicio.format(formato) : "inicio") + "-a-"
+                + (dataFim != null ? dataFim.format(formato) : "hoje");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDispositionFormData("attachment", "relatorio-frequencia-" + periodo + ".pdf");
+        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, headers.getFirst(HttpHeaders.CONTENT_DISPOSITION));
+
+        frequenciaAlunosService.exportarPdf(data, dataInicio, dataFim, response.getOutputStream());
+    }
+
+    // Contagens por dia ou por semana (agrupamento), por atividade, turma e hora do registro; dataFim padrao e hoje
+    @GetMapping("/analise")
+    public ResponseEntity<AnaliseFrequenciaResponseDTO> analisarFrequencias(
+            @RequestParam(value = "dataInicio", required = false) LocalDate dataInicio,
+            @RequestParam(value = "dataFim", required = false) LocalDate dataFim,
+            @RequestParam(value = "agrupamento", defaultValue = "dia") AgrupamentoFrequencia agrupamento) {
+        return ResponseEntity.ok(analiseFrequenciaService.analisar(dataInicio, dataFim, agrupamento));
+    }
+
+    @GetMapping("/analise/export/pdf")
+    public ResponseEntity<byte[]> exportAnalisePdf(
+            @RequestParam(value = "dataInicio", required = false) LocalDate dataInicio,
+            @RequestParam(value = "dataFim", required = false) LocalDate dataFim,
+            @RequestParam(value = "agrupamento", defaultValue = "dia") AgrupamentoFrequencia agrupamento) {
+        AnaliseFrequenciaResponseDTO analise = analiseFrequenciaService.analisar(dataInicio, dataFim, agrupamento);
+
+        byte[] pdfBytes = pdfExportService.exportAnaliseFrequencia(analise);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_PDF);
-        headers.setContentDispositionFormData("attachment", "relatorio-frequencia-" + data.format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) + ".pdf");
+        headers.setContentDispositionFormData("attachment", nomeArquivoAnalise(analise) + ".pdf");
 
         return ResponseEntity.ok()
                 .headers(headers)
                 .body(pdfBytes);
     }
 
+    @GetMapping("/analise/export/csv")
+    public ResponseEntity<byte[]> exportAnaliseCsv(
+            @RequestParam(value = "dataInicio", required = false) LocalDate dataInicio,
+            @RequestParam(value = "dataFim", required = false) LocalDate dataFim,
+            @RequestParam(value = "agrupamento", defaultValue = "dia") AgrupamentoFrequencia agrupamento) {
+        AnaliseFrequenciaResponseDTO analise = analiseFrequenciaService.analisar(dataInicio, dataFim, agrupamento);
+
+        byte[] csvBytes = csvExportService.exportAnaliseFrequencia(analise);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+        headers.setContentDispositionFormData("attachment", nomeArquivoAnalise(analise) + ".csv");
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(csvBytes);
+    }
+
+    private String nomeArquivoAnalise(AnaliseFrequenciaResponseDTO analise) {
+        return "analise-frequencia-" + analise.getAgrupamento() + "-" + analise.getDataInicio() + "-a-" + analise.getDataFim();
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletarFrequencia(@PathVariable Integer id) {
         frequenciaAlunosService.deletarFrequencia(id);
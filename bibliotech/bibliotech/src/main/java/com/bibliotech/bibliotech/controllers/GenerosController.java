@@ -1,5 +1,6 @@
 package com.bibliotech.bibliotech.controllers;
 
+import com.bibliotech.bibliotech.dtos.response.AutocompletarResponseDTO;
 import com.bibliotech.bibliotech.models.Genero;
 import com.bibliotech.bibliotech.services.GenerosService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,9 +21,9 @@ public class GenerosController {
         return ResponseEntity.ok(generosService.findGenerosByGeneroContaining(genero));
     }
 
-    @DeleteMapping("/sem-associacao")
-    public ResponseEntity<Void> deletarGeneroSemAssociacao() {
-        generosService.removeGenerosWithNoAssociation();
-        return ResponseEntity.noContent().build();
+    @GetMapping("/autocompletar")
+    public ResponseEntity<List<AutocompletarResponseDTO>> autocompletar(@RequestParam String prefixo,
+                                                                        @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(generosService.autocompletar(prefixo, limite));
     }
 }
\ No newline at end of file
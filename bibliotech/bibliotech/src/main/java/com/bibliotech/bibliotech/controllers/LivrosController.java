@@ -6,13 +6,18 @@ import com.bibliotech.bibliotech.dtos.request.ExemplarRequestPatchDTO;
 import com.bibliotech.bibliotech.dtos.request.ExemplarRequestPostDTO;
 import com.bibliotech.bibliotech.dtos.request.LivroRequestPatchDTO;
 import com.bibliotech.bibliotech.dtos.request.LivroRequestPostDTO;
+import com.bibliotech.bibliotech.dtos.request.RealocacaoExemplaresRequestDTO;
+import com.bibliotech.bibliotech.dtos.response.ImportacaoLivrosResponseDTO;
+import com.bibliotech.bibliotech.dtos.response.LeituraCodigoResponseDTO;
 import com.bibliotech.bibliotech.dtos.response.LivroResponseDTO;
 import com.bibliotech.bibliotech.dtos.response.LivroResponseGetDTO;
 import com.bibliotech.bibliotech.dtos.response.LivrosMaisLidosDTO;
+import com.bibliotech.bibliotech.dtos.response.RealocacaoExemplaresResponseDTO;
 import com.bibliotech.bibliotech.dtos.response.RelatorioAcervoDTO;
 import com.bibliotech.bibliotech.dtos.response.mappers.LivroResponseGetMapper;
 import com.bibliotech.bibliotech.dtos.response.mappers.LivroResponseMapper;
 import com.bibliotech.bibliotech.models.Livro;
+import com.bibliotech.bibliotech.services.ImportacaoLivrosService;
 import com.bibliotech.bibliotech.services.LivrosService;
 import com.bibliotech.bibliotech.services.PdfExportService;
 import com.lowagie.text.DocumentException;
@@ -24,8 +29,13 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Date;
@@ -40,14 +50,16 @@ public class LivrosController {
     private final LivroResponseGetMapper livroResponseGetMapper;
     private final ExemplarMapper exemplarMapper;
     private final PdfExportService pdfExportService;
+    private final ImportacaoLivrosService importacaoLivrosService;
 
     @Autowired
-    public LivrosController(LivrosService livrosService, LivroResponseMapper livroResponseMapper, ExemplarMapper exemplarMapper, LivroResponseGetMapper livroResponseGetMapper, PdfExportService pdfExportService) {
+    public LivrosController(LivrosService livrosService, LivroResponseMapper livroResponseMapper, ExemplarMapper exemplarMapper, LivroResponseGetMapper livroResponseGetMapper, PdfExportService pdfExportService, ImportacaoLivrosService importacaoLivrosService) {
         this.livrosService = livrosService;
         this.livroResponseMapper = livroResponseMapper;
         this.livroResponseGetMapper = livroResponseGetMapper;
         this.exemplarMapper = exemplarMapper;
         this.pdfExportService = pdfExportService;
+        this.importacaoLivrosService = importacaoLivrosService;
     }
 
     @PostMapping("")
@@ -64,6 +76,17 @@ public class LivrosController {
         return ResponseEntity.created(location).body(exemplaresDTO);
     }
 
+    // Colunas: titulo, isbn, autores, generos, qtdExemplares, idSecao, idEstanteprateleira (varios autores/generos separados por |)
+    @PostMapping(value = "/importar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportacaoLivrosResponseDTO> importarLivros(
+            @RequestParam("arquivo") MultipartFile arquivo,
+            @RequestParam(value = "separador", defaultValue = ";") char separador,
+            @RequestParam(value = "tamanhoLote", required = false) Integer tamanhoLote) throws IOException {
+        try (Reader reader = new InputStreamReader(arquivo.getInputStream(), StandardCharsets.UTF_8)) {
+            return ResponseEntity.ok(importacaoLivrosService.importarCsv(reader, separador, tamanhoLote));
+        }
+    }
+
     @GetMapping("/filtrar")
     public ResponseEntity<Page<LivroResponseGetDTO>> getLivros(
             @RequestParam(value = "titulo", required = false) String titulo,
@@ -80,6 +103,11 @@ public class LivrosController {
         return ResponseEntity.ok(livroResponseGetDTO);
     }
 
+    @GetMapping("/scan")
+    public ResponseEntity<LeituraCodigoResponseDTO> lerCodigo(@RequestParam(value = "codigo") String codigo){
+        return ResponseEntity.ok(livrosService.lerCodigo(codigo));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<LivroResponseDTO> getLivroById(@PathVariable Integer id){
         LivroResponseDTO livroResponseGetDTO = livroResponseMapper.toDTO(livrosService.getLivroById(id));
@@ -122,6 +150,11 @@ public class LivrosController {
         return ResponseEntity.ok(exemplarDTO);
     }
 
+    @PatchMapping("/exemplares/realocar")
+    public ResponseEntity<RealocacaoExemplaresResponseDTO> realocarExemplares(@RequestBody RealocacaoExemplaresRequestDTO body){
+        return ResponseEntity.ok(livrosService.realocarExemplares(body));
+    }
+
     @GetMapping("/relatorio/export/pdf")
     public ResponseEntity<byte[]> exportLivrosMaisLidosPdf(
             @RequestParam(value = "dataInicio") LocalDate dataInicio,
@@ -0,0 +1,39 @@
+package com.bibliotech.bibliotech.controllers;
+
+import com.bibliotech.bibliotech.dtos.request.ReservaRequestDTO;
+import com.bibliotech.bibliotech.dtos.response.ReservaResponseDTO;
+import com.bibliotech.bibliotech.services.ReservasService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/reservas")
+public class ReservaController {
+
+    @Autowired
+    private ReservasService reservasService;
+
+    @PostMapping("")
+    public ResponseEntity<ReservaResponseDTO> reservar(@RequestBody ReservaRequestDTO requestDTO) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(reservasService.reservar(requestDTO));
+    }
+
+    @GetMapping("/livro/{idLivro}")
+    public ResponseEntity<List<ReservaResponseDTO>> listarFilaDoLivro(@PathVariable Integer idLivro) {
+        return ResponseEntity.ok(reservasService.listarFilaDoLivro(idLivro));
+    }
+
+    @GetMapping("/aluno/{idAluno}")
+    public ResponseEntity<List<ReservaResponseDTO>> listarReservasDoAluno(@PathVariable Integer idAluno) {
+        return ResponseEntity.ok(reservasService.listarReservasDoAluno(idAluno));
+    }
+
+    @PatchMapping("/cancelar/{id}")
+    public ResponseEntity<String> cancelarReserva(@PathVariable Integer id) {
+        return ResponseEntity.ok(reservasService.cancelarReserva(id));
+    }
+}
@@ -1,6 +1,8 @@
 package com.bibliotech.bibliotech.controllers;
 
+import com.bibliotech.bibliotech.dtos.request.PromocaoTurmaRequestDTO;
 import com.bibliotech.bibliotech.dtos.request.TurmaRequestDTO;
+import com.bibliotech.bibliotech.dtos.response.PromocaoTurmasResponseDTO;
 import com.bibliotech.bibliotech.dtos.response.TurmaResponseDTO;
 import com.bibliotech.bibliotech.dtos.response.mappers.TurmaResponseMapper;
 import com.bibliotech.bibliotech.models.Turma;
@@ -72,6 +74,11 @@ public class TurmaController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/promover")
+    public ResponseEntity<PromocaoTurmasResponseDTO> promoverTurmas(@RequestBody List<PromocaoTurmaRequestDTO> promocoes) {
+        return ResponseEntity.ok(turmasService.promoverTurmas(promocoes));
+    }
+
     @GetMapping("/mais-leitoras/export/pdf")
     public ResponseEntity<byte[]> exportTopLeitoresPdf(@RequestParam(required = false) LocalDate dataInicio, @RequestParam(required = false) LocalDate dataFim, @RequestParam(required = false) Integer qtdMax) {
         byte[] pdfBytes = pdfExportService.exportTurmasMaisLeitoras(turmasService.obterTurmasMaisLeitoras(dataInicio, dataFim, qtdMax));
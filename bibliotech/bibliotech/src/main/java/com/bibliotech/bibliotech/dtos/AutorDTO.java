@@ -1,10 +1,14 @@
 package com.bibliotech.bibliotech.dtos;
 
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Getter
 @Setter
+@NoArgsConstructor
+@AllArgsConstructor
 public class AutorDTO {
     private Integer id;
     private String nome;
@@ -1,6 +1,7 @@
 package com.bibliotech.bibliotech.dtos;
 
 import com.bibliotech.bibliotech.dtos.response.SecaoResponseDTO;
+import com.bibliotech.bibliotech.models.enums.SituacaoExemplar;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -12,5 +13,5 @@ public class ExemplarDTO {
     private SecaoResponseDTO secao;
     private String observacao;
     private Integer numero;
-    private String situacao = "disponivel";
+    private SituacaoExemplar situacao = SituacaoExemplar.disponivel;
 }
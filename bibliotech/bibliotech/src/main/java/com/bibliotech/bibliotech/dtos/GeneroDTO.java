@@ -1,10 +1,14 @@
 package com.bibliotech.bibliotech.dtos;
 
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Getter
 @Setter
+@NoArgsConstructor
+@AllArgsConstructor
 public class GeneroDTO {
     private Integer id;
     private String genero;
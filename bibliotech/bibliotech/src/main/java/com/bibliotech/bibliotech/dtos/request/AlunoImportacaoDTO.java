@@ -0,0 +1,15 @@
+package com.bibliotech.bibliotech.dtos.request;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Uma linha do arquivo de importacao de alunos, ja separada em campos
+@Getter
+@Setter
+public class AlunoImportacaoDTO {
+    private long linha;
+    private String nome;
+    private String email;
+    private String telefone;
+    private Integer idTurma;
+}
@@ -1,5 +1,6 @@
 package com.bibliotech.bibliotech.dtos.request;
 
+import com.bibliotech.bibliotech.models.enums.SituacaoAluno;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -11,5 +12,5 @@ public class AlunoRequestDTO {
     private String email;
     private String telefone;
     private Integer idTurma;
-    private String situacao;
+    private SituacaoAluno situacao;
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.bibliotech.bibliotech.dtos.request;
 
+import com.bibliotech.bibliotech.models.enums.SituacaoExemplar;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -9,6 +10,6 @@ public class ExemplarRequestPatchDTO {
     private Integer idLivro;
     private Integer idEstantePrateleira;
     private Integer idSecao;
-    private String situacao;
+    private SituacaoExemplar situacao;
     private String observacao;
 }
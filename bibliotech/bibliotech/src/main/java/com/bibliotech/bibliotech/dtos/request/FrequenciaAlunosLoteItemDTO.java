@@ -0,0 +1,15 @@
+package com.bibliotech.bibliotech.dtos.request;
+
+import com.bibliotech.bibliotech.models.enums.AtividadeFrequencia;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class FrequenciaAlunosLoteItemDTO {
+    @NotNull
+    private Integer idAluno;
+    @NotNull
+    private AtividadeFrequencia atividade;
+}
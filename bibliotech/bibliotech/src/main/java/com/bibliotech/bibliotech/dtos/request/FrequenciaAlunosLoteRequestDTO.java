@@ -0,0 +1,21 @@
+package com.bibliotech.bibliotech.dtos.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+// Frequencias do dia de varios alunos registradas pelo mesmo usuario (inicio de um periodo)
+@Getter
+@Setter
+public class FrequenciaAlunosLoteRequestDTO {
+    @NotNull
+    private Integer registradaPor; //id do usuario
+    @NotEmpty
+    @Size(max = 500)
+    private List<@Valid FrequenciaAlunosLoteItemDTO> frequencias;
+}
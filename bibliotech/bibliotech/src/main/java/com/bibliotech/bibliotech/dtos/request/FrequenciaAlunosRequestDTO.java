@@ -1,7 +1,7 @@
 package com.bibliotech.bibliotech.dtos.request;
 
+import com.bibliotech.bibliotech.models.enums.AtividadeFrequencia;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Pattern;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -15,6 +15,5 @@ public class FrequenciaAlunosRequestDTO {
     @NotNull
     private Integer registradaPor; //id do usuario
     @NotNull
-    @Pattern(regexp = "^(lendo|celula_de_estudo|estudo_individual|descansando|outros)$")
-    private String atividade;
+    private AtividadeFrequencia atividade;
 }
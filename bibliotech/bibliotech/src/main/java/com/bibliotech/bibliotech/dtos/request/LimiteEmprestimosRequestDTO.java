@@ -0,0 +1,11 @@
+package com.bibliotech.bibliotech.dtos.request;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class LimiteEmprestimosRequestDTO {
+    // null = volta ao limite padrao (bibliotech.emprestimos.limite-padrao)
+    private Integer limiteEmprestimos;
+}
@@ -0,0 +1,20 @@
+package com.bibliotech.bibliotech.dtos.request;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+// Uma linha do arquivo de importacao do acervo, ja separada em campos
+@Getter
+@Setter
+public class LivroImportacaoDTO {
+    private long linha;
+    private String titulo;
+    private String isbn;
+    private List<String> autores;
+    private List<String> generos;
+    private Integer qtdExemplares;
+    private Integer idSecao;
+    private Integer idEstanteprateleira;
+}
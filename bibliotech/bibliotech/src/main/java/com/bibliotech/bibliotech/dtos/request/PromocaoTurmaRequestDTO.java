@@ -0,0 +1,14 @@
+package com.bibliotech.bibliotech.dtos.request;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class PromocaoTurmaRequestDTO {
+    private Integer idTurmaOrigem;
+    // null = alunos ativos da turma de origem sao inativados (formandos)
+    private Integer idTurmaDestino;
+    // padrao true: a turma de origem fica inativa depois da promocao
+    private Boolean inativarTurmaOrigem;
+}
@@ -0,0 +1,18 @@
+package com.bibliotech.bibliotech.dtos.request;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class RealocacaoExemplaresRequestDTO {
+    // filtros combinados com E; pelo menos um e obrigatorio
+    private Integer idLivro;
+    private Integer idEstanteprateleiraOrigem;
+    private List<Integer> idsExemplares;
+
+    private Integer idEstanteprateleiraDestino;
+    private Integer idSecaoDestino;
+}
@@ -0,0 +1,11 @@
+package com.bibliotech.bibliotech.dtos.request;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ReservaRequestDTO {
+    private Integer idAluno;
+    private Integer idLivro;
+}
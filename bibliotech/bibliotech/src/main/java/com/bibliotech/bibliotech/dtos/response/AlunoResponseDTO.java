@@ -1,5 +1,6 @@
 package com.bibliotech.bibliotech.dtos.response;
 
+import com.bibliotech.bibliotech.models.enums.SituacaoAluno;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -11,6 +12,6 @@ public class AlunoResponseDTO {
     private String email;
     private String telefone;
     private TurmaResponseDTO turma;
-    private String situacao;
+    private SituacaoAluno situacao;
     private boolean ativo;
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import com.bibliotech.bibliotech.models.enums.AtividadeFrequencia;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class AnaliseFrequenciaPeriodoDTO {
+    // dia, ou a semana recortada pelo intervalo pedido
+    private LocalDate inicio;
+    private LocalDate fim;
+    private long total;
+    // todas as atividades, com zero nas que nao aparecem
+    private Map<AtividadeFrequencia, Long> porAtividade;
+    // turma atual do aluno ("1º A - 2025"), ou "Sem turma"
+    private Map<String, Long> porTurma;
+    // hora do registro ("07h"), ou "Sem horário" nas frequencias anteriores ao registro da hora
+    private Map<String, Long> porHora;
+}
@@ -0,0 +1,23 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import com.bibliotech.bibliotech.models.enums.AgrupamentoFrequencia;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class AnaliseFrequenciaResponseDTO {
+    private LocalDate dataInicio;
+    private LocalDate dataFim;
+    private AgrupamentoFrequencia agrupamento;
+    private long total;
+    // so os periodos com alguma frequencia, do mais antigo para o mais recente
+    private List<AnaliseFrequenciaPeriodoDTO> periodos;
+}
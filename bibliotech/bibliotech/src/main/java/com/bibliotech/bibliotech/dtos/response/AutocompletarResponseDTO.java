@@ -0,0 +1,16 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutocompletarResponseDTO {
+    private Integer id;
+    private String nome;
+    private Long qtdLivros;
+}
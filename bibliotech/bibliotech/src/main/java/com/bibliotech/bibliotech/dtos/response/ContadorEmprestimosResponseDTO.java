@@ -0,0 +1,20 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ContadorEmprestimosResponseDTO {
+    private Integer idAluno;
+    private int emprestimosAtivos;
+    private int emprestimosAtrasados;
+    private int extravios;
+    // limite proprio do aluno ou o padrao, quando ele nao tem um
+    private int limiteEmprestimos;
+    private boolean limitePadrao;
+}
@@ -0,0 +1,23 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ElegibilidadeEmprestimoResponseDTO {
+    private Integer idAluno;
+    private Integer idExemplar;
+    private boolean permitido;
+    // vazio quando permitido; mesmas mensagens que POST /emprestimos devolveria
+    private List<String> motivos;
+    // null quando o aluno nao foi informado ou nao existe
+    private Integer emprestimosAtivos;
+    private Integer limiteEmprestimos;
+}
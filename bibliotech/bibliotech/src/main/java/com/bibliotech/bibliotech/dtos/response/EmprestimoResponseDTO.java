@@ -1,10 +1,15 @@
 package com.bibliotech.bibliotech.dtos.response;
 
+import com.bibliotech.bibliotech.models.enums.SituacaoEmprestimo;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDate;
 
+@NoArgsConstructor
+@AllArgsConstructor
 @Getter
 @Setter
 public class EmprestimoResponseDTO {
@@ -24,5 +29,5 @@ public class EmprestimoResponseDTO {
     private LocalDate dataPrazo;
     private LocalDate dataConclusao;
     private Integer qtdRenovacao;
-    private String situacao;
+    private SituacaoEmprestimo situacao;
 }
\ No newline at end of file
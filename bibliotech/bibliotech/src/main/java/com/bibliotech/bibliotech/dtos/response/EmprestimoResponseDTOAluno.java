@@ -1,10 +1,15 @@
 package com.bibliotech.bibliotech.dtos.response;
 
+import com.bibliotech.bibliotech.models.enums.SituacaoEmprestimo;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDate;
 
+@NoArgsConstructor
+@AllArgsConstructor
 @Getter
 @Setter
 public class EmprestimoResponseDTOAluno {
@@ -15,5 +20,5 @@ public class EmprestimoResponseDTOAluno {
     private String isbn;
     private LocalDate dataEmprestimo;
     private LocalDate dataConclusao;
-    private String situacao;
+    private SituacaoEmprestimo situacao;
 }
\ No newline at end of file
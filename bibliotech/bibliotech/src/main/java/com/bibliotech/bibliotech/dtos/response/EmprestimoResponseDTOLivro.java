@@ -1,10 +1,15 @@
 package com.bibliotech.bibliotech.dtos.response;
 
+import com.bibliotech.bibliotech.models.enums.SituacaoEmprestimo;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDate;
 
+@NoArgsConstructor
+@AllArgsConstructor
 @Getter
 @Setter
 public class EmprestimoResponseDTOLivro {
@@ -17,5 +22,5 @@ public class EmprestimoResponseDTOLivro {
     private String turmaAluno;
     private LocalDate dataEmprestimo;
     private LocalDate dataConclusao;
-    private String situacao;
+    private SituacaoEmprestimo situacao;
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import com.bibliotech.bibliotech.models.enums.SituacaoEmprestimo;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class EstadoEmprestimoDTO {
+    private Integer idEmprestimo;
+    private Integer idAluno;
+    private Integer idExemplar;
+    private LocalDate dataEmprestimo;
+    private SituacaoEmprestimo situacao;
+    private LocalDate dataPrazo;
+    private Integer qtdRenovacao;
+    private LocalDate dataConclusao;
+    // evento que deixou o emprestimo nesse estado
+    private String ultimoEvento;
+    private LocalDateTime dataUltimoEvento;
+}
@@ -0,0 +1,22 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class EventoEmprestimoDTO {
+    private String acao; // "realizado", "renovado", "concluido", "extraviado", "cancelado"
+    private Integer idEmprestimo;
+    private Integer idAluno;
+    private Integer idExemplar;
+    private Integer idLivro;
+    private String situacao;
+    private LocalDate dataPrazo;
+}
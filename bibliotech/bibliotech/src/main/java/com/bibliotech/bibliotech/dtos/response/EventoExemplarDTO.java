@@ -0,0 +1,18 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import com.bibliotech.bibliotech.models.enums.SituacaoExemplar;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class EventoExemplarDTO {
+    private Integer idExemplar;
+    private Integer idLivro;
+    private Integer numero;
+    private SituacaoExemplar situacao;
+}
@@ -0,0 +1,21 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class FrequenciaAlunosLoteResponseDTO {
+    // gravadas no banco nesta requisicao
+    private int registradas;
+    // aceitas no buffer, gravadas na proxima descarga
+    private int enfileiradas;
+    // alunos que ja tinham frequencia no dia (no banco ou no buffer); ficam com a que ja existia
+    private List<Integer> idsAlunosJaRegistrados;
+}
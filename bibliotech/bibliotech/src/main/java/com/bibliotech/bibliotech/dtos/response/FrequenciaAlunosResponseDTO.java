@@ -1,5 +1,6 @@
 package com.bibliotech.bibliotech.dtos.response;
 
+import com.bibliotech.bibliotech.models.enums.AtividadeFrequencia;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -11,6 +12,6 @@ public class FrequenciaAlunosResponseDTO {
     private Integer id;
     private AlunoResponseDTO aluno;
     private UsuarioResponseDTO registradaPor;
-    private String atividade;
+    private AtividadeFrequencia atividade;
     private LocalDate data;
 }
@@ -0,0 +1,27 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import com.bibliotech.bibliotech.models.enums.SituacaoEmprestimo;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class HistoricoEmprestimoDTO {
+    private Long idEvento;
+    private String tipo;
+    private LocalDateTime dataEvento;
+    // estado do emprestimo depois do evento
+    private SituacaoEmprestimo situacao;
+    private LocalDate dataPrazo;
+    private Integer qtdRenovacao;
+    private LocalDate dataConclusao;
+    private String observacao;
+    private Integer idRegistradoPor;
+}
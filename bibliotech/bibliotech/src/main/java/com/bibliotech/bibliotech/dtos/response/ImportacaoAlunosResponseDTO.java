@@ -0,0 +1,19 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class ImportacaoAlunosResponseDTO {
+    private long linhasLidas;
+    private long alunosImportados;
+    private long linhasRejeitadas;
+    private int lotes;
+    private List<ImportacaoAlunosErroDTO> erros = new ArrayList<>();
+    // true quando havia mais erros do que o limite guardado na resposta
+    private boolean errosTruncados;
+}
@@ -0,0 +1,16 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ImportacaoLivrosErroDTO {
+    private long linha;
+    private String isbn;
+    private String mensagem;
+}
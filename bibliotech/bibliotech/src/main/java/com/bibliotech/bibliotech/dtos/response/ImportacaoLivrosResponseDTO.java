@@ -0,0 +1,20 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class ImportacaoLivrosResponseDTO {
+    private long linhasLidas;
+    private long livrosImportados;
+    private long exemplaresCriados;
+    private long linhasRejeitadas;
+    private int lotes;
+    private List<ImportacaoLivrosErroDTO> erros = new ArrayList<>();
+    // true quando havia mais erros do que o limite guardado na resposta
+    private boolean errosTruncados;
+}
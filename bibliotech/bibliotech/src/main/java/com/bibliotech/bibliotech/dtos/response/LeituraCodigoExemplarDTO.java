@@ -0,0 +1,22 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import com.bibliotech.bibliotech.models.enums.SituacaoExemplar;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class LeituraCodigoExemplarDTO {
+    private Integer idExemplar;
+    private Integer numero;
+    private SituacaoExemplar situacao;
+    private Integer idEstanteprateleira;
+    private String estante;
+    private Integer prateleira;
+    private Integer idSecao;
+    private String secao;
+}
@@ -0,0 +1,20 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class LeituraCodigoResponseDTO {
+    private Integer idLivro;
+    private String isbn;
+    private String titulo;
+    // todos os exemplares do livro para um ISBN; so o exemplar lido para uma etiqueta ISBN+numero
+    private List<LeituraCodigoExemplarDTO> exemplares;
+}
@@ -0,0 +1,20 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MapaEstanteDTO {
+    private Integer idEstanteprateleira;
+    private String estante;
+    private Integer prateleira;
+    private List<MapaEstanteSecaoDTO> secoes = new ArrayList<>();
+}
@@ -0,0 +1,22 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MapaEstanteSecaoDTO {
+    private Integer idSecao;
+    private String secao;
+    private long total;
+    private long disponiveis;
+    private long emprestados;
+    private long extraviados;
+    // separados para reservas (ver ReservasService)
+    private long reservados;
+    private long titulos;
+}
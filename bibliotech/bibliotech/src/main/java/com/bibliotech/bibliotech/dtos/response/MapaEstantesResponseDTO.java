@@ -0,0 +1,18 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MapaEstantesResponseDTO {
+    private LocalDateTime geradoEm;
+    private List<MapaEstanteDTO> estantes;
+}
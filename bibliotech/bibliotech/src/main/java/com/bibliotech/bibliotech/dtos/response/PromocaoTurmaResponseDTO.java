@@ -0,0 +1,17 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class PromocaoTurmaResponseDTO {
+    private Integer idTurmaOrigem;
+    private Integer idTurmaDestino;
+    private int alunosMovidos;
+    private int alunosInativados;
+}
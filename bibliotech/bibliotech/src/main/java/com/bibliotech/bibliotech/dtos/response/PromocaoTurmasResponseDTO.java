@@ -0,0 +1,17 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class PromocaoTurmasResponseDTO {
+    private int alunosMovidos;
+    private int alunosInativados;
+    private int turmasInativadas;
+    // na ordem em que as promocoes foram executadas
+    private List<PromocaoTurmaResponseDTO> promocoes = new ArrayList<>();
+}
@@ -0,0 +1,19 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class RealocacaoExemplaresResponseDTO {
+    private Integer idEstanteprateleiraDestino;
+    private Integer idSecaoDestino;
+    // exemplares que atendem ao filtro
+    private int exemplaresEncontrados;
+    // encontrados que ainda nao estavam no destino
+    private int exemplaresMovidos;
+}
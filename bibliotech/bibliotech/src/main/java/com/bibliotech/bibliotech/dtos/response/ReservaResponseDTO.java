@@ -0,0 +1,30 @@
+package com.bibliotech.bibliotech.dtos.response;
+
+import com.bibliotech.bibliotech.models.enums.SituacaoReserva;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ReservaResponseDTO {
+    private Integer id;
+    private Integer idAluno;
+    private String nomeAluno;
+    private Integer idLivro;
+    private String titulo;
+    private SituacaoReserva situacao;
+    // so para reservas 'aguardando'; 1 = proxima a receber um exemplar
+    private Long posicao;
+    // exemplar separado e prazo para retirada, so para reservas 'disponivel'
+    private Integer idExemplar;
+    private Integer numeroExemplar;
+    private LocalDate prazoRetirada;
+    private LocalDateTime dataReserva;
+}
@@ -2,8 +2,6 @@ package com.bibliotech.bibliotech.dtos.response.mappers;
 
 import com.bibliotech.bibliotech.dtos.response.EmprestimoNotificacaoDTO;
 import com.bibliotech.bibliotech.dtos.response.EmprestimoResponseDTO;
-import com.bibliotech.bibliotech.dtos.response.EmprestimoResponseDTOAluno;
-import com.bibliotech.bibliotech.dtos.response.EmprestimoResponseDTOLivro;
 import com.bibliotech.bibliotech.models.Emprestimo;
 import org.springframework.stereotype.Component;
 
@@ -36,38 +34,6 @@ public class EmprestimoResponseMapper {
         return dto;
     }
 
-    public EmprestimoResponseDTOAluno toDTOAluno(Emprestimo emprestimo) {
-        EmprestimoResponseDTOAluno dto = new EmprestimoResponseDTOAluno();
-
-        dto.setId(emprestimo.getId());
-        dto.setExemplarId(emprestimo.getExemplar().getId());
-        dto.setNumeroExemplar(emprestimo.getExemplar().getNumero());
-        dto.setTituloLivro(emprestimo.getExemplar().getLivro().getTitulo());
-        dto.setIsbn(emprestimo.getExemplar().getLivro().getIsbn());
-        dto.setDataEmprestimo(emprestimo.getDataEmprestimo());
-        dto.setDataConclusao(emprestimo.getDataConclusao());
-        dto.setSituacao(emprestimo.getSituacao());
-
-        return dto;
-    }
-
-    public EmprestimoResponseDTOLivro toDTOLivro(Emprestimo emprestimo) {
-        EmprestimoResponseDTOLivro dto = new EmprestimoResponseDTOLivro();
-
-        dto.setId(emprestimo.getId());
-        dto.setAlunoId(emprestimo.getAluno().getId());
-        dto.setExemplarId(emprestimo.getExemplar().getId());
-        dto.setNumeroExemplar(emprestimo.getExemplar().getNumero());
-        dto.setNomeAluno(emprestimo.getAluno().getNome());
-        dto.setSerieAluno(emprestimo.getAluno().getTurma().getSerie());
-        dto.setTurmaAluno(emprestimo.getAluno().getTurma().getTurma());
-        dto.setDataEmprestimo(emprestimo.getDataEmprestimo());
-        dto.setDataConclusao(emprestimo.getDataConclusao());
-        dto.setSituacao(emprestimo.getSituacao());
-
-        return dto;
-    }
-
     public EmprestimoNotificacaoDTO toDTONotificacao(Emprestimo emprestimo) {
         EmprestimoNotificacaoDTO dto = new EmprestimoNotificacaoDTO();
 
@@ -4,6 +4,7 @@ import com.bibliotech.bibliotech.dtos.mappers.AutorMapper;
 import com.bibliotech.bibliotech.dtos.mappers.GeneroMapper;
 import com.bibliotech.bibliotech.dtos.response.LivroResponseGetDTO;
 import com.bibliotech.bibliotech.models.Livro;
+import com.bibliotech.bibliotech.models.enums.SituacaoExemplar;
 import org.springframework.stereotype.Component;
 
 import java.util.Collections;
@@ -26,9 +27,9 @@ public class LivroResponseGetMapper {
         livroResponseGetDTO.setGeneros(generoMapper.toDTOList(livro.getGeneros()));
         livroResponseGetDTO.setAutores(autorMapper.toDTOList(livro.getAutores()));
         livroResponseGetDTO.setTotalExemplares(livro.getExemplares().size());
-        livroResponseGetDTO.setTotalEmprestados(livro.getExemplares().stream().filter(exemplar -> exemplar.getSituacao().equals("emprestado")).collect(Collectors.toList()).size());
-        livroResponseGetDTO.setTotalDisponiveis(livro.getExemplares().stream().filter(exemplar -> exemplar.getSituacao().equals("disponivel")).collect(Collectors.toList()).size());
-        livroResponseGetDTO.setTotalExtraviados(livro.getExemplares().stream().filter(exemplar -> exemplar.getSituacao().equals("extraviado")).collect(Collectors.toList()).size());
+        livroResponseGetDTO.setTotalEmprestados(livro.getExemplares().stream().filter(exemplar -> exemplar.getSituacao() == SituacaoExemplar.emprestado).collect(Collectors.toList()).size());
+        livroResponseGetDTO.setTotalDisponiveis(livro.getExemplares().stream().filter(exemplar -> exemplar.getSituacao() == SituacaoExemplar.disponivel).collect(Collectors.toList()).size());
+        livroResponseGetDTO.setTotalExtraviados(livro.getExemplares().stream().filter(exemplar -> exemplar.getSituacao() == SituacaoExemplar.extraviado).collect(Collectors.toList()).size());
 
         return livroResponseGetDTO;
     }
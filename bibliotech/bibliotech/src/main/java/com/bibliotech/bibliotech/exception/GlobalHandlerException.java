@@ -1,11 +1,14 @@
 package com.bibliotech.bibliotech.exception;
 
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import java.util.Arrays;
 import java.util.List;
 
 @RestControllerAdvice
@@ -28,13 +31,28 @@ public class GlobalHandlerException {
     // Tratamento de erro de conversão de JSON (se eu coloco um campo do tipo String onde deveria ser um Integer, por exemplo)
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<ErrorResponse> handleHttpMessageNotReadableException(HttpMessageNotReadableException ex) {
+        String mensagem = "Corpo da requisição inválido";
+        // situacao/atividade fora dos valores do enum
+        if (ex.getCause() instanceof InvalidFormatException causa && causa.getTargetType().isEnum() && !causa.getPath().isEmpty()) {
+            mensagem = valorInvalido(causa.getPath().get(causa.getPath().size() - 1).getFieldName(), causa.getTargetType());
+        }
         ErrorResponse errorResponse = new ErrorResponse(
                 "Erro de conversão",
-                List.of("Corpo da requisição inválido")
+                List.of(mensagem)
         );
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
 
+    // Parametro de URL com tipo errado (ex.: ?situacao=xyz num filtro por situacao)
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ErrorResponse> handleMethodArgumentTypeMismatchException(MethodArgumentTypeMismatchException ex) {
+        Class<?> tipo = ex.getRequiredType();
+        String mensagem = tipo != null && tipo.isEnum()
+                ? valorInvalido(ex.getName(), tipo)
+                : "Valor inválido para '" + ex.getName() + "'";
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse("Erro de conversão", List.of(mensagem)));
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex) {
         ErrorResponse errorResponse = new ErrorResponse(
@@ -49,4 +67,8 @@ public class GlobalHandlerException {
         ex.printStackTrace(); // Log do erro
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ErrorResponse("Erro interno do servidor", List.of("Ocorreu um erro inesperado. Tente novamente mais tarde.")));
     }
+
+    private String valorInvalido(String campo, Class<?> tipoEnum) {
+        return "Valor inválido para '" + campo + "'. Valores aceitos: " + Arrays.toString(tipoEnum.getEnumConstants());
+    }
 }
@@ -1,9 +1,12 @@
 package com.bibliotech.bibliotech.models;
 
+import com.bibliotech.bibliotech.models.enums.SituacaoAluno;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.util.LinkedHashSet;
 import java.util.Set;
@@ -14,7 +17,8 @@ import java.util.Set;
 @Table(name = "aluno")
 public class Aluno {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "aluno_id_seq")
+    @SequenceGenerator(name = "aluno_id_seq", sequenceName = "aluno_id_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Integer id;
 
@@ -35,12 +39,14 @@ public class Aluno {
     @Column(name = "ativo", nullable = false)
     private Boolean ativo = true;
 
-    @Column(name = "situacao", length = 20)
-    private String situacao;
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.NAMED_ENUM)
+    @Column(name = "situacao")
+    private SituacaoAluno situacao;
 
     @PrePersist
     public void prePersist() {
         this.ativo = true;
-        this.situacao = "regular";
+        this.situacao = SituacaoAluno.regular;
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.bibliotech.bibliotech.models;
 
+import com.bibliotech.bibliotech.utils.NormalizarNome;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
@@ -13,7 +14,7 @@ import java.util.Set;
 @Getter
 @Setter
 @Entity
-@Table(name = "autor")
+@Table(name = "autor", uniqueConstraints = @UniqueConstraint(name = "autor_nome_normalizado_key", columnNames = "nome_normalizado"))
 public class Autor {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -23,7 +24,18 @@ public class Autor {
     @Column(name = "nome", nullable = false)
     private String nome;
 
+    // Chave sem acentos/maiusculas usada pelo dicionario e pela constraint unica (ver NormalizarNome)
+    @JsonIgnore
+    @Column(name = "nome_normalizado")
+    private String nomeNormalizado;
+
     @JsonIgnore
     @ManyToMany(fetch = FetchType.EAGER)
     private List<Livro> livros;
+
+    @PrePersist
+    @PreUpdate
+    public void normalizarNome() {
+        this.nomeNormalizado = NormalizarNome.normalizar(this.nome);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.bibliotech.bibliotech.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Ultimo evento da outbox entregue pelo relay, na ordem (transacao, id) em que os eventos sao lidos
+@Getter
+@Setter
+@Entity
+@Table(name = "checkpointrelay")
+public class CheckpointRelay {
+    @Id
+    @Column(name = "nome", length = 50, nullable = false)
+    private String nome;
+
+    @Column(name = "ultima_transacao", nullable = false)
+    private Long ultimaTransacao;
+
+    @Column(name = "ultimo_id", nullable = false)
+    private Long ultimoId;
+
+    @Column(name = "data_atualizacao", nullable = false)
+    private LocalDateTime dataAtualizacao;
+}
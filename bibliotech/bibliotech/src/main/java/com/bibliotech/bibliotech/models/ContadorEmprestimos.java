@@ -0,0 +1,48 @@
+package com.bibliotech.bibliotech.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+// Situacao de emprestimos de cada aluno, mantida pelo ContadorEmprestimosService na mesma transacao que muda o emprestimo.
+// As gravacoes sao feitas por UPDATE atomico (ver ContadorEmprestimosRepository); a entidade serve para leitura e DDL
+@Getter
+@Setter
+@Entity
+@Table(name = "contadoremprestimos")
+public class ContadorEmprestimos {
+    @Id
+    @Column(name = "id_aluno", nullable = false)
+    private Integer idAluno;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "id_aluno", nullable = false)
+    private Aluno aluno;
+
+    // pendentes + atrasados
+    @ColumnDefault("0")
+    @Column(name = "emprestimos_ativos", nullable = false)
+    private Integer emprestimosAtivos = 0;
+
+    @ColumnDefault("0")
+    @Column(name = "emprestimos_atrasados", nullable = false)
+    private Integer emprestimosAtrasados = 0;
+
+    @ColumnDefault("0")
+    @Column(name = "extravios", nullable = false)
+    private Integer extravios = 0;
+
+    // parte de extravios que estava em particoes de emprestimo ja arquivadas
+    @ColumnDefault("0")
+    @Column(name = "extravios_arquivados", nullable = false)
+    private Integer extraviosArquivados = 0;
+
+    // null = bibliotech.emprestimos.limite-padrao
+    @Column(name = "limite_emprestimos")
+    private Integer limiteEmprestimos;
+}
@@ -1,11 +1,14 @@
 package com.bibliotech.bibliotech.models;
 
+import com.bibliotech.bibliotech.models.enums.SituacaoEmprestimo;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDate;
 
@@ -37,8 +40,10 @@ public class Emprestimo {
     @Column(name = "qtd_renovacao")
     private Integer qtdRenovacao;
 
-    @Column(name = "situacao", length = 20)
-    private String situacao; // "pendente", "entregue", "atrasado", "extraviado", "cancelado"
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.NAMED_ENUM)
+    @Column(name = "situacao")
+    private SituacaoEmprestimo situacao;
 
     @Column(name = "observacao", length = 500)
     private String observacao;
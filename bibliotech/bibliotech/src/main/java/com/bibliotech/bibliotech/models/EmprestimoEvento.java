@@ -0,0 +1,71 @@
+package com.bibliotech.bibliotech.models;
+
+import com.bibliotech.bibliotech.models.enums.SituacaoEmprestimo;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Historico do emprestimo: uma linha por transicao com o estado completo depois dela, gravada na mesma transacao
+// (ver HistoricoEmprestimosService). Nunca e alterada nem removida; o estado numa data e a ultima linha ate ela.
+// A tabela e particionada por mes e criada em db/migration/V3__particionamento.sql
+@Getter
+@Setter
+@Entity
+@Immutable
+@Table(name = "emprestimo_evento")
+public class EmprestimoEvento {
+    @Id
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "id_emprestimo", nullable = false)
+    private Integer idEmprestimo;
+
+    @Column(name = "tipo", length = 20, nullable = false)
+    private String tipo; // "realizado", "renovado", "atrasado", "concluido", "extraviado", "cancelado", "importado"
+
+    @Column(name = "id_aluno", nullable = false)
+    private Integer idAluno;
+
+    @Column(name = "id_exemplar", nullable = false)
+    private Integer idExemplar;
+
+    @Column(name = "data_emprestimo", nullable = false)
+    private LocalDate dataEmprestimo;
+
+    @Column(name = "data_prazo", nullable = false)
+    private LocalDate dataPrazo;
+
+    @Column(name = "qtd_renovacao")
+    private Integer qtdRenovacao;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.NAMED_ENUM)
+    @Column(name = "situacao", nullable = false)
+    private SituacaoEmprestimo situacao;
+
+    @Column(name = "observacao", length = 500)
+    private String observacao;
+
+    @Column(name = "realizado_por")
+    private Integer realizadoPor;
+
+    @Column(name = "concluido_por")
+    private Integer concluidoPor;
+
+    @Column(name = "data_conclusao")
+    private LocalDate dataConclusao;
+
+    // usuario que fez a transicao; null nas feitas pelo agendamento (atrasado) e na importacao
+    @Column(name = "registrado_por")
+    private Integer registradoPor;
+
+    @Column(name = "data_evento", nullable = false)
+    private LocalDateTime dataEvento;
+}
@@ -0,0 +1,53 @@
+package com.bibliotech.bibliotech.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Outbox: uma linha por transicao de emprestimo, gravada na mesma transacao que a transicao (ver EventosDominioService)
+// e entregue aos @EventListener pelo RelayEventosDominioService. So ids, sem associacoes, para a linha sobreviver a
+// exclusao do aluno ou do exemplar
+@Getter
+@Setter
+@Entity
+@Table(name = "eventodominio", indexes = @Index(name = "eventodominio_relay_idx", columnList = "transacao, id"))
+public class EventoDominio {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "tipo", length = 40, nullable = false)
+    private String tipo; // "emprestimo.realizado", ".renovado", ".atrasado", ".concluido", ".extraviado", ".cancelado"
+
+    @Column(name = "id_emprestimo", nullable = false)
+    private Integer idEmprestimo;
+
+    @Column(name = "id_aluno", nullable = false)
+    private Integer idAluno;
+
+    @Column(name = "id_exemplar", nullable = false)
+    private Integer idExemplar;
+
+    @Column(name = "id_livro", nullable = false)
+    private Integer idLivro;
+
+    @Column(name = "situacao_anterior", length = 20)
+    private String situacaoAnterior;
+
+    @Column(name = "situacao_nova", length = 20, nullable = false)
+    private String situacaoNova;
+
+    @Column(name = "data_prazo")
+    private LocalDate dataPrazo;
+
+    // id da transacao do Postgres que gravou o evento: o relay so le eventos de transacoes ja encerradas
+    @Column(name = "transacao", nullable = false)
+    private Long transacao;
+
+    @Column(name = "data_criacao", nullable = false)
+    private LocalDateTime dataCriacao;
+}
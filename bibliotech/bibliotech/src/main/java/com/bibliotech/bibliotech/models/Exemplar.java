@@ -1,16 +1,22 @@
 package com.bibliotech.bibliotech.models;
 
+import com.bibliotech.bibliotech.models.enums.SituacaoExemplar;
+import com.bibliotech.bibliotech.services.ExemplarListener;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 @Getter
 @Setter
 @Entity
 @Table(name = "exemplar")
+@EntityListeners(ExemplarListener.class)
 public class Exemplar {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "exemplar_id_seq")
+    @SequenceGenerator(name = "exemplar_id_seq", sequenceName = "exemplar_id_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Integer id;
 
@@ -32,12 +38,14 @@ public class Exemplar {
     @Column(name = "numero", nullable = false)
     private Integer numero;
 
-    @Column(name = "situacao", length = 10)
-    private String situacao = "disponivel"; // "disponivel", "emprestado", "extraviado"
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.NAMED_ENUM)
+    @Column(name = "situacao")
+    private SituacaoExemplar situacao = SituacaoExemplar.disponivel;
 
     @PrePersist
     public void prePersist() {
-        this.situacao = "disponivel";
+        this.situacao = SituacaoExemplar.disponivel;
         this.observacao = "";
     }
 }
\ No newline at end of file
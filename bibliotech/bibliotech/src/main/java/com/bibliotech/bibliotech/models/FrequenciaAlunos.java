@@ -1,10 +1,14 @@
 package com.bibliotech.bibliotech.models;
 
+import com.bibliotech.bibliotech.models.enums.AtividadeFrequencia;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 
 @Getter
 @Setter
@@ -24,9 +28,15 @@ public class FrequenciaAlunos {
     @JoinColumn(name = "registrada_por", nullable = false)
     private Usuario registradaPor;
 
-    @Column(name = "atividade" , length = 20, nullable = false)
-    private String atividade; // 'lendo', 'celula_de_estudo', 'estudo_individual', 'descansando', 'outros'
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.NAMED_ENUM)
+    @Column(name = "atividade", nullable = false)
+    private AtividadeFrequencia atividade;
 
     @Column(name = "data_frequencia", nullable = false)
     private LocalDate data;
+
+    // nula nas frequencias registradas antes de db/migration/V6__frequencia_hora_registro.sql
+    @Column(name = "hora_registro")
+    private LocalTime horaRegistro;
 }
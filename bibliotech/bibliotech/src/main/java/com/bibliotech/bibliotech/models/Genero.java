@@ -1,5 +1,6 @@
 package com.bibliotech.bibliotech.models;
 
+import com.bibliotech.bibliotech.utils.NormalizarNome;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
@@ -13,7 +14,7 @@ import java.util.Set;
 @Getter
 @Setter
 @Entity
-@Table(name = "genero")
+@Table(name = "genero", uniqueConstraints = @UniqueConstraint(name = "genero_genero_normalizado_key", columnNames = "genero_normalizado"))
 public class Genero {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -23,7 +24,18 @@ public class Genero {
     @Column(name = "genero", nullable = false)
     private String genero;
 
+    // Chave sem acentos/maiusculas usada pelo dicionario e pela constraint unica (ver NormalizarNome)
+    @JsonIgnore
+    @Column(name = "genero_normalizado")
+    private String generoNormalizado;
+
     @JsonIgnore
     @ManyToMany(fetch = FetchType.EAGER)
     private List<Livro> livros;
+
+    @PrePersist
+    @PreUpdate
+    public void normalizarGenero() {
+        this.generoNormalizado = NormalizarNome.normalizar(this.genero);
+    }
 }
\ No newline at end of file
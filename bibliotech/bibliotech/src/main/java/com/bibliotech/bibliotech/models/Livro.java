@@ -16,7 +16,8 @@ import java.util.Set;
 @Table(name = "livro")
 public class Livro {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "livro_id_seq")
+    @SequenceGenerator(name = "livro_id_seq", sequenceName = "livro_id_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Integer id;
 
@@ -14,7 +14,8 @@ import org.hibernate.annotations.OnDeleteAction;
 @Table(name = "livroautor")
 public class Livroautor {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "livroautor_id_seq")
+    @SequenceGenerator(name = "livroautor_id_seq", sequenceName = "livroautor_id_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Integer id;
 
@@ -12,7 +12,8 @@ import org.hibernate.annotations.OnDeleteAction;
 @Table(name = "livrogenero")
 public class Livrogenero {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "livrogenero_id_seq")
+    @SequenceGenerator(name = "livrogenero_id_seq", sequenceName = "livrogenero_id_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Integer id;
 
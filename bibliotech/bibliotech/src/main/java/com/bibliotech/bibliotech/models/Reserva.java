@@ -0,0 +1,67 @@
+package com.bibliotech.bibliotech.models;
+
+import com.bibliotech.bibliotech.models.enums.SituacaoReserva;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Fila de espera por um livro sem exemplar disponivel. A fila de cada livro e a ordem de (data_reserva, id) entre as
+// reservas 'aguardando'; o exemplar devolvido vai para a primeira delas num UPDATE condicional (ver ReservaRepository)
+@Getter
+@Setter
+@Entity
+@Table(name = "reserva",
+        uniqueConstraints = @UniqueConstraint(name = "reserva_aberta_key", columnNames = {"id_aluno", "id_livro", "aberta"}),
+        indexes = {
+                @Index(name = "reserva_fila_idx", columnList = "id_livro, situacao, data_reserva, id"),
+                @Index(name = "reserva_aluno_idx", columnList = "id_aluno, situacao")
+        })
+public class Reserva {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Integer id;
+
+    @ManyToOne(fetch = FetchType.EAGER, optional = false)
+    @JoinColumn(name = "id_aluno", nullable = false)
+    private Aluno aluno;
+
+    @ManyToOne(fetch = FetchType.EAGER, optional = false)
+    @JoinColumn(name = "id_livro", nullable = false)
+    private Livro livro;
+
+    // exemplar separado para o aluno, a partir de 'disponivel'
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "id_exemplar")
+    private Exemplar exemplar;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.NAMED_ENUM)
+    @Column(name = "situacao", nullable = false)
+    private SituacaoReserva situacao;
+
+    // true enquanto a reserva esta aguardando ou disponivel, null depois; com a unique de (id_aluno, id_livro, aberta)
+    // o aluno tem no maximo uma reserva aberta por livro (o Postgres nao compara nulls na unique)
+    @Column(name = "aberta")
+    private Boolean aberta;
+
+    @Column(name = "data_reserva", nullable = false)
+    private LocalDateTime dataReserva;
+
+    @Column(name = "data_disponibilidade")
+    private LocalDateTime dataDisponibilidade;
+
+    @Column(name = "prazo_retirada")
+    private LocalDate prazoRetirada;
+
+    @Column(name = "data_notificacao")
+    private LocalDateTime dataNotificacao;
+
+    @Column(name = "data_conclusao")
+    private LocalDateTime dataConclusao;
+}
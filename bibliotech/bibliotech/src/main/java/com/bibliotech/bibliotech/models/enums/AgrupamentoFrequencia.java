@@ -0,0 +1,7 @@
+package com.bibliotech.bibliotech.models.enums;
+
+// periodos da analise de frequencia (AnaliseFrequenciaService); semana vai de segunda a domingo
+public enum AgrupamentoFrequencia {
+    dia,
+    semana
+}
@@ -0,0 +1,10 @@
+package com.bibliotech.bibliotech.models.enums;
+
+// frequenciaalunos.atividade (tipo atividade_frequencia)
+public enum AtividadeFrequencia {
+    lendo,
+    celula_de_estudo,
+    estudo_individual,
+    descansando,
+    outros
+}
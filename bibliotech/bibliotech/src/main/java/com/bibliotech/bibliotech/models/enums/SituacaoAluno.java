@@ -0,0 +1,8 @@
+package com.bibliotech.bibliotech.models.enums;
+
+// aluno.situacao (tipo situacao_aluno), recalculada pelo ContadorEmprestimosService
+public enum SituacaoAluno {
+    regular,
+    irregular,
+    debito
+}
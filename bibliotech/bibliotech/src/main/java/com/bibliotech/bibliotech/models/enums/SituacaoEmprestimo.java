@@ -0,0 +1,19 @@
+package com.bibliotech.bibliotech.models.enums;
+
+import java.util.Set;
+
+// emprestimo.situacao (tipo situacao_emprestimo no banco, db/migration/V5__situacoes_enum.sql). Os nomes ficam em
+// minusculas porque sao os rotulos do tipo no Postgres e os valores que a API recebe e devolve
+public enum SituacaoEmprestimo {
+    pendente,
+    atrasado,
+    entregue,
+    extraviado,
+    cancelado;
+
+    public static final Set<SituacaoEmprestimo> ABERTAS = Set.of(pendente, atrasado);
+
+    public boolean isAberta() {
+        return ABERTAS.contains(this);
+    }
+}
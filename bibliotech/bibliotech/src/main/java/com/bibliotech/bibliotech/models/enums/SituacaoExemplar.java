@@ -0,0 +1,9 @@
+package com.bibliotech.bibliotech.models.enums;
+
+// exemplar.situacao (tipo situacao_exemplar); 'reservado' e o exemplar separado para uma reserva
+public enum SituacaoExemplar {
+    disponivel,
+    emprestado,
+    extraviado,
+    reservado
+}
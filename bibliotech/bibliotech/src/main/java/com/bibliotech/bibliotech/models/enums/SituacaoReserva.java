@@ -0,0 +1,11 @@
+package com.bibliotech.bibliotech.models.enums;
+
+// reserva.situacao (tipo situacao_reserva, db/migration/V8__situacao_reserva_enum.sql). 'aguardando' esta na fila do
+// livro, 'disponivel' tem exemplar separado; as outras sao reservas encerradas (aberta nula)
+public enum SituacaoReserva {
+    aguardando,
+    disponivel,
+    atendida,
+    cancelada,
+    expirada
+}
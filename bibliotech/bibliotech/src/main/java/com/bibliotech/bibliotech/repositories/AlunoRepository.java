@@ -2,14 +2,18 @@ package com.bibliotech.bibliotech.repositories;
 
 import com.bibliotech.bibliotech.dtos.response.AlunoLeiturasDTO;
 import com.bibliotech.bibliotech.models.Aluno;
+import com.bibliotech.bibliotech.models.Turma;
+import com.bibliotech.bibliotech.models.enums.SituacaoAluno;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -20,13 +24,13 @@ public interface AlunoRepository extends JpaRepository<Aluno, Integer> {
             "WHERE (:serie IS NULL OR t.serie = :serie) " +
             "AND (:turma IS NULL OR t.turma = :turma) " +
             "AND (COALESCE(:nome, '') = '' OR LOWER(a.nome) LIKE LOWER(CONCAT('%', :nome, '%'))) " +
-            "AND (:situacao IS NULL OR a.situacao = :situacao) " +
+            "AND (CAST(:situacao AS String) IS NULL OR a.situacao = :situacao) " +
             "AND (:ativo IS NULL OR a.ativo = :ativo) ORDER BY a.nome")
     Page<Aluno> filtrarAlunos(@Param("serie") Integer serie,
                               @Param("turma") String turma,
                               @Param("nome") String nome,
                               @Param("ativo") Boolean ativo,
-                              @Param("situacao") String situacao,
+                              @Param("situacao") SituacaoAluno situacao,
                               Pageable pageable);
 
     @Query("SELECT CASE WHEN a.situacao <> 'regular' THEN true ELSE false END FROM Aluno a WHERE a.id = :id")
@@ -44,4 +48,16 @@ public interface AlunoRepository extends JpaRepository<Aluno, Integer> {
 
     boolean existsByEmail(String email);
     boolean existsById(Integer id);
+
+    @Query("SELECT a.email FROM Aluno a WHERE a.email IN :emails")
+    List<String> findEmailsExistentes(@Param("emails") Collection<String> emails);
+
+    // Operacoes em massa por turma: um UPDATE so, devolvendo quantos alunos foram afetados
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Aluno a SET a.ativo = :ativo WHERE a.turma.id = :idTurma AND a.ativo <> :ativo")
+    int atualizarAtivoPorTurma(@Param("idTurma") Integer idTurma, @Param("ativo") boolean ativo);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Aluno a SET a.turma = :turmaDestino WHERE a.turma.id = :idTurmaOrigem AND a.ativo = true")
+    int moverAlunosAtivosDeTurma(@Param("idTurmaOrigem") Integer idTurmaOrigem, @Param("turmaDestino") Turma turmaDestino);
 }
\ No newline at end of file
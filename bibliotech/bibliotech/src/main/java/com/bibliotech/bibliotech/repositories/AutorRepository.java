@@ -1,22 +1,58 @@
 package com.bibliotech.bibliotech.repositories;
 
+import com.bibliotech.bibliotech.dtos.AutorDTO;
+import com.bibliotech.bibliotech.dtos.response.AutocompletarResponseDTO;
 import com.bibliotech.bibliotech.models.Autor;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AutorRepository extends JpaRepository<Autor, Integer> {
 
-    @Query("SELECT a FROM Autor a WHERE NOT EXISTS (SELECT 1 FROM Livroautor la WHERE la.autor.id = a.id)")
-    List<Autor> findAutoresSemLivros();
+    // Um unico DELETE para a limpeza agendada, sem carregar as entidades; devolve os nomes normalizados removidos.
+    // Pula os autores travados por um cadastro em andamento (travarParaVinculo)
+    @Transactional
+    @Query(value = "DELETE FROM {h-schema}autor WHERE id IN (SELECT a.id FROM {h-schema}autor a " +
+            "WHERE NOT EXISTS (SELECT 1 FROM {h-schema}livroautor la WHERE la.id_autor = a.id) FOR UPDATE SKIP LOCKED) " +
+            "RETURNING nome_normalizado", nativeQuery = true)
+    List<String> deleteAutoresSemLivros();
+
+    // Trava os autores ate o fim da transacao, para a limpeza de orfaos nao apaga-los antes de o vinculo ser gravado,
+    // e devolve os que ainda existem
+    @Query(value = "SELECT id FROM {h-schema}autor WHERE id IN (:ids) FOR KEY SHARE", nativeQuery = true)
+    List<Integer> travarParaVinculo(@Param("ids") Collection<Integer> ids);
 
     Optional<Autor> findFirstByNomeIgnoreCase(String nome);
 
+    // Projecao em DTO para nao disparar o carregamento EAGER de Autor.livros
+    @Query("SELECT new com.bibliotech.bibliotech.dtos.AutorDTO(a.id, a.nome) FROM Autor a WHERE a.nomeNormalizado IS NOT NULL")
+    List<AutorDTO> findAutoresDTONormalizados();
+
+    // Carga do indice de autocompletar: cada autor com a quantidade de livros associados
+    @Query("SELECT new com.bibliotech.bibliotech.dtos.response.AutocompletarResponseDTO(a.id, a.nome, COUNT(la.id)) " +
+            "FROM Autor a LEFT JOIN Livroautor la ON la.autor.id = a.id GROUP BY a.id, a.nome")
+    List<AutocompletarResponseDTO> findAutocompletar();
+
+    // Autores gravados antes da coluna nome_normalizado existir
+    List<Autor> findByNomeNormalizadoIsNull();
+
+    // Seguro para cadastros concorrentes do mesmo nome: quem perder a corrida so nao insere
+    @Modifying
+    @Query(value = "INSERT INTO {h-schema}autor (nome, nome_normalizado) VALUES (:nome, :nomeNormalizado) " +
+            "ON CONFLICT (nome_normalizado) DO NOTHING", nativeQuery = true)
+    int inserirSeAusente(@Param("nome") String nome, @Param("nomeNormalizado") String nomeNormalizado);
+
+    @Query("SELECT a.id FROM Autor a WHERE a.nomeNormalizado = :nomeNormalizado")
+    Integer findIdByNomeNormalizado(@Param("nomeNormalizado") String nomeNormalizado);
+
     @Query("SELECT g FROM Autor g JOIN Livroautor lg ON g.id = lg.autor.id WHERE lg.livro.id = :livroId")
     List<Autor> findAutoresByLivroId(@Param("livroId") Integer livroId);
 
@@ -0,0 +1,24 @@
+package com.bibliotech.bibliotech.repositories;
+
+import com.bibliotech.bibliotech.models.CheckpointRelay;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface CheckpointRelayRepository extends JpaRepository<CheckpointRelay, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO {h-schema}checkpointrelay (nome, ultima_transacao, ultimo_id, data_atualizacao) " +
+            "VALUES (:nome, 0, 0, CURRENT_TIMESTAMP) ON CONFLICT (nome) DO NOTHING", nativeQuery = true)
+    int criarSeNaoExiste(@Param("nome") String nome);
+
+    // Um relay por vez entre as instancias da aplicacao; o lock e solto no fim da transacao. Advisory lock em vez de
+    // SELECT FOR UPDATE para que as rodadas sem eventos nao gastem id de transacao
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext(:nome))", nativeQuery = true)
+    boolean travar(@Param("nome") String nome);
+}
@@ -0,0 +1,95 @@
+package com.bibliotech.bibliotech.repositories;
+
+import com.bibliotech.bibliotech.models.ContadorEmprestimos;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+// Todas as escritas sao um unico comando: o contador e alterado (ou criado, se o aluno ainda nao tem linha) e
+// aluno.situacao e recalculada a partir dele. 'irregular' so sai por alteracao manual do aluno; fora isso o aluno fica
+// em 'debito' enquanto tiver emprestimos ativos e volta a 'regular' quando nao tiver mais nenhum. Os CASE so com
+// literais saem como text, por isso o CAST para o tipo enum da coluna
+@Repository
+public interface ContadorEmprestimosRepository extends JpaRepository<ContadorEmprestimos, Integer> {
+
+    // Reserva uma vaga para um emprestimo novo. A condicao fica no proprio UPDATE, entao dois emprestimos simultaneos
+    // do mesmo aluno nao passam do limite; devolve 0 quando o aluno esta no limite ou tem emprestimo atrasado. Aluno
+    // sem linha so ganha uma se o limite padrao permitir o primeiro emprestimo (limite padrao 0 bloqueia quem nao tem
+    // limite proprio); quem ja tem linha segue para o ON CONFLICT, que usa o limite proprio quando houver
+    @Transactional
+    @Query(value = "WITH c AS (" +
+            "  INSERT INTO {h-schema}contadoremprestimos AS c (id_aluno, emprestimos_ativos, emprestimos_atrasados, extravios)" +
+            "  SELECT :idAluno, 1, 0, 0 WHERE :limitePadrao > 0" +
+            "    OR EXISTS (SELECT 1 FROM {h-schema}contadoremprestimos WHERE id_aluno = :idAluno)" +
+            "  ON CONFLICT (id_aluno) DO UPDATE SET emprestimos_ativos = c.emprestimos_ativos + 1" +
+            "  WHERE c.emprestimos_atrasados = 0 AND c.emprestimos_ativos < COALESCE(c.limite_emprestimos, :limitePadrao)" +
+            "  RETURNING c.id_aluno), " +
+            "s AS (" +
+            "  UPDATE {h-schema}aluno a SET situacao = 'debito' FROM c" +
+            "  WHERE a.id = c.id_aluno AND a.situacao IS DISTINCT FROM 'debito' AND a.situacao IS DISTINCT FROM 'irregular') " +
+            "SELECT COUNT(*) FROM c", nativeQuery = true)
+    int reservarEmprestimo(@Param("idAluno") Integer idAluno, @Param("limitePadrao") int limitePadrao);
+
+    @Transactional
+    @Query(value = "WITH c AS (" +
+            "  INSERT INTO {h-schema}contadoremprestimos AS c (id_aluno, emprestimos_ativos, emprestimos_atrasados, extravios)" +
+            "  VALUES (:idAluno, GREATEST(:ativos, 0), GREATEST(:atrasados, 0), GREATEST(:extravios, 0))" +
+            "  ON CONFLICT (id_aluno) DO UPDATE SET" +
+            "    emprestimos_ativos = GREATEST(c.emprestimos_ativos + :ativos, 0)," +
+            "    emprestimos_atrasados = GREATEST(c.emprestimos_atrasados + :atrasados, 0)," +
+            "    extravios = GREATEST(c.extravios + :extravios, 0)" +
+            "  RETURNING c.id_aluno, c.emprestimos_ativos), " +
+            "s AS (" +
+            "  UPDATE {h-schema}aluno a SET situacao = CAST(CASE" +
+            "    WHEN :extravios > 0 OR a.situacao = 'irregular' THEN 'irregular'" +
+            "    WHEN c.emprestimos_ativos > 0 THEN 'debito' ELSE 'regular' END AS {h-schema}situacao_aluno)" +
+            "  FROM c WHERE a.id = c.id_aluno) " +
+            "SELECT COUNT(*) FROM c", nativeQuery = true)
+    int ajustar(@Param("idAluno") Integer idAluno, @Param("ativos") int ativos,
+                @Param("atrasados") int atrasados, @Param("extravios") int extravios);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO {h-schema}contadoremprestimos AS c (id_aluno, emprestimos_ativos, emprestimos_atrasados, extravios, limite_emprestimos) " +
+            "VALUES (:idAluno, 0, 0, 0, :limite) " +
+            "ON CONFLICT (id_aluno) DO UPDATE SET limite_emprestimos = :limite", nativeQuery = true)
+    int definirLimite(@Param("idAluno") Integer idAluno, @Param("limite") Integer limite);
+
+    // Impede alteracoes nos contadores durante a reconciliacao (leituras continuam liberadas); emprestimos que ja
+    // mexeram no contador terminam antes, os demais esperam o commit
+    @Transactional
+    @Modifying
+    @Query(value = "LOCK TABLE {h-schema}contadoremprestimos IN EXCLUSIVE MODE", nativeQuery = true)
+    void travarParaReconciliacao();
+
+    // Recalcula todos os contadores a partir de emprestimo e corrige aluno.situacao; devolve quantos alunos tinham
+    // contador divergente (ou nenhum). Os extravios de anos arquivados nao estao mais em emprestimo e entram pela
+    // coluna extravios_arquivados
+    @Transactional
+    @Query(value = "WITH real AS (" +
+            "  SELECT a.id AS id_aluno," +
+            "         COUNT(e.id) FILTER (WHERE e.situacao IN ('pendente', 'atrasado')) AS ativos," +
+            "         COUNT(e.id) FILTER (WHERE e.situacao = 'atrasado') AS atrasados," +
+            "         COUNT(e.id) FILTER (WHERE e.situacao = 'extraviado') + COALESCE(ca.extravios_arquivados, 0) AS extravios" +
+            "  FROM {h-schema}aluno a LEFT JOIN {h-schema}emprestimo e ON e.id_aluno = a.id" +
+            "  LEFT JOIN {h-schema}contadoremprestimos ca ON ca.id_aluno = a.id" +
+            "  GROUP BY a.id, ca.extravios_arquivados), " +
+            "c AS (" +
+            "  INSERT INTO {h-schema}contadoremprestimos AS c (id_aluno, emprestimos_ativos, emprestimos_atrasados, extravios)" +
+            "  SELECT id_aluno, ativos, atrasados, extravios FROM real" +
+            "  ON CONFLICT (id_aluno) DO UPDATE SET emprestimos_ativos = EXCLUDED.emprestimos_ativos," +
+            "    emprestimos_atrasados = EXCLUDED.emprestimos_atrasados, extravios = EXCLUDED.extravios" +
+            "  WHERE (c.emprestimos_ativos, c.emprestimos_atrasados, c.extravios)" +
+            "    IS DISTINCT FROM (EXCLUDED.emprestimos_ativos, EXCLUDED.emprestimos_atrasados, EXCLUDED.extravios)" +
+            "  RETURNING c.id_aluno), " +
+            "s AS (" +
+            "  UPDATE {h-schema}aluno a SET situacao = CAST(CASE" +
+            "    WHEN a.situacao = 'irregular' THEN 'irregular' WHEN r.ativos > 0 THEN 'debito' ELSE 'regular' END AS {h-schema}situacao_aluno)" +
+            "  FROM real r WHERE a.id = r.id_aluno AND a.situacao IS DISTINCT FROM CAST(CASE" +
+            "    WHEN a.situacao = 'irregular' THEN 'irregular' WHEN r.ativos > 0 THEN 'debito' ELSE 'regular' END AS {h-schema}situacao_aluno)) " +
+            "SELECT COUNT(*) FROM c", nativeQuery = true)
+    int reconciliar();
+}
@@ -0,0 +1,69 @@
+package com.bibliotech.bibliotech.repositories;
+
+import com.bibliotech.bibliotech.models.EmprestimoEvento;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// Sem save/delete: o historico so recebe linhas por registrar e importarSemHistorico. As consultas por emprestimo
+// limitam data_evento dos dois lados para o Postgres descartar as particoes de fora do intervalo; as que partem do
+// emprestimo ou do aluno sem saber a data vao pelos btree de cada particao
+@org.springframework.stereotype.Repository
+public interface EmprestimoEventoRepository extends Repository<EmprestimoEvento, Long>, EmprestimoEventoRepositoryCustom {
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO {h-schema}emprestimo_evento (id_emprestimo, tipo, id_aluno, id_exemplar, data_emprestimo," +
+            " data_prazo, qtd_renovacao, situacao, observacao, realizado_por, concluido_por, data_conclusao, registrado_por," +
+            " data_evento) " +
+            "VALUES (:idEmprestimo, :tipo, :idAluno, :idExemplar, :dataEmprestimo, :dataPrazo, :qtdRenovacao, CAST(:situacao AS {h-schema}situacao_emprestimo)," +
+            " :observacao, :realizadoPor, :concluidoPor, :dataConclusao, :registradoPor, LOCALTIMESTAMP)", nativeQuery = true)
+    int registrar(@Param("idEmprestimo") Integer idEmprestimo, @Param("tipo") String tipo, @Param("idAluno") Integer idAluno,
+                  @Param("idExemplar") Integer idExemplar, @Param("dataEmprestimo") LocalDate dataEmprestimo,
+                  @Param("dataPrazo") LocalDate dataPrazo, @Param("qtdRenovacao") Integer qtdRenovacao,
+                  @Param("situacao") String situacao, @Param("observacao") String observacao,
+                  @Param("realizadoPor") Integer realizadoPor, @Param("concluidoPor") Integer concluidoPor,
+                  @Param("dataConclusao") LocalDate dataConclusao, @Param("registradoPor") Integer registradoPor);
+
+    // Emprestimos anteriores ao historico entram com o estado atual, datado de agora
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO {h-schema}emprestimo_evento (id_emprestimo, tipo, id_aluno, id_exemplar, data_emprestimo," +
+            " data_prazo, qtd_renovacao, situacao, observacao, realizado_por, concluido_por, data_conclusao, data_evento) " +
+            "SELECT e.id, 'importado', e.id_aluno, e.id_exemplar, e.data_emprestimo, e.data_prazo, e.qtd_renovacao," +
+            " e.situacao, e.observacao, e.realizado_por, e.concluido_por, e.data_conclusao, LOCALTIMESTAMP " +
+            "FROM {h-schema}emprestimo e " +
+            "WHERE NOT EXISTS (SELECT 1 FROM {h-schema}emprestimo_evento v WHERE v.id_emprestimo = e.id)", nativeQuery = true)
+    int importarSemHistorico();
+
+    // Eventos do emprestimo; inicio e a data do emprestimo, antes dela nao ha o que ler
+    @Query(value = "SELECT * FROM {h-schema}emprestimo_evento v " +
+            "WHERE v.id_emprestimo = :idEmprestimo AND v.data_evento >= :inicio AND v.data_evento < :limite " +
+            "ORDER BY v.data_evento, v.id", nativeQuery = true)
+    List<EmprestimoEvento> listarPorEmprestimo(@Param("idEmprestimo") Integer idEmprestimo,
+                                               @Param("inicio") LocalDateTime inicio, @Param("limite") LocalDateTime limite);
+
+    // Ultimo evento de cada emprestimo antes de limite, isto e, o estado de cada um naquele momento
+    @Query(value = "SELECT DISTINCT ON (v.id_emprestimo) * FROM {h-schema}emprestimo_evento v " +
+            "WHERE v.id_emprestimo IN (:idsEmprestimo) AND v.data_evento >= :inicio AND v.data_evento < :limite " +
+            "ORDER BY v.id_emprestimo, v.data_evento DESC, v.id DESC", nativeQuery = true)
+    List<EmprestimoEvento> buscarEstados(@Param("idsEmprestimo") List<Integer> idsEmprestimo,
+                                         @Param("inicio") LocalDateTime inicio, @Param("limite") LocalDateTime limite);
+
+    // Estado antes de limite de cada emprestimo do aluno feito ate a data, pelo emprestimo_evento_aluno_idx
+    @Query(value = "SELECT DISTINCT ON (v.id_emprestimo) * FROM {h-schema}emprestimo_evento v " +
+            "WHERE v.id_aluno = :idAluno AND v.data_emprestimo <= :data AND v.data_evento < :limite " +
+            "ORDER BY v.id_emprestimo, v.data_evento DESC, v.id DESC", nativeQuery = true)
+    List<EmprestimoEvento> buscarEstadosDoAluno(@Param("idAluno") Integer idAluno, @Param("data") LocalDate data,
+                                                @Param("limite") LocalDateTime limite);
+
+    // Qualquer evento do emprestimo, para saber a data dele sem depender da linha em emprestimo
+    Optional<EmprestimoEvento> findFirstByIdEmprestimo(Integer idEmprestimo);
+}
@@ -0,0 +1,9 @@
+package com.bibliotech.bibliotech.repositories;
+
+import java.time.YearMonth;
+
+public interface EmprestimoEventoRepositoryCustom {
+
+    // Cria a particao do mes se ainda nao existir; false se a particao padrao ja tem linhas do mes (a criacao falharia)
+    boolean criarParticaoMensal(YearMonth mes);
+}
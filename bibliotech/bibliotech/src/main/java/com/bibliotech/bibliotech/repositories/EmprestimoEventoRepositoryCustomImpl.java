@@ -0,0 +1,40 @@
+package com.bibliotech.bibliotech.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+// DDL das particoes mensais de emprestimo_evento; nome e limites sao montados a partir do YearMonth, nunca de entrada
+// do usuario, porque o Postgres nao aceita parametros em CREATE TABLE
+public class EmprestimoEventoRepositoryCustomImpl implements EmprestimoEventoRepositoryCustom {
+
+    private static final DateTimeFormatter SUFIXO = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public boolean criarParticaoMensal(YearMonth mes) {
+        String inicio = mes.atDay(1).toString();
+        String fim = mes.plusMonths(1).atDay(1).toString();
+
+        // duas instancias subindo juntas nao tentam criar a mesma particao ao mesmo tempo
+        entityManager.createNativeQuery("SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(hashtext('emprestimo_evento'))) trava").getSingleResult();
+
+        Object ocupada = entityManager.createNativeQuery("SELECT EXISTS (SELECT 1 FROM {h-schema}emprestimo_evento_padrao " +
+                        "WHERE data_evento >= CAST(:inicio AS timestamp) AND data_evento < CAST(:fim AS timestamp))")
+                .setParameter("inicio", inicio)
+                .setParameter("fim", fim)
+                .getSingleResult();
+        if (Boolean.TRUE.equals(ocupada)) {
+            return false;
+        }
+
+        entityManager.createNativeQuery("CREATE TABLE IF NOT EXISTS {h-schema}emprestimo_evento_" + mes.format(SUFIXO) +
+                        " PARTITION OF {h-schema}emprestimo_evento FOR VALUES FROM ('" + inicio + "') TO ('" + fim + "')")
+                .executeUpdate();
+        return true;
+    }
+}
@@ -1,7 +1,9 @@
 package com.bibliotech.bibliotech.repositories;
 
-
+import com.bibliotech.bibliotech.dtos.response.EmprestimoResponseDTOAluno;
+import com.bibliotech.bibliotech.dtos.response.EmprestimoResponseDTOLivro;
 import com.bibliotech.bibliotech.models.Emprestimo;
+import com.bibliotech.bibliotech.models.enums.SituacaoEmprestimo;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -17,24 +19,60 @@ import java.util.List;
 
 
 @Repository
-public interface EmprestimoRepository extends JpaRepository<Emprestimo, Integer>, JpaSpecificationExecutor<Emprestimo> {
-    Page<Emprestimo> findByAlunoId(Integer idAluno, Pageable pageable);
-    @Query("SELECT e FROM Emprestimo e WHERE e.aluno.id = :idAluno AND e.dataEmprestimo BETWEEN :dataEmprestimoInicio AND :dataEmprestimoFim")
-    Page<Emprestimo> findByAlunoIdAndDataEmprestimoBetween(
+public interface EmprestimoRepository extends JpaRepository<Emprestimo, Integer>, JpaSpecificationExecutor<Emprestimo>, EmprestimoRepositoryCustom {
+    @Query(value = "SELECT new com.bibliotech.bibliotech.dtos.response.EmprestimoResponseDTOAluno(" +
+            "e.id, ex.id, ex.numero, l.titulo, l.isbn, e.dataEmprestimo, e.dataConclusao, e.situacao) " +
+            "FROM Emprestimo e JOIN e.exemplar ex JOIN ex.livro l " +
+            "WHERE e.aluno.id = :idAluno",
+            countQuery = "SELECT COUNT(e) FROM Emprestimo e WHERE e.aluno.id = :idAluno")
+    Page<EmprestimoResponseDTOAluno> findByAlunoId(@Param("idAluno") Integer idAluno, Pageable pageable);
+
+    @Query(value = "SELECT new com.bibliotech.bibliotech.dtos.response.EmprestimoResponseDTOAluno(" +
+            "e.id, ex.id, ex.numero, l.titulo, l.isbn, e.dataEmprestimo, e.dataConclusao, e.situacao) " +
+            "FROM Emprestimo e JOIN e.exemplar ex JOIN ex.livro l " +
+            "WHERE e.aluno.id = :idAluno AND e.dataEmprestimo BETWEEN :dataEmprestimoInicio AND :dataEmprestimoFim",
+            countQuery = "SELECT COUNT(e) FROM Emprestimo e " +
+                    "WHERE e.aluno.id = :idAluno AND e.dataEmprestimo BETWEEN :dataEmprestimoInicio AND :dataEmprestimoFim")
+    Page<EmprestimoResponseDTOAluno> findByAlunoIdAndDataEmprestimoBetween(
             @Param("idAluno") Integer idAluno,
             @Param("dataEmprestimoInicio") LocalDate dataEmprestimoInicio,
             @Param("dataEmprestimoFim") LocalDate dataEmprestimoFim,
             Pageable pageable
     );
 
-    Page<Emprestimo> findByExemplar_LivroId(Integer idExemplar, Pageable pageable);
-    @Query("SELECT e FROM Emprestimo e WHERE e.exemplar.livro.id = :idLivro AND e.dataEmprestimo BETWEEN :dataEmprestimoInicio AND :dataEmprestimoFim")
-    Page<Emprestimo> findByExemplar_LivroIdAndDataEmprestimoBetween(
+    @Query(value = "SELECT new com.bibliotech.bibliotech.dtos.response.EmprestimoResponseDTOLivro(" +
+            "e.id, a.id, ex.id, ex.numero, a.nome, t.serie, t.turma, e.dataEmprestimo, e.dataConclusao, e.situacao) " +
+            "FROM Emprestimo e JOIN e.exemplar ex JOIN e.aluno a LEFT JOIN a.turma t " +
+            "WHERE ex.livro.id = :idLivro",
+            countQuery = "SELECT COUNT(e) FROM Emprestimo e WHERE e.exemplar.livro.id = :idLivro")
+    Page<EmprestimoResponseDTOLivro> findByExemplar_LivroId(@Param("idLivro") Integer idLivro, Pageable pageable);
+
+    @Query(value = "SELECT new com.bibliotech.bibliotech.dtos.response.EmprestimoResponseDTOLivro(" +
+            "e.id, a.id, ex.id, ex.numero, a.nome, t.serie, t.turma, e.dataEmprestimo, e.dataConclusao, e.situacao) " +
+            "FROM Emprestimo e JOIN e.exemplar ex JOIN e.aluno a LEFT JOIN a.turma t " +
+            "WHERE ex.livro.id = :idLivro AND e.dataEmprestimo BETWEEN :dataEmprestimoInicio AND :dataEmprestimoFim",
+            countQuery = "SELECT COUNT(e) FROM Emprestimo e " +
+                    "WHERE e.exemplar.livro.id = :idLivro AND e.dataEmprestimo BETWEEN :dataEmprestimoInicio AND :dataEmprestimoFim")
+    Page<EmprestimoResponseDTOLivro> findByExemplar_LivroIdAndDataEmprestimoBetween(
             @Param("idLivro") Integer idLivro,
             @Param("dataEmprestimoInicio") LocalDate dataEmprestimoInicio,
             @Param("dataEmprestimoFim") LocalDate dataEmprestimoFim,
             Pageable pageable
     );
-    List<Emprestimo> findBySituacao(String situacao);
-    List<Emprestimo> findBySituacaoAndDataPrazo(String situacao, LocalDate data);
+
+    // Pre-checagem de emprestimo: so buscas por chave primaria, sem carregar entidades. Sempre devolve uma linha:
+    // aluno encontrado, ativo, situacao, emprestimos ativos, atrasados, limite proprio, exemplar encontrado, situacao,
+    // aluno para quem o exemplar esta separado (reserva 'disponivel')
+    @Query(value = "SELECT a.id IS NOT NULL, a.ativo, CAST(a.situacao AS text)," +
+            "       COALESCE(c.emprestimos_ativos, 0), COALESCE(c.emprestimos_atrasados, 0), c.limite_emprestimos," +
+            "       ex.id IS NOT NULL, CAST(ex.situacao AS text), r.id_aluno " +
+            "FROM (SELECT CAST(:idAluno AS integer) AS id_aluno, CAST(:idExemplar AS integer) AS id_exemplar) p " +
+            "LEFT JOIN {h-schema}aluno a ON a.id = p.id_aluno " +
+            "LEFT JOIN {h-schema}contadoremprestimos c ON c.id_aluno = p.id_aluno " +
+            "LEFT JOIN {h-schema}exemplar ex ON ex.id = p.id_exemplar " +
+            "LEFT JOIN {h-schema}reserva r ON r.id_exemplar = p.id_exemplar AND r.situacao = 'disponivel'", nativeQuery = true)
+    List<Object[]> buscarElegibilidade(@Param("idAluno") Integer idAluno, @Param("idExemplar") Integer idExemplar);
+
+    List<Emprestimo> findBySituacao(SituacaoEmprestimo situacao);
+    List<Emprestimo> findBySituacaoAndDataPrazo(SituacaoEmprestimo situacao, LocalDate data);
 }
\ No newline at end of file
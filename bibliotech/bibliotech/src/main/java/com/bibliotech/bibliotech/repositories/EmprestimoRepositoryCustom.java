@@ -0,0 +1,11 @@
+package com.bibliotech.bibliotech.repositories;
+
+import com.bibliotech.bibliotech.dtos.response.EmprestimoResponseDTO;
+import com.bibliotech.bibliotech.models.Emprestimo;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface EmprestimoRepositoryCustom {
+    Page<EmprestimoResponseDTO> consultarEmprestimosDTO(Specification<Emprestimo> spec, Pageable pageable);
+}
@@ -0,0 +1,88 @@
+package com.bibliotech.bibliotech.repositories;
+
+import com.bibliotech.bibliotech.dtos.response.EmprestimoResponseDTO;
+import com.bibliotech.bibliotech.models.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+// Monta a listagem de emprestimos direto no DTO (sem carregar entidades no contexto de persistencia)
+public class EmprestimoRepositoryCustomImpl implements EmprestimoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<EmprestimoResponseDTO> consultarEmprestimosDTO(Specification<Emprestimo> spec, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<EmprestimoResponseDTO> query = builder.createQuery(EmprestimoResponseDTO.class);
+        Root<Emprestimo> root = query.from(Emprestimo.class);
+
+        Join<Emprestimo, Aluno> aluno = root.join("aluno");
+        Join<Emprestimo, Exemplar> exemplar = root.join("exemplar");
+        Join<Exemplar, Livro> livro = exemplar.join("livro");
+        Join<Exemplar, Estanteprateleira> estanteprateleira = exemplar.join("estanteprateleira", JoinType.LEFT);
+        Join<Emprestimo, Usuario> realizadoPor = root.join("realizadoPor");
+        Join<Emprestimo, Usuario> concluidoPor = root.join("concluidoPor", JoinType.LEFT);
+
+        // a ordem dos campos segue o construtor do EmprestimoResponseDTO
+        query.multiselect(
+                root.get("id"),
+                aluno.get("id"),
+                exemplar.get("id"),
+                exemplar.get("numero"),
+                estanteprateleira.get("estante"),
+                estanteprateleira.get("prateleira"),
+                livro.get("isbn"),
+                livro.get("titulo"),
+                aluno.get("nome"),
+                realizadoPor.get("nome"),
+                concluidoPor.get("nome"),
+                root.get("observacao"),
+                root.get("dataEmprestimo"),
+                root.get("dataPrazo"),
+                root.get("dataConclusao"),
+                root.get("qtdRenovacao"),
+                root.get("situacao")
+        );
+
+        Predicate predicate = spec.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+
+        TypedQuery<EmprestimoResponseDTO> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<EmprestimoResponseDTO> content = typedQuery.getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> contarEmprestimos(spec));
+    }
+
+    private long contarEmprestimos(Specification<Emprestimo> spec) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Long> countQuery = builder.createQuery(Long.class);
+        Root<Emprestimo> root = countQuery.from(Emprestimo.class);
+        countQuery.select(builder.count(root));
+
+        Predicate predicate = spec.toPredicate(root, countQuery, builder);
+        if (predicate != null) {
+            countQuery.where(predicate);
+        }
+
+        return entityManager.createQuery(countQuery).getSingleResult();
+    }
+}
@@ -2,8 +2,10 @@ package com.bibliotech.bibliotech.repositories;
 
 import com.bibliotech.bibliotech.models.Estanteprateleira;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +13,30 @@ public interface EstantePrateleiraRepository extends JpaRepository<Estantepratel
     Optional<Estanteprateleira> findByEstanteAndPrateleira(String estante, Integer prateleira);
 
     boolean existsEstanteprateleiraByEstanteAndPrateleira(String estante, Integer prateleira);
+
+    // Mapa do acervo numa consulta so: os exemplares sao agrupados uma vez por (estante-prateleira, secao) e o resultado
+    // e juntado a todas as estantes-prateleiras e as secoes ligadas a elas, inclusive as que estao vazias.
+    // Colunas: id e estante/prateleira, id e nome da secao, total, disponiveis, emprestados, extraviados,
+    // reservados, titulos distintos
+    @Query(value = "WITH ocupacao AS (" +
+            "  SELECT e.id_estante_prateleira, e.id_secao, COUNT(*) AS total," +
+            "         COUNT(*) FILTER (WHERE e.situacao = 'disponivel') AS disponiveis," +
+            "         COUNT(*) FILTER (WHERE e.situacao = 'emprestado') AS emprestados," +
+            "         COUNT(*) FILTER (WHERE e.situacao = 'extraviado') AS extraviados," +
+            "         COUNT(*) FILTER (WHERE e.situacao = 'reservado') AS reservados," +
+            "         COUNT(DISTINCT e.id_livro) AS titulos" +
+            "  FROM {h-schema}exemplar e WHERE e.id_estante_prateleira IS NOT NULL" +
+            "  GROUP BY e.id_estante_prateleira, e.id_secao), " +
+            "pares AS (" +
+            "  SELECT id_estante_prateleira, id_secao FROM ocupacao" +
+            "  UNION SELECT id_estante_prateleira, id_secao FROM {h-schema}estanteprateleirasecao) " +
+            "SELECT ep.id, ep.estante, ep.prateleira, s.id AS id_secao, s.nome," +
+            "       COALESCE(o.total, 0), COALESCE(o.disponiveis, 0), COALESCE(o.emprestados, 0)," +
+            "       COALESCE(o.extraviados, 0), COALESCE(o.reservados, 0), COALESCE(o.titulos, 0) " +
+            "FROM {h-schema}estanteprateleira ep " +
+            "LEFT JOIN pares p ON p.id_estante_prateleira = ep.id " +
+            "LEFT JOIN {h-schema}secao s ON s.id = p.id_secao " +
+            "LEFT JOIN ocupacao o ON o.id_estante_prateleira = p.id_estante_prateleira AND o.id_secao = p.id_secao " +
+            "ORDER BY ep.estante, ep.prateleira, s.nome", nativeQuery = true)
+    List<Object[]> buscarMapaOcupacao();
 }
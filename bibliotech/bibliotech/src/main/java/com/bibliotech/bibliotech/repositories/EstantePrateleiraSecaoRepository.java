@@ -13,4 +13,5 @@ public interface EstantePrateleiraSecaoRepository extends JpaRepository<Estantep
     Optional<Estanteprateleirasecao> findByEstanteprateleiraIdAndSecaoId(Integer idEstantePrateleira, Integer idSecao);
 
     boolean existsByEstanteprateleira(Estanteprateleira estantePrateleira);
+    boolean existsByEstanteprateleiraIdAndSecaoId(Integer idEstantePrateleira, Integer idSecao);
 }
\ No newline at end of file
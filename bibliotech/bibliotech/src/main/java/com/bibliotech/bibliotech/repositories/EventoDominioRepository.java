@@ -0,0 +1,48 @@
+package com.bibliotech.bibliotech.repositories;
+
+import com.bibliotech.bibliotech.models.EventoDominio;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface EventoDominioRepository extends JpaRepository<EventoDominio, Long> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO {h-schema}eventodominio (tipo, id_emprestimo, id_aluno, id_exemplar, id_livro," +
+            " situacao_anterior, situacao_nova, data_prazo, transacao, data_criacao) " +
+            "VALUES (:tipo, :idEmprestimo, :idAluno, :idExemplar, :idLivro, :situacaoAnterior, :situacaoNova," +
+            " :dataPrazo, CAST(CAST(pg_current_xact_id() AS text) AS bigint), CURRENT_TIMESTAMP)", nativeQuery = true)
+    int registrar(@Param("tipo") String tipo, @Param("idEmprestimo") Integer idEmprestimo, @Param("idAluno") Integer idAluno,
+                  @Param("idExemplar") Integer idExemplar, @Param("idLivro") Integer idLivro,
+                  @Param("situacaoAnterior") String situacaoAnterior, @Param("situacaoNova") String situacaoNova,
+                  @Param("dataPrazo") LocalDate dataPrazo);
+
+    // Proximos eventos depois do checkpoint, so de transacoes que ja terminaram (anteriores ao xmin do snapshot atual).
+    // Ler por id nao bastaria: um id menor pode estar numa transacao que ainda vai fazer commit e seria pulado
+    @Query(value = "SELECT * FROM {h-schema}eventodominio e " +
+            "WHERE (e.transacao, e.id) > (:transacao, :id) " +
+            "AND e.transacao < CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint) " +
+            "ORDER BY e.transacao, e.id LIMIT :lote", nativeQuery = true)
+    List<EventoDominio> buscarProntos(@Param("transacao") long transacao, @Param("id") long id, @Param("lote") int lote);
+
+    // Eventos que o relay ja entregou (ate o checkpoint dele), um lote por vez na ordem do eventodominio_relay_idx
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM {h-schema}eventodominio WHERE id IN (" +
+            "  SELECT e.id FROM {h-schema}eventodominio e JOIN {h-schema}checkpointrelay c ON c.nome = :nome" +
+            "  WHERE (e.transacao, e.id) <= (c.ultima_transacao, c.ultimo_id)" +
+            "  ORDER BY e.transacao, e.id LIMIT :lote)", nativeQuery = true)
+    int removerEntregues(@Param("nome") String nome, @Param("lote") int lote);
+
+    // Eventos ainda nao entregues, para a metrica de atraso do relay
+    @Query(value = "SELECT COUNT(*) FROM {h-schema}eventodominio e WHERE (e.transacao, e.id) > (:transacao, :id)", nativeQuery = true)
+    long contarPendentes(@Param("transacao") long transacao, @Param("id") long id);
+}
@@ -3,17 +3,24 @@ package com.bibliotech.bibliotech.repositories;
 import com.bibliotech.bibliotech.models.Estanteprateleira;
 import com.bibliotech.bibliotech.models.Exemplar;
 import com.bibliotech.bibliotech.models.Secao;
+import com.bibliotech.bibliotech.models.enums.SituacaoExemplar;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ExemplarRepository extends JpaRepository<Exemplar, Integer> {
     boolean existsByEstanteprateleira(Estanteprateleira estanteprateleira);
     boolean existsBySecao(Secao secao);
+    boolean existsByLivroIdAndSituacao(Integer idLivro, SituacaoExemplar situacao);
 
     List<Exemplar> findByEstanteprateleira(Estanteprateleira estanteprateleira);
 
@@ -22,6 +29,37 @@ public interface ExemplarRepository extends JpaRepository<Exemplar, Integer> {
     @Query("SELECT COUNT(e) > 0 FROM Emprestimo e WHERE e.exemplar.id = :idExemplar AND e.situacao IN ('pendente', 'atrasado')")
     boolean existsByExemplarAndSituacaoPendenteOuAtrasado(@Param("idExemplar") Integer idExemplar);
 
+    @Query("SELECT COALESCE(MAX(e.numero), 0) FROM Exemplar e WHERE e.livro.id = :idLivro")
+    int findMaxNumeroByLivroId(@Param("idLivro") Integer idLivro);
+
     @Query("SELECT e FROM Exemplar e WHERE e.livro.id = :idLivro AND e.situacao <> 'extraviado'")
     List<Exemplar> findByLivroIdAndSituacaoNotExtraviado(@Param("idLivro") Integer idLivro);
+
+    // Realocacao em massa num unico UPDATE. Filtros nulos (ou lista de ids vazia) sao ignorados; os exemplares que ja
+    // estao no destino entram na contagem de encontrados mas nao sao regravados. Devolve [encontrados, movidos, ids movidos]
+    @Transactional
+    @Query(value = "WITH alvo AS (" +
+            "  SELECT e.id, e.id_estante_prateleira, e.id_secao FROM {h-schema}exemplar e" +
+            "  WHERE (CAST(:idLivro AS integer) IS NULL OR e.id_livro = :idLivro)" +
+            "    AND (CAST(:idEstanteprateleiraOrigem AS integer) IS NULL OR e.id_estante_prateleira = :idEstanteprateleiraOrigem)" +
+            "    AND (cardinality(:idsExemplares) = 0 OR e.id = ANY(:idsExemplares))), " +
+            "movidos AS (" +
+            "  UPDATE {h-schema}exemplar e SET id_estante_prateleira = :idEstanteprateleiraDestino, id_secao = :idSecaoDestino" +
+            "  FROM alvo WHERE e.id = alvo.id" +
+            "    AND (alvo.id_estante_prateleira IS DISTINCT FROM :idEstanteprateleiraDestino OR alvo.id_secao <> :idSecaoDestino)" +
+            "  RETURNING e.id) " +
+            "SELECT (SELECT COUNT(*) FROM alvo), (SELECT COUNT(*) FROM movidos)," +
+            "       (SELECT COALESCE(array_agg(id), '{}') FROM movidos)", nativeQuery = true)
+    List<Object[]> realocarExemplares(@Param("idLivro") Integer idLivro,
+                                      @Param("idEstanteprateleiraOrigem") Integer idEstanteprateleiraOrigem,
+                                      @Param("idsExemplares") Integer[] idsExemplares,
+                                      @Param("idEstanteprateleiraDestino") Integer idEstanteprateleiraDestino,
+                                      @Param("idSecaoDestino") Integer idSecaoDestino);
+
+    // Carga do indice de leitura de codigos numa passada so, lida aos poucos do cursor: id, isbn e titulo do livro,
+    // seguidos de id, numero, situacao, estante-prateleira e secao do exemplar (nulos quando o livro nao tem exemplares)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "SELECT l.id, l.isbn, l.titulo, e.id AS id_exemplar, e.numero, CAST(e.situacao AS text), e.id_estante_prateleira, e.id_secao " +
+            "FROM {h-schema}livro l LEFT JOIN {h-schema}exemplar e ON e.id_livro = l.id", nativeQuery = true)
+    Stream<Object[]> streamIndiceExemplares();
 }
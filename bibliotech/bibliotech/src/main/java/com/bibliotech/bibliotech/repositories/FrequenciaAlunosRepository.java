@@ -1,25 +1,66 @@
 package com.bibliotech.bibliotech.repositories;
 
 import com.bibliotech.bibliotech.models.FrequenciaAlunos;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface FrequenciaAlunosRepository extends JpaRepository<FrequenciaAlunos, Integer> {
 
-    @Query("SELECT f FROM FrequenciaAlunos f WHERE f.data = :data")
-    List<FrequenciaAlunos> findByData(@Param("data") LocalDate data);
-
-    default List<FrequenciaAlunos> filtrarFrequencias(LocalDate data) {
-        if (data == null) {
-            return findAll(); // Return all records if data is null
-        } else {
-            return findByData(data); // Filter by date if data is not null
-        }
-    }
-}
\ No newline at end of file
+    // Uma pagina do periodo com aluno, turma e quem registrou na mesma consulta (o mapper le os tres)
+    @Query(value = "SELECT f FROM FrequenciaAlunos f JOIN FETCH f.aluno a LEFT JOIN FETCH a.turma JOIN FETCH f.registradaPor " +
+            "WHERE f.data BETWEEN :dataInicio AND :dataFim ORDER BY f.data DESC, a.nome, f.id",
+            countQuery = "SELECT COUNT(f) FROM FrequenciaAlunos f WHERE f.data BETWEEN :dataInicio AND :dataFim")
+    Page<FrequenciaAlunos> buscarPorPeriodo(@Param("dataInicio") LocalDate dataInicio, @Param("dataFim") LocalDate dataFim,
+                                            Pageable pageable);
+
+    boolean existsByDataBetween(LocalDate dataInicio, LocalDate dataFim);
+
+    // Exportacao do periodo lida aos poucos do cursor: nome do aluno, atividade e data, sem carregar entidades
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT a.nome, f.atividade, f.data FROM FrequenciaAlunos f JOIN f.aluno a " +
+            "WHERE f.data BETWEEN :dataInicio AND :dataFim ORDER BY f.data, a.nome")
+    Stream<Object[]> streamPorPeriodo(@Param("dataInicio") LocalDate dataInicio, @Param("dataFim") LocalDate dataFim);
+
+    // Validacao de um lote numa consulta so: alunos do lote que existem, com quantas frequencias ja tem na data (0 ou 1)
+    @Query("SELECT a.id, (SELECT COUNT(f) FROM FrequenciaAlunos f WHERE f.aluno.id = a.id AND f.data = :data) " +
+            "FROM Aluno a WHERE a.id IN :idsAlunos")
+    List<Object[]> buscarAlunosDoLote(@Param("idsAlunos") Collection<Integer> idsAlunos, @Param("data") LocalDate data);
+
+    // Grava o lote num unico INSERT. Aluno que ja tem frequencia na data fica de fora (unica id_aluno, data_frequencia);
+    // devolve os alunos gravados
+    @Transactional
+    @Query(value = "INSERT INTO {h-schema}frequenciaalunos (id_aluno, registrada_por, atividade, data_frequencia, hora_registro) " +
+            "SELECT f.id_aluno, f.registrada_por, CAST(f.atividade AS {h-schema}atividade_frequencia), :data, f.hora_registro " +
+            "FROM unnest(CAST(:idsAlunos AS integer[]), CAST(:registradaPor AS integer[]), CAST(:atividades AS text[]), " +
+            "CAST(:horas AS time[])) AS f(id_aluno, registrada_por, atividade, hora_registro) " +
+            "ON CONFLICT (id_aluno, data_frequencia) DO NOTHING RETURNING id_aluno", nativeQuery = true)
+    List<Integer> inserirLote(@Param("idsAlunos") Integer[] idsAlunos, @Param("registradaPor") Integer[] registradaPor,
+                              @Param("atividades") String[] atividades, @Param("horas") String[] horas,
+                              @Param("data") LocalDate data);
+
+    // Contagens de cada dia do periodo por atividade, por turma do aluno e por hora do registro, numa passada so pelo
+    // indice de data_frequencia (um grouping set por dimensao). Colunas: dia, GROUPING da atividade e da turma (0 diz
+    // qual dimensao a linha conta; com as duas em 1 e a hora), atividade, id da turma, hora e quantidade. Turma e
+    // hora vem nulas para aluno sem turma e frequencia sem hora
+    @Query(value = "SELECT f.data_frequencia, GROUPING(f.atividade), GROUPING(a.id_turma), CAST(f.atividade AS text), " +
+            "a.id_turma, CAST(EXTRACT(HOUR FROM f.hora_registro) AS integer), COUNT(*) " +
+            "FROM {h-schema}frequenciaalunos f JOIN {h-schema}aluno a ON a.id = f.id_aluno " +
+            "WHERE f.data_frequencia BETWEEN :dataInicio AND :dataFim " +
+            "GROUP BY GROUPING SETS ((f.data_frequencia, f.atividade), (f.data_frequencia, a.id_turma), " +
+            "(f.data_frequencia, EXTRACT(HOUR FROM f.hora_registro)))", nativeQuery = true)
+    List<Object[]> resumirPorDia(@Param("dataInicio") LocalDate dataInicio, @Param("dataFim") LocalDate dataFim);
+}
@@ -1,21 +1,57 @@
 package com.bibliotech.bibliotech.repositories;
 
+import com.bibliotech.bibliotech.dtos.GeneroDTO;
+import com.bibliotech.bibliotech.dtos.response.AutocompletarResponseDTO;
 import com.bibliotech.bibliotech.models.Genero;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface GeneroRepository extends JpaRepository<Genero, Integer> {
-    @Query("SELECT g FROM Genero g WHERE NOT EXISTS (SELECT lg FROM Livrogenero lg WHERE lg.genero = g ORDER BY g.genero)")
-    List<Genero> findGenerosSemAssociacao();
+    // Um unico DELETE para a limpeza agendada, sem carregar as entidades; devolve os nomes normalizados removidos.
+    // Pula os generos travados por um cadastro em andamento (travarParaVinculo)
+    @Transactional
+    @Query(value = "DELETE FROM {h-schema}genero WHERE id IN (SELECT g.id FROM {h-schema}genero g " +
+            "WHERE NOT EXISTS (SELECT 1 FROM {h-schema}livrogenero lg WHERE lg.id_genero = g.id) FOR UPDATE SKIP LOCKED) " +
+            "RETURNING genero_normalizado", nativeQuery = true)
+    List<String> deleteGenerosSemLivros();
+
+    // Trava os generos ate o fim da transacao, para a limpeza de orfaos nao apaga-los antes de o vinculo ser gravado,
+    // e devolve os que ainda existem
+    @Query(value = "SELECT id FROM {h-schema}genero WHERE id IN (:ids) FOR KEY SHARE", nativeQuery = true)
+    List<Integer> travarParaVinculo(@Param("ids") Collection<Integer> ids);
 
     List<Genero> findByGeneroContainingIgnoreCase(String genero);
 
     Optional<Genero> findFirstByGeneroIgnoreCase(String genero);
 
+    // Projecao em DTO para nao disparar o carregamento EAGER de Genero.livros
+    @Query("SELECT new com.bibliotech.bibliotech.dtos.GeneroDTO(g.id, g.genero) FROM Genero g WHERE g.generoNormalizado IS NOT NULL")
+    List<GeneroDTO> findGenerosDTONormalizados();
+
+    // Carga do indice de autocompletar: cada genero com a quantidade de livros associados
+    @Query("SELECT new com.bibliotech.bibliotech.dtos.response.AutocompletarResponseDTO(g.id, g.genero, COUNT(lg.id)) " +
+            "FROM Genero g LEFT JOIN Livrogenero lg ON lg.genero.id = g.id GROUP BY g.id, g.genero")
+    List<AutocompletarResponseDTO> findAutocompletar();
+
+    // Generos gravados antes da coluna genero_normalizado existir
+    List<Genero> findByGeneroNormalizadoIsNull();
+
+    // Seguro para cadastros concorrentes do mesmo genero: quem perder a corrida so nao insere
+    @Modifying
+    @Query(value = "INSERT INTO {h-schema}genero (genero, genero_normalizado) VALUES (:genero, :generoNormalizado) " +
+            "ON CONFLICT (genero_normalizado) DO NOTHING", nativeQuery = true)
+    int inserirSeAusente(@Param("genero") String genero, @Param("generoNormalizado") String generoNormalizado);
+
+    @Query("SELECT g.id FROM Genero g WHERE g.generoNormalizado = :generoNormalizado")
+    Integer findIdByGeneroNormalizado(@Param("generoNormalizado") String generoNormalizado);
+
     @Query("SELECT g FROM Genero g JOIN Livrogenero lg ON g.id = lg.genero.id WHERE lg.livro.id = :livroId")
     List<Genero> findGenerosByLivroId(@Param("livroId") Integer livroId);
 
@@ -12,6 +12,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,6 +20,9 @@ public interface LivroRepository extends JpaRepository<Livro, Integer> {
     Livro findLivroById(Integer id);
     boolean existsLivroByIsbn(String isbn);
 
+    @Query("SELECT l.isbn FROM Livro l WHERE l.isbn IN :isbns")
+    List<String> findIsbnsExistentes(@Param("isbns") Collection<String> isbns);
+
     @Query("SELECT CASE WHEN EXISTS (SELECT 1 FROM Exemplar e WHERE e.id = :id AND e.situacao = 'emprestado') THEN true ELSE false END")
     boolean existsExemplarEmprestado(@Param("id") Integer id);
 
@@ -56,4 +60,8 @@ public interface LivroRepository extends JpaRepository<Livro, Integer> {
             @Param("dataFim") LocalDate dataFim);
 
     List<Livro> findByAtivoOrderByTitulo(Boolean ativo);
+
+    // Trava a linha do livro ate o fim da transacao: cadastros de exemplares do mesmo livro leem MAX(numero) um de cada vez
+    @Query(value = "SELECT id FROM {h-schema}livro WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Integer travarPorId(@Param("id") Integer id);
 }
@@ -1,14 +1,26 @@
 package com.bibliotech.bibliotech.repositories;
 
+import com.bibliotech.bibliotech.models.Autor;
 import com.bibliotech.bibliotech.models.Livroautor;
-import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface LivroautorRepository extends JpaRepository<Livroautor, Integer> {
+    @Query("SELECT la FROM Livroautor la WHERE la.livro.id = :idLivro")
+    List<Livroautor> findByLivroId(@Param("idLivro") Integer idLivro);
+
+    // Usados ao mesclar autores com o mesmo nome normalizado: descarta os vinculos que ficariam repetidos
+    // e passa o restante para o autor mantido
+    @Modifying
+    @Query("DELETE FROM Livroautor la WHERE la.autor.id = :idAutorDuplicado " +
+            "AND EXISTS (SELECT 1 FROM Livroautor outro WHERE outro.livro.id = la.livro.id AND outro.autor.id = :idAutorMantido)")
+    int deleteVinculosRepetidos(@Param("idAutorDuplicado") Integer idAutorDuplicado, @Param("idAutorMantido") Integer idAutorMantido);
+
     @Modifying
-    @Transactional
-    @Query("DELETE FROM Livroautor la WHERE la.livro.id = :idLivro")
-    void deleteByLivroId(Integer idLivro);
+    @Query("UPDATE Livroautor la SET la.autor = :autorMantido WHERE la.autor.id = :idAutorDuplicado")
+    int reatribuirAutor(@Param("idAutorDuplicado") Integer idAutorDuplicado, @Param("autorMantido") Autor autorMantido);
 }
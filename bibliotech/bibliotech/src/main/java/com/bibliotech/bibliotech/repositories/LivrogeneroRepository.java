@@ -1,14 +1,26 @@
 package com.bibliotech.bibliotech.repositories;
 
+import com.bibliotech.bibliotech.models.Genero;
 import com.bibliotech.bibliotech.models.Livrogenero;
-import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface LivrogeneroRepository extends JpaRepository<Livrogenero, Integer> {
+    @Query("SELECT lg FROM Livrogenero lg WHERE lg.livro.id = :idLivro")
+    List<Livrogenero> findByLivroId(@Param("idLivro") Integer idLivro);
+
+    // Usados ao mesclar generos com o mesmo nome normalizado: descarta os vinculos que ficariam repetidos
+    // e passa o restante para o genero mantido
+    @Modifying
+    @Query("DELETE FROM Livrogenero lg WHERE lg.genero.id = :idGeneroDuplicado " +
+            "AND EXISTS (SELECT 1 FROM Livrogenero outro WHERE outro.livro.id = lg.livro.id AND outro.genero.id = :idGeneroMantido)")
+    int deleteVinculosRepetidos(@Param("idGeneroDuplicado") Integer idGeneroDuplicado, @Param("idGeneroMantido") Integer idGeneroMantido);
+
     @Modifying
-    @Transactional
-    @Query("DELETE FROM Livrogenero lg WHERE lg.livro.id = :idLivro")
-    void deleteByLivroId(Integer idLivro);
+    @Query("UPDATE Livrogenero lg SET lg.genero = :generoMantido WHERE lg.genero.id = :idGeneroDuplicado")
+    int reatribuirGenero(@Param("idGeneroDuplicado") Integer idGeneroDuplicado, @Param("generoMantido") Genero generoMantido);
 }
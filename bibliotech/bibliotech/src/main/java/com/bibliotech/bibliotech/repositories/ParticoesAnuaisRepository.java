@@ -0,0 +1,88 @@
+package com.bibliotech.bibliotech.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+// Particoes por ano letivo de emprestimo, frequenciaalunos e ocorrencias (funcoes em db/migration/V3__particionamento.sql).
+// Nomes de tabela e particao vem do catalogo ou de constantes do ArquivamentoService, nunca de entrada do usuario,
+// porque o Postgres nao aceita parametros em DDL nem em COPY
+@Repository
+public class ParticoesAnuaisRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.default_schema}")
+    private String schema;
+
+    public void criarParticao(String tabela, String coluna, int ano) {
+        entityManager.createNativeQuery("SELECT COUNT(*) FROM (SELECT {h-schema}criar_particao_ano(:tabela, :coluna, :ano)) p")
+                .setParameter("tabela", tabela)
+                .setParameter("coluna", coluna)
+                .setParameter("ano", ano)
+                .getSingleResult();
+    }
+
+    // Particoes anuais da tabela: nome, ano e tablespace ('' quando na padrao do banco), do ano mais antigo ao atual
+    @SuppressWarnings("unchecked")
+    public List<Object[]> listarParticoes(String tabela) {
+        return entityManager.createNativeQuery("SELECT c.relname, CAST(right(c.relname, 4) AS integer), COALESCE(t.spcname, '') " +
+                        "FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "LEFT JOIN pg_tablespace t ON t.oid = c.reltablespace " +
+                        "WHERE i.inhparent = to_regclass(:tabela) AND c.relname ~ '_[0-9]{4}$' " +
+                        "ORDER BY 2")
+                .setParameter("tabela", schema + "." + tabela)
+                .getResultList();
+    }
+
+    public boolean possuiEmprestimosAbertos(String particao) {
+        return (Boolean) entityManager.createNativeQuery("SELECT EXISTS (SELECT 1 FROM {h-schema}" + particao +
+                        " WHERE situacao IN ('pendente', 'atrasado'))")
+                .getSingleResult();
+    }
+
+    // Reescreve a particao no tablespace de armazenamento frio; os dados continuam consultaveis pela tabela mae
+    public void moverParaTablespace(String particao, String tablespace) {
+        entityManager.createNativeQuery("ALTER TABLE {h-schema}" + particao + " SET TABLESPACE \"" + tablespace.replace("\"", "\"\"") + "\"")
+                .executeUpdate();
+    }
+
+    // CSV com cabecalho; trava a particao contra escrita ate o fim da transacao, que tambem a remove
+    public long exportar(String particao, OutputStream destino) {
+        entityManager.createNativeQuery("LOCK TABLE {h-schema}" + particao + " IN SHARE MODE").executeUpdate();
+        String copy = "COPY " + schema + "." + particao + " TO STDOUT WITH (FORMAT csv, HEADER)";
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(copy, destino);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Antes de remover um ano de emprestimo: os extravios dele passam para contadoremprestimos.extravios_arquivados,
+    // que a reconciliacao soma ao que ainda esta em emprestimo. O contador extravios ja os inclui e nao muda
+    public int guardarExtravios(String particao) {
+        return entityManager.createNativeQuery("INSERT INTO {h-schema}contadoremprestimos AS c " +
+                        "(id_aluno, emprestimos_ativos, emprestimos_atrasados, extravios, extravios_arquivados) " +
+                        "SELECT e.id_aluno, 0, 0, COUNT(*), COUNT(*) FROM {h-schema}" + particao + " e " +
+                        "WHERE e.situacao = 'extraviado' GROUP BY e.id_aluno " +
+                        "ON CONFLICT (id_aluno) DO UPDATE SET extravios_arquivados = c.extravios_arquivados + EXCLUDED.extravios_arquivados")
+                .executeUpdate();
+    }
+
+    public void removerParticao(String tabela, String particao) {
+        entityManager.createNativeQuery("ALTER TABLE {h-schema}" + tabela + " DETACH PARTITION {h-schema}" + particao).executeUpdate();
+        entityManager.createNativeQuery("DROP TABLE {h-schema}" + particao).executeUpdate();
+    }
+}
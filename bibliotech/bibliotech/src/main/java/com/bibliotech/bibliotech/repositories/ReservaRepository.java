@@ -0,0 +1,80 @@
+package com.bibliotech.bibliotech.repositories;
+
+import com.bibliotech.bibliotech.models.Reserva;
+import com.bibliotech.bibliotech.models.enums.SituacaoReserva;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReservaRepository extends JpaRepository<Reserva, Integer> {
+
+    // Entrega o exemplar a primeira reserva 'aguardando' do livro num unico UPDATE. SKIP LOCKED faz duas devolucoes
+    // simultaneas de exemplares do mesmo livro pegarem reservas diferentes em vez de uma esperar pela outra; devolve
+    // o id da reserva atendida ou null se a fila estiver vazia
+    @Transactional
+    @Query(value = "WITH atribuida AS (" +
+            "  UPDATE {h-schema}reserva r SET situacao = 'disponivel', id_exemplar = :idExemplar," +
+            "    data_disponibilidade = CURRENT_TIMESTAMP, prazo_retirada = :prazoRetirada" +
+            "  WHERE r.id = (" +
+            "    SELECT p.id FROM {h-schema}reserva p" +
+            "    WHERE p.id_livro = :idLivro AND p.situacao = 'aguardando'" +
+            "    ORDER BY p.data_reserva, p.id LIMIT 1 FOR UPDATE SKIP LOCKED)" +
+            "  RETURNING r.id) " +
+            "SELECT id FROM atribuida", nativeQuery = true)
+    Integer atribuirProxima(@Param("idLivro") Integer idLivro, @Param("idExemplar") Integer idExemplar,
+                            @Param("prazoRetirada") LocalDate prazoRetirada);
+
+    // Encerra as reservas abertas do aluno para o livro (ele acabou de pegar um exemplar) e devolve os exemplares que
+    // estavam separados para elas, para que sejam liberados se nao forem o emprestado
+    @Transactional
+    @Query(value = "WITH encerradas AS (" +
+            "  UPDATE {h-schema}reserva SET situacao = 'atendida', aberta = NULL, data_conclusao = CURRENT_TIMESTAMP" +
+            "  WHERE id_aluno = :idAluno AND id_livro = :idLivro AND aberta" +
+            "  RETURNING id_exemplar) " +
+            "SELECT id_exemplar FROM encerradas WHERE id_exemplar IS NOT NULL", nativeQuery = true)
+    List<Integer> atenderReservasDoAluno(@Param("idAluno") Integer idAluno, @Param("idLivro") Integer idLivro);
+
+    // Reservas nao retiradas no prazo; devolve os exemplares que estavam separados para elas
+    @Transactional
+    @Query(value = "WITH expiradas AS (" +
+            "  UPDATE {h-schema}reserva SET situacao = 'expirada', aberta = NULL, data_conclusao = CURRENT_TIMESTAMP" +
+            "  WHERE situacao = 'disponivel' AND prazo_retirada < CURRENT_DATE" +
+            "  RETURNING id_exemplar) " +
+            "SELECT id_exemplar FROM expiradas WHERE id_exemplar IS NOT NULL", nativeQuery = true)
+    List<Integer> expirarReservas();
+
+    // Exemplares disponiveis de livros com fila (devolucao e reserva que se cruzaram sem se ver)
+    @Query(value = "SELECT e.id FROM {h-schema}exemplar e " +
+            "WHERE e.situacao = 'disponivel' " +
+            "AND EXISTS (SELECT 1 FROM {h-schema}reserva r WHERE r.id_livro = e.id_livro AND r.situacao = 'aguardando')", nativeQuery = true)
+    List<Integer> buscarExemplaresDisponiveisComFila();
+
+    // Posicao na fila sem numerar as reservas: quantas 'aguardando' do mesmo livro estao na frente, pelo reserva_fila_idx
+    @Query("SELECT COUNT(r) FROM Reserva r WHERE r.livro.id = :idLivro AND r.situacao = 'aguardando' " +
+            "AND (r.dataReserva < :dataReserva OR (r.dataReserva = :dataReserva AND r.id < :id))")
+    long contarNaFrente(@Param("idLivro") Integer idLivro, @Param("dataReserva") LocalDateTime dataReserva, @Param("id") Integer id);
+
+    // Mesma contagem para todas as reservas 'aguardando' do aluno numa consulta so: id da reserva e quantas estao na frente
+    @Query("SELECT r.id, (SELECT COUNT(f) FROM Reserva f WHERE f.livro.id = r.livro.id AND f.situacao = 'aguardando' " +
+            "AND (f.dataReserva < r.dataReserva OR (f.dataReserva = r.dataReserva AND f.id < r.id))) " +
+            "FROM Reserva r WHERE r.aluno.id = :idAluno AND r.situacao = 'aguardando'")
+    List<Object[]> contarNaFrenteDoAluno(@Param("idAluno") Integer idAluno);
+
+    boolean existsByAlunoIdAndLivroIdAndAbertaTrue(Integer idAluno, Integer idLivro);
+
+    Optional<Reserva> findByExemplarIdAndSituacao(Integer idExemplar, SituacaoReserva situacao);
+
+    List<Reserva> findByLivroIdAndAbertaTrueOrderByDataReservaAscIdAsc(Integer idLivro);
+
+    List<Reserva> findByAlunoIdAndAbertaTrueOrderByDataReservaAscIdAsc(Integer idAluno);
+
+    List<Reserva> findBySituacaoAndDataNotificacaoIsNullAndDataDisponibilidadeBefore(SituacaoReserva situacao, LocalDateTime limite);
+}
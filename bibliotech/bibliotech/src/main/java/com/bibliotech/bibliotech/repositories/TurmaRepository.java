@@ -3,10 +3,12 @@ package com.bibliotech.bibliotech.repositories;
 import com.bibliotech.bibliotech.dtos.response.TurmaLeiturasDTO;
 import com.bibliotech.bibliotech.models.Turma;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 public interface TurmaRepository extends JpaRepository<Turma, Integer> {
@@ -22,6 +24,10 @@ public interface TurmaRepository extends JpaRepository<Turma, Integer> {
 
     boolean existsBySerieAndTurmaAndAnoDeEntrada(Integer serie, String turma, Integer anoDeEntrada);
 
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Turma t SET t.ativo = :ativo WHERE t.id IN :ids AND t.ativo <> :ativo")
+    int atualizarAtivo(@Param("ids") Collection<Integer> ids, @Param("ativo") boolean ativo);
+
     @Query("SELECT new com.bibliotech.bibliotech.dtos.response.TurmaLeiturasDTO(" +
             "t.serie, t.turma, COUNT(e), " +
             "(SELECT a.nome FROM Aluno a LEFT JOIN Emprestimo e2 ON a.id = e2.aluno.id WHERE a.turma.id = t.id AND e2.dataEmprestimo BETWEEN :dataInicio AND :dataFim GROUP BY a.nome ORDER BY COUNT(e2) DESC LIMIT 1), " +
@@ -7,6 +7,7 @@ import com.bibliotech.bibliotech.exception.NotFoundException;
 import com.bibliotech.bibliotech.exception.ValidationException;
 import com.bibliotech.bibliotech.models.Aluno;
 import com.bibliotech.bibliotech.models.Turma;
+import com.bibliotech.bibliotech.models.enums.SituacaoAluno;
 import com.bibliotech.bibliotech.repositories.AlunoRepository;
 import com.bibliotech.bibliotech.repositories.EmprestimoRepository;
 import com.bibliotech.bibliotech.repositories.TurmaRepository;
@@ -26,15 +27,18 @@ public class AlunosService {
     private final AlunoRequestMapper alunoRequestMapper;
     private final TurmaRepository turmaRepository;
     private final EmprestimoRepository emprestimoRepository;
+    private final AnaliseFrequenciaService analiseFrequenciaService;
 
-    public AlunosService(AlunoRepository alunoRepository, AlunoRequestMapper alunoRequestMapper, TurmaRepository turmaRepository, EmprestimoRepository emprestimoRepository) {
+    public AlunosService(AlunoRepository alunoRepository, AlunoRequestMapper alunoRequestMapper, TurmaRepository turmaRepository, EmprestimoRepository emprestimoRepository,
+                         AnaliseFrequenciaService analiseFrequenciaService) {
         this.alunoRepository = alunoRepository;
         this.alunoRequestMapper = alunoRequestMapper;
         this.turmaRepository = turmaRepository;
         this.emprestimoRepository = emprestimoRepository;
+        this.analiseFrequenciaService = analiseFrequenciaService;
     }
 
-    public Page<Aluno> filtrarAlunos(Integer serie, String turma, String nome, String situacao, Boolean ativo, Pageable pageable) {
+    public Page<Aluno> filtrarAlunos(Integer serie, String turma, String nome, SituacaoAluno situacao, Boolean ativo, Pageable pageable) {
         return alunoRepository.filtrarAlunos(serie, turma, nome, ativo, situacao, pageable);
     }
 
@@ -58,7 +62,7 @@ public class AlunosService {
         }
 
         Aluno aluno = alunoRequestMapper.toEntity(requestDTO);
-        aluno.setSituacao("regular");
+        aluno.setSituacao(SituacaoAluno.regular);
 
         return alunoRepository.save(aluno);
     }
@@ -80,9 +84,6 @@ public class AlunosService {
         if (!alunoExistente.getEmail().equals(requestDTO.getEmail()) && alunoRepository.existsByEmail(requestDTO.getEmail())) {
             throw new ValidationException("Já existe um aluno cadastrado com esse e-mail.");
         }
-        if (requestDTO.getSituacao() != null && !requestDTO.getSituacao().isEmpty() && !requestDTO.getSituacao().equals("regular") && !requestDTO.getSituacao().equals("debito") && !requestDTO.getSituacao().equals("irregular")) {
-            throw new ValidationException("Situação inválida. Deve ser 'regular', 'debito' ou 'irregular'.");
-        }
         if (requestDTO.getEmail() == null || requestDTO.getEmail().isEmpty()) {
             throw new ValidationException("O telefone não pode ser nulo.");
         }
@@ -95,6 +96,10 @@ public class AlunosService {
         if (requestDTO.getIdTurma() != null) {
             Turma turmaExistente = turmaRepository.findById(requestDTO.getIdTurma())
                     .orElseThrow(() -> new ValidationException("Turma não encontrada."));
+            if (alunoExistente.getTurma() == null || !alunoExistente.getTurma().getId().equals(turmaExistente.getId())) {
+                // a analise de frequencia agrupa pela turma atual do aluno
+                analiseFrequenciaService.invalidar();
+            }
             alunoExistente.setTurma(turmaExistente);
         }
 
@@ -123,22 +128,17 @@ public class AlunosService {
         alunoRepository.save(alunoExistente);
     }
 
-    public void inativarAlunosPorTurma(Turma turma) {
-        List<Aluno> alunos = alunoRepository.filtrarAlunos(turma.getSerie(), turma.getTurma(), null, true, null, Pageable.unpaged()).getContent();
-        for (Aluno aluno : alunos) {
-            aluno.setAtivo(false);
-        }
-        alunoRepository.saveAll(alunos);
+    @Transactional
+    public int inativarAlunosPorTurma(Turma turma) {
+        return alunoRepository.atualizarAtivoPorTurma(turma.getId(), false);
     }
 
-    public void ativarAlunosPorTurma(Turma turma) {
-        List<Aluno> alunos = alunoRepository.filtrarAlunos(turma.getSerie(), turma.getTurma(), null, false, null, Pageable.unpaged()).getContent();
-        for (Aluno aluno : alunos) {
-            aluno.setAtivo(true);
-        }
-        alunoRepository.saveAll(alunos);
+    @Transactional
+    public int ativarAlunosPorTurma(Turma turma) {
+        return alunoRepository.atualizarAtivoPorTurma(turma.getId(), true);
     }
 
+    @Transactional(readOnly = true)
     public List<AlunoLeiturasDTO> obterAlunosMaisLeitures(LocalDate dataInicio, LocalDate dataFim, Integer qtdMax) {
         if (dataInicio == null) {
             throw new ValidationException("A data de início é obrigatória.");
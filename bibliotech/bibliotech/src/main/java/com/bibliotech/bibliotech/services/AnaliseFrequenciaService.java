@@ -0,0 +1,221 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.dtos.response.AnaliseFrequenciaPeriodoDTO;
+import com.bibliotech.bibliotech.dtos.response.AnaliseFrequenciaResponseDTO;
+import com.bibliotech.bibliotech.exception.ValidationException;
+import com.bibliotech.bibliotech.models.Turma;
+import com.bibliotech.bibliotech.models.enums.AgrupamentoFrequencia;
+import com.bibliotech.bibliotech.models.enums.AtividadeFrequencia;
+import com.bibliotech.bibliotech.repositories.FrequenciaAlunosRepository;
+import com.bibliotech.bibliotech.repositories.TurmaRepository;
+import com.bibliotech.bibliotech.utils.AposCommit;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Frequencias por dia ou por semana, contadas por atividade, por turma do aluno e por hora do registro. As contagens
+// saem do banco ja agregadas por dia (FrequenciaAlunosRepository.resumirPorDia) e as semanas somam os dias.
+// Meses encerrados ficam em memoria depois da primeira consulta (ate bibliotech.frequencia.analise.meses-em-cache
+// meses): frequencia so e registrada com a data do dia, entao um mes que terminou antes de ontem so muda quando uma
+// frequencia e excluida, um ano e arquivado ou alunos mudam de turma, e esses casos chamam invalidar. Ontem fica de
+// fora porque o buffer de escrita pode gravar frequencias do dia anterior logo depois da meia-noite. Os meses
+// encerrados que faltam no cache sao lidos numa consulta so, e o resto do intervalo (mes corrente) em outra.
+// O intervalo vai ate bibliotech.frequencia.analise.max-meses meses.
+// A turma e a atual do aluno, nao a da data da frequencia.
+// Metricas: cache.gets, cache.puts e cache.evictions com a tag cache=frequencia.analise
+@Service
+public class AnaliseFrequenciaService {
+
+    private static final String SEM_TURMA = "Sem turma";
+    private static final String SEM_HORA = "Sem horário";
+
+    @Autowired
+    private FrequenciaAlunosRepository frequenciaAlunosRepository;
+    @Autowired
+    private TurmaRepository turmaRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bibliotech.frequencia.analise.meses-em-cache:36}")
+    private int mesesEmCache;
+    @Value("${bibliotech.frequencia.analise.max-meses:36}")
+    private int maxMeses;
+
+    // contagens de um dia; turma e hora nulas para aluno sem turma e frequencia sem hora
+    private static class ResumoDia {
+        private final Map<AtividadeFrequencia, Long> porAtividade = new EnumMap<>(AtividadeFrequencia.class);
+        private final Map<Integer, Long> porTurma = new HashMap<>();
+        private final Map<Integer, Long> porHora = new HashMap<>();
+    }
+
+    private Cache<YearMonth, Map<LocalDate, ResumoDia>> mesesEncerrados;
+
+    @PostConstruct
+    void iniciarCache() {
+        mesesEncerrados = Caffeine.newBuilder().maximumSize(mesesEmCache).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, mesesEncerrados, "frequencia.analise");
+    }
+
+    @Transactional(readOnly = true)
+    public AnaliseFrequenciaResponseDTO analisar(LocalDate dataInicio, LocalDate dataFim, AgrupamentoFrequencia agrupamento) {
+        if (dataInicio == null) {
+            throw new ValidationException("A data de início é obrigatória.");
+        }
+        if (dataFim == null) {
+            dataFim = LocalDate.now();
+        }
+        if (dataInicio.isAfter(dataFim)) {
+            throw new ValidationException("A data de início deve ser anterior à data final.");
+        }
+        if (dataInicio.isBefore(dataFim.minusMonths(maxMeses))) {
+            throw new ValidationException("O período da análise deve ter no máximo " + maxMeses + " meses.");
+        }
+        if (agrupamento == null) {
+            agrupamento = AgrupamentoFrequencia.dia;
+        }
+
+        // meses encerrados sao os primeiros do intervalo
+        List<YearMonth> encerrados = new ArrayList<>();
+        YearMonth mes = YearMonth.from(dataInicio);
+        for (; !mes.isAfter(YearMonth.from(dataFim)) && encerrado(mes); mes = mes.plusMonths(1)) {
+            encerrados.add(mes);
+        }
+
+        // dias com frequencia no intervalo, em ordem
+        Map<LocalDate, ResumoDia> dias = new TreeMap<>();
+        for (Map<LocalDate, ResumoDia> doMes : mesesEncerrados.getAll(encerrados, this::carregarMeses).values()) {
+            for (Map.Entry<LocalDate, ResumoDia> dia : doMes.entrySet()) {
+                if (!dia.getKey().isBefore(dataInicio) && !dia.getKey().isAfter(dataFim)) {
+                    dias.put(dia.getKey(), dia.getValue());
+                }
+            }
+        }
+        if (!mes.isAfter(YearMonth.from(dataFim))) {
+            dias.putAll(resumir(mes.atDay(1).isBefore(dataInicio) ? dataInicio : mes.atDay(1), dataFim));
+        }
+
+        // dia ou semana -> soma dos dias
+        Map<LocalDate, ResumoDia> periodos = new TreeMap<>();
+        for (Map.Entry<LocalDate, ResumoDia> dia : dias.entrySet()) {
+            LocalDate chave = agrupamento == AgrupamentoFrequencia.semana ? dia.getKey().with(DayOfWeek.MONDAY) : dia.getKey();
+            ResumoDia periodo = periodos.computeIfAbsent(chave, c -> new ResumoDia());
+            dia.getValue().porAtividade.forEach((atividade, quantidade) -> periodo.porAtividade.merge(atividade, quantidade, Long::sum));
+            dia.getValue().porTurma.forEach((turma, quantidade) -> periodo.porTurma.merge(turma, quantidade, Long::sum));
+            dia.getValue().porHora.forEach((hora, quantidade) -> periodo.porHora.merge(hora, quantidade, Long::sum));
+        }
+
+        Map<Integer, String> turmas = nomesTurmas(periodos.values());
+        List<AnaliseFrequenciaPeriodoDTO> resultado = new ArrayList<>();
+        long total = 0;
+        for (Map.Entry<LocalDate, ResumoDia> periodo : periodos.entrySet()) {
+            LocalDate inicio = periodo.getKey().isBefore(dataInicio) ? dataInicio : periodo.getKey();
+            LocalDate fim = agrupamento == AgrupamentoFrequencia.semana ? periodo.getKey().plusDays(6) : periodo.getKey();
+            if (fim.isAfter(dataFim)) {
+                fim = dataFim;
+            }
+            AnaliseFrequenciaPeriodoDTO dto = paraDto(inicio, fim, periodo.getValue(), turmas);
+            total += dto.getTotal();
+            resultado.add(dto);
+        }
+        return new AnaliseFrequenciaResponseDTO(dataInicio, dataFim, agrupamento, total, resultado);
+    }
+
+    // Apos a exclusao de uma frequencia: o mes dela volta a ser lido do banco
+    public void invalidar(LocalDate data) {
+        YearMonth mes = YearMonth.from(data);
+        AposCommit.executar(() -> mesesEncerrados.invalidate(mes));
+    }
+
+    // Apos o arquivamento de um ano de frequencias ou a mudanca de turma de alunos
+    public void invalidar() {
+        AposCommit.executar(() -> mesesEncerrados.invalidateAll());
+    }
+
+    private boolean encerrado(YearMonth mes) {
+        return mes.atEndOfMonth().isBefore(LocalDate.now().minusDays(1));
+    }
+
+    // Meses que faltam no cache, do primeiro ao ultimo numa consulta so; mes sem frequencia fica vazio no cache
+    private Map<YearMonth, Map<LocalDate, ResumoDia>> carregarMeses(Set<? extends YearMonth> meses) {
+        Map<YearMonth, Map<LocalDate, ResumoDia>> carregados = new HashMap<>();
+        meses.forEach(mes -> carregados.put(mes, new HashMap<>()));
+        resumir(Collections.min(meses).atDay(1), Collections.max(meses).atEndOfMonth()).forEach((dia, resumo) -> {
+            Map<LocalDate, ResumoDia> doMes = carregados.get(YearMonth.from(dia));
+            if (doMes != null) {
+                doMes.put(dia, resumo);
+            }
+        });
+        return carregados;
+    }
+
+    private Map<LocalDate, ResumoDia> resumir(LocalDate inicio, LocalDate fim) {
+        Map<LocalDate, ResumoDia> dias = new HashMap<>();
+        for (Object[] linha : frequenciaAlunosRepository.resumirPorDia(inicio, fim)) {
+            ResumoDia dia = dias.computeIfAbsent(((Date) linha[0]).toLocalDate(), d -> new ResumoDia());
+            long quantidade = ((Number) linha[6]).longValue();
+            if (((Number) linha[1]).intValue() == 0) {
+                dia.porAtividade.put(AtividadeFrequencia.valueOf((String) linha[3]), quantidade);
+            } else if (((Number) linha[2]).intValue() == 0) {
+                dia.porTurma.put((Integer) linha[4], quantidade);
+            } else {
+                dia.porHora.put((Integer) linha[5], quantidade);
+            }
+        }
+        return dias;
+    }
+
+    // Turmas vem do cache de segundo nivel (CacheReferenciasService)
+    private Map<Integer, String> nomesTurmas(Iterable<ResumoDia> periodos) {
+        List<Integer> ids = new ArrayList<>();
+        for (ResumoDia periodo : periodos) {
+            periodo.porTurma.keySet().stream().filter(id -> id != null && !ids.contains(id)).forEach(ids::add);
+        }
+        return turmaRepository.findAllById(ids).stream().collect(Collectors.toMap(Turma::getId,
+                turma -> turma.getSerie() + "º " + turma.getTurma() + " - " + turma.getAnoDeEntrada()));
+    }
+
+    private AnaliseFrequenciaPeriodoDTO paraDto(LocalDate inicio, LocalDate fim, ResumoDia resumo, Map<Integer, String> turmas) {
+        Map<AtividadeFrequencia, Long> porAtividade = new LinkedHashMap<>();
+        long total = 0;
+        for (AtividadeFrequencia atividade : AtividadeFrequencia.values()) {
+            long quantidade = resumo.porAtividade.getOrDefault(atividade, 0L);
+            porAtividade.put(atividade, quantidade);
+            total += quantidade;
+        }
+        return new AnaliseFrequenciaPeriodoDTO(inicio, fim, total, porAtividade,
+                rotular(resumo.porTurma, id -> id == null ? SEM_TURMA : turmas.getOrDefault(id, "Turma " + id)),
+                rotular(resumo.porHora, hora -> hora == null ? SEM_HORA : "%02dh".formatted(hora)));
+    }
+
+    // Chaves em ordem, nulas por ultimo, com o rotulo de cada uma
+    private Map<String, Long> rotular(Map<Integer, Long> contagens, Function<Integer, String> rotulo) {
+        Map<String, Long> resultado = new LinkedHashMap<>();
+        contagens.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.nullsLast(Comparator.<Integer>naturalOrder())))
+                .forEach(contagem -> resultado.merge(rotulo.apply(contagem.getKey()), contagem.getValue(), Long::sum));
+        return resultado;
+    }
+}
@@ -0,0 +1,130 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.repositories.ParticoesAnuaisRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Year;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+// emprestimo, frequenciaalunos e ocorrencias sao particionadas por ano letivo (db/migration/V3__particionamento.sql):
+// consultas com filtro de data so leem os anos do intervalo. Aqui ficam a criacao do ano seguinte e o arquivamento
+// dos anos encerrados, fora dos bibliotech.arquivamento.anos-retidos mais recentes (contando o atual):
+// - com bibliotech.arquivamento.tablespace, a particao vai para esse tablespace e continua consultavel;
+// - senao, com bibliotech.arquivamento.diretorio, vira <particao>.csv.gz e sai do banco (relatorios deixam de conta-la);
+// - sem nenhum dos dois, nada e arquivado.
+// Anos de emprestimo com algum emprestimo ainda aberto nao sao arquivados; os extravios dos que saem do banco ficam em
+// contadoremprestimos.extravios_arquivados e o historico deles continua em emprestimo_evento.
+// Metrica: bibliotech.arquivamento.particoes (tags tabela e destino)
+@Service
+public class ArquivamentoService {
+
+    // tabela e coluna de data que define a particao
+    private static final Map<String, String> TABELAS = Map.of(
+            "emprestimo", "data_emprestimo",
+            "frequenciaalunos", "data_frequencia",
+            "ocorrencias", "data_ocorrencia"
+    );
+
+    @Autowired
+    private ParticoesAnuaisRepository particoesAnuaisRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private AnaliseFrequenciaService analiseFrequenciaService;
+
+    @Value("${bibliotech.arquivamento.anos-retidos:3}")
+    private int anosRetidos;
+
+    @Value("${bibliotech.arquivamento.tablespace:}")
+    private String tablespace;
+
+    @Value("${bibliotech.arquivamento.diretorio:}")
+    private String diretorio;
+
+    // O ano seguinte ja existe antes da virada, para nenhuma linha cair na particao padrao
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${bibliotech.arquivamento.particoes-cron:0 0 3 1 12 *}")
+    public void prepararParticoes() {
+        int ano = Year.now().getValue();
+        TABELAS.forEach((tabela, coluna) -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            particoesAnuaisRepository.criarParticao(tabela, coluna, ano);
+            particoesAnuaisRepository.criarParticao(tabela, coluna, ano + 1);
+        }));
+    }
+
+    @Scheduled(cron = "${bibliotech.arquivamento.cron:0 30 3 * * SUN}")
+    public void arquivar() {
+        if (tablespace.isBlank() && diretorio.isBlank()) {
+            return;
+        }
+        int limite = Year.now().getValue() - anosRetidos + 1;
+
+        for (String tabela : TABELAS.keySet()) {
+            List<Object[]> particoes = new TransactionTemplate(transactionManager).execute(status ->
+                    particoesAnuaisRepository.listarParticoes(tabela));
+
+            for (Object[] particao : particoes) {
+                String nome = (String) particao[0];
+                int ano = (Integer) particao[1];
+                String tablespaceAtual = (String) particao[2];
+                if (ano >= limite || (!tablespace.isBlank() && tablespace.equals(tablespaceAtual))) {
+                    continue;
+                }
+                // uma transacao por particao: uma falha nao desfaz os anos ja arquivados
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> arquivarParticao(tabela, nome));
+            }
+        }
+    }
+
+    private void arquivarParticao(String tabela, String particao) {
+        if (tabela.equals("emprestimo") && particoesAnuaisRepository.possuiEmprestimosAbertos(particao)) {
+            return;
+        }
+
+        if (!tablespace.isBlank()) {
+            particoesAnuaisRepository.moverParaTablespace(particao, tablespace);
+            meterRegistry.counter("bibliotech.arquivamento.particoes", "tabela", tabela, "destino", "tablespace").increment();
+            return;
+        }
+
+        // escreve num temporario e so troca pelo definitivo depois da exportacao completa; se a transacao falhar
+        // depois disso, a proxima rodada exporta de novo por cima
+        Path arquivo = Path.of(diretorio, particao + ".csv.gz");
+        Path temporario = Path.of(diretorio, particao + ".csv.gz.tmp");
+        try {
+            Files.createDirectories(arquivo.getParent());
+            try (OutputStream saida = new GZIPOutputStream(Files.newOutputStream(temporario))) {
+                particoesAnuaisRepository.exportar(particao, saida);
+            }
+            Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (tabela.equals("emprestimo")) {
+            particoesAnuaisRepository.guardarExtravios(particao);
+        }
+        particoesAnuaisRepository.removerParticao(tabela, particao);
+        if (tabela.equals("frequenciaalunos")) {
+            analiseFrequenciaService.invalidar();
+        }
+        meterRegistry.counter("bibliotech.arquivamento.particoes", "tabela", tabela, "destino", "arquivo").increment();
+    }
+}
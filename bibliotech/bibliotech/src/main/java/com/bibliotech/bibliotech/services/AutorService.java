@@ -1,58 +1,195 @@
 package com.bibliotech.bibliotech.services;
 
+import com.bibliotech.bibliotech.dtos.AutorDTO;
+import com.bibliotech.bibliotech.dtos.response.AutocompletarResponseDTO;
 import com.bibliotech.bibliotech.exception.NotFoundException;
+import com.bibliotech.bibliotech.exception.ValidationException;
 import com.bibliotech.bibliotech.models.Autor;
 import com.bibliotech.bibliotech.models.Livro;
 import com.bibliotech.bibliotech.models.Livroautor;
 import com.bibliotech.bibliotech.repositories.AutorRepository;
 import com.bibliotech.bibliotech.repositories.LivroautorRepository;
+import com.bibliotech.bibliotech.utils.AposCommit;
+import com.bibliotech.bibliotech.utils.DicionarioNomes;
+import com.bibliotech.bibliotech.utils.IndicePrefixos;
+import com.bibliotech.bibliotech.utils.NormalizarNome;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.*;
 
 @Service
 public class AutorService {
 
+    public static final int LIMITE_AUTOCOMPLETAR_MAXIMO = 50;
+
     @Autowired
     private AutorRepository autorRepository;
     @Autowired
     private LivroautorRepository livroautorRepository;
 
+    private final DicionarioNomes dicionario = new DicionarioNomes();
+    private final IndicePrefixos indice = new IndicePrefixos();
+
+    // Resolve os nomes pelo dicionario (autores ja conhecidos custam so uma trava, numa consulta para todos) e grava os
+    // vinculos de uma vez so
+    @Transactional
     public List<Autor> cadastrarAutores(List<Autor> autores, Livro livro) {
-        Set<String> nomesNovosAutores = autores.stream()
-                .map(Autor::getNome)
-                .filter(nome -> nome != null && !nome.isEmpty())
-                .collect(Collectors.toSet());
+        Map<Integer, Autor> autoresAssociados = resolverAutores(autores);
 
-        List<Autor> autoresAssociados = new ArrayList<>();
+        List<Livroautor> vinculos = new ArrayList<>();
+        for (Integer idAutor : autoresAssociados.keySet()) {
+            vinculos.add(novoVinculo(livro, idAutor));
+        }
+        livroautorRepository.saveAll(vinculos);
+        contarVinculos(autoresAssociados.keySet(), 1);
 
-        for (String nome : nomesNovosAutores) {
-            Optional<Autor> autorOptional = autorRepository.findFirstByNomeIgnoreCase(nome);
+        return new ArrayList<>(autoresAssociados.values());
+    }
 
-            Autor autor;
-            if (autorOptional.isPresent()) {
-                autor = autorOptional.get();
-            } else {
-                Autor novoAutor = new Autor();
-                novoAutor.setNome(nome);
-                autor = autorRepository.save(novoAutor);
+    // Compara os autores pedidos com os vinculos atuais do livro e so apaga/insere o que mudou
+    @Transactional
+    public List<Autor> cadastrarNovosAutores(List<Autor> autores, Livro livro) {
+        Map<Integer, Autor> autoresAssociados = resolverAutores(autores);
+
+        Set<Integer> mantidos = new HashSet<>();
+        List<Integer> vinculosRemovidos = new ArrayList<>();
+        List<Integer> autoresDesvinculados = new ArrayList<>();
+        for (Livroautor vinculo : livroautorRepository.findByLivroId(livro.getId())) {
+            Integer idAutor = vinculo.getAutor().getId();
+            if (!autoresAssociados.containsKey(idAutor) || !mantidos.add(idAutor)) {
+                vinculosRemovidos.add(vinculo.getId());
+                autoresDesvinculados.add(idAutor);
             }
+        }
+
+        List<Livroautor> vinculosNovos = new ArrayList<>();
+        for (Integer idAutor : autoresAssociados.keySet()) {
+            if (!mantidos.contains(idAutor)) {
+                vinculosNovos.add(novoVinculo(livro, idAutor));
+            }
+        }
 
-            Livroautor livroAutor = new Livroautor();
-            livroAutor.setLivro(livro);
-            livroAutor.setAutor(autor);
-            livroautorRepository.save(livroAutor);
-            autoresAssociados.add(autor);
+        if (!vinculosRemovidos.isEmpty()) {
+            livroautorRepository.deleteAllByIdInBatch(vinculosRemovidos);
         }
+        livroautorRepository.saveAll(vinculosNovos);
+
+        contarVinculos(autoresDesvinculados, -1);
+        contarVinculos(vinculosNovos.stream().map(vinculo -> vinculo.getAutor().getId()).toList(), 1);
+
+        return new ArrayList<>(autoresAssociados.values());
+    }
+
+    // Autores pedidos, sem repeticao, na ordem em que vieram, indexados pelo id
+    private Map<Integer, Autor> resolverAutores(List<Autor> autores) {
+        Map<String, String> nomesNovosAutores = new LinkedHashMap<>();
+        for (Autor autor : autores) {
+            if (autor.getNome() != null && !autor.getNome().isBlank()) {
+                nomesNovosAutores.putIfAbsent(NormalizarNome.normalizar(autor.getNome()), autor.getNome().trim());
+            }
+        }
+
+        Set<Integer> existentes = travarDoDicionario(nomesNovosAutores.keySet());
+        Map<Integer, Autor> autoresAssociados = new LinkedHashMap<>();
+        nomesNovosAutores.forEach((nomeNormalizado, nome) -> {
+            DicionarioNomes.Entrada entrada = resolverAutor(nomeNormalizado, nome, existentes);
+
+            Autor autor = new Autor();
+            autor.setId(entrada.getId());
+            autor.setNome(entrada.getNome());
+            autoresAssociados.putIfAbsent(entrada.getId(), autor);
+        });
 
         return autoresAssociados;
     }
 
+    private Livroautor novoVinculo(Livro livro, Integer idAutor) {
+        Livroautor livroAutor = new Livroautor();
+        livroAutor.setLivro(livro);
+        livroAutor.setAutor(autorRepository.getReferenceById(idAutor));
+        return livroAutor;
+    }
+
+    // Quantidade de livros no indice de autocompletar, ajustada depois do commit de quem gravou os vinculos
+    public void contarVinculos(Collection<Integer> idsAutor, long delta) {
+        List<Integer> ids = List.copyOf(idsAutor);
+        AposCommit.executar(() -> indice.ajustarQuantidade(ids, delta));
+    }
+
+    public List<AutocompletarResponseDTO> autocompletar(String prefixo, int limite) {
+        if (prefixo == null || prefixo.isBlank()) {
+            throw new ValidationException("O prefixo para autocompletar não pode ser vazio.");
+        }
+        if (limite <= 0 || limite > LIMITE_AUTOCOMPLETAR_MAXIMO) {
+            throw new ValidationException("O limite deve estar entre 1 e " + LIMITE_AUTOCOMPLETAR_MAXIMO + ".");
+        }
+        return indice.buscar(prefixo, limite);
+    }
+
+    public IndicePrefixos.Estatisticas estatisticasAutocompletar() {
+        return indice.estatisticas();
+    }
+
+    @Transactional
+    public Integer resolverIdAutor(String nome) {
+        String nomeNormalizado = NormalizarNome.normalizar(nome);
+        return resolverAutor(nomeNormalizado, nome.trim(), travarDoDicionario(List.of(nomeNormalizado))).getId();
+    }
+
+    // Ids do dicionario travados (FOR KEY SHARE) numa consulta so, ate o commit de quem grava os vinculos: a limpeza
+    // de orfaos pula os travados. Devolve os que ainda existem; os outros ja foram apagados por ela
+    private Set<Integer> travarDoDicionario(Collection<String> nomesNormalizados) {
+        List<Integer> ids = nomesNormalizados.stream().map(dicionario::buscar).filter(Objects::nonNull)
+                .map(DicionarioNomes.Entrada::getId).toList();
+        return ids.isEmpty() ? Set.of() : new HashSet<>(autorRepository.travarParaVinculo(ids));
+    }
+
+    private DicionarioNomes.Entrada resolverAutor(String nomeNormalizado, String nome, Set<Integer> existentes) {
+        DicionarioNomes.Entrada entrada = dicionario.buscar(nomeNormalizado);
+        if (entrada != null && existentes.contains(entrada.getId())) {
+            return entrada;
+        }
+
+        // nao estava no dicionario: insere (ou perde a corrida para outro cadastro do mesmo nome) e busca o id
+        autorRepository.inserirSeAusente(nome, nomeNormalizado);
+        Integer id = autorRepository.findIdByNomeNormalizado(nomeNormalizado);
+        dicionario.registrarAposCommit(nomeNormalizado, id, nome);
+        AposCommit.executar(() -> indice.adicionar(id, nome, 0));
+
+        return new DicionarioNomes.Entrada(id, nome);
+    }
+
+    // Carrega o dicionario na subida. Autores antigos ainda sem nome_normalizado sao preenchidos aqui e,
+    // se o nome normalizado repetir o de outro autor, os dois sao mesclados num so
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void carregarDicionario() {
+        for (AutorDTO autor : autorRepository.findAutoresDTONormalizados()) {
+            dicionario.carregar(NormalizarNome.normalizar(autor.getNome()), autor.getId(), autor.getNome());
+        }
+
+        for (Autor autor : autorRepository.findByNomeNormalizadoIsNull()) {
+            String nomeNormalizado = NormalizarNome.normalizar(autor.getNome());
+            DicionarioNomes.Entrada existente = dicionario.buscar(nomeNormalizado);
+
+            if (existente == null) {
+                autor.setNomeNormalizado(nomeNormalizado);
+                autorRepository.save(autor);
+                dicionario.carregar(nomeNormalizado, autor.getId(), autor.getNome());
+            } else {
+                livroautorRepository.deleteVinculosRepetidos(autor.getId(), existente.getId());
+                livroautorRepository.reatribuirAutor(autor.getId(), autorRepository.getReferenceById(existente.getId()));
+                autorRepository.delete(autor);
+            }
+        }
+
+        indice.recarregar(autorRepository.findAutocompletar());
+    }
+
     public List<Autor> buscarPorNomeQueContem(String nome) {
         List<Autor> autores = autorRepository.findByNomeContainingIgnoreCase(nome);
         if (autores.isEmpty()) {
@@ -61,19 +198,30 @@ public class AutorService {
         return autores;
     }
 
-    public void deletarAutoresSemAssociacao() {
-        List<Autor> autoresSemLivros = autorRepository.findAutoresSemLivros();
-        System.out.println("Deletando {} autores não associados a livros." + autoresSemLivros.size());
+    // Usado pela limpeza agendada; os removidos saem do dicionario e do indice depois do commit, pelo nome normalizado
+    // devolvido no DELETE
+    @Transactional
+    public int removerAutoresSemLivros() {
+        List<String> removidos = autorRepository.deleteAutoresSemLivros();
 
-        autorRepository.deleteAll(autoresSemLivros);
+        List<String> nomesRemovidos = new ArrayList<>();
+        List<Integer> idsRemovidos = new ArrayList<>();
+        for (String nomeNormalizado : removidos) {
+            DicionarioNomes.Entrada entrada = dicionario.buscar(nomeNormalizado);
+            if (entrada != null) {
+                nomesRemovidos.add(nomeNormalizado);
+                idsRemovidos.add(entrada.getId());
+            }
+        }
+        AposCommit.executar(() -> {
+            nomesRemovidos.forEach(dicionario::remover);
+            indice.remover(idsRemovidos);
+        });
+
+        return removidos.size();
     }
 
     public List<Autor> findAutorByLivroId(Integer id) {
         return autorRepository.findAutoresByLivroId(id);
     }
-
-    public List<Autor> cadastrarNovosAutores(List<Autor> autores, Livro livro) {
-        livroautorRepository.deleteByLivroId(livro.getId());
-        return cadastrarAutores(autores, livro);
-    }
 }
@@ -0,0 +1,210 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.dtos.request.FrequenciaAlunosLoteItemDTO;
+import com.bibliotech.bibliotech.exception.ValidationException;
+import com.bibliotech.bibliotech.models.enums.AtividadeFrequencia;
+import com.bibliotech.bibliotech.repositories.FrequenciaAlunosRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Buffer de escrita das frequencias em lote (bibliotech.frequencia.buffer.habilitado). O FrequenciaAlunosService valida
+// o lote e deixa as frequencias aqui, separadas por dia; elas vao para o banco num INSERT por dia a cada
+// bibliotech.frequencia.buffer.intervalo-ms ou assim que o buffer junta bibliotech.frequencia.buffer.tamanho-lote.
+// Descarga que falha devolve as frequencias ao buffer para a rodada seguinte; as que o banco recusa (aluno removido
+// depois da validacao) sao descartadas uma a uma. No encerramento o buffer e descarregado depois de o servidor parar de
+// aceitar requisicoes e antes de o pool de conexoes fechar; frequencias so se perdem numa queda do processo (no maximo
+// as de um intervalo) ou com o banco fora do ar no encerramento. Ate a descarga elas nao aparecem nas consultas.
+// Cada frequencia descartada, devolvida por falha ou perdida no encerramento vai para o log com o aluno e o dia.
+// Metricas: bibliotech.frequencia.buffer.pendentes, bibliotech.frequencia.buffer.gravadas,
+// bibliotech.frequencia.buffer.falhas e bibliotech.frequencia.buffer.descartadas
+@Service
+public class BufferFrequenciaAlunosService {
+
+    private static final Logger log = LoggerFactory.getLogger(BufferFrequenciaAlunosService.class);
+
+    @Autowired
+    private FrequenciaAlunosRepository frequenciaAlunosRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bibliotech.frequencia.buffer.tamanho-lote:200}")
+    private int tamanhoLote;
+
+    @AllArgsConstructor
+    private static class Pendente {
+        private final Integer registradaPor;
+        private final AtividadeFrequencia atividade;
+        private final LocalTime hora;
+    }
+
+    // dia -> aluno -> frequencia; vale a primeira do dia, como na unica (id_aluno, data_frequencia)
+    private final Map<LocalDate, Map<Integer, Pendente>> pendentes = new LinkedHashMap<>();
+    private volatile int quantidade;
+    private boolean encerrado;
+
+    // uma descarga por vez; a que o tamanho-lote dispara roda fora da requisicao
+    private final ReentrantLock descarga = new ReentrantLock();
+    private final AtomicBoolean descargaAgendada = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Counter gravadas;
+    private Counter falhas;
+    private Counter descartadas;
+
+    @PostConstruct
+    void registrarMetricas() {
+        meterRegistry.gauge("bibliotech.frequencia.buffer.pendentes", this, buffer -> buffer.quantidade);
+        gravadas = meterRegistry.counter("bibliotech.frequencia.buffer.gravadas");
+        falhas = meterRegistry.counter("bibliotech.frequencia.buffer.falhas");
+        descartadas = meterRegistry.counter("bibliotech.frequencia.buffer.descartadas");
+    }
+
+    @PreDestroy
+    void encerrar() {
+        synchronized (this) {
+            encerrado = true;
+        }
+        executor.close();
+        descarregar();
+
+        // sobra o que a ultima descarga devolveu
+        synchronized (this) {
+            pendentes.forEach((data, doDia) -> doDia.keySet().forEach(aluno ->
+                    log.error("Frequência do aluno {} em {} perdida no encerramento: não foi gravada", aluno, data)));
+        }
+    }
+
+    // Devolve os alunos que ja tinham frequencia do dia no buffer
+    public synchronized List<Integer> enfileirar(LocalDate data, LocalTime hora, Integer registradaPor, List<FrequenciaAlunosLoteItemDTO> itens) {
+        if (encerrado) {
+            throw new ValidationException("A aplicação está sendo encerrada; registre a frequência novamente em instantes.");
+        }
+
+        Map<Integer, Pendente> doDia = pendentes.computeIfAbsent(data, dia -> new LinkedHashMap<>());
+        List<Integer> repetidos = new ArrayList<>();
+        for (FrequenciaAlunosLoteItemDTO item : itens) {
+            if (doDia.putIfAbsent(item.getIdAluno(), new Pendente(registradaPor, item.getAtividade(), hora)) == null) {
+                quantidade++;
+            } else {
+                repetidos.add(item.getIdAluno());
+            }
+        }
+
+        if (quantidade >= tamanhoLote && descargaAgendada.compareAndSet(false, true)) {
+            executor.execute(this::descarregar);
+        }
+        return repetidos;
+    }
+
+    @Scheduled(fixedDelayString = "${bibliotech.frequencia.buffer.intervalo-ms:5000}",
+            initialDelayString = "${bibliotech.frequencia.buffer.intervalo-ms:5000}")
+    public void descarregar() {
+        descarga.lock();
+        try {
+            descargaAgendada.set(false);
+            Map<LocalDate, Map<Integer, Pendente>> lote;
+            synchronized (this) {
+                if (quantidade == 0) {
+                    return;
+                }
+                lote = new LinkedHashMap<>(pendentes);
+                pendentes.clear();
+                quantidade = 0;
+            }
+
+            for (Map.Entry<LocalDate, Map<Integer, Pendente>> dia : lote.entrySet()) {
+                List<Map.Entry<Integer, Pendente>> frequencias = new ArrayList<>(dia.getValue().entrySet());
+                for (int inicio = 0; inicio < frequencias.size(); inicio += tamanhoLote) {
+                    List<Map.Entry<Integer, Pendente>> parte = frequencias.subList(inicio, Math.min(inicio + tamanhoLote, frequencias.size()));
+                    try {
+                        gravar(dia.getKey(), parte);
+                    } catch (DataIntegrityViolationException e) {
+                        gravarUmaAUma(dia.getKey(), parte);
+                    } catch (RuntimeException e) {
+                        falhas.increment();
+                        List<Map.Entry<Integer, Pendente>> devolvidas = frequencias.subList(inicio, frequencias.size());
+                        log.error("Falha ao gravar as frequências de {}; {} voltam ao buffer (alunos {})", dia.getKey(),
+                                devolvidas.size(), devolvidas.stream().map(Map.Entry::getKey).toList(), e);
+                        devolver(dia.getKey(), devolvidas);
+                        break;
+                    }
+                }
+            }
+        } finally {
+            descarga.unlock();
+        }
+    }
+
+    private void gravar(LocalDate data, List<Map.Entry<Integer, Pendente>> frequencias) {
+        Integer[] idsAlunos = new Integer[frequencias.size()];
+        Integer[] registradaPor = new Integer[frequencias.size()];
+        String[] atividades = new String[frequencias.size()];
+        String[] horas = new String[frequencias.size()];
+        for (int i = 0; i < frequencias.size(); i++) {
+            idsAlunos[i] = frequencias.get(i).getKey();
+            registradaPor[i] = frequencias.get(i).getValue().registradaPor;
+            atividades[i] = frequencias.get(i).getValue().atividade.name();
+            // a hora e a do registro, nao a da descarga
+            horas[i] = frequencias.get(i).getValue().hora.toString();
+        }
+        // repetidas (frequencia gravada por outro caminho depois da validacao) ficam com a que ja estava no banco
+        List<Integer> inseridos = frequenciaAlunosRepository.inserirLote(idsAlunos, registradaPor, atividades, horas, data);
+        gravadas.increment(inseridos.size());
+        if (inseridos.size() < idsAlunos.length) {
+            for (Integer aluno : idsAlunos) {
+                if (!inseridos.contains(aluno)) {
+                    log.info("Frequência do aluno {} em {} ignorada: o aluno já tinha frequência no dia", aluno, data);
+                }
+            }
+        }
+    }
+
+    private void gravarUmaAUma(LocalDate data, List<Map.Entry<Integer, Pendente>> frequencias) {
+        for (int i = 0; i < frequencias.size(); i++) {
+            try {
+                gravar(data, frequencias.subList(i, i + 1));
+            } catch (DataIntegrityViolationException e) {
+                descartadas.increment();
+                log.warn("Frequência do aluno {} em {} descartada: {}", frequencias.get(i).getKey(), data,
+                        e.getMostSpecificCause().getMessage());
+            } catch (RuntimeException e) {
+                falhas.increment();
+                log.error("Falha ao gravar a frequência do aluno {} em {}; ela e as {} seguintes voltam ao buffer",
+                        frequencias.get(i).getKey(), data, frequencias.size() - i - 1, e);
+                devolver(data, frequencias.subList(i, frequencias.size()));
+                return;
+            }
+        }
+    }
+
+    private synchronized void devolver(LocalDate data, List<Map.Entry<Integer, Pendente>> frequencias) {
+        Map<Integer, Pendente> doDia = pendentes.computeIfAbsent(data, dia -> new LinkedHashMap<>());
+        for (Map.Entry<Integer, Pendente> frequencia : frequencias) {
+            // a devolvida e anterior a qualquer uma do mesmo aluno que tenha chegado durante a descarga
+            if (doDia.put(frequencia.getKey(), frequencia.getValue()) == null) {
+                quantidade++;
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.models.Estanteprateleira;
+import com.bibliotech.bibliotech.models.Secao;
+import com.bibliotech.bibliotech.models.Turma;
+import com.bibliotech.bibliotech.repositories.EstantePrateleiraRepository;
+import com.bibliotech.bibliotech.repositories.SecaoRepository;
+import com.bibliotech.bibliotech.repositories.TurmaRepository;
+import com.bibliotech.bibliotech.utils.AposCommit;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Secao, Estanteprateleira e Turma ficam no cache de segundo nivel do Hibernate (READ_WRITE), entao os findById
+// de cadastro de livro, exemplar e aluno nao vao ao banco. Alteracoes feitas pelas entidades atualizam o cache
+// sozinhas; o que passa por UPDATE em massa ou SQL direto precisa chamar invalidar
+@Service
+public class CacheReferenciasService {
+
+    public static final List<Class<?>> ENTIDADES = List.of(Secao.class, Estanteprateleira.class, Turma.class);
+
+    @Autowired
+    private SecaoRepository secaoRepository;
+    @Autowired
+    private EstantePrateleiraRepository estantePrateleiraRepository;
+    @Autowired
+    private TurmaRepository turmaRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Uma consulta por tabela; as entidades carregadas pelas consultas ja entram no cache
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void aquecer() {
+        secaoRepository.findAll();
+        estantePrateleiraRepository.findAll();
+        turmaRepository.findAll();
+    }
+
+    // Depois do commit, para que uma leitura concorrente nao devolva ao cache a versao anterior
+    public void invalidar(Class<?> entidade, Collection<?> ids) {
+        List<?> copia = List.copyOf(ids);
+        AposCommit.executar(() -> copia.forEach(id -> entityManagerFactory.getCache().evict(entidade, id)));
+    }
+
+    public void invalidar(Class<?> entidade) {
+        AposCommit.executar(() -> entityManagerFactory.getCache().evict(entidade));
+    }
+
+    public Map<String, Object> estatisticas() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> regioes = new LinkedHashMap<>();
+        for (Class<?> entidade : ENTIDADES) {
+            CacheRegionStatistics regiao = statistics.getDomainDataRegionStatistics(entidade.getName());
+            regioes.put(entidade.getSimpleName(), Map.of(
+                    "acertos", regiao.getHitCount(),
+                    "faltas", regiao.getMissCount(),
+                    "inclusoes", regiao.getPutCount()
+            ));
+        }
+        return regioes;
+    }
+}
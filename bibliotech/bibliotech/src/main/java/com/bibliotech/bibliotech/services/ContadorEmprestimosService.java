@@ -0,0 +1,112 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.dtos.response.ContadorEmprestimosResponseDTO;
+import com.bibliotech.bibliotech.exception.NotFoundException;
+import com.bibliotech.bibliotech.exception.ValidationException;
+import com.bibliotech.bibliotech.models.ContadorEmprestimos;
+import com.bibliotech.bibliotech.models.enums.SituacaoEmprestimo;
+import com.bibliotech.bibliotech.repositories.AlunoRepository;
+import com.bibliotech.bibliotech.repositories.ContadorEmprestimosRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+// Contadores de emprestimos ativos, atrasados e extravios por aluno. EmprestimosService chama registrarNovoEmprestimo e
+// registrarTransicao dentro da propria transacao, entao contador e emprestimo sempre confirmam (ou desfazem) juntos.
+// A reconciliacao recalcula tudo a partir de emprestimo na inicializacao e no horario de
+// bibliotech.emprestimos.reconciliacao.cron; metrica bibliotech.emprestimos.contadores.corrigidos
+@Service
+public class ContadorEmprestimosService {
+
+    @Autowired
+    private ContadorEmprestimosRepository contadorEmprestimosRepository;
+    @Autowired
+    private AlunoRepository alunoRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bibliotech.emprestimos.limite-padrao:3}")
+    private int limitePadrao;
+
+    public int getLimitePadrao() {
+        return limitePadrao;
+    }
+
+    // Precisa de transacao aberta pelo chamador; lanca ValidationException (desfazendo o emprestimo) se nao ha vaga
+    @Transactional
+    public void registrarNovoEmprestimo(Integer idAluno) {
+        if (contadorEmprestimosRepository.reservarEmprestimo(idAluno, limitePadrao) == 0) {
+            ContadorEmprestimosResponseDTO contador = getContador(idAluno);
+            if (contador.getEmprestimosAtrasados() > 0) {
+                throw new ValidationException("O aluno possui empréstimos atrasados.");
+            }
+            throw new ValidationException("O aluno atingiu o limite de " + contador.getLimiteEmprestimos() + " empréstimos simultâneos.");
+        }
+    }
+
+    // Emprestimo do aluno passou de situacaoAnterior para situacaoNova
+    @Transactional
+    public void registrarTransicao(Integer idAluno, SituacaoEmprestimo situacaoAnterior, SituacaoEmprestimo situacaoNova) {
+        registrarTransicoes(idAluno, situacaoAnterior, situacaoNova, 1);
+    }
+
+    // Mesma transicao para varios emprestimos do aluno, num comando so
+    @Transactional
+    public void registrarTransicoes(Integer idAluno, SituacaoEmprestimo situacaoAnterior, SituacaoEmprestimo situacaoNova, int quantidade) {
+        int ativos = quantidade * (peso(situacaoNova.isAberta()) - peso(situacaoAnterior.isAberta()));
+        int atrasados = quantidade * (peso(situacaoNova == SituacaoEmprestimo.atrasado) - peso(situacaoAnterior == SituacaoEmprestimo.atrasado));
+        int extravios = quantidade * (peso(situacaoNova == SituacaoEmprestimo.extraviado) - peso(situacaoAnterior == SituacaoEmprestimo.extraviado));
+
+        if (ativos != 0 || atrasados != 0 || extravios != 0) {
+            contadorEmprestimosRepository.ajustar(idAluno, ativos, atrasados, extravios);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public ContadorEmprestimosResponseDTO getContador(Integer idAluno) {
+        if (!alunoRepository.existsById(idAluno)) {
+            throw new NotFoundException("Aluno não encontrado.");
+        }
+        return contadorEmprestimosRepository.findById(idAluno)
+                .map(this::toDTO)
+                .orElseGet(() -> new ContadorEmprestimosResponseDTO(idAluno, 0, 0, 0, limitePadrao, true));
+    }
+
+    @Transactional
+    public ContadorEmprestimosResponseDTO definirLimite(Integer idAluno, Integer limite) {
+        if (limite != null && limite < 0) {
+            throw new ValidationException("O limite de empréstimos não pode ser negativo.");
+        }
+        if (!alunoRepository.existsById(idAluno)) {
+            throw new NotFoundException("Aluno não encontrado.");
+        }
+
+        contadorEmprestimosRepository.definirLimite(idAluno, limite);
+        return contadorEmprestimosRepository.findById(idAluno).map(this::toDTO).orElseThrow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${bibliotech.emprestimos.reconciliacao.cron:0 30 3 * * *}")
+    @Transactional
+    public void reconciliar() {
+        contadorEmprestimosRepository.travarParaReconciliacao();
+        int corrigidos = contadorEmprestimosRepository.reconciliar();
+        meterRegistry.counter("bibliotech.emprestimos.contadores.corrigidos").increment(corrigidos);
+    }
+
+    private ContadorEmprestimosResponseDTO toDTO(ContadorEmprestimos contador) {
+        boolean padrao = contador.getLimiteEmprestimos() == null;
+        return new ContadorEmprestimosResponseDTO(contador.getIdAluno(), contador.getEmprestimosAtivos(),
+                contador.getEmprestimosAtrasados(), contador.getExtravios(),
+                padrao ? limitePadrao : contador.getLimiteEmprestimos(), padrao);
+    }
+
+    private static int peso(boolean condicao) {
+        return condicao ? 1 : 0;
+    }
+}
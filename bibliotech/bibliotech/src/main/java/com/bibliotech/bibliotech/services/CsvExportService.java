@@ -0,0 +1,62 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.dtos.response.AnaliseFrequenciaPeriodoDTO;
+import com.bibliotech.bibliotech.dtos.response.AnaliseFrequenciaResponseDTO;
+import com.bibliotech.bibliotech.models.enums.AtividadeFrequencia;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Relatorios em CSV no formato das importacoes: separador ';' e cabecalho na primeira linha. O arquivo comeca com o
+// BOM do UTF-8 para o Excel reconhecer os acentos
+@Service
+public class CsvExportService {
+
+    private static final CSVFormat FORMATO = CSVFormat.DEFAULT.builder().setDelimiter(';').build();
+
+    // Uma linha por periodo: total, uma coluna por atividade, por turma e por hora do registro
+    public byte[] exportAnaliseFrequencia(AnaliseFrequenciaResponseDTO analise) {
+        Set<String> turmas = new TreeSet<>();
+        Set<String> horas = new TreeSet<>();
+        for (AnaliseFrequenciaPeriodoDTO periodo : analise.getPeriodos()) {
+            turmas.addAll(periodo.getPorTurma().keySet());
+            horas.addAll(periodo.getPorHora().keySet());
+        }
+
+        List<String> cabecalho = new ArrayList<>(List.of("Início", "Fim", "Total"));
+        for (AtividadeFrequencia atividade : AtividadeFrequencia.values()) {
+            cabecalho.add(atividade.name());
+        }
+        turmas.forEach(turma -> cabecalho.add("Turma " + turma));
+        horas.forEach(hora -> cabecalho.add("Hora " + hora));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputStreamWriter writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        try (CSVPrinter printer = new CSVPrinter(writer, FORMATO)) {
+            writer.write('\uFEFF');
+            printer.printRecord(cabecalho);
+            for (AnaliseFrequenciaPeriodoDTO periodo : analise.getPeriodos()) {
+                List<Object> linha = new ArrayList<>(List.of(periodo.getInicio(), periodo.getFim(), periodo.getTotal()));
+                for (AtividadeFrequencia atividade : AtividadeFrequencia.values()) {
+                    linha.add(periodo.getPorAtividade().get(atividade));
+                }
+                turmas.forEach(turma -> linha.add(periodo.getPorTurma().getOrDefault(turma, 0L)));
+                horas.forEach(hora -> linha.add(periodo.getPorHora().getOrDefault(hora, 0L)));
+                printer.printRecord(linha);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
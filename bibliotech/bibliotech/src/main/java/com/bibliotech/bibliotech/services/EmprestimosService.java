@@ -3,6 +3,7 @@ package com.bibliotech.bibliotech.services;
 import com.bibliotech.bibliotech.dtos.request.EmprestimoRequestDTO;
 import com.bibliotech.bibliotech.dtos.request.EmprestimoRequestDTOConcluir;
 import com.bibliotech.bibliotech.dtos.request.mappers.EmprestimoRequestMapper;
+import com.bibliotech.bibliotech.dtos.response.ElegibilidadeEmprestimoResponseDTO;
 import com.bibliotech.bibliotech.dtos.response.EmprestimoNotificacaoDTO;
 import com.bibliotech.bibliotech.dtos.response.EmprestimoResponseDTO;
 import com.bibliotech.bibliotech.dtos.response.EmprestimoResponseDTOAluno;
@@ -14,11 +15,13 @@ import com.bibliotech.bibliotech.models.Aluno;
 import com.bibliotech.bibliotech.models.Emprestimo;
 import com.bibliotech.bibliotech.models.Exemplar;
 import com.bibliotech.bibliotech.models.Usuario;
+import com.bibliotech.bibliotech.models.enums.SituacaoAluno;
+import com.bibliotech.bibliotech.models.enums.SituacaoEmprestimo;
+import com.bibliotech.bibliotech.models.enums.SituacaoExemplar;
 import com.bibliotech.bibliotech.repositories.*;
 import com.bibliotech.bibliotech.specifications.EmprestimoSpecification;
 import com.bibliotech.bibliotech.utils.EmailSend;
 import com.bibliotech.bibliotech.utils.FormatarData;
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -26,10 +29,15 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class EmprestimosService {
@@ -61,6 +69,21 @@ public class EmprestimosService {
     @Autowired
     private EmailSend emailSend;
 
+    @Autowired
+    private ContadorEmprestimosService contadorEmprestimosService;
+
+    @Autowired
+    private ReservasService reservasService;
+
+    @Autowired
+    private EventosDominioService eventosDominioService;
+
+    @Autowired
+    private HistoricoEmprestimosService historicoEmprestimosService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Transactional
     public EmprestimoResponseDTO realizarEmprestimo(EmprestimoRequestDTO requestDTO) {
         if (requestDTO.getIdAluno() == null) {
@@ -73,17 +96,25 @@ public class EmprestimosService {
         Aluno aluno = alunoRepository.findById(requestDTO.getIdAluno())
                 .orElseThrow(() -> new NotFoundException("Aluno não encontrado"));
 
-        if (!aluno.getSituacao().equals("regular")) {
+        if (!Boolean.TRUE.equals(aluno.getAtivo())) {
+            throw new ValidationException("O aluno está inativo");
+        }
+        if (aluno.getSituacao() == SituacaoAluno.irregular) {
             throw new ValidationException("O aluno não está com a situação regular");
         }
 
         Exemplar exemplar = exemplarRepository.findById(requestDTO.getIdExemplar())
                 .orElseThrow(() -> new NotFoundException("Exemplar não encontrado"));
 
-        if (!exemplar.getSituacao().equals("disponivel")) {
+        if (exemplar.getSituacao() == SituacaoExemplar.reservado) {
+            reservasService.verificarRetirada(exemplar, aluno);
+        } else if (exemplar.getSituacao() != SituacaoExemplar.disponivel) {
             throw new ValidationException("O exemplar não está disponível");
         }
 
+        // limite e atrasos conferidos e contador incrementado num unico UPDATE
+        contadorEmprestimosService.registrarNovoEmprestimo(aluno.getId());
+
         Usuario usuario = usuarioRepository.findById(tokenService.getUsuarioId())
                 .orElseThrow(() -> new NotFoundException("Usuário não encontrado"));
 
@@ -92,16 +123,68 @@ public class EmprestimosService {
         emprestimo.setAluno(aluno);
         emprestimo.setExemplar(exemplar);
         emprestimo.setRealizadoPor(usuario);
-        emprestimo.setSituacao("pendente");
+        emprestimo.setSituacao(SituacaoEmprestimo.pendente);
 
-        aluno.setSituacao("debito");
-        exemplar.setSituacao("emprestado");
+        exemplar.setSituacao(SituacaoExemplar.emprestado);
 
         Emprestimo emprestimoSalvo = emprestimoRepository.save(emprestimo);
+        reservasService.registrarRetirada(aluno, exemplar);
+        registrarTransicao("realizado", emprestimoSalvo, null, usuario.getId());
 
         return emprestimoResponseMapper.toDto(emprestimoSalvo);
     }
 
+    // Responde se POST /emprestimos passaria, sem gravar nada; chamado a cada leitura de codigo de barras no balcao.
+    // Vai para a replica de leitura: o POST confere tudo de novo, de forma atomica, no banco principal
+    @Transactional(readOnly = true)
+    public ElegibilidadeEmprestimoResponseDTO verificarElegibilidade(Integer idAluno, Integer idExemplar) {
+        if (idAluno == null && idExemplar == null) {
+            throw new ValidationException("Informe o aluno, o exemplar ou ambos.");
+        }
+
+        Object[] linha = emprestimoRepository.buscarElegibilidade(idAluno, idExemplar).get(0);
+        List<String> motivos = new ArrayList<>();
+        Integer emprestimosAtivos = null;
+        Integer limite = null;
+
+        if (idAluno != null) {
+            if (!(Boolean) linha[0]) {
+                motivos.add("Aluno não encontrado");
+            } else {
+                emprestimosAtivos = ((Number) linha[3]).intValue();
+                limite = linha[5] != null ? ((Number) linha[5]).intValue() : contadorEmprestimosService.getLimitePadrao();
+
+                if (!Boolean.TRUE.equals(linha[1])) {
+                    motivos.add("O aluno está inativo");
+                }
+                if ("irregular".equals(linha[2])) {
+                    motivos.add("O aluno não está com a situação regular");
+                }
+                if (((Number) linha[4]).intValue() > 0) {
+                    motivos.add("O aluno possui empréstimos atrasados.");
+                }
+                if (emprestimosAtivos >= limite) {
+                    motivos.add("O aluno atingiu o limite de " + limite + " empréstimos simultâneos.");
+                }
+            }
+        }
+
+        if (idExemplar != null) {
+            if (!(Boolean) linha[6]) {
+                motivos.add("Exemplar não encontrado");
+            } else if ("reservado".equals(linha[7])) {
+                if (idAluno == null || linha[8] == null || ((Number) linha[8]).intValue() != idAluno) {
+                    motivos.add("O exemplar está reservado para outro aluno");
+                }
+            } else if (!"disponivel".equals(linha[7])) {
+                motivos.add("O exemplar não está disponível");
+            }
+        }
+
+        return new ElegibilidadeEmprestimoResponseDTO(idAluno, idExemplar, motivos.isEmpty(), motivos, emprestimosAtivos, limite);
+    }
+
+    @Transactional
     public String cancelarEmprestimo(Integer id){
         Emprestimo emprestimo = emprestimoRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Emprestimo com o ID " + id + " não encontrado."));
@@ -109,19 +192,26 @@ public class EmprestimosService {
         Usuario usuario = usuarioRepository.findById(tokenService.getUsuarioId())
                 .orElseThrow(() -> new NotFoundException("Usuário não encontrado"));
 
-        if (emprestimo.getSituacao().equals("cancelado")){
+        // so emprestimo aberto: o exemplar de um entregue pode ja estar separado para uma reserva ou emprestado de novo,
+        // e o de um extraviado nao esta na estante; liberar qualquer um deles entregaria a fila um exemplar indisponivel
+        if (emprestimo.getSituacao() == SituacaoEmprestimo.cancelado){
             throw new ValidationException("Emprestimo ja cancelado.");
         }
+        if (!emprestimo.getSituacao().isAberta()){
+            throw new ValidationException("Emprestimo ja concluido.");
+        }
 
-        emprestimo.setSituacao("cancelado");
-        emprestimo.getAluno().setSituacao("regular");
-        emprestimo.getExemplar().setSituacao("disponivel");
+        SituacaoEmprestimo situacaoAnterior = emprestimo.getSituacao();
+        emprestimo.setSituacao(SituacaoEmprestimo.cancelado);
+        reservasService.liberarExemplar(emprestimo.getExemplar());
 
         emprestimo.setConcluidoPor(usuario);
 
         emprestimo.setDataConclusao(LocalDate.now());
 
         emprestimoRepository.save(emprestimo);
+        contadorEmprestimosService.registrarTransicao(emprestimo.getAluno().getId(), situacaoAnterior, SituacaoEmprestimo.cancelado);
+        registrarTransicao("cancelado", emprestimo, situacaoAnterior, usuario.getId());
 
         return "Emprestimo cancelado com sucesso.";
     }
@@ -134,7 +224,7 @@ public class EmprestimosService {
         Usuario usuario = usuarioRepository.findById(tokenService.getUsuarioId())
                 .orElseThrow(() -> new NotFoundException("Usuário não encontrado"));
 
-        if (emprestimo.getSituacao().equals("cancelado") || emprestimo.getSituacao().equals("entregue") || emprestimo.getSituacao().equals("extraviado")){
+        if (!emprestimo.getSituacao().isAberta()){
             throw new ValidationException("Emprestimo ja concluido.");
         }
 
@@ -143,17 +233,19 @@ public class EmprestimosService {
 
         emprestimo.setConcluidoPor(usuario);
 
+        SituacaoEmprestimo situacaoAnterior = emprestimo.getSituacao();
         if (!DTOConcluir.isExtraviado()){
-            emprestimo.setSituacao("entregue");
-            emprestimo.getAluno().setSituacao("regular");
-            emprestimo.getExemplar().setSituacao("disponivel");
+            emprestimo.setSituacao(SituacaoEmprestimo.entregue);
+            reservasService.liberarExemplar(emprestimo.getExemplar());
         }else {
-            emprestimo.setSituacao("extraviado");
-            emprestimo.getAluno().setSituacao("irregular");
-            emprestimo.getExemplar().setSituacao("extraviado");
+            emprestimo.setSituacao(SituacaoEmprestimo.extraviado);
+            emprestimo.getExemplar().setSituacao(SituacaoExemplar.extraviado);
         }
 
         emprestimoRepository.save(emprestimo);
+        // aluno.situacao e recalculada pelo contador: 'regular' sem emprestimos ativos, 'irregular' depois de um extravio
+        contadorEmprestimosService.registrarTransicao(emprestimo.getAluno().getId(), situacaoAnterior, emprestimo.getSituacao());
+        registrarTransicao(DTOConcluir.isExtraviado() ? "extraviado" : "concluido", emprestimo, situacaoAnterior, usuario.getId());
 
         return DTOConcluir.isExtraviado() ? "Emprestimo extraviado com sucesso." : "Emprestimo concluido com sucesso.";
     }
@@ -163,7 +255,7 @@ public class EmprestimosService {
         Emprestimo emprestimo = emprestimoRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Emprestimo com o ID " + id + " não encontrado."));
 
-        if (emprestimo.getSituacao().equals("cancelado") || emprestimo.getSituacao().equals("entregue") || emprestimo.getSituacao().equals("extraviado")){
+        if (!emprestimo.getSituacao().isAberta()){
             throw new ValidationException("Emprestimo ja concluido.");
         }
 
@@ -176,9 +268,11 @@ public class EmprestimosService {
             throw new ValidationException("Renovação não permitida. O número máximo de renovações foi atingido.");
         }
 
-        if (emprestimo.getSituacao().equals("atrasado")){
+        SituacaoEmprestimo situacaoAnterior = emprestimo.getSituacao();
+        if (emprestimo.getSituacao() == SituacaoEmprestimo.atrasado){
             emprestimo.setDataPrazo(LocalDate.now().plusDays(7));
-            emprestimo.setSituacao("pendente");
+            emprestimo.setSituacao(SituacaoEmprestimo.pendente);
+            contadorEmprestimosService.registrarTransicao(emprestimo.getAluno().getId(), SituacaoEmprestimo.atrasado, SituacaoEmprestimo.pendente);
         }
         else {
             emprestimo.setDataPrazo(emprestimo.getDataPrazo().plusDays(7));
@@ -187,12 +281,14 @@ public class EmprestimosService {
         emprestimo.setQtdRenovacao(emprestimo.getQtdRenovacao() + 1);
 
         emprestimoRepository.save(emprestimo);
+        registrarTransicao("renovado", emprestimo, situacaoAnterior, tokenService.getUsuarioId());
 
         return "Prazo renovado com sucesso.";
     }
 
+    @Transactional(readOnly = true)
     public Page<EmprestimoResponseDTO> consultarEmprestimos(
-            String nomeAluno, String tituloLivro, String isbn, String situacao,
+            String nomeAluno, String tituloLivro, String isbn, SituacaoEmprestimo situacao,
             String nomeRealizadoPor, LocalDate dataEmprestimo, String nomeConcluidoPor,
             LocalDate dataPrazo, LocalDate dataConclusao, Pageable pageable) {
 
@@ -206,11 +302,10 @@ public class EmprestimosService {
                 Sort.by(Sort.Direction.DESC, "dataEmprestimo")
         );
 
-        Page<Emprestimo> emprestimos = emprestimoRepository.findAll(spec, sortedPageable);
-
-        return emprestimos.map(emprestimoResponseMapper::toDto);
+        return emprestimoRepository.consultarEmprestimosDTO(spec, sortedPageable);
     }
 
+    @Transactional(readOnly = true)
     public Page<EmprestimoResponseDTOAluno> consultarEmprestimosPorAlunoEPeriodo(
             Integer idAluno, LocalDate dataEmprestimoInicio, LocalDate dataEmprestimoFim, Pageable pageable) {
 
@@ -220,18 +315,15 @@ public class EmprestimosService {
                 Sort.by(Sort.Direction.DESC, "dataEmprestimo")
         );
 
-        Page<Emprestimo> emprestimos;
-
         if (dataEmprestimoInicio != null && dataEmprestimoFim != null) {
-            emprestimos = emprestimoRepository.findByAlunoIdAndDataEmprestimoBetween(
+            return emprestimoRepository.findByAlunoIdAndDataEmprestimoBetween(
                     idAluno, dataEmprestimoInicio, dataEmprestimoFim, sortedPageable);
-        } else {
-            emprestimos = emprestimoRepository.findByAlunoId(idAluno, sortedPageable);
         }
 
-        return emprestimos.map(emprestimoResponseMapper::toDTOAluno);
+        return emprestimoRepository.findByAlunoId(idAluno, sortedPageable);
     }
 
+    @Transactional(readOnly = true)
     public Page<EmprestimoResponseDTOLivro> consultarEmprestimosPorLivroEPeriodo(
             Integer idLivro, LocalDate dataEmprestimoInicio, LocalDate dataEmprestimoFim, Pageable pageable) {
 
@@ -241,16 +333,12 @@ public class EmprestimosService {
                 Sort.by(Sort.Direction.DESC, "dataEmprestimo")
         );
 
-        Page<Emprestimo> emprestimos;
-
         if (dataEmprestimoInicio != null && dataEmprestimoFim != null) {
-            emprestimos = emprestimoRepository.findByExemplar_LivroIdAndDataEmprestimoBetween(
+            return emprestimoRepository.findByExemplar_LivroIdAndDataEmprestimoBetween(
                     idLivro, dataEmprestimoInicio, dataEmprestimoFim, sortedPageable);
-        } else {
-            emprestimos = emprestimoRepository.findByExemplar_LivroId(idLivro, sortedPageable);
         }
 
-        return emprestimos.map(emprestimoResponseMapper::toDTOLivro);
+        return emprestimoRepository.findByExemplar_LivroId(idLivro, sortedPageable);
     }
 
     public List<EmprestimoNotificacaoDTO> enviarEmailAtrasadosEPresteAAtrasar() {
@@ -259,7 +347,7 @@ public class EmprestimosService {
 
         verificarAtrasados();
 
-        List<Emprestimo> emprestimosAtrasados = emprestimoRepository.findBySituacao("atrasado");
+        List<Emprestimo> emprestimosAtrasados = emprestimoRepository.findBySituacao(SituacaoEmprestimo.atrasado);
         for (Emprestimo emprestimo : emprestimosAtrasados) {
             if (!enviarNotificacaoAtraso(emprestimo)) {
                 emprestimosNaoNotificados.add(emprestimoResponseMapper.toDTONotificacao(emprestimo));
@@ -267,7 +355,7 @@ public class EmprestimosService {
         }
 
         LocalDate amanha = hoje.plusDays(1);
-        List<Emprestimo> emprestimosPrestesAAtasar = emprestimoRepository.findBySituacaoAndDataPrazo("pendente", amanha);
+        List<Emprestimo> emprestimosPrestesAAtasar = emprestimoRepository.findBySituacaoAndDataPrazo(SituacaoEmprestimo.pendente, amanha);
         for (Emprestimo emprestimo : emprestimosPrestesAAtasar) {
             if (!enviarNotificacaoPreAtraso(emprestimo)) {
                 emprestimosNaoNotificados.add(emprestimoResponseMapper.toDTONotificacao(emprestimo));
@@ -369,16 +457,31 @@ public class EmprestimosService {
         }
     }
 
+    // Evento para a outbox e linha no historico, na transacao da transicao
+    private void registrarTransicao(String acao, Emprestimo emprestimo, SituacaoEmprestimo situacaoAnterior, Integer idUsuario) {
+        eventosDominioService.registrarEmprestimo(acao, emprestimo, situacaoAnterior);
+        historicoEmprestimosService.registrar(acao, emprestimo, idUsuario);
+    }
+
+    // Numa transacao so, para que os contadores de atrasados dos alunos mudem junto com os emprestimos
     private void verificarAtrasados(){
         LocalDate hoje = LocalDate.now();
-        List<Emprestimo> emprestimosPendentes = emprestimoRepository.findBySituacao("pendente");
 
-        for (Emprestimo emprestimo : emprestimosPendentes) {
-            if (!emprestimo.getDataPrazo().isAfter(hoje)) {
-                emprestimo.setSituacao("atrasado");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<Emprestimo> emprestimosPendentes = emprestimoRepository.findBySituacao(SituacaoEmprestimo.pendente);
+            Map<Integer, Integer> atrasadosPorAluno = new HashMap<>();
+
+            for (Emprestimo emprestimo : emprestimosPendentes) {
+                if (!emprestimo.getDataPrazo().isAfter(hoje)) {
+                    emprestimo.setSituacao(SituacaoEmprestimo.atrasado);
+                    atrasadosPorAluno.merge(emprestimo.getAluno().getId(), 1, Integer::sum);
+                    registrarTransicao("atrasado", emprestimo, SituacaoEmprestimo.pendente, null);
+                }
             }
-        }
 
-        emprestimoRepository.saveAll(emprestimosPendentes);
+            emprestimoRepository.saveAll(emprestimosPendentes);
+            atrasadosPorAluno.forEach((idAluno, quantidade) ->
+                    contadorEmprestimosService.registrarTransicoes(idAluno, SituacaoEmprestimo.pendente, SituacaoEmprestimo.atrasado, quantidade));
+        });
     }
 }
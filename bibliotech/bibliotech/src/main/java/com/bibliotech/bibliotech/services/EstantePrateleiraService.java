@@ -8,9 +8,9 @@ import com.bibliotech.bibliotech.models.Estanteprateleira;
 import com.bibliotech.bibliotech.models.Exemplar;
 import com.bibliotech.bibliotech.repositories.EstantePrateleiraRepository;
 import com.bibliotech.bibliotech.repositories.ExemplarRepository;
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -43,6 +43,7 @@ public class EstantePrateleiraService {
         return estantePrateleiraRepository.save(estanteprateleira);
     }
 
+    @Transactional(readOnly = true)
     public List<Estanteprateleira> listarEstanteprateleiras() {
         return estantePrateleiraRepository.findAll();
     }
@@ -57,6 +58,7 @@ public class EstantePrateleiraService {
         return true;
     }
 
+    @Transactional(readOnly = true)
     public List<ExemplarResponseDTO> listarExemplaresPorEstantePrateleira(Integer idEstantePrateleira) {
         Estanteprateleira estanteprateleira = getEstantePrateleiraById(idEstantePrateleira);
         List<Exemplar> exemplares = exemplarRepository.findByEstanteprateleira(estanteprateleira);
@@ -0,0 +1,224 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.dtos.response.EventoEmprestimoDTO;
+import com.bibliotech.bibliotech.dtos.response.EventoExemplarDTO;
+import com.bibliotech.bibliotech.exception.ValidationException;
+import com.bibliotech.bibliotech.models.EventoDominio;
+import com.bibliotech.bibliotech.models.Exemplar;
+import com.bibliotech.bibliotech.utils.AposCommit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Eventos de emprestimo e de situacao de exemplar para os paineis (GET /eventos, text/event-stream), publicados depois
+// do commit (os de emprestimo vem da outbox). Quem publica so enfileira e segue: cada conexao tem uma fila limitada a
+// bibliotech.eventos.capacidade-fila e uma virtual thread que a esvazia, entao um cliente lento nao segura a devolucao
+// no balcao nem os outros clientes.
+// Exemplares sao agrupados por id (fica so a ultima situacao ainda nao enviada); emprestimos que nao cabem na fila
+// descartam os mais antigos e o cliente recebe um evento "descartados" para recarregar a tela.
+// Metricas: bibliotech.eventos.assinantes e bibliotech.eventos.descartados
+@Service
+public class EventosAcervoService {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bibliotech.eventos.capacidade-fila:256}")
+    private int capacidadeFila;
+    @Value("${bibliotech.eventos.max-assinantes:100}")
+    private int maxAssinantes;
+    @Value("${bibliotech.eventos.timeout-ms:1800000}")
+    private long timeout;
+
+    private final Set<Assinante> assinantes = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequencia = new AtomicLong();
+    private final ExecutorService envio = Executors.newVirtualThreadPerTaskExecutor();
+    private Counter descartados;
+
+    @PostConstruct
+    void registrarMetricas() {
+        meterRegistry.gauge("bibliotech.eventos.assinantes", assinantes, Set::size);
+        descartados = meterRegistry.counter("bibliotech.eventos.descartados");
+    }
+
+    @PreDestroy
+    void encerrar() {
+        envio.shutdownNow();
+        for (Assinante assinante : assinantes) {
+            try {
+                assinante.emitter.complete();
+            } catch (RuntimeException e) {
+                // conexao ja encerrada pelo container
+            }
+        }
+    }
+
+    public SseEmitter assinar() {
+        if (assinantes.size() >= maxAssinantes) {
+            throw new ValidationException("Limite de " + maxAssinantes + " conexões de eventos atingido.");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeout);
+        Assinante assinante = new Assinante(emitter);
+        emitter.onCompletion(() -> assinantes.remove(assinante));
+        emitter.onTimeout(() -> assinantes.remove(assinante));
+        emitter.onError(erro -> assinantes.remove(assinante));
+        assinantes.add(assinante);
+
+        // primeiro envio na hora, para o cliente saber que a conexao abriu
+        assinante.ping = true;
+        agendar(assinante);
+        return emitter;
+    }
+
+    // Transicoes de emprestimo chegam pela outbox (RelayEventosDominioService), ja confirmadas
+    @EventListener
+    public void publicarEmprestimo(EventoDominio eventoDominio) {
+        if (!eventoDominio.getTipo().startsWith("emprestimo.")) {
+            return;
+        }
+        EventoEmprestimoDTO evento = new EventoEmprestimoDTO(
+                eventoDominio.getTipo().substring("emprestimo.".length()),
+                eventoDominio.getIdEmprestimo(),
+                eventoDominio.getIdAluno(),
+                eventoDominio.getIdExemplar(),
+                eventoDominio.getIdLivro(),
+                eventoDominio.getSituacaoNova(),
+                eventoDominio.getDataPrazo()
+        );
+        distribuir(assinante -> assinante.oferecerEmprestimo(evento));
+    }
+
+    public void publicarExemplar(Exemplar exemplar) {
+        EventoExemplarDTO evento = new EventoExemplarDTO(
+                exemplar.getId(), exemplar.getLivro().getId(), exemplar.getNumero(), exemplar.getSituacao());
+        AposCommit.executar(() -> distribuir(assinante -> assinante.oferecerExemplar(evento)));
+    }
+
+    // Comentario SSE periodico: mantem proxies sem derrubar a conexao ociosa e descobre clientes que ja sairam
+    @Scheduled(fixedDelayString = "${bibliotech.eventos.ping-ms:20000}")
+    public void enviarPing() {
+        distribuir(assinante -> assinante.ping = true);
+    }
+
+    private void distribuir(Consumer<Assinante> oferta) {
+        for (Assinante assinante : assinantes) {
+            synchronized (assinante) {
+                oferta.accept(assinante);
+            }
+            agendar(assinante);
+        }
+    }
+
+    private void agendar(Assinante assinante) {
+        synchronized (assinante) {
+            if (assinante.enviando) {
+                return;
+            }
+            assinante.enviando = true;
+        }
+        try {
+            envio.execute(() -> enviar(assinante));
+        } catch (RuntimeException e) {
+            // executor encerrado: aplicacao parando
+            assinantes.remove(assinante);
+        }
+    }
+
+    // Uma tarefa por vez por assinante; pega tudo o que estiver pendente, envia fora do lock e repete ate esvaziar
+    private void enviar(Assinante assinante) {
+        while (true) {
+            List<SseEmitter.SseEventBuilder> lote;
+            synchronized (assinante) {
+                lote = assinante.retirarPendentes();
+                if (lote.isEmpty()) {
+                    assinante.enviando = false;
+                    return;
+                }
+            }
+            try {
+                for (SseEmitter.SseEventBuilder evento : lote) {
+                    assinante.emitter.send(evento);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // cliente desconectado: o container encerra a conexao e chama onError
+                assinantes.remove(assinante);
+                return;
+            }
+        }
+    }
+
+    private class Assinante {
+        private final SseEmitter emitter;
+        private final ArrayDeque<EventoEmprestimoDTO> emprestimos = new ArrayDeque<>();
+        private final LinkedHashMap<Integer, EventoExemplarDTO> exemplares = new LinkedHashMap<>();
+        private long descartadosDesdeUltimoEnvio;
+        private boolean ping;
+        private boolean enviando;
+
+        private Assinante(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void oferecerEmprestimo(EventoEmprestimoDTO evento) {
+            if (emprestimos.size() >= capacidadeFila) {
+                emprestimos.pollFirst();
+                descartadosDesdeUltimoEnvio++;
+                descartados.increment();
+            }
+            emprestimos.addLast(evento);
+        }
+
+        private void oferecerExemplar(EventoExemplarDTO evento) {
+            // reinsere no fim: a ordem de envio segue a ultima alteracao de cada exemplar
+            exemplares.remove(evento.getIdExemplar());
+            if (exemplares.size() >= capacidadeFila) {
+                Integer maisAntigo = exemplares.keySet().iterator().next();
+                exemplares.remove(maisAntigo);
+                descartadosDesdeUltimoEnvio++;
+                descartados.increment();
+            }
+            exemplares.put(evento.getIdExemplar(), evento);
+        }
+
+        private List<SseEmitter.SseEventBuilder> retirarPendentes() {
+            List<SseEmitter.SseEventBuilder> lote = new ArrayList<>(emprestimos.size() + exemplares.size() + 2);
+            if (descartadosDesdeUltimoEnvio > 0) {
+                lote.add(SseEmitter.event().id(String.valueOf(sequencia.incrementAndGet()))
+                        .name("descartados").data(descartadosDesdeUltimoEnvio));
+                descartadosDesdeUltimoEnvio = 0;
+            }
+            for (EventoEmprestimoDTO evento; (evento = emprestimos.pollFirst()) != null; ) {
+                lote.add(SseEmitter.event().id(String.valueOf(sequencia.incrementAndGet())).name("emprestimo").data(evento));
+            }
+            for (EventoExemplarDTO evento : exemplares.values()) {
+                lote.add(SseEmitter.event().id(String.valueOf(sequencia.incrementAndGet())).name("exemplar").data(evento));
+            }
+            exemplares.clear();
+            if (ping && lote.isEmpty()) {
+                lote.add(SseEmitter.event().comment("ping"));
+            }
+            ping = false;
+            return lote;
+        }
+    }
+}
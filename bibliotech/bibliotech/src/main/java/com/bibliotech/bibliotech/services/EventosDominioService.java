@@ -0,0 +1,32 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.models.Emprestimo;
+import com.bibliotech.bibliotech.models.enums.SituacaoEmprestimo;
+import com.bibliotech.bibliotech.repositories.EventoDominioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Grava o evento de uma transicao de emprestimo na outbox. MANDATORY: o evento so existe se a transicao fizer commit,
+// e a transicao nao faz commit sem o evento; quem reage a ele e chamado depois pelo RelayEventosDominioService
+@Service
+public class EventosDominioService {
+
+    @Autowired
+    private EventoDominioRepository eventoDominioRepository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarEmprestimo(String acao, Emprestimo emprestimo, SituacaoEmprestimo situacaoAnterior) {
+        eventoDominioRepository.registrar(
+                "emprestimo." + acao,
+                emprestimo.getId(),
+                emprestimo.getAluno().getId(),
+                emprestimo.getExemplar().getId(),
+                emprestimo.getExemplar().getLivro().getId(),
+                situacaoAnterior != null ? situacaoAnterior.name() : null,
+                emprestimo.getSituacao().name(),
+                emprestimo.getDataPrazo()
+        );
+    }
+}
@@ -0,0 +1,42 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.models.Exemplar;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+// Listener JPA de Exemplar: qualquer exemplar inserido, movido, emprestado, devolvido ou extraviado invalida o mapa
+// das estantes, atualiza o indice de leitura de codigos e vira evento para os paineis. O Hibernate cria o listener via Spring enquanto o
+// EntityManagerFactory ainda esta sendo montado, por isso os servicos entram como @Lazy (eles dependem de repositorios
+// que dependem do proprio EntityManagerFactory).
+// UPDATE em massa nao passa por aqui e precisa avisar os servicos
+public class ExemplarListener {
+
+    @Lazy
+    @Autowired
+    private MapaEstantesService mapaEstantesService;
+
+    @Lazy
+    @Autowired
+    private IndiceExemplaresService indiceExemplaresService;
+
+    @Lazy
+    @Autowired
+    private EventosAcervoService eventosAcervoService;
+
+    @PostPersist
+    @PostUpdate
+    public void exemplarGravado(Exemplar exemplar) {
+        mapaEstantesService.invalidar();
+        indiceExemplaresService.registrarExemplar(exemplar);
+        eventosAcervoService.publicarExemplar(exemplar);
+    }
+
+    @PostRemove
+    public void exemplarRemovido(Exemplar exemplar) {
+        mapaEstantesService.invalidar();
+        indiceExemplaresService.registrarRemocao(exemplar.getId());
+    }
+}
@@ -1,64 +1,80 @@
 package com.bibliotech.bibliotech.services;
 
 import com.bibliotech.bibliotech.dtos.request.ExemplarRequestPatchDTO;
+import com.bibliotech.bibliotech.dtos.request.RealocacaoExemplaresRequestDTO;
+import com.bibliotech.bibliotech.dtos.response.RealocacaoExemplaresResponseDTO;
 import com.bibliotech.bibliotech.exception.NotFoundException;
 import com.bibliotech.bibliotech.exception.ValidationException;
 import com.bibliotech.bibliotech.models.Estanteprateleira;
 import com.bibliotech.bibliotech.models.Exemplar;
 import com.bibliotech.bibliotech.models.Livro;
 import com.bibliotech.bibliotech.models.Secao;
+import com.bibliotech.bibliotech.models.enums.SituacaoExemplar;
 import com.bibliotech.bibliotech.repositories.EstantePrateleiraRepository;
+import com.bibliotech.bibliotech.repositories.EstantePrateleiraSecaoRepository;
 import com.bibliotech.bibliotech.repositories.ExemplarRepository;
 import com.bibliotech.bibliotech.repositories.LivroRepository;
 import com.bibliotech.bibliotech.repositories.SecaoRepository;
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 public class ExemplaresService {
 
-    @Autowired
-    private LivroRepository livroRepository;
-
     @Autowired
     private SecoesService secoesService;
 
     @Autowired
     private ExemplarRepository exemplarRepository;
 
+    @Autowired
+    private LivroRepository livroRepository;
+
     @Autowired
     private EstantePrateleiraService estantePrateleiraService;
 
-    @Transactional
-    public List<Exemplar> cadastrarExemplares(Livro livro, Secao secao, Estanteprateleira estanteprateleira, Integer qtdExemplaresNovos) {
-        Livro livroCadastrado = livroRepository.findLivroById(livro.getId());
-        List<Exemplar> exemplaresSalvos = new ArrayList<>();
+    @Autowired
+    private EstantePrateleiraSecaoRepository estantePrateleiraSecaoRepository;
+
+    @Autowired
+    private MapaEstantesService mapaEstantesService;
 
-        int qtd_exemplares_ja_existente = 0;
+    @Autowired
+    private IndiceExemplaresService indiceExemplaresService;
 
-        if (livroCadastrado.getExemplares() != null) {
-            qtd_exemplares_ja_existente = livroCadastrado.getExemplares().size();
+    // Os ids vem de uma sequence com allocationSize 50 e os inserts saem em lotes (hibernate.jdbc.batch_size),
+    // entao cadastrar N exemplares custa N/50 idas ao banco em vez de N
+    @Transactional
+    public List<Exemplar> cadastrarExemplares(Livro livro, Secao secao, Estanteprateleira estanteprateleira, Integer qtdExemplaresNovos) {
+        if (qtdExemplaresNovos == null || qtdExemplaresNovos <= 0) {
+            throw new ValidationException("A quantidade de exemplares não pode ser menor que ou igual à zero.");
         }
 
-        int qtd_exemplares_final = qtd_exemplares_ja_existente + qtdExemplaresNovos;
+        // MAX(numero) em vez de contar os exemplares, para nunca repetir um numero ja usado pelo livro. A linha do livro
+        // fica travada ate o commit; sem isso dois cadastros simultaneos leriam o mesmo MAX e o segundo violaria
+        // exemplar_id_livro_numero_key
+        livroRepository.travarPorId(livro.getId());
+        int ultimoNumero = exemplarRepository.findMaxNumeroByLivroId(livro.getId());
+        List<Exemplar> exemplaresNovos = new ArrayList<>(qtdExemplaresNovos);
 
-        for (int i = qtd_exemplares_ja_existente; i < qtd_exemplares_final; i++) {
+        for (int i = 1; i <= qtdExemplaresNovos; i++) {
             Exemplar exemplar = new Exemplar();
-            exemplar.setLivro(livroCadastrado);
+            exemplar.setLivro(livro);
             exemplar.setSecao(secao);
             exemplar.setEstanteprateleira(estanteprateleira);
-            exemplar.setNumero(i + 1);
-            exemplarRepository.save(exemplar);
-            exemplaresSalvos.add(exemplar);
+            exemplar.setNumero(ultimoNumero + i);
+            exemplaresNovos.add(exemplar);
         }
 
-        return exemplaresSalvos;
+        return exemplarRepository.saveAll(exemplaresNovos);
     }
 
+    @Transactional(readOnly = true)
     public List<Exemplar> listarExemplaresDeUmLivro(Integer id) {
         return exemplarRepository.findExemplarByLivro_IdOrderByNumero(id);
     }
@@ -74,7 +90,7 @@ public class ExemplaresService {
             throw new ValidationException("Exemplar não pode ser extraviado pois está associado a um emprestimo pendente ou atrasado.");
         }
 
-        exemplar.setSituacao("extraviado");
+        exemplar.setSituacao(SituacaoExemplar.extraviado);
         exemplarRepository.save(exemplar);
     }
 
@@ -86,7 +102,7 @@ public class ExemplaresService {
         if (exemplarDTO.getIdLivro() != exemplar.getLivro().getId()) {
             throw new ValidationException("O id do Livro infromado não corresponde ao exemplar selecionado.");
         }
-        if (exemplarDTO.getSituacao() != null || !exemplarDTO.getSituacao().equals("")) {
+        if (exemplarDTO.getSituacao() != null) {
             exemplar.setSituacao(exemplarDTO.getSituacao());
         }
         if (exemplarDTO.getObservacao() != null) {
@@ -98,6 +114,41 @@ public class ExemplaresService {
         return exemplarRepository.save(exemplar);
     }
 
+    // Move de uma vez todos os exemplares do filtro. Secao e estante-prateleira de destino vem do cache de segundo nivel,
+    // entao a validacao custa so a consulta do vinculo; o UPDATE nao passa pelas entidades e o mapa e invalidado aqui
+    @Transactional
+    public RealocacaoExemplaresResponseDTO realocarExemplares(RealocacaoExemplaresRequestDTO dto) {
+        boolean filtrarPorIds = dto.getIdsExemplares() != null && !dto.getIdsExemplares().isEmpty();
+        if (dto.getIdLivro() == null && dto.getIdEstanteprateleiraOrigem() == null && !filtrarPorIds) {
+            throw new ValidationException("Informe o livro, a estante-prateleira de origem ou os ids dos exemplares a realocar.");
+        }
+        if (filtrarPorIds && dto.getIdsExemplares().stream().anyMatch(Objects::isNull)) {
+            throw new ValidationException("A lista de ids dos exemplares não pode conter valores nulos.");
+        }
+        if (dto.getIdEstanteprateleiraDestino() == null || dto.getIdSecaoDestino() == null) {
+            throw new ValidationException("A estante-prateleira e a seção de destino são obrigatórias.");
+        }
+
+        secoesService.getSecaoById(dto.getIdSecaoDestino());
+        estantePrateleiraService.getEstantePrateleiraById(dto.getIdEstanteprateleiraDestino());
+        if (!estantePrateleiraSecaoRepository.existsByEstanteprateleiraIdAndSecaoId(dto.getIdEstanteprateleiraDestino(), dto.getIdSecaoDestino())) {
+            throw new ValidationException("A Estante-Prateleira de destino não está vinculada à Seção informada.");
+        }
+
+        Integer[] idsExemplares = filtrarPorIds ? dto.getIdsExemplares().toArray(new Integer[0]) : new Integer[0];
+        Object[] contagem = exemplarRepository.realocarExemplares(dto.getIdLivro(), dto.getIdEstanteprateleiraOrigem(),
+                idsExemplares, dto.getIdEstanteprateleiraDestino(), dto.getIdSecaoDestino()).get(0);
+
+        int movidos = ((Number) contagem[1]).intValue();
+        if (movidos > 0) {
+            mapaEstantesService.invalidar();
+            indiceExemplaresService.registrarRealocacao((Integer[]) contagem[2], dto.getIdEstanteprateleiraDestino(), dto.getIdSecaoDestino());
+        }
+
+        return new RealocacaoExemplaresResponseDTO(dto.getIdEstanteprateleiraDestino(), dto.getIdSecaoDestino(),
+                ((Number) contagem[0]).intValue(), movidos);
+    }
+
     public List<Exemplar> findByLivroIdAndSituacaoNotExtraviado(Integer id) {
         return exemplarRepository.findByLivroIdAndSituacaoNotExtraviado(id);
     }
@@ -1,25 +1,50 @@
 package com.bibliotech.bibliotech.services;
 
+import com.bibliotech.bibliotech.dtos.request.FrequenciaAlunosLoteItemDTO;
+import com.bibliotech.bibliotech.dtos.request.FrequenciaAlunosLoteRequestDTO;
 import com.bibliotech.bibliotech.dtos.request.FrequenciaAlunosRequestDTO;
+import com.bibliotech.bibliotech.dtos.response.FrequenciaAlunosLoteResponseDTO;
 import com.bibliotech.bibliotech.exception.NotFoundException;
 import com.bibliotech.bibliotech.exception.ValidationException;
 import com.bibliotech.bibliotech.models.FrequenciaAlunos;
 import com.bibliotech.bibliotech.repositories.FrequenciaAlunosRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 public class FrequenciaAlunosService {
     private final FrequenciaAlunosRepository frequenciaAlunosRepository;
     private final AlunosService alunosService;
     private final UsuarioService usuarioService;
+    private final BufferFrequenciaAlunosService bufferFrequenciaAlunosService;
+    private final PdfExportService pdfExportService;
+    private final AnaliseFrequenciaService analiseFrequenciaService;
+    private final boolean bufferHabilitado;
 
-    public FrequenciaAlunosService(FrequenciaAlunosRepository frequenciaAlunosRepository, AlunosService alunosService, UsuarioService usuarioService) {
+    public FrequenciaAlunosService(FrequenciaAlunosRepository frequenciaAlunosRepository, AlunosService alunosService, UsuarioService usuarioService,
+                                   BufferFrequenciaAlunosService bufferFrequenciaAlunosService, PdfExportService pdfExportService,
+                                   AnaliseFrequenciaService analiseFrequenciaService,
+                                   @Value("${bibliotech.frequencia.buffer.habilitado:false}") boolean bufferHabilitado) {
         this.frequenciaAlunosRepository = frequenciaAlunosRepository;
         this.alunosService = alunosService;
         this.usuarioService = usuarioService;
+        this.bufferFrequenciaAlunosService = bufferFrequenciaAlunosService;
+        this.pdfExportService = pdfExportService;
+        this.analiseFrequenciaService = analiseFrequenciaService;
+        this.bufferHabilitado = bufferHabilitado;
     }
 
     public FrequenciaAlunos registrarFrequencia(FrequenciaAlunosRequestDTO requestDTO) {
@@ -30,20 +55,118 @@ public class FrequenciaAlunosService {
         frequenciaAlunos.setRegistradaPor(usuarioService.getUsuarioById(requestDTO.getRegistradaPor()));
         frequenciaAlunos.setAtividade(requestDTO.getAtividade());
         frequenciaAlunos.setData(LocalDate.now());
+        frequenciaAlunos.setHoraRegistro(LocalTime.now().withNano(0));
 
         return frequenciaAlunosRepository.save(frequenciaAlunos);
     }
 
+    // Frequencias do dia de varios alunos: usuario e alunos validados com uma consulta cada, e o lote gravado num INSERT
+    // so (ou deixado no buffer, se habilitado). Aluno que ja tem frequencia no dia fica com a que existia
+    @Transactional
+    public FrequenciaAlunosLoteResponseDTO registrarLote(FrequenciaAlunosLoteRequestDTO requestDTO) {
+        Set<Integer> idsAlunos = new LinkedHashSet<>();
+        List<String> erros = new ArrayList<>();
+        for (FrequenciaAlunosLoteItemDTO item : requestDTO.getFrequencias()) {
+            if (!idsAlunos.add(item.getIdAluno())) {
+                erros.add("O aluno " + item.getIdAluno() + " foi informado mais de uma vez.");
+            }
+        }
+        usuarioService.getUsuarioById(requestDTO.getRegistradaPor());
+
+        LocalDate hoje = LocalDate.now();
+        LocalTime agora = LocalTime.now().withNano(0);
+        Set<Integer> encontrados = new HashSet<>();
+        List<Integer> jaRegistrados = new ArrayList<>();
+        for (Object[] linha : frequenciaAlunosRepository.buscarAlunosDoLote(idsAlunos, hoje)) {
+            encontrados.add((Integer) linha[0]);
+            if (((Number) linha[1]).longValue() > 0) {
+                jaRegistrados.add((Integer) linha[0]);
+            }
+        }
+        for (Integer idAluno : idsAlunos) {
+            if (!encontrados.contains(idAluno)) {
+                erros.add("Aluno " + idAluno + " não encontrado.");
+            }
+        }
+        if (!erros.isEmpty()) {
+            throw new ValidationException(erros);
+        }
+
+        List<FrequenciaAlunosLoteItemDTO> novas = requestDTO.getFrequencias().stream()
+                .filter(item -> !jaRegistrados.contains(item.getIdAluno()))
+                .toList();
+        if (novas.isEmpty()) {
+            return new FrequenciaAlunosLoteResponseDTO(0, 0, jaRegistrados);
+        }
+
+        if (bufferHabilitado) {
+            List<Integer> noBuffer = bufferFrequenciaAlunosService.enfileirar(hoje, agora, requestDTO.getRegistradaPor(), novas);
+            jaRegistrados.addAll(noBuffer);
+            return new FrequenciaAlunosLoteResponseDTO(0, novas.size() - noBuffer.size(), jaRegistrados);
+        }
+
+        Integer[] ids = new Integer[novas.size()];
+        Integer[] registradaPor = new Integer[novas.size()];
+        String[] atividades = new String[novas.size()];
+        String[] horas = new String[novas.size()];
+        for (int i = 0; i < novas.size(); i++) {
+            ids[i] = novas.get(i).getIdAluno();
+            registradaPor[i] = requestDTO.getRegistradaPor();
+            atividades[i] = novas.get(i).getAtividade().name();
+            horas[i] = agora.toString();
+        }
+        List<Integer> gravados = frequenciaAlunosRepository.inserirLote(ids, registradaPor, atividades, horas, hoje);
+        // gravadas por outra requisicao entre a validacao e o INSERT
+        for (Integer idAluno : ids) {
+            if (!gravados.contains(idAluno)) {
+                jaRegistrados.add(idAluno);
+            }
+        }
+        return new FrequenciaAlunosLoteResponseDTO(gravados.size(), 0, jaRegistrados);
+    }
+
     //fiz assim para continuar o padrao e para deixar mais facil de manter o codigo
-    public List<FrequenciaAlunos> filtrarFrequencias(LocalDate data){
-        return frequenciaAlunosRepository.filtrarFrequencias(data);
+    @Transactional(readOnly = true)
+    public Page<FrequenciaAlunos> filtrarFrequencias(LocalDate data, LocalDate dataInicio, LocalDate dataFim, Pageable pageable){
+        LocalDate[] periodo = periodo(data, dataInicio, dataFim);
+        return frequenciaAlunosRepository.buscarPorPeriodo(periodo[0], periodo[1], pageable);
     }
 
-    public void deletarFrequencia(Integer id){
-        if (frequenciaAlunosRepository.findById(id).isEmpty()) {
-            throw new NotFoundException("Frequência não encontrada.");
+    @Transactional(readOnly = true)
+    public boolean existemFrequencias(LocalDate data, LocalDate dataInicio, LocalDate dataFim) {
+        LocalDate[] periodo = periodo(data, dataInicio, dataFim);
+        return frequenciaAlunosRepository.existsByDataBetween(periodo[0], periodo[1]);
+    }
+
+    // O cursor fica aberto enquanto o PDF e escrito no destino, por isso a transacao cobre a exportacao inteira
+    @Transactional(readOnly = true)
+    public void exportarPdf(LocalDate data, LocalDate dataInicio, LocalDate dataFim, OutputStream destino) {
+        LocalDate[] periodo = periodo(data, dataInicio, dataFim);
+        try (Stream<Object[]> frequencias = frequenciaAlunosRepository.streamPorPeriodo(periodo[0], periodo[1])) {
+            pdfExportService.exportFrequenciaAlunosToPdf(frequencias, destino);
+        }
+    }
+
+    // data vale so aquele dia; sem data, o periodo vai de dataInicio a dataFim, e a ponta que faltar fica no primeiro
+    // dia possivel ou em hoje (frequencia nao e registrada com data futura). As consultas comparam sempre com limites
+    // fixos, o que deixa o Postgres descartar as particoes anuais fora do periodo
+    private LocalDate[] periodo(LocalDate data, LocalDate dataInicio, LocalDate dataFim) {
+        if (data != null) {
+            return new LocalDate[]{data, data};
+        }
+        LocalDate inicio = dataInicio != null ? dataInicio : LocalDate.EPOCH;
+        LocalDate fim = dataFim != null ? dataFim : LocalDate.now();
+        if (inicio.isAfter(fim)) {
+            throw new ValidationException("A data inicial não pode ser posterior à data final.");
         }
+        return new LocalDate[]{inicio, fim};
+    }
+
+    public void deletarFrequencia(Integer id){
+        FrequenciaAlunos frequencia = frequenciaAlunosRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Frequência não encontrada."));
         frequenciaAlunosRepository.deleteById(id);
+        analiseFrequenciaService.invalidar(frequencia.getData());
     }
 
 }
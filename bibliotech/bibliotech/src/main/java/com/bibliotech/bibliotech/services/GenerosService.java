@@ -1,62 +1,216 @@
 package com.bibliotech.bibliotech.services;
 
+import com.bibliotech.bibliotech.dtos.GeneroDTO;
+import com.bibliotech.bibliotech.dtos.response.AutocompletarResponseDTO;
 import com.bibliotech.bibliotech.exception.NotFoundException;
+import com.bibliotech.bibliotech.exception.ValidationException;
 import com.bibliotech.bibliotech.models.Genero;
 import com.bibliotech.bibliotech.models.Livro;
 import com.bibliotech.bibliotech.models.Livrogenero;
 import com.bibliotech.bibliotech.repositories.GeneroRepository;
 import com.bibliotech.bibliotech.repositories.LivrogeneroRepository;
+import com.bibliotech.bibliotech.utils.AposCommit;
+import com.bibliotech.bibliotech.utils.DicionarioNomes;
+import com.bibliotech.bibliotech.utils.IndicePrefixos;
+import com.bibliotech.bibliotech.utils.NormalizarNome;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.*;
 
 @Service
 public class GenerosService {
+
+    public static final int LIMITE_AUTOCOMPLETAR_MAXIMO = 50;
+
     @Autowired
     private GeneroRepository generoRepository;
     @Autowired
     private LivrogeneroRepository livrogeneroRepository;
 
+    private final DicionarioNomes dicionario = new DicionarioNomes();
+    private final IndicePrefixos indice = new IndicePrefixos();
+
+    // Resolve os generos pelo dicionario (generos ja conhecidos custam so uma trava, numa consulta para todos) e grava
+    // os vinculos de uma vez so
+    @Transactional
     public List<Genero> addGenero(List<Genero> generos, Livro livro) {
-        Set<String> nomesNovosGeneros = generos.stream()
-                .map(Genero::getGenero)
-                .filter(genero -> genero != null && !genero.isEmpty())
-                .collect(Collectors.toSet());
+        Map<Integer, Genero> generosAssociados = resolverGeneros(generos);
 
-        List<Genero> generosAssociados = new ArrayList<>();
+        List<Livrogenero> vinculos = new ArrayList<>();
+        for (Integer idGenero : generosAssociados.keySet()) {
+            vinculos.add(novoVinculo(livro, idGenero));
+        }
+        livrogeneroRepository.saveAll(vinculos);
+        contarVinculos(generosAssociados.keySet(), 1);
 
-        for (String genero : nomesNovosGeneros) {
-            Optional<Genero> generoOptional = generoRepository.findFirstByGeneroIgnoreCase(genero);
+        return new ArrayList<>(generosAssociados.values());
+    }
 
-            Genero genero1;
-            if (generoOptional.isPresent()) {
-                genero1 = generoOptional.get();
-            } else {
-                Genero novoGenero = new Genero();
-                novoGenero.setGenero(genero);
-                genero1 = generoRepository.save(novoGenero);
+    // Compara os generos pedidos com os vinculos atuais do livro e so apaga/insere o que mudou
+    @Transactional
+    public List<Genero> cadastrarNovosGeneros(List<Genero> novosGeneros, Livro livro) {
+        Map<Integer, Genero> generosAssociados = resolverGeneros(novosGeneros);
+
+        Set<Integer> mantidos = new HashSet<>();
+        List<Integer> vinculosRemovidos = new ArrayList<>();
+        List<Integer> generosDesvinculados = new ArrayList<>();
+        for (Livrogenero vinculo : livrogeneroRepository.findByLivroId(livro.getId())) {
+            Integer idGenero = vinculo.getGenero().getId();
+            if (!generosAssociados.containsKey(idGenero) || !mantidos.add(idGenero)) {
+                vinculosRemovidos.add(vinculo.getId());
+                generosDesvinculados.add(idGenero);
+            }
+        }
+
+        List<Livrogenero> vinculosNovos = new ArrayList<>();
+        for (Integer idGenero : generosAssociados.keySet()) {
+            if (!mantidos.contains(idGenero)) {
+                vinculosNovos.add(novoVinculo(livro, idGenero));
             }
+        }
+
+        if (!vinculosRemovidos.isEmpty()) {
+            livrogeneroRepository.deleteAllByIdInBatch(vinculosRemovidos);
+        }
+        livrogeneroRepository.saveAll(vinculosNovos);
 
-            Livrogenero livroGenero = new Livrogenero();
-            livroGenero.setLivro(livro);
-            livroGenero.setGenero(genero1);
-            livrogeneroRepository.save(livroGenero);
-            generosAssociados.add(genero1);
+        contarVinculos(generosDesvinculados, -1);
+        contarVinculos(vinculosNovos.stream().map(vinculo -> vinculo.getGenero().getId()).toList(), 1);
+
+        return new ArrayList<>(generosAssociados.values());
+    }
+
+    // Generos pedidos, sem repeticao, na ordem em que vieram, indexados pelo id
+    private Map<Integer, Genero> resolverGeneros(List<Genero> generos) {
+        Map<String, String> nomesNovosGeneros = new LinkedHashMap<>();
+        for (Genero genero : generos) {
+            if (genero.getGenero() != null && !genero.getGenero().isBlank()) {
+                nomesNovosGeneros.putIfAbsent(NormalizarNome.normalizar(genero.getGenero()), genero.getGenero().trim());
+            }
         }
 
+        Set<Integer> existentes = travarDoDicionario(nomesNovosGeneros.keySet());
+        Map<Integer, Genero> generosAssociados = new LinkedHashMap<>();
+        nomesNovosGeneros.forEach((generoNormalizado, nome) -> {
+            DicionarioNomes.Entrada entrada = resolverGenero(generoNormalizado, nome, existentes);
+
+            Genero genero = new Genero();
+            genero.setId(entrada.getId());
+            genero.setGenero(entrada.getNome());
+            generosAssociados.putIfAbsent(entrada.getId(), genero);
+        });
+
         return generosAssociados;
     }
 
-    public void removeGenerosWithNoAssociation() {
-        List<Genero> generosSemAssociacao = generoRepository.findGenerosSemAssociacao();
-        System.out.println("Deletando " + generosSemAssociacao.size() + " gêneros não associados.");
+    private Livrogenero novoVinculo(Livro livro, Integer idGenero) {
+        Livrogenero livroGenero = new Livrogenero();
+        livroGenero.setLivro(livro);
+        livroGenero.setGenero(generoRepository.getReferenceById(idGenero));
+        return livroGenero;
+    }
+
+    // Quantidade de livros no indice de autocompletar, ajustada depois do commit de quem gravou os vinculos
+    public void contarVinculos(Collection<Integer> idsGenero, long delta) {
+        List<Integer> ids = List.copyOf(idsGenero);
+        AposCommit.executar(() -> indice.ajustarQuantidade(ids, delta));
+    }
 
-        generoRepository.deleteAll(generosSemAssociacao);
+    public List<AutocompletarResponseDTO> autocompletar(String prefixo, int limite) {
+        if (prefixo == null || prefixo.isBlank()) {
+            throw new ValidationException("O prefixo para autocompletar não pode ser vazio.");
+        }
+        if (limite <= 0 || limite > LIMITE_AUTOCOMPLETAR_MAXIMO) {
+            throw new ValidationException("O limite deve estar entre 1 e " + LIMITE_AUTOCOMPLETAR_MAXIMO + ".");
+        }
+        return indice.buscar(prefixo, limite);
+    }
+
+    public IndicePrefixos.Estatisticas estatisticasAutocompletar() {
+        return indice.estatisticas();
+    }
+
+    @Transactional
+    public Integer resolverIdGenero(String genero) {
+        String generoNormalizado = NormalizarNome.normalizar(genero);
+        return resolverGenero(generoNormalizado, genero.trim(), travarDoDicionario(List.of(generoNormalizado))).getId();
+    }
+
+    // Ids do dicionario travados (FOR KEY SHARE) numa consulta so, ate o commit de quem grava os vinculos: a limpeza
+    // de orfaos pula os travados. Devolve os que ainda existem; os outros ja foram apagados por ela
+    private Set<Integer> travarDoDicionario(Collection<String> nomesNormalizados) {
+        List<Integer> ids = nomesNormalizados.stream().map(dicionario::buscar).filter(Objects::nonNull)
+                .map(DicionarioNomes.Entrada::getId).toList();
+        return ids.isEmpty() ? Set.of() : new HashSet<>(generoRepository.travarParaVinculo(ids));
+    }
+
+    private DicionarioNomes.Entrada resolverGenero(String generoNormalizado, String nome, Set<Integer> existentes) {
+        DicionarioNomes.Entrada entrada = dicionario.buscar(generoNormalizado);
+        if (entrada != null && existentes.contains(entrada.getId())) {
+            return entrada;
+        }
+
+        // nao estava no dicionario: insere (ou perde a corrida para outro cadastro do mesmo genero) e busca o id
+        generoRepository.inserirSeAusente(nome, generoNormalizado);
+        Integer id = generoRepository.findIdByGeneroNormalizado(generoNormalizado);
+        dicionario.registrarAposCommit(generoNormalizado, id, nome);
+        AposCommit.executar(() -> indice.adicionar(id, nome, 0));
+
+        return new DicionarioNomes.Entrada(id, nome);
+    }
+
+    // Carrega o dicionario na subida. Generos antigos ainda sem genero_normalizado sao preenchidos aqui e,
+    // se o nome normalizado repetir o de outro genero, os dois sao mesclados num so
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void carregarDicionario() {
+        for (GeneroDTO genero : generoRepository.findGenerosDTONormalizados()) {
+            dicionario.carregar(NormalizarNome.normalizar(genero.getGenero()), genero.getId(), genero.getGenero());
+        }
+
+        for (Genero genero : generoRepository.findByGeneroNormalizadoIsNull()) {
+            String generoNormalizado = NormalizarNome.normalizar(genero.getGenero());
+            DicionarioNomes.Entrada existente = dicionario.buscar(generoNormalizado);
+
+            if (existente == null) {
+                genero.setGeneroNormalizado(generoNormalizado);
+                generoRepository.save(genero);
+                dicionario.carregar(generoNormalizado, genero.getId(), genero.getGenero());
+            } else {
+                livrogeneroRepository.deleteVinculosRepetidos(genero.getId(), existente.getId());
+                livrogeneroRepository.reatribuirGenero(genero.getId(), generoRepository.getReferenceById(existente.getId()));
+                generoRepository.delete(genero);
+            }
+        }
+
+        indice.recarregar(generoRepository.findAutocompletar());
+    }
+
+    // Usado pela limpeza agendada; os removidos saem do dicionario e do indice depois do commit, pelo nome normalizado
+    // devolvido no DELETE
+    @Transactional
+    public int removerGenerosSemLivros() {
+        List<String> removidos = generoRepository.deleteGenerosSemLivros();
+
+        List<String> nomesRemovidos = new ArrayList<>();
+        List<Integer> idsRemovidos = new ArrayList<>();
+        for (String generoNormalizado : removidos) {
+            DicionarioNomes.Entrada entrada = dicionario.buscar(generoNormalizado);
+            if (entrada != null) {
+                nomesRemovidos.add(generoNormalizado);
+                idsRemovidos.add(entrada.getId());
+            }
+        }
+        AposCommit.executar(() -> {
+            nomesRemovidos.forEach(dicionario::remover);
+            indice.remover(idsRemovidos);
+        });
+
+        return removidos.size();
     }
 
     public List<Genero> findGenerosByGeneroContaining(String genero) {
@@ -70,10 +224,4 @@ public class GenerosService {
     public List<Genero> findGenerosByLivroId(Integer id) {
         return generoRepository.findGenerosByLivroId(id);
     }
-
-    public List<Genero> cadastrarNovosGeneros(List<Genero> novosGeneros, Livro livro) {
-        livrogeneroRepository.deleteByLivroId(livro.getId());
-
-        return addGenero(novosGeneros, livro);
-    }
 }
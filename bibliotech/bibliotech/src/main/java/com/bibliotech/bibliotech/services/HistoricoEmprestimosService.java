@@ -0,0 +1,159 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.dtos.response.EstadoEmprestimoDTO;
+import com.bibliotech.bibliotech.dtos.response.HistoricoEmprestimoDTO;
+import com.bibliotech.bibliotech.exception.NotFoundException;
+import com.bibliotech.bibliotech.models.Emprestimo;
+import com.bibliotech.bibliotech.models.EmprestimoEvento;
+import com.bibliotech.bibliotech.repositories.AlunoRepository;
+import com.bibliotech.bibliotech.repositories.EmprestimoEventoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+// Historico dos emprestimos (emprestimo_evento): cada transicao grava o estado completo do emprestimo na mesma
+// transacao, e o estado numa data e o ultimo evento ate o fim daquele dia. As consultas partem da data do emprestimo,
+// entao so leem as particoes mensais entre o emprestimo e a data pedida.
+// Particoes: o mes atual e os bibliotech.historico.meses-adiante seguintes, na subida e no cron de
+// bibliotech.historico.particoes-cron. Metrica: bibliotech.historico.particoes.bloqueadas (particao padrao ocupada)
+@Service
+public class HistoricoEmprestimosService {
+
+    @Autowired
+    private EmprestimoEventoRepository emprestimoEventoRepository;
+    @Autowired
+    private AlunoRepository alunoRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bibliotech.historico.meses-adiante:2}")
+    private int mesesAdiante;
+
+    // Emprestimos anteriores ao historico entram uma vez, com o estado que tinham na subida
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        prepararParticoes();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                emprestimoEventoRepository.importarSemHistorico());
+    }
+
+    @Scheduled(cron = "${bibliotech.historico.particoes-cron:0 0 2 1 * *}")
+    public void prepararParticoes() {
+        YearMonth atual = YearMonth.now();
+        for (int i = 0; i <= mesesAdiante; i++) {
+            YearMonth mes = atual.plusMonths(i);
+            Boolean criada = new TransactionTemplate(transactionManager).execute(status ->
+                    emprestimoEventoRepository.criarParticaoMensal(mes));
+            if (!Boolean.TRUE.equals(criada)) {
+                // as linhas do mes continuam na particao padrao, consultaveis, so sem o descarte por mes
+                meterRegistry.counter("bibliotech.historico.particoes.bloqueadas").increment();
+            }
+        }
+    }
+
+    // idUsuario: quem fez a transicao, null quando parte do agendamento
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(String tipo, Emprestimo emprestimo, Integer idUsuario) {
+        emprestimoEventoRepository.registrar(
+                emprestimo.getId(),
+                tipo,
+                emprestimo.getAluno().getId(),
+                emprestimo.getExemplar().getId(),
+                emprestimo.getDataEmprestimo(),
+                emprestimo.getDataPrazo(),
+                emprestimo.getQtdRenovacao(),
+                emprestimo.getSituacao().name(),
+                emprestimo.getObservacao(),
+                emprestimo.getRealizadoPor() != null ? emprestimo.getRealizadoPor().getId() : null,
+                emprestimo.getConcluidoPor() != null ? emprestimo.getConcluidoPor().getId() : null,
+                emprestimo.getDataConclusao(),
+                idUsuario
+        );
+    }
+
+    @Transactional(readOnly = true)
+    public List<HistoricoEmprestimoDTO> listarHistorico(Integer idEmprestimo) {
+        LocalDate dataEmprestimo = buscarDataEmprestimo(idEmprestimo);
+
+        return emprestimoEventoRepository.listarPorEmprestimo(idEmprestimo,
+                        dataEmprestimo.atStartOfDay(), LocalDateTime.now().plusDays(1)).stream()
+                .map(this::toHistoricoDto)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public EstadoEmprestimoDTO consultarEstado(Integer idEmprestimo, LocalDate data) {
+        LocalDate dataEmprestimo = buscarDataEmprestimo(idEmprestimo);
+
+        return emprestimoEventoRepository.buscarEstados(List.of(idEmprestimo),
+                        dataEmprestimo.atStartOfDay(), data.plusDays(1).atStartOfDay()).stream()
+                .findFirst()
+                .map(this::toEstadoDto)
+                .orElseThrow(() -> new NotFoundException("Não há histórico do emprestimo até " + data + "."));
+    }
+
+    // Emprestimos que o aluno tinha no fim do dia: abertos naquela data ou concluidos nela. Sai so do historico, que
+    // guarda tambem os emprestimos de anos ja arquivados
+    @Transactional(readOnly = true)
+    public List<EstadoEmprestimoDTO> consultarEstadoDoAluno(Integer idAluno, LocalDate data) {
+        if (!alunoRepository.existsById(idAluno)) {
+            throw new NotFoundException("Aluno não encontrado");
+        }
+
+        return emprestimoEventoRepository.buscarEstadosDoAluno(idAluno, data, data.plusDays(1).atStartOfDay()).stream()
+                .filter(evento -> evento.getSituacao().isAberta() || data.equals(evento.getDataConclusao()))
+                .map(this::toEstadoDto)
+                .toList();
+    }
+
+    // A data do emprestimo vem do historico e nao de emprestimo: o ano do emprestimo pode ja ter sido arquivado
+    private LocalDate buscarDataEmprestimo(Integer idEmprestimo) {
+        return emprestimoEventoRepository.findFirstByIdEmprestimo(idEmprestimo)
+                .map(EmprestimoEvento::getDataEmprestimo)
+                .orElseThrow(() -> new NotFoundException("Emprestimo com o ID " + idEmprestimo + " não encontrado."));
+    }
+
+    private HistoricoEmprestimoDTO toHistoricoDto(EmprestimoEvento evento) {
+        return new HistoricoEmprestimoDTO(
+                evento.getId(),
+                evento.getTipo(),
+                evento.getDataEvento(),
+                evento.getSituacao(),
+                evento.getDataPrazo(),
+                evento.getQtdRenovacao(),
+                evento.getDataConclusao(),
+                evento.getObservacao(),
+                evento.getRegistradoPor()
+        );
+    }
+
+    private EstadoEmprestimoDTO toEstadoDto(EmprestimoEvento evento) {
+        return new EstadoEmprestimoDTO(
+                evento.getIdEmprestimo(),
+                evento.getIdAluno(),
+                evento.getIdExemplar(),
+                evento.getDataEmprestimo(),
+                evento.getSituacao(),
+                evento.getDataPrazo(),
+                evento.getQtdRenovacao(),
+                evento.getDataConclusao(),
+                evento.getTipo(),
+                evento.getDataEvento()
+        );
+    }
+}
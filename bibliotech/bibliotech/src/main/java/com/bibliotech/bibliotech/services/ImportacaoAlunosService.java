@@ -0,0 +1,200 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.dtos.request.AlunoImportacaoDTO;
+import com.bibliotech.bibliotech.dtos.response.ImportacaoAlunosErroDTO;
+import com.bibliotech.bibliotech.dtos.response.ImportacaoAlunosResponseDTO;
+import com.bibliotech.bibliotech.exception.ValidationException;
+import com.bibliotech.bibliotech.models.Aluno;
+import com.bibliotech.bibliotech.models.Turma;
+import com.bibliotech.bibliotech.repositories.AlunoRepository;
+import com.bibliotech.bibliotech.repositories.TurmaRepository;
+import com.bibliotech.bibliotech.utils.CsvImportacao;
+import com.bibliotech.bibliotech.utils.EmailValidator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Matricula em massa a partir de CSV, no mesmo esquema da importacao do acervo:
+// leitura registro a registro, gravacao em lotes com uma transacao por lote
+@Service
+public class ImportacaoAlunosService {
+
+    private static final List<String> COLUNAS_OBRIGATORIAS = List.of("nome", "email", "idTurma");
+
+    @Autowired
+    private AlunoRepository alunoRepository;
+    @Autowired
+    private TurmaRepository turmaRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${bibliotech.importacao.tamanho-lote:500}")
+    private int tamanhoLotePadrao;
+
+    @Value("${bibliotech.importacao.max-erros-resposta:500}")
+    private int maxErrosResposta;
+
+    public ImportacaoAlunosResponseDTO importarCsv(Reader reader, char separador, Integer tamanhoLote) throws IOException {
+        int lote = tamanhoLote != null ? tamanhoLote : tamanhoLotePadrao;
+        if (lote <= 0 || lote > ImportacaoLivrosService.TAMANHO_LOTE_MAXIMO) {
+            throw new ValidationException("O tamanho do lote deve estar entre 1 e " + ImportacaoLivrosService.TAMANHO_LOTE_MAXIMO + ".");
+        }
+
+        ImportacaoAlunosResponseDTO resultado = new ImportacaoAlunosResponseDTO();
+
+        try (CSVParser parser = CsvImportacao.formato(separador).parse(reader)) {
+            CsvImportacao.validarCabecalho(parser.getHeaderNames(), COLUNAS_OBRIGATORIAS);
+
+            List<AlunoImportacaoDTO> pendentes = new ArrayList<>(lote);
+            Iterator<CSVRecord> registros = parser.iterator();
+
+            while (true) {
+                CSVRecord registro;
+                try {
+                    if (!registros.hasNext()) {
+                        break;
+                    }
+                    registro = registros.next();
+                } catch (UncheckedIOException e) {
+                    registrarErro(resultado, new ImportacaoAlunosErroDTO(parser.getCurrentLineNumber(), null,
+                            "Arquivo CSV malformado, importação interrompida: " + e.getCause().getMessage()));
+                    break;
+                }
+
+                resultado.setLinhasLidas(resultado.getLinhasLidas() + 1);
+                long linha = registro.getRecordNumber() + 1; // +1 por causa do cabecalho
+
+                try {
+                    pendentes.add(lerLinha(registro, linha));
+                } catch (ValidationException e) {
+                    registrarErro(resultado, new ImportacaoAlunosErroDTO(linha, CsvImportacao.campo(registro, "email"), e.getMessage()));
+                }
+
+                if (pendentes.size() == lote) {
+                    processarLote(pendentes, resultado);
+                    pendentes.clear();
+                }
+            }
+
+            if (!pendentes.isEmpty()) {
+                processarLote(pendentes, resultado);
+            }
+        }
+
+        resultado.setErrosTruncados(resultado.getLinhasRejeitadas() > resultado.getErros().size());
+        return resultado;
+    }
+
+    // Mesmas regras do AlunosService.cadastrarAluno que nao dependem do banco
+    private AlunoImportacaoDTO lerLinha(CSVRecord registro, long linha) {
+        AlunoImportacaoDTO aluno = new AlunoImportacaoDTO();
+        aluno.setLinha(linha);
+        aluno.setNome(CsvImportacao.campo(registro, "nome"));
+        aluno.setEmail(CsvImportacao.campo(registro, "email"));
+        aluno.setTelefone(CsvImportacao.campo(registro, "telefone"));
+
+        if (aluno.getNome().isEmpty()) {
+            throw new ValidationException("O nome do aluno é obrigatório.");
+        }
+        if (!EmailValidator.isValid(aluno.getEmail())) {
+            throw new ValidationException("O e-mail informado não é válido.");
+        }
+        if (aluno.getTelefone().length() > 15) {
+            throw new ValidationException("O telefone deve ter no máximo 15 caracteres.");
+        }
+
+        aluno.setIdTurma(CsvImportacao.lerInteiro(CsvImportacao.campo(registro, "idTurma"), "idTurma"));
+
+        return aluno;
+    }
+
+    private void processarLote(List<AlunoImportacaoDTO> linhas, ImportacaoAlunosResponseDTO resultado) {
+        resultado.setLotes(resultado.getLotes() + 1);
+        List<ImportacaoAlunosErroDTO> errosLote = new ArrayList<>();
+        int gravados;
+
+        try {
+            gravados = new TransactionTemplate(transactionManager).execute(status -> gravarLote(linhas, errosLote));
+        } catch (RuntimeException e) {
+            gravados = 0;
+            errosLote.clear();
+            String causa = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            for (AlunoImportacaoDTO linha : linhas) {
+                errosLote.add(new ImportacaoAlunosErroDTO(linha.getLinha(), linha.getEmail(), "Lote desfeito por erro ao gravar: " + causa));
+            }
+        } finally {
+            entityManager.clear();
+        }
+
+        resultado.setAlunosImportados(resultado.getAlunosImportados() + gravados);
+        errosLote.forEach(erro -> registrarErro(resultado, erro));
+    }
+
+    // Uma consulta de e-mails e uma de turmas por lote no lugar do existsByEmail por aluno
+    private int gravarLote(List<AlunoImportacaoDTO> linhas, List<ImportacaoAlunosErroDTO> errosLote) {
+        Set<String> emailsExistentes = new HashSet<>(alunoRepository.findEmailsExistentes(
+                linhas.stream().map(AlunoImportacaoDTO::getEmail).collect(Collectors.toSet())));
+        Map<Integer, Turma> turmas = turmaRepository.findAllById(
+                        linhas.stream().map(AlunoImportacaoDTO::getIdTurma).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Turma::getId, Function.identity()));
+
+        Set<String> emailsDoLote = new HashSet<>();
+        List<Aluno> alunos = new ArrayList<>(linhas.size());
+
+        for (AlunoImportacaoDTO linha : linhas) {
+            Turma turma = turmas.get(linha.getIdTurma());
+            String erro = null;
+
+            if (emailsExistentes.contains(linha.getEmail())) {
+                erro = "Já existe um aluno cadastrado com esse e-mail.";
+            } else if (!emailsDoLote.add(linha.getEmail())) {
+                erro = "E-mail repetido no arquivo: " + linha.getEmail();
+            } else if (turma == null) {
+                erro = "Turma com ID " + linha.getIdTurma() + " não encontrada.";
+            } else if (!turma.isAtivo()) {
+                erro = "Turma com ID " + linha.getIdTurma() + " está inativa.";
+            }
+
+            if (erro != null) {
+                errosLote.add(new ImportacaoAlunosErroDTO(linha.getLinha(), linha.getEmail(), erro));
+                continue;
+            }
+
+            Aluno aluno = new Aluno();
+            aluno.setNome(linha.getNome());
+            aluno.setEmail(linha.getEmail());
+            aluno.setTelefone(linha.getTelefone().isEmpty() ? null : linha.getTelefone());
+            aluno.setTurma(turma);
+            alunos.add(aluno);
+        }
+
+        alunoRepository.saveAll(alunos);
+        entityManager.flush();
+
+        return alunos.size();
+    }
+
+    private void registrarErro(ImportacaoAlunosResponseDTO resultado, ImportacaoAlunosErroDTO erro) {
+        resultado.setLinhasRejeitadas(resultado.getLinhasRejeitadas() + 1);
+        if (resultado.getErros().size() < maxErrosResposta) {
+            resultado.getErros().add(erro);
+        }
+    }
+}
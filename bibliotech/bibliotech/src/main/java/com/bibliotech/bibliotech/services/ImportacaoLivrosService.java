@@ -0,0 +1,314 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.dtos.request.LivroImportacaoDTO;
+import com.bibliotech.bibliotech.dtos.response.ImportacaoLivrosErroDTO;
+import com.bibliotech.bibliotech.dtos.response.ImportacaoLivrosResponseDTO;
+import com.bibliotech.bibliotech.exception.ValidationException;
+import com.bibliotech.bibliotech.models.*;
+import com.bibliotech.bibliotech.repositories.*;
+import com.bibliotech.bibliotech.utils.CsvImportacao;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Importacao do acervo a partir de CSV. O arquivo e lido registro a registro e gravado em lotes,
+// cada lote na sua propria transacao, entao a memoria usada depende do tamanho do lote e nao do arquivo
+@Service
+public class ImportacaoLivrosService {
+
+    public static final int TAMANHO_LOTE_MAXIMO = 5000;
+
+    private static final List<String> COLUNAS_OBRIGATORIAS = List.of(
+            "titulo", "isbn", "autores", "generos", "qtdExemplares", "idSecao", "idEstanteprateleira");
+
+    // separa varios autores/generos dentro da mesma coluna
+    private static final String SEPARADOR_VALORES = "\\|";
+
+    @Autowired
+    private LivroRepository livroRepository;
+    @Autowired
+    private AutorRepository autorRepository;
+    @Autowired
+    private GeneroRepository generoRepository;
+    @Autowired
+    private AutorService autorService;
+    @Autowired
+    private GenerosService generosService;
+    @Autowired
+    private LivroautorRepository livroautorRepository;
+    @Autowired
+    private LivrogeneroRepository livrogeneroRepository;
+    @Autowired
+    private ExemplarRepository exemplarRepository;
+    @Autowired
+    private SecaoRepository secaoRepository;
+    @Autowired
+    private EstantePrateleiraRepository estantePrateleiraRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${bibliotech.importacao.tamanho-lote:500}")
+    private int tamanhoLotePadrao;
+
+    @Value("${bibliotech.importacao.max-erros-resposta:500}")
+    private int maxErrosResposta;
+
+    // Versao usada pela API: guarda no maximo max-erros-resposta erros na resposta, o resto so e contado
+    public ImportacaoLivrosResponseDTO importarCsv(Reader reader, char separador, Integer tamanhoLote) throws IOException {
+        List<ImportacaoLivrosErroDTO> erros = new ArrayList<>();
+        ImportacaoLivrosResponseDTO resultado = importarCsv(reader, separador, tamanhoLote, erro -> {
+            if (erros.size() < maxErrosResposta) {
+                erros.add(erro);
+            }
+        });
+
+        resultado.setErros(erros);
+        resultado.setErrosTruncados(resultado.getLinhasRejeitadas() > erros.size());
+        return resultado;
+    }
+
+    // Cada linha rejeitada e entregue ao relatorioErros assim que e descoberta, sem acumular em memoria
+    public ImportacaoLivrosResponseDTO importarCsv(Reader reader, char separador, Integer tamanhoLote,
+                                                  Consumer<ImportacaoLivrosErroDTO> relatorioErros) throws IOException {
+        int lote = tamanhoLote != null ? tamanhoLote : tamanhoLotePadrao;
+        if (lote <= 0 || lote > TAMANHO_LOTE_MAXIMO) {
+            throw new ValidationException("O tamanho do lote deve estar entre 1 e " + TAMANHO_LOTE_MAXIMO + ".");
+        }
+
+        ImportacaoLivrosResponseDTO resultado = new ImportacaoLivrosResponseDTO();
+
+        try (CSVParser parser = CsvImportacao.formato(separador).parse(reader)) {
+            CsvImportacao.validarCabecalho(parser.getHeaderNames(), COLUNAS_OBRIGATORIAS);
+
+            List<LivroImportacaoDTO> pendentes = new ArrayList<>(lote);
+            Iterator<CSVRecord> registros = parser.iterator();
+
+            while (true) {
+                CSVRecord registro;
+                try {
+                    if (!registros.hasNext()) {
+                        break;
+                    }
+                    registro = registros.next();
+                } catch (UncheckedIOException e) {
+                    // CSV malformado (aspas sem fechar, por exemplo): o que ja foi lido e gravado e a leitura para aqui
+                    registrarErro(resultado, relatorioErros, new ImportacaoLivrosErroDTO(parser.getCurrentLineNumber(), null,
+                            "Arquivo CSV malformado, importação interrompida: " + e.getCause().getMessage()));
+                    break;
+                }
+
+                resultado.setLinhasLidas(resultado.getLinhasLidas() + 1);
+                long linha = registro.getRecordNumber() + 1; // +1 por causa do cabecalho
+
+                try {
+                    pendentes.add(lerLinha(registro, linha));
+                } catch (ValidationException e) {
+                    registrarErro(resultado, relatorioErros, new ImportacaoLivrosErroDTO(linha, CsvImportacao.campo(registro, "isbn"), e.getMessage()));
+                }
+
+                if (pendentes.size() == lote) {
+                    processarLote(pendentes, resultado, relatorioErros);
+                    pendentes.clear();
+                }
+            }
+
+            if (!pendentes.isEmpty()) {
+                processarLote(pendentes, resultado, relatorioErros);
+            }
+        }
+
+        return resultado;
+    }
+
+    // Mesmas regras do cadastro individual (LivrosService.cadastrarLivro) que nao dependem do banco
+    private LivroImportacaoDTO lerLinha(CSVRecord registro, long linha) {
+        LivroImportacaoDTO livro = new LivroImportacaoDTO();
+        livro.setLinha(linha);
+        livro.setTitulo(CsvImportacao.campo(registro, "titulo"));
+        livro.setIsbn(CsvImportacao.campo(registro, "isbn"));
+        livro.setAutores(lerLista(CsvImportacao.campo(registro, "autores")));
+        livro.setGeneros(lerLista(CsvImportacao.campo(registro, "generos")));
+
+        if (livro.getTitulo().isEmpty()) {
+            throw new ValidationException("O titulo do livro não pode ser nulo ou vazio.");
+        }
+        if (livro.getIsbn().isEmpty()) {
+            throw new ValidationException("O isbn do livro não pode ser nulo ou vazio.");
+        }
+        if (livro.getIsbn().length() > 13) {
+            throw new ValidationException("O tamanho máximo para ISBN é 13 caracteres.");
+        }
+        if (livro.getAutores().isEmpty()) {
+            throw new ValidationException("Os nomes dos autores não podem ser vazios ou nulos.");
+        }
+        if (livro.getGeneros().isEmpty()) {
+            throw new ValidationException("Os gêneros não podem ser vazios ou nulos.");
+        }
+
+        livro.setQtdExemplares(CsvImportacao.lerInteiro(CsvImportacao.campo(registro, "qtdExemplares"), "qtdExemplares"));
+        livro.setIdSecao(CsvImportacao.lerInteiro(CsvImportacao.campo(registro, "idSecao"), "idSecao"));
+        livro.setIdEstanteprateleira(CsvImportacao.lerInteiro(CsvImportacao.campo(registro, "idEstanteprateleira"), "idEstanteprateleira"));
+
+        if (livro.getQtdExemplares() <= 0) {
+            throw new ValidationException("A quantidade de exemplares não pode ser menor que ou igual à zero.");
+        }
+
+        return livro;
+    }
+
+    private List<String> lerLista(String valor) {
+        return Arrays.stream(valor.split(SEPARADOR_VALORES))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .toList();
+    }
+
+    private void processarLote(List<LivroImportacaoDTO> linhas, ImportacaoLivrosResponseDTO resultado,
+                               Consumer<ImportacaoLivrosErroDTO> relatorioErros) {
+        resultado.setLotes(resultado.getLotes() + 1);
+        List<ImportacaoLivrosErroDTO> errosLote = new ArrayList<>();
+        List<LivroImportacaoDTO> gravadas;
+
+        try {
+            gravadas = new TransactionTemplate(transactionManager).execute(status -> gravarLote(linhas, errosLote));
+        } catch (RuntimeException e) {
+            // erro inesperado do banco (ex.: ISBN gravado por outra requisicao no meio do lote): o lote inteiro e desfeito
+            gravadas = List.of();
+            errosLote.clear();
+            String causa = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            for (LivroImportacaoDTO linha : linhas) {
+                errosLote.add(new ImportacaoLivrosErroDTO(linha.getLinha(), linha.getIsbn(), "Lote desfeito por erro ao gravar: " + causa));
+            }
+        } finally {
+            // com open-in-view o EntityManager sobrevive entre as transacoes da requisicao
+            entityManager.clear();
+        }
+
+        resultado.setLivrosImportados(resultado.getLivrosImportados() + gravadas.size());
+        resultado.setExemplaresCriados(resultado.getExemplaresCriados()
+                + gravadas.stream().mapToLong(LivroImportacaoDTO::getQtdExemplares).sum());
+        errosLote.forEach(erro -> registrarErro(resultado, relatorioErros, erro));
+    }
+
+    // Roda dentro da transacao do lote: poucas consultas por lote e os inserts saem em batch.
+    // Autores e generos sao resolvidos pelo dicionario em memoria; so nomes novos vao ao banco
+    private List<LivroImportacaoDTO> gravarLote(List<LivroImportacaoDTO> linhas, List<ImportacaoLivrosErroDTO> errosLote) {
+        Set<String> isbnsExistentes = new HashSet<>(livroRepository.findIsbnsExistentes(
+                linhas.stream().map(LivroImportacaoDTO::getIsbn).collect(Collectors.toSet())));
+        Map<Integer, Secao> secoes = secaoRepository.findAllById(
+                        linhas.stream().map(LivroImportacaoDTO::getIdSecao).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Secao::getId, Function.identity()));
+        Map<Integer, Estanteprateleira> estantes = estantePrateleiraRepository.findAllById(
+                        linhas.stream().map(LivroImportacaoDTO::getIdEstanteprateleira).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Estanteprateleira::getId, Function.identity()));
+
+        Set<String> isbnsDoLote = new HashSet<>();
+        List<LivroImportacaoDTO> aceitas = new ArrayList<>();
+
+        for (LivroImportacaoDTO linha : linhas) {
+            String erro = null;
+            if (isbnsExistentes.contains(linha.getIsbn())) {
+                erro = "Já existe um livro com esse isbn: " + linha.getIsbn();
+            } else if (!isbnsDoLote.add(linha.getIsbn())) {
+                erro = "ISBN repetido no arquivo: " + linha.getIsbn();
+            } else if (!secoes.containsKey(linha.getIdSecao())) {
+                erro = "Seção com ID " + linha.getIdSecao() + " não encontrada.";
+            } else if (!estantes.containsKey(linha.getIdEstanteprateleira())) {
+                erro = "Estante-Prateleira com id: " + linha.getIdEstanteprateleira() + " não encontrada.";
+            }
+
+            if (erro != null) {
+                errosLote.add(new ImportacaoLivrosErroDTO(linha.getLinha(), linha.getIsbn(), erro));
+            } else {
+                aceitas.add(linha);
+            }
+        }
+
+        if (aceitas.isEmpty()) {
+            return aceitas;
+        }
+
+        // cache por lote para nao normalizar o mesmo nome a cada linha; quem resolve e o dicionario dos services
+        Map<String, Integer> idsAutores = new HashMap<>();
+        Map<String, Integer> idsGeneros = new HashMap<>();
+
+        List<Livro> livros = new ArrayList<>(aceitas.size());
+        List<Livroautor> livrosAutores = new ArrayList<>();
+        List<Livrogenero> livrosGeneros = new ArrayList<>();
+        List<Exemplar> exemplares = new ArrayList<>();
+
+        for (LivroImportacaoDTO linha : aceitas) {
+            Livro livro = new Livro();
+            livro.setTitulo(linha.getTitulo());
+            livro.setIsbn(linha.getIsbn());
+            livros.add(livro);
+
+            for (Integer idAutor : idsDistintos(linha.getAutores(), idsAutores, autorService::resolverIdAutor)) {
+                Livroautor livroAutor = new Livroautor();
+                livroAutor.setLivro(livro);
+                livroAutor.setAutor(autorRepository.getReferenceById(idAutor));
+                livrosAutores.add(livroAutor);
+            }
+            for (Integer idGenero : idsDistintos(linha.getGeneros(), idsGeneros, generosService::resolverIdGenero)) {
+                Livrogenero livroGenero = new Livrogenero();
+                livroGenero.setLivro(livro);
+                livroGenero.setGenero(generoRepository.getReferenceById(idGenero));
+                livrosGeneros.add(livroGenero);
+            }
+
+            Secao secao = secoes.get(linha.getIdSecao());
+            Estanteprateleira estanteprateleira = estantes.get(linha.getIdEstanteprateleira());
+            for (int numero = 1; numero <= linha.getQtdExemplares(); numero++) {
+                Exemplar exemplar = new Exemplar();
+                exemplar.setLivro(livro);
+                exemplar.setSecao(secao);
+                exemplar.setEstanteprateleira(estanteprateleira);
+                exemplar.setNumero(numero);
+                exemplares.add(exemplar);
+            }
+        }
+
+        livroRepository.saveAll(livros);
+        livroautorRepository.saveAll(livrosAutores);
+        livrogeneroRepository.saveAll(livrosGeneros);
+        exemplarRepository.saveAll(exemplares);
+        entityManager.flush();
+
+        autorService.contarVinculos(livrosAutores.stream().map(vinculo -> vinculo.getAutor().getId()).toList(), 1);
+        generosService.contarVinculos(livrosGeneros.stream().map(vinculo -> vinculo.getGenero().getId()).toList(), 1);
+
+        return aceitas;
+    }
+
+    private Set<Integer> idsDistintos(List<String> nomes, Map<String, Integer> ids, Function<String, Integer> resolver) {
+        Set<Integer> distintos = new LinkedHashSet<>();
+        for (String nome : nomes) {
+            distintos.add(ids.computeIfAbsent(nome, resolver));
+        }
+        return distintos;
+    }
+
+    private void registrarErro(ImportacaoLivrosResponseDTO resultado, Consumer<ImportacaoLivrosErroDTO> relatorioErros,
+                               ImportacaoLivrosErroDTO erro) {
+        resultado.setLinhasRejeitadas(resultado.getLinhasRejeitadas() + 1);
+        relatorioErros.accept(erro);
+    }
+}
@@ -0,0 +1,179 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.dtos.response.LeituraCodigoExemplarDTO;
+import com.bibliotech.bibliotech.dtos.response.LeituraCodigoResponseDTO;
+import com.bibliotech.bibliotech.exception.NotFoundException;
+import com.bibliotech.bibliotech.exception.ValidationException;
+import com.bibliotech.bibliotech.models.Estanteprateleira;
+import com.bibliotech.bibliotech.models.Exemplar;
+import com.bibliotech.bibliotech.models.Livro;
+import com.bibliotech.bibliotech.models.Secao;
+import com.bibliotech.bibliotech.models.enums.SituacaoExemplar;
+import com.bibliotech.bibliotech.repositories.EstantePrateleiraRepository;
+import com.bibliotech.bibliotech.repositories.ExemplarRepository;
+import com.bibliotech.bibliotech.repositories.SecaoRepository;
+import com.bibliotech.bibliotech.utils.AposCommit;
+import com.bibliotech.bibliotech.utils.IndiceExemplares;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Leitura de codigos no balcao (ISBN ou etiqueta ISBN+numero) respondida pelo IndiceExemplares, sem consultar
+// exemplar nem livro. ExemplarListener, a realocacao em massa e a edicao de livro mandam as mudancas para ca e elas
+// entram no indice depois do commit. Na subida o indice e montado por uma consulta lida em cursor; o que mudar
+// enquanto isso e reaplicado no indice novo antes da troca (todas as alteracoes gravam o estado final, entao
+// repetir uma que ja veio na consulta nao muda nada)
+@Service
+public class IndiceExemplaresService {
+
+    @Autowired
+    private ExemplarRepository exemplarRepository;
+    @Autowired
+    private SecaoRepository secaoRepository;
+    @Autowired
+    private EstantePrateleiraRepository estantePrateleiraRepository;
+
+    private volatile IndiceExemplares indice = new IndiceExemplares(0, 0);
+    private boolean reconstruindo;
+    private final List<Consumer<IndiceExemplares>> alteracoesDuranteReconstrucao = new ArrayList<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        synchronized (this) {
+            reconstruindo = true;
+            alteracoesDuranteReconstrucao.clear();
+        }
+
+        IndiceExemplares novo = new IndiceExemplares(1024, 4096);
+        try (Stream<Object[]> linhas = exemplarRepository.streamIndiceExemplares()) {
+            linhas.forEach(linha -> {
+                int idLivro = ((Number) linha[0]).intValue();
+                novo.gravarLivro(idLivro, (String) linha[1], (String) linha[2]);
+                if (linha[3] != null) {
+                    novo.gravarExemplar(((Number) linha[3]).intValue(), idLivro, ((Number) linha[4]).intValue(),
+                            SituacaoExemplar.valueOf((String) linha[5]), id(linha[6]), id(linha[7]));
+                }
+            });
+        }
+
+        synchronized (this) {
+            alteracoesDuranteReconstrucao.forEach(alteracao -> alteracao.accept(novo));
+            alteracoesDuranteReconstrucao.clear();
+            indice = novo;
+            reconstruindo = false;
+        }
+    }
+
+    // Os valores sao copiados agora: a entidade ainda pode mudar ate o commit
+    public void registrarExemplar(Exemplar exemplar) {
+        Livro livro = exemplar.getLivro();
+        int idLivro = livro.getId();
+        String isbn = livro.getIsbn();
+        String titulo = livro.getTitulo();
+        int idExemplar = exemplar.getId();
+        int numero = exemplar.getNumero();
+        SituacaoExemplar situacao = exemplar.getSituacao();
+        int idEstanteprateleira = exemplar.getEstanteprateleira() != null ? exemplar.getEstanteprateleira().getId() : 0;
+        int idSecao = exemplar.getSecao() != null ? exemplar.getSecao().getId() : 0;
+
+        aposCommit(indice -> {
+            indice.gravarLivro(idLivro, isbn, titulo);
+            indice.gravarExemplar(idExemplar, idLivro, numero, situacao, idEstanteprateleira, idSecao);
+        });
+    }
+
+    public void registrarLivro(Livro livro) {
+        int idLivro = livro.getId();
+        String isbn = livro.getIsbn();
+        String titulo = livro.getTitulo();
+        aposCommit(indice -> indice.gravarLivro(idLivro, isbn, titulo));
+    }
+
+    public void registrarRemocao(Integer idExemplar) {
+        aposCommit(indice -> indice.removerExemplar(idExemplar));
+    }
+
+    public void registrarRealocacao(Integer[] idsExemplares, Integer idEstanteprateleira, Integer idSecao) {
+        int[] ids = new int[idsExemplares.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = idsExemplares[i];
+        }
+        aposCommit(indice -> indice.realocarExemplares(ids, idEstanteprateleira, idSecao));
+    }
+
+    // "9788576574835" devolve o livro com todos os exemplares; "9788576574835+3" (ou com espaco, que e como o + chega
+    // numa query string sem codificacao) devolve so o exemplar 3. Nomes de estante e secao vem do cache de segundo nivel
+    @Transactional(readOnly = true)
+    public LeituraCodigoResponseDTO buscarPorCodigo(String codigo) {
+        if (codigo == null || codigo.isBlank()) {
+            throw new ValidationException("Informe o código lido.");
+        }
+
+        String texto = codigo.trim();
+        int separador = Math.max(texto.lastIndexOf('+'), texto.lastIndexOf(' '));
+        IndiceExemplares atual = indice;
+        IndiceExemplares.LivroIndexado livro;
+
+        if (separador < 0) {
+            livro = atual.buscarPorIsbn(texto)
+                    .orElseThrow(() -> new NotFoundException("Nenhum livro com o ISBN " + texto + "."));
+        } else {
+            String isbn = texto.substring(0, separador).trim();
+            int numero;
+            try {
+                numero = Integer.parseInt(texto.substring(separador + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new ValidationException("Etiqueta inválida: " + texto + ". Use ISBN+número do exemplar.");
+            }
+            livro = atual.buscarPorEtiqueta(isbn, numero)
+                    .orElseThrow(() -> new NotFoundException("Nenhum exemplar " + numero + " do livro com ISBN " + isbn + "."));
+        }
+
+        List<LeituraCodigoExemplarDTO> exemplares = new ArrayList<>(livro.getExemplares().size());
+        for (IndiceExemplares.ExemplarIndexado exemplar : livro.getExemplares()) {
+            Estanteprateleira estanteprateleira = exemplar.getIdEstanteprateleira() == 0 ? null
+                    : estantePrateleiraRepository.findById(exemplar.getIdEstanteprateleira()).orElse(null);
+            Secao secao = exemplar.getIdSecao() == 0 ? null : secaoRepository.findById(exemplar.getIdSecao()).orElse(null);
+
+            exemplares.add(new LeituraCodigoExemplarDTO(
+                    exemplar.getIdExemplar(),
+                    exemplar.getNumero(),
+                    exemplar.getSituacao(),
+                    estanteprateleira != null ? estanteprateleira.getId() : null,
+                    estanteprateleira != null ? estanteprateleira.getEstante() : null,
+                    estanteprateleira != null ? estanteprateleira.getPrateleira() : null,
+                    secao != null ? secao.getId() : null,
+                    secao != null ? secao.getNome() : null
+            ));
+        }
+
+        return new LeituraCodigoResponseDTO(livro.getIdLivro(), livro.getIsbn(), livro.getTitulo(), exemplares);
+    }
+
+    public IndiceExemplares.Estatisticas estatisticas() {
+        return indice.estatisticas();
+    }
+
+    private void aposCommit(Consumer<IndiceExemplares> alteracao) {
+        AposCommit.executar(() -> aplicar(alteracao));
+    }
+
+    private synchronized void aplicar(Consumer<IndiceExemplares> alteracao) {
+        alteracao.accept(indice);
+        if (reconstruindo) {
+            alteracoesDuranteReconstrucao.add(alteracao);
+        }
+    }
+
+    private static int id(Object valor) {
+        return valor == null ? 0 : ((Number) valor).intValue();
+    }
+}
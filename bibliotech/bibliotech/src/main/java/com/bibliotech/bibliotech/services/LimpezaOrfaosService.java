@@ -0,0 +1,51 @@
+package com.bibliotech.bibliotech.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.function.IntSupplier;
+
+// Remove autores e generos que ficaram sem livros, no horario de bibliotech.limpeza-orfaos.cron. Se um cadastro
+// vincular um deles depois de o DELETE ler os vinculos, a chave estrangeira (RESTRICT) derruba o DELETE e a remocao
+// fica para a rodada seguinte.
+// Metricas em /actuator/metrics: bibliotech.limpeza.orfaos.removidos e bibliotech.limpeza.orfaos.duracao (tag tipo)
+@Service
+public class LimpezaOrfaosService {
+
+    private static final Logger log = LoggerFactory.getLogger(LimpezaOrfaosService.class);
+
+    @Autowired
+    private AutorService autorService;
+    @Autowired
+    private GenerosService generosService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Scheduled(cron = "${bibliotech.limpeza-orfaos.cron:0 0 3 * * *}")
+    public void removerOrfaos() {
+        executar("autor", autorService::removerAutoresSemLivros);
+        executar("genero", generosService::removerGenerosSemLivros);
+    }
+
+    private void executar(String tipo, IntSupplier remocao) {
+        Timer.Sample inicio = Timer.start(meterRegistry);
+        String resultado = "erro";
+        try {
+            int removidos = remocao.getAsInt();
+            meterRegistry.counter("bibliotech.limpeza.orfaos.removidos", "tipo", tipo).increment(removidos);
+            resultado = "sucesso";
+        } catch (DataIntegrityViolationException e) {
+            resultado = "adiada";
+            log.warn("Limpeza de {} sem livros adiada para a próxima rodada: um deles ganhou livro durante a remoção",
+                    tipo, e);
+        } finally {
+            inicio.stop(meterRegistry.timer("bibliotech.limpeza.orfaos.duracao", "tipo", tipo, "resultado", resultado));
+        }
+    }
+}
@@ -6,20 +6,23 @@ import com.bibliotech.bibliotech.dtos.request.ExemplarRequestPatchDTO;
 import com.bibliotech.bibliotech.dtos.request.ExemplarRequestPostDTO;
 import com.bibliotech.bibliotech.dtos.request.LivroRequestPatchDTO;
 import com.bibliotech.bibliotech.dtos.request.LivroRequestPostDTO;
+import com.bibliotech.bibliotech.dtos.request.RealocacaoExemplaresRequestDTO;
 import com.bibliotech.bibliotech.dtos.request.mappers.LivroRequestPatchMapper;
 import com.bibliotech.bibliotech.dtos.request.mappers.LivroRequestPostMapper;
+import com.bibliotech.bibliotech.dtos.response.LeituraCodigoResponseDTO;
 import com.bibliotech.bibliotech.dtos.response.LivrosMaisLidosDTO;
+import com.bibliotech.bibliotech.dtos.response.RealocacaoExemplaresResponseDTO;
 import com.bibliotech.bibliotech.dtos.response.RelatorioAcervoDTO;
 import com.bibliotech.bibliotech.dtos.response.TurmaLeiturasDTO;
 import com.bibliotech.bibliotech.exception.NotFoundException;
 import com.bibliotech.bibliotech.exception.ValidationException;
 import com.bibliotech.bibliotech.models.*;
 import com.bibliotech.bibliotech.repositories.LivroRepository;
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -48,6 +51,8 @@ public class LivrosService {
     private LivroRequestPatchMapper livroRequestPatchMapper;
     @Autowired
     private EstantePrateleiraService estantePrateleiraService;
+    @Autowired
+    private IndiceExemplaresService indiceExemplaresService;
 
     @Transactional
     public Livro cadastrarLivro(LivroRequestPostDTO livro){
@@ -84,6 +89,7 @@ public class LivrosService {
         return livroSalvo;
     }
 
+    @Transactional(readOnly = true)
     public Page<Livro> getLivros(String titulo, String isbn, String autor, String genero, Boolean ativo, Pageable pageable){
         Page<Livro> livrosSalvos = livroRepository.filtrarLivros(titulo, isbn, autor, genero, ativo, pageable);
 
@@ -96,6 +102,7 @@ public class LivrosService {
         return livrosSalvos;
     }
 
+    @Transactional(readOnly = true)
     public Livro getLivroById(Integer id){
         Livro livroSalvo = livroRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Livro com ID " + id + " não encontrado."));
@@ -105,6 +112,7 @@ public class LivrosService {
         return livroSalvo;
     }
 
+    @Transactional
     public Livro atualizarLivro(Integer id, LivroRequestPatchDTO livroRequest){
         Livro livro = getLivroById(id);
 
@@ -131,6 +139,7 @@ public class LivrosService {
         livro.setGeneros(generosService.cadastrarNovosGeneros(generoMapper.toEntityList(livroRequest.getGeneros()), livro));
 
         livroRepository.save(livro);
+        indiceExemplaresService.registrarLivro(livro);
 
         return livro;
     }
@@ -173,6 +182,15 @@ public class LivrosService {
         return exemplaresService.atualizarExemplar(id, exemplarDTO);
     }
 
+    public RealocacaoExemplaresResponseDTO realocarExemplares(RealocacaoExemplaresRequestDTO dto) {
+        return exemplaresService.realocarExemplares(dto);
+    }
+
+    public LeituraCodigoResponseDTO lerCodigo(String codigo) {
+        return indiceExemplaresService.buscarPorCodigo(codigo);
+    }
+
+    @Transactional(readOnly = true)
     public List<LivrosMaisLidosDTO> obterLivrosMaisLidos(LocalDate dataInicio, LocalDate dataFim, Integer qtdMax) {
         if (dataInicio == null) {
             throw new ValidationException("A data de início é obrigatória.");
@@ -191,6 +209,7 @@ public class LivrosService {
         return result;
     }
 
+    @Transactional(readOnly = true)
     public List<RelatorioAcervoDTO> buscarRelatorioAcervo() {
         List<Livro> livros = livroRepository.findByAtivoOrderByTitulo(true);
 
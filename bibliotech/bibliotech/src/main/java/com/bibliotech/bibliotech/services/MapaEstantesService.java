@@ -0,0 +1,99 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.dtos.response.MapaEstanteDTO;
+import com.bibliotech.bibliotech.dtos.response.MapaEstanteSecaoDTO;
+import com.bibliotech.bibliotech.dtos.response.MapaEstantesResponseDTO;
+import com.bibliotech.bibliotech.repositories.EstantePrateleiraRepository;
+import com.bibliotech.bibliotech.utils.AposCommit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Ocupacao de todas as estantes-prateleiras e secoes. O mapa montado fica em memoria ate algum exemplar
+// ser gravado (ver ExemplarListener) ou alguem chamar invalidar, entao o painel pode consultar a vontade
+@Service
+public class MapaEstantesService {
+
+    private static class MapaEmCache {
+        private final long versao;
+        private final MapaEstantesResponseDTO mapa;
+
+        private MapaEmCache(long versao, MapaEstantesResponseDTO mapa) {
+            this.versao = versao;
+            this.mapa = mapa;
+        }
+    }
+
+    @Autowired
+    private EstantePrateleiraRepository estantePrateleiraRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicLong versao = new AtomicLong();
+    private volatile MapaEmCache cache;
+
+    public MapaEstantesResponseDTO getMapa() {
+        MapaEmCache atual = cache;
+        if (atual != null && atual.versao == versao.get()) {
+            return atual.mapa;
+        }
+
+        synchronized (this) {
+            long versaoLida = versao.get();
+            atual = cache;
+            if (atual != null && atual.versao == versaoLida) {
+                return atual.mapa;
+            }
+
+            // Transacao de escrita de proposito: numa replica atrasada o mapa ficaria velho ate a proxima invalidacao
+            List<Object[]> linhas = new TransactionTemplate(transactionManager)
+                    .execute(status -> estantePrateleiraRepository.buscarMapaOcupacao());
+            MapaEstantesResponseDTO mapa = new MapaEstantesResponseDTO(LocalDateTime.now(), montarEstantes(linhas));
+
+            // se algo mudou durante a consulta a versao ja avancou e a proxima leitura monta de novo
+            cache = new MapaEmCache(versaoLida, mapa);
+            return mapa;
+        }
+    }
+
+    // Vale a partir do commit da transacao corrente
+    public void invalidar() {
+        AposCommit.executarUmaVez(this, versao::incrementAndGet);
+    }
+
+    private List<MapaEstanteDTO> montarEstantes(List<Object[]> linhas) {
+        Map<Integer, MapaEstanteDTO> estantes = new LinkedHashMap<>();
+
+        for (Object[] linha : linhas) {
+            Integer idEstanteprateleira = ((Number) linha[0]).intValue();
+            MapaEstanteDTO estante = estantes.computeIfAbsent(idEstanteprateleira, id -> new MapaEstanteDTO(
+                    id, String.valueOf(linha[1]), ((Number) linha[2]).intValue(), new ArrayList<>()));
+
+            // estante-prateleira sem secao ligada e sem exemplares
+            if (linha[3] == null) {
+                continue;
+            }
+
+            estante.getSecoes().add(new MapaEstanteSecaoDTO(
+                    ((Number) linha[3]).intValue(),
+                    (String) linha[4],
+                    ((Number) linha[5]).longValue(),
+                    ((Number) linha[6]).longValue(),
+                    ((Number) linha[7]).longValue(),
+                    ((Number) linha[8]).longValue(),
+                    ((Number) linha[9]).longValue(),
+                    ((Number) linha[10]).longValue()
+            ));
+        }
+
+        return new ArrayList<>(estantes.values());
+    }
+}
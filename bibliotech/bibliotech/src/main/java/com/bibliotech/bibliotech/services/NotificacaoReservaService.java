@@ -0,0 +1,57 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.models.Reserva;
+import com.bibliotech.bibliotech.models.enums.SituacaoReserva;
+import com.bibliotech.bibliotech.repositories.ReservaRepository;
+import com.bibliotech.bibliotech.utils.EmailSend;
+import com.bibliotech.bibliotech.utils.FormatarData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+// Aviso de exemplar separado, fora da thread da devolucao: o SMTP nao segura a transacao nem a resposta do balcao.
+// Se o envio falhar data_notificacao fica nula e ReservasService.processarReservas tenta de novo
+@Service
+public class NotificacaoReservaService {
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+    @Autowired
+    private EmailSend emailSend;
+
+    @Async
+    @Transactional
+    public void notificarExemplarDisponivel(Integer idReserva) {
+        Reserva reserva = reservaRepository.findById(idReserva).orElse(null);
+        if (reserva == null || reserva.getSituacao() != SituacaoReserva.disponivel || reserva.getDataNotificacao() != null) {
+            return;
+        }
+
+        try {
+            String assunto = "Reserva disponível para retirada - Biblioteca";
+
+            String mensagem = String.format(
+                    "Olá %s,\n\n" +
+                            "O livro \"%s\" que você reservou está disponível para retirada.\n" +
+                            "O exemplar nº %d ficará separado para você até %s.\n\n" +
+                            "Após essa data a reserva expira e o exemplar passa para o próximo aluno da fila.\n\n" +
+                            "Atenciosamente, \n" +
+                            "Biblioteca Adelino Cunha.",
+                    reserva.getAluno().getNome(),
+                    reserva.getLivro().getTitulo(),
+                    reserva.getExemplar().getNumero(),
+                    FormatarData.formatarData(reserva.getPrazoRetirada())
+            );
+
+            emailSend.sendEmail(reserva.getAluno().getEmail(), assunto, mensagem);
+
+            reserva.setDataNotificacao(LocalDateTime.now());
+            reservaRepository.save(reserva);
+        } catch (Exception e) {
+            // fica para a proxima execucao de processarReservas
+        }
+    }
+}
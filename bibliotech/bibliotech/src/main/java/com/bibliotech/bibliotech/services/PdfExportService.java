@@ -1,12 +1,15 @@
 package com.bibliotech.bibliotech.services;
 
 import com.bibliotech.bibliotech.dtos.response.AlunoLeiturasDTO;
+import com.bibliotech.bibliotech.dtos.response.AnaliseFrequenciaPeriodoDTO;
+import com.bibliotech.bibliotech.dtos.response.AnaliseFrequenciaResponseDTO;
 
 import com.bibliotech.bibliotech.dtos.response.LivrosMaisLidosDTO;
 import com.bibliotech.bibliotech.dtos.response.RelatorioAcervoDTO;
 import com.bibliotech.bibliotech.dtos.response.TurmaLeiturasDTO;
-import com.bibliotech.bibliotech.models.FrequenciaAlunos;
 import com.bibliotech.bibliotech.models.Ocorrencia;
+import com.bibliotech.bibliotech.models.enums.AgrupamentoFrequencia;
+import com.bibliotech.bibliotech.models.enums.AtividadeFrequencia;
 
 import com.lowagie.text.*;
 import com.lowagie.text.Font;
@@ -16,16 +19,27 @@ import org.springframework.stereotype.Service;
 
 import java.awt.*;
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 
 @Service
 public class PdfExportService {
 
-    public byte[] exportFrequenciaAlunosToPdf(List<FrequenciaAlunos> frequenciaAlunosList) throws DocumentException {
+    private static final int LINHAS_POR_BLOCO = 500;
+
+    // Linhas (nome do aluno, atividade, data) lidas aos poucos do cursor e escritas direto no destino: a tabela vai
+    // para o documento a cada LINHAS_POR_BLOCO linhas, entao so um bloco fica em memoria
+    public void exportFrequenciaAlunosToPdf(Stream<Object[]> frequencias, OutputStream out) throws DocumentException {
         Document document = new Document();
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
 
         PdfWriter writer = PdfWriter.getInstance(document, out);
         document.open();
@@ -36,6 +50,7 @@ public class PdfExportService {
         table.setWidthPercentage(100);
         table.setSpacingBefore(10f);
         table.setSpacingAfter(10f);
+        table.setComplete(false);
 
         //fonte em negrito para o título, tamanho 18
         Font fontBold18 = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
@@ -53,20 +68,28 @@ public class PdfExportService {
         table.addCell(new Phrase("Atividade", FontBold12));
         table.addCell(new Phrase("Data", FontBold12));
 
-        for (FrequenciaAlunos frequenciaAlunos : frequenciaAlunosList) {
-            table.addCell(frequenciaAlunos.getAluno().getNome());
+        DateTimeFormatter formatoData = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        int linhas = 0;
+        for (Iterator<Object[]> it = frequencias.iterator(); it.hasNext(); ) {
+            Object[] frequencia = it.next();
+            table.addCell((String) frequencia[0]);
 
             // Replace underscores with spaces in the atividade field
-            String atividade = frequenciaAlunos.getAtividade().replace("_", " ");
+            String atividade = ((AtividadeFrequencia) frequencia[1]).name().replace("_", " ");
             table.addCell(atividade);
 
-            table.addCell(frequenciaAlunos.getData().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")));
+            table.addCell(((LocalDate) frequencia[2]).format(formatoData));
+
+            if (++linhas % LINHAS_POR_BLOCO == 0) {
+                document.add(table);
+                // o espaco antes vale so para o primeiro bloco
+                table.setSpacingBefore(0f);
+            }
         }
 
+        table.setComplete(true);
         document.add(table);
         document.close();
-
-        return out.toByteArray();
     }
 
     public byte[] exportOcorrenciasToPdf(List<Ocorrencia> ocorrenciasList) throws DocumentException {
@@ -280,6 +303,91 @@ public class PdfExportService {
         return out.toByteArray();
     }
 
+    // Uma tabela por periodo com as atividades e, abaixo, os totais do intervalo por turma e por hora do registro
+    public byte[] exportAnaliseFrequencia(AnaliseFrequenciaResponseDTO analise) throws DocumentException {
+        Document document = new Document();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        document.open();
+
+        addHeader(document, writer);
+
+        AtividadeFrequencia[] atividades = AtividadeFrequencia.values();
+        PdfPTable table = new PdfPTable(atividades.length + 2);
+        table.setWidthPercentage(100);
+        table.setSpacingBefore(10f);
+        table.setSpacingAfter(10f);
+        float[] larguras = new float[atividades.length + 2];
+        Arrays.fill(larguras, 1.2f);
+        larguras[0] = 3;
+        larguras[1] = 1;
+        table.setWidths(larguras);
+
+        //fonte em negrito para o título, tamanho 18
+        Font fontBold18 = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18);
+        DateTimeFormatter formatoData = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+        PdfPCell cell = new PdfPCell(new Phrase("Análise de Frequência (" + analise.getDataInicio().format(formatoData)
+                + " a " + analise.getDataFim().format(formatoData) + ")", fontBold18));
+        cell.setColspan(atividades.length + 2);
+        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        cell.setPadding(8.0f);
+        table.addCell(cell);
+
+        //fonte em negrito para os headers da tabela, tamanho 10 (sete colunas)
+        Font fontBold10 = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
+        Font font10 = FontFactory.getFont(FontFactory.HELVETICA, 10);
+
+        table.addCell(new Phrase(analise.getAgrupamento() == AgrupamentoFrequencia.semana ? "Semana" : "Dia", fontBold10));
+        table.addCell(new Phrase("Total", fontBold10));
+        for (AtividadeFrequencia atividade : atividades) {
+            table.addCell(new Phrase(atividade.name().replace("_", " "), fontBold10));
+        }
+
+        Map<String, Long> porTurma = new LinkedHashMap<>();
+        Map<String, Long> porHora = new TreeMap<>();
+        for (AnaliseFrequenciaPeriodoDTO periodo : analise.getPeriodos()) {
+            String nome = periodo.getInicio().equals(periodo.getFim()) ? periodo.getInicio().format(formatoData)
+                    : periodo.getInicio().format(formatoData) + " a " + periodo.getFim().format(formatoData);
+            table.addCell(new Phrase(nome, font10));
+            table.addCell(new Phrase(String.valueOf(periodo.getTotal()), font10));
+            for (AtividadeFrequencia atividade : atividades) {
+                table.addCell(new Phrase(periodo.getPorAtividade().get(atividade).toString(), font10));
+            }
+            periodo.getPorTurma().forEach((turma, quantidade) -> porTurma.merge(turma, quantidade, Long::sum));
+            periodo.getPorHora().forEach((hora, quantidade) -> porHora.merge(hora, quantidade, Long::sum));
+        }
+
+        table.addCell(new Phrase("Total", fontBold10));
+        table.addCell(new Phrase(String.valueOf(analise.getTotal()), fontBold10));
+        for (AtividadeFrequencia atividade : atividades) {
+            long quantidade = analise.getPeriodos().stream().mapToLong(periodo -> periodo.getPorAtividade().get(atividade)).sum();
+            table.addCell(new Phrase(String.valueOf(quantidade), fontBold10));
+        }
+        document.add(table);
+
+        addTabelaTotais(document, "Turma", porTurma, fontBold10, font10);
+        addTabelaTotais(document, "Horário", porHora, fontBold10, font10);
+
+        document.close();
+
+        return out.toByteArray();
+    }
+
+    private void addTabelaTotais(Document document, String coluna, Map<String, Long> totais, Font fontCabecalho, Font font) throws DocumentException {
+        PdfPTable table = new PdfPTable(2);
+        table.setWidthPercentage(50);
+        table.setSpacingAfter(10f);
+        table.addCell(new Phrase(coluna, fontCabecalho));
+        table.addCell(new Phrase("Frequências", fontCabecalho));
+        for (Map.Entry<String, Long> total : totais.entrySet()) {
+            table.addCell(new Phrase(total.getKey(), font));
+            table.addCell(new Phrase(total.getValue().toString(), font));
+        }
+        document.add(table);
+    }
+
     private void addHeader(Document document, PdfWriter writer) throws DocumentException {
         Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10);
         Font subHeaderFont = FontFactory.getFont(FontFactory.HELVETICA, 8);
@@ -0,0 +1,119 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.models.CheckpointRelay;
+import com.bibliotech.bibliotech.models.EventoDominio;
+import com.bibliotech.bibliotech.repositories.CheckpointRelayRepository;
+import com.bibliotech.bibliotech.repositories.EventoDominioRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Entrega os eventos da outbox aos @EventListener de EventoDominio, na ordem (transacao, id), e avanca o checkpoint
+// na mesma transacao. Entrega pelo menos uma vez: se a aplicacao cair antes do commit do checkpoint, ou um ouvinte
+// falhar, os eventos voltam na proxima rodada, entao os ouvintes precisam tolerar repeticao. Um ouvinte que falha
+// segura a fila a partir do evento dele (e registra a falha no log a cada rodada); os anteriores ja ficam confirmados.
+// Os eventos entregues sao apagados da outbox no horario de bibliotech.outbox.limpeza-cron.
+// Metricas: bibliotech.outbox.publicados, bibliotech.outbox.falhas, bibliotech.outbox.pendentes e
+// bibliotech.outbox.removidos
+@Service
+public class RelayEventosDominioService {
+
+    private static final Logger log = LoggerFactory.getLogger(RelayEventosDominioService.class);
+
+    private static final String NOME = "eventos-dominio";
+    private static final int LOTE_LIMPEZA = 5000;
+
+    @Autowired
+    private EventoDominioRepository eventoDominioRepository;
+    @Autowired
+    private CheckpointRelayRepository checkpointRelayRepository;
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${bibliotech.outbox.tamanho-lote:200}")
+    private int tamanhoLote;
+
+    private volatile long pendentes;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        checkpointRelayRepository.criarSeNaoExiste(NOME);
+        meterRegistry.gauge("bibliotech.outbox.pendentes", this, relay -> relay.pendentes);
+    }
+
+    @Scheduled(fixedDelayString = "${bibliotech.outbox.intervalo-ms:500}", initialDelayString = "${bibliotech.outbox.intervalo-ms:500}")
+    public void publicarPendentes() {
+        int publicados;
+        do {
+            publicados = publicarLote();
+        } while (publicados == tamanhoLote);
+    }
+
+    // Um DELETE por lote, cada um na sua transacao, para nao segurar locks nem gerar WAL de uma vez so
+    @Scheduled(cron = "${bibliotech.outbox.limpeza-cron:0 15 4 * * *}")
+    public int removerEntregues() {
+        int total = 0;
+        int removidos;
+        do {
+            removidos = eventoDominioRepository.removerEntregues(NOME, LOTE_LIMPEZA);
+            total += removidos;
+        } while (removidos == LOTE_LIMPEZA);
+        meterRegistry.counter("bibliotech.outbox.removidos").increment(total);
+        return total;
+    }
+
+    // Transacao de escrita mesmo quando so le: o snapshot precisa ser o do banco principal, nao o da replica
+    private int publicarLote() {
+        Integer publicados = new TransactionTemplate(transactionManager).execute(status -> {
+            if (!checkpointRelayRepository.travar(NOME)) {
+                return 0;
+            }
+            // o agendamento pode rodar antes de iniciar criar o checkpoint
+            CheckpointRelay checkpoint = checkpointRelayRepository.findById(NOME).orElse(null);
+            if (checkpoint == null) {
+                return 0;
+            }
+            List<EventoDominio> eventos = eventoDominioRepository.buscarProntos(
+                    checkpoint.getUltimaTransacao(), checkpoint.getUltimoId(), tamanhoLote);
+
+            int entregues = 0;
+            for (EventoDominio evento : eventos) {
+                try {
+                    applicationEventPublisher.publishEvent(evento);
+                } catch (RuntimeException e) {
+                    log.error("Falha ao entregar o evento {} ({}, transação {}); a fila fica parada nele até a próxima rodada",
+                            evento.getId(), evento.getTipo(), evento.getTransacao(), e);
+                    meterRegistry.counter("bibliotech.outbox.falhas", "tipo", evento.getTipo()).increment();
+                    break;
+                }
+                checkpoint.setUltimaTransacao(evento.getTransacao());
+                checkpoint.setUltimoId(evento.getId());
+                entregues++;
+                meterRegistry.counter("bibliotech.outbox.publicados", "tipo", evento.getTipo()).increment();
+            }
+
+            if (entregues > 0) {
+                checkpoint.setDataAtualizacao(LocalDateTime.now());
+            }
+            pendentes = eventoDominioRepository.contarPendentes(checkpoint.getUltimaTransacao(), checkpoint.getUltimoId());
+            return entregues < eventos.size() ? 0 : entregues;
+        });
+        return publicados != null ? publicados : 0;
+    }
+}
@@ -0,0 +1,235 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.dtos.request.ReservaRequestDTO;
+import com.bibliotech.bibliotech.dtos.response.ReservaResponseDTO;
+import com.bibliotech.bibliotech.exception.NotFoundException;
+import com.bibliotech.bibliotech.exception.ValidationException;
+import com.bibliotech.bibliotech.models.Aluno;
+import com.bibliotech.bibliotech.models.Exemplar;
+import com.bibliotech.bibliotech.models.Livro;
+import com.bibliotech.bibliotech.models.Reserva;
+import com.bibliotech.bibliotech.models.enums.SituacaoAluno;
+import com.bibliotech.bibliotech.models.enums.SituacaoExemplar;
+import com.bibliotech.bibliotech.models.enums.SituacaoReserva;
+import com.bibliotech.bibliotech.repositories.AlunoRepository;
+import com.bibliotech.bibliotech.repositories.ExemplarRepository;
+import com.bibliotech.bibliotech.repositories.LivroRepository;
+import com.bibliotech.bibliotech.repositories.ReservaRepository;
+import com.bibliotech.bibliotech.utils.AposCommit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reservas de livros sem exemplar disponivel. Quando um exemplar volta (devolucao, cancelamento de emprestimo ou de
+// reserva, reserva expirada) ele fica 'reservado' para a primeira reserva da fila, que passa a 'disponivel' e tem
+// bibliotech.reservas.prazo-retirada dias para virar emprestimo; o aviso ao aluno sai depois do commit, em outra thread
+@Service
+public class ReservasService {
+
+    @Autowired
+    private ReservaRepository reservaRepository;
+    @Autowired
+    private AlunoRepository alunoRepository;
+    @Autowired
+    private LivroRepository livroRepository;
+    @Autowired
+    private ExemplarRepository exemplarRepository;
+    @Autowired
+    private NotificacaoReservaService notificacaoReservaService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${bibliotech.reservas.prazo-retirada:3}")
+    private int prazoRetirada;
+
+    @Transactional
+    public ReservaResponseDTO reservar(ReservaRequestDTO requestDTO) {
+        if (requestDTO.getIdAluno() == null) {
+            throw new ValidationException("O ID do aluno não pode ser nulo.");
+        }
+        if (requestDTO.getIdLivro() == null) {
+            throw new ValidationException("O ID do livro não pode ser nulo.");
+        }
+
+        Aluno aluno = alunoRepository.findById(requestDTO.getIdAluno())
+                .orElseThrow(() -> new NotFoundException("Aluno não encontrado"));
+        if (!Boolean.TRUE.equals(aluno.getAtivo())) {
+            throw new ValidationException("O aluno está inativo");
+        }
+        if (aluno.getSituacao() == SituacaoAluno.irregular) {
+            throw new ValidationException("O aluno não está com a situação regular");
+        }
+
+        Livro livro = livroRepository.findById(requestDTO.getIdLivro())
+                .orElseThrow(() -> new NotFoundException("Livro com ID " + requestDTO.getIdLivro() + " não encontrado."));
+        if (!Boolean.TRUE.equals(livro.getAtivo())) {
+            throw new ValidationException("O livro está inativo.");
+        }
+        if (exemplarRepository.findByLivroIdAndSituacaoNotExtraviado(livro.getId()).isEmpty()) {
+            throw new ValidationException("O livro não possui exemplares para reservar.");
+        }
+        if (exemplarRepository.existsByLivroIdAndSituacao(livro.getId(), SituacaoExemplar.disponivel)) {
+            throw new ValidationException("Há exemplar disponível deste livro; realize o empréstimo.");
+        }
+        if (reservaRepository.existsByAlunoIdAndLivroIdAndAbertaTrue(aluno.getId(), livro.getId())) {
+            throw new ValidationException("O aluno já possui uma reserva aberta para este livro.");
+        }
+
+        Reserva reserva = new Reserva();
+        reserva.setAluno(aluno);
+        reserva.setLivro(livro);
+        reserva.setSituacao(SituacaoReserva.aguardando);
+        reserva.setAberta(true);
+        reserva.setDataReserva(LocalDateTime.now());
+
+        try {
+            reservaRepository.saveAndFlush(reserva);
+        } catch (DataIntegrityViolationException e) {
+            // duas reservas simultaneas do mesmo aluno: a unique reserva_aberta_key deixa passar so uma
+            throw new ValidationException("O aluno já possui uma reserva aberta para este livro.");
+        }
+
+        return toDTO(reserva);
+    }
+
+    @Transactional
+    public String cancelarReserva(Integer id) {
+        Reserva reserva = reservaRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Reserva com o ID " + id + " não encontrada."));
+
+        if (!Boolean.TRUE.equals(reserva.getAberta())) {
+            throw new ValidationException("Reserva já encerrada.");
+        }
+
+        Exemplar exemplar = reserva.getExemplar();
+        reserva.setSituacao(SituacaoReserva.cancelada);
+        reserva.setAberta(null);
+        reserva.setDataConclusao(LocalDateTime.now());
+        reservaRepository.save(reserva);
+
+        if (exemplar != null) {
+            liberarExemplar(exemplar);
+        }
+
+        return "Reserva cancelada com sucesso.";
+    }
+
+    @Transactional(readOnly = true)
+    public List<ReservaResponseDTO> listarFilaDoLivro(Integer idLivro) {
+        if (!livroRepository.existsById(idLivro)) {
+            throw new NotFoundException("Livro com ID " + idLivro + " não encontrado.");
+        }
+        // ja vem na ordem da fila: a posicao de cada 'aguardando' e contada aqui, sem uma consulta por reserva
+        List<ReservaResponseDTO> fila = new ArrayList<>();
+        long posicao = 0;
+        for (Reserva reserva : reservaRepository.findByLivroIdAndAbertaTrueOrderByDataReservaAscIdAsc(idLivro)) {
+            fila.add(toDTO(reserva, reserva.getSituacao() == SituacaoReserva.aguardando ? ++posicao : null));
+        }
+        return fila;
+    }
+
+    @Transactional(readOnly = true)
+    public List<ReservaResponseDTO> listarReservasDoAluno(Integer idAluno) {
+        if (!alunoRepository.existsById(idAluno)) {
+            throw new NotFoundException("Aluno não encontrado");
+        }
+        // reservas de livros diferentes: as posicoes vem todas de uma consulta em vez de uma contagem por reserva
+        Map<Integer, Long> naFrente = new HashMap<>();
+        for (Object[] linha : reservaRepository.contarNaFrenteDoAluno(idAluno)) {
+            naFrente.put((Integer) linha[0], (Long) linha[1]);
+        }
+        return reservaRepository.findByAlunoIdAndAbertaTrueOrderByDataReservaAscIdAsc(idAluno).stream()
+                .map(reserva -> {
+                    Long frente = naFrente.get(reserva.getId());
+                    return toDTO(reserva, frente != null ? frente + 1 : null);
+                })
+                .toList();
+    }
+
+    // Chamado por EmprestimosService antes de emprestar um exemplar 'reservado'
+    public void verificarRetirada(Exemplar exemplar, Aluno aluno) {
+        Reserva reserva = reservaRepository.findByExemplarIdAndSituacao(exemplar.getId(), SituacaoReserva.disponivel).orElse(null);
+        if (reserva == null || !reserva.getAluno().getId().equals(aluno.getId())) {
+            throw new ValidationException("O exemplar está reservado para outro aluno");
+        }
+    }
+
+    // Chamado por EmprestimosService depois do emprestimo: encerra as reservas abertas do aluno para o livro e devolve
+    // a fila os exemplares que estavam separados para ele e nao foram os levados
+    public void registrarRetirada(Aluno aluno, Exemplar exemplar) {
+        List<Integer> separados = reservaRepository.atenderReservasDoAluno(aluno.getId(), exemplar.getLivro().getId());
+        for (Integer idExemplar : separados) {
+            if (!idExemplar.equals(exemplar.getId())) {
+                exemplarRepository.findById(idExemplar).ifPresent(this::liberarExemplar);
+            }
+        }
+    }
+
+    // Exemplar que voltou a estante: vai para a proxima reserva do livro ou fica disponivel. Precisa de transacao;
+    // a situacao do exemplar e gravada no flush junto com o resto da operacao que o liberou
+    public void liberarExemplar(Exemplar exemplar) {
+        Integer idReserva = reservaRepository.atribuirProxima(
+                exemplar.getLivro().getId(), exemplar.getId(), LocalDate.now().plusDays(prazoRetirada));
+
+        if (idReserva == null) {
+            exemplar.setSituacao(SituacaoExemplar.disponivel);
+            return;
+        }
+
+        exemplar.setSituacao(SituacaoExemplar.reservado);
+        AposCommit.executar(() -> notificacaoReservaService.notificarExemplarDisponivel(idReserva));
+    }
+
+    // Expira reservas nao retiradas, passa os exemplares delas adiante, entrega exemplares disponiveis a filas que
+    // ficaram sem atendimento (reserva e devolucao simultaneas) e reenvia avisos que falharam
+    @Scheduled(cron = "${bibliotech.reservas.cron:0 */10 * * * *}")
+    public void processarReservas() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<Integer> exemplares = new ArrayList<>(reservaRepository.expirarReservas());
+            exemplares.addAll(reservaRepository.buscarExemplaresDisponiveisComFila());
+            exemplarRepository.findAllById(exemplares).forEach(this::liberarExemplar);
+        });
+
+        // so as antigas: as atribuidas agora ja tem o aviso a caminho
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(5);
+        for (Reserva reserva : reservaRepository.findBySituacaoAndDataNotificacaoIsNullAndDataDisponibilidadeBefore(SituacaoReserva.disponivel, limite)) {
+            notificacaoReservaService.notificarExemplarDisponivel(reserva.getId());
+        }
+    }
+
+    private ReservaResponseDTO toDTO(Reserva reserva) {
+        Long posicao = reserva.getSituacao() == SituacaoReserva.aguardando
+                ? reservaRepository.contarNaFrente(reserva.getLivro().getId(), reserva.getDataReserva(), reserva.getId()) + 1
+                : null;
+        return toDTO(reserva, posicao);
+    }
+
+    private ReservaResponseDTO toDTO(Reserva reserva, Long posicao) {
+        Exemplar exemplar = reserva.getExemplar();
+        return new ReservaResponseDTO(
+                reserva.getId(),
+                reserva.getAluno().getId(),
+                reserva.getAluno().getNome(),
+                reserva.getLivro().getId(),
+                reserva.getLivro().getTitulo(),
+                reserva.getSituacao(),
+                posicao,
+                exemplar != null ? exemplar.getId() : null,
+                exemplar != null ? exemplar.getNumero() : null,
+                reserva.getPrazoRetirada(),
+                reserva.getDataReserva()
+        );
+    }
+}
@@ -1,17 +1,24 @@
 package com.bibliotech.bibliotech.services;
 
+import com.bibliotech.bibliotech.dtos.request.PromocaoTurmaRequestDTO;
 import com.bibliotech.bibliotech.dtos.request.TurmaRequestDTO;
 import com.bibliotech.bibliotech.dtos.request.mappers.TurmaRequestMapper;
+import com.bibliotech.bibliotech.dtos.response.PromocaoTurmaResponseDTO;
+import com.bibliotech.bibliotech.dtos.response.PromocaoTurmasResponseDTO;
 import com.bibliotech.bibliotech.dtos.response.TurmaLeiturasDTO;
 import com.bibliotech.bibliotech.exception.NotFoundException;
 import com.bibliotech.bibliotech.exception.ValidationException;
 import com.bibliotech.bibliotech.models.Turma;
+import com.bibliotech.bibliotech.repositories.AlunoRepository;
 import com.bibliotech.bibliotech.repositories.TurmaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class TurmasService {
@@ -22,9 +29,18 @@ public class TurmasService {
     @Autowired
     private AlunosService alunosService;
 
+    @Autowired
+    private AlunoRepository alunoRepository;
+
     @Autowired
     private TurmaRequestMapper turmaRequestMapper;
 
+    @Autowired
+    private CacheReferenciasService cacheReferenciasService;
+
+    @Autowired
+    private AnaliseFrequenciaService analiseFrequenciaService;
+
 
     public Turma cadastrarTurma(TurmaRequestDTO requestDTO) {
         if (requestDTO.getSerie() == null || requestDTO.getSerie() < 1) {
@@ -84,6 +100,7 @@ public class TurmasService {
         return turmaRepository.save(turmaExistente);
     }
 
+    @Transactional
     public void inativarTurma(Integer id) {
 
         Turma turmaExistente = turmaRepository.findById(id)
@@ -94,6 +111,7 @@ public class TurmasService {
         turmaRepository.save(turmaExistente);
     }
 
+    @Transactional
     public void ativarTurma(Integer id) {
         Turma turmaExistente = turmaRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Turma com ID " + id + " não encontrada."));
@@ -103,6 +121,111 @@ public class TurmasService {
         turmaRepository.save(turmaExistente);
     }
 
+    // Virada de ano: cada promocao move (ou inativa) todos os alunos ativos de uma turma com um UPDATE so.
+    // Tudo roda numa transacao; se qualquer promocao for invalida nada e alterado
+    @Transactional
+    public PromocaoTurmasResponseDTO promoverTurmas(List<PromocaoTurmaRequestDTO> promocoes) {
+        if (promocoes == null || promocoes.isEmpty()) {
+            throw new ValidationException("Informe ao menos uma turma para promover.");
+        }
+
+        Set<Integer> origens = new HashSet<>();
+        Set<Integer> idsTurmas = new HashSet<>();
+        for (PromocaoTurmaRequestDTO promocao : promocoes) {
+            if (promocao.getIdTurmaOrigem() == null) {
+                throw new ValidationException("A turma de origem é obrigatória.");
+            }
+            if (!origens.add(promocao.getIdTurmaOrigem())) {
+                throw new ValidationException("A turma " + promocao.getIdTurmaOrigem() + " aparece mais de uma vez como origem.");
+            }
+            if (promocao.getIdTurmaOrigem().equals(promocao.getIdTurmaDestino())) {
+                throw new ValidationException("A turma de destino deve ser diferente da turma de origem.");
+            }
+            idsTurmas.add(promocao.getIdTurmaOrigem());
+            if (promocao.getIdTurmaDestino() != null) {
+                idsTurmas.add(promocao.getIdTurmaDestino());
+            }
+        }
+
+        Map<Integer, Turma> turmas = turmaRepository.findAllById(idsTurmas).stream()
+                .collect(Collectors.toMap(Turma::getId, Function.identity()));
+        for (Integer idTurma : idsTurmas) {
+            if (!turmas.containsKey(idTurma)) {
+                throw new NotFoundException("Turma com ID " + idTurma + " não encontrada.");
+            }
+        }
+
+        Set<Integer> origensAInativar = new HashSet<>();
+        for (PromocaoTurmaRequestDTO promocao : promocoes) {
+            if (!Boolean.FALSE.equals(promocao.getInativarTurmaOrigem())) {
+                origensAInativar.add(promocao.getIdTurmaOrigem());
+            }
+        }
+        for (PromocaoTurmaRequestDTO promocao : promocoes) {
+            Integer idDestino = promocao.getIdTurmaDestino();
+            if (idDestino != null && !turmas.get(idDestino).isAtivo()) {
+                throw new ValidationException("A turma de destino " + idDestino + " está inativa.");
+            }
+            if (idDestino != null && origensAInativar.contains(idDestino)) {
+                throw new ValidationException("A turma " + idDestino + " não pode receber alunos e ser inativada na mesma promoção.");
+            }
+        }
+
+        PromocaoTurmasResponseDTO resultado = new PromocaoTurmasResponseDTO();
+
+        for (PromocaoTurmaRequestDTO promocao : ordenarPromocoes(promocoes)) {
+            int movidos = 0;
+            int inativados = 0;
+
+            if (promocao.getIdTurmaDestino() == null) {
+                inativados = alunoRepository.atualizarAtivoPorTurma(promocao.getIdTurmaOrigem(), false);
+            } else {
+                movidos = alunoRepository.moverAlunosAtivosDeTurma(promocao.getIdTurmaOrigem(), turmas.get(promocao.getIdTurmaDestino()));
+            }
+
+            resultado.getPromocoes().add(new PromocaoTurmaResponseDTO(promocao.getIdTurmaOrigem(), promocao.getIdTurmaDestino(), movidos, inativados));
+            resultado.setAlunosMovidos(resultado.getAlunosMovidos() + movidos);
+            resultado.setAlunosInativados(resultado.getAlunosInativados() + inativados);
+        }
+
+        if (!origensAInativar.isEmpty()) {
+            resultado.setTurmasInativadas(turmaRepository.atualizarAtivo(origensAInativar, false));
+            cacheReferenciasService.invalidar(Turma.class, origensAInativar);
+        }
+        // a analise de frequencia agrupa pela turma atual do aluno
+        if (resultado.getAlunosMovidos() > 0) {
+            analiseFrequenciaService.invalidar();
+        }
+
+        return resultado;
+    }
+
+    // Uma turma so pode receber alunos depois que os seus proprios alunos ja foram movidos
+    // (ex.: 2A -> 3A antes de 1A -> 2A), senao os alunos subiriam duas series de uma vez
+    private List<PromocaoTurmaRequestDTO> ordenarPromocoes(List<PromocaoTurmaRequestDTO> promocoes) {
+        List<PromocaoTurmaRequestDTO> pendentes = new ArrayList<>(promocoes);
+        List<PromocaoTurmaRequestDTO> ordenadas = new ArrayList<>(promocoes.size());
+
+        while (!pendentes.isEmpty()) {
+            Set<Integer> origensPendentes = pendentes.stream()
+                    .map(PromocaoTurmaRequestDTO::getIdTurmaOrigem)
+                    .collect(Collectors.toSet());
+            List<PromocaoTurmaRequestDTO> prontas = pendentes.stream()
+                    .filter(promocao -> !origensPendentes.contains(promocao.getIdTurmaDestino()))
+                    .toList();
+
+            if (prontas.isEmpty()) {
+                throw new ValidationException("As promoções informadas formam um ciclo entre turmas.");
+            }
+
+            ordenadas.addAll(prontas);
+            pendentes.removeAll(prontas);
+        }
+
+        return ordenadas;
+    }
+
+    @Transactional(readOnly = true)
     public List<TurmaLeiturasDTO> obterTurmasMaisLeitoras(LocalDate dataInicio, LocalDate dataFim, Integer qtdMax) {
         if (dataInicio == null) {
             throw new ValidationException("A data de início é obrigatória.");
@@ -1,6 +1,7 @@
 package com.bibliotech.bibliotech.specifications;
 
 import com.bibliotech.bibliotech.models.Emprestimo;
+import com.bibliotech.bibliotech.models.enums.SituacaoEmprestimo;
 import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
@@ -9,7 +10,7 @@ import java.time.LocalDate;
 @Component
 public class EmprestimoSpecification {
 
-    public Specification<Emprestimo> buildSpecification(String nomeAluno, String tituloLivro, String isbn, String situacao,
+    public Specification<Emprestimo> buildSpecification(String nomeAluno, String tituloLivro, String isbn, SituacaoEmprestimo situacao,
                                                         String nomeRealizadoPor, LocalDate dataEmprestimo, String nomeConcluidoPor,
                                                         LocalDate dataPrazo, LocalDate dataConclusao) {
         return (root, query, builder) -> {
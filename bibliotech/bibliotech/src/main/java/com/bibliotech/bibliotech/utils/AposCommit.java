@@ -0,0 +1,48 @@
+package com.bibliotech.bibliotech.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Adia uma atualizacao de estrutura em memoria para depois do commit da transacao corrente
+// (ou executa na hora, se nao houver transacao), para que um rollback nao deixe a memoria divergente do banco
+public class AposCommit {
+
+    private AposCommit() {}
+
+    public static void executar(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+
+    // Como executar, mas registra a acao uma vez so por transacao para a mesma chave
+    // (ex.: invalidar um cache a cada exemplar gravado numa importacao de milhares)
+    public static void executarUmaVez(Object chave, Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(chave)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(chave, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(chave);
+            }
+        });
+    }
+}
@@ -0,0 +1,52 @@
+package com.bibliotech.bibliotech.utils;
+
+import com.bibliotech.bibliotech.exception.ValidationException;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Regras comuns aos arquivos de importacao (acervo, alunos): cabecalho obrigatorio, colunas sem diferenciar maiusculas
+public class CsvImportacao {
+
+    private CsvImportacao() {}
+
+    public static CSVFormat formato(char separador) {
+        return CSVFormat.DEFAULT.builder()
+                .setDelimiter(separador)
+                .setHeader()
+                .setSkipHeaderRecord(true)
+                .setIgnoreHeaderCase(true)
+                .setIgnoreEmptyLines(true)
+                .setTrim(true)
+                .build();
+    }
+
+    public static void validarCabecalho(List<String> cabecalho, List<String> colunasObrigatorias) {
+        Set<String> colunas = cabecalho.stream().map(String::toLowerCase).collect(Collectors.toSet());
+        List<String> ausentes = colunasObrigatorias.stream()
+                .filter(coluna -> !colunas.contains(coluna.toLowerCase()))
+                .toList();
+
+        if (!ausentes.isEmpty()) {
+            throw new ValidationException("Colunas obrigatórias ausentes no arquivo: " + String.join(", ", ausentes));
+        }
+    }
+
+    public static String campo(CSVRecord registro, String nome) {
+        return registro.isSet(nome) ? registro.get(nome).trim() : "";
+    }
+
+    public static Integer lerInteiro(String valor, String coluna) {
+        if (valor.isEmpty()) {
+            throw new ValidationException("A coluna " + coluna + " é obrigatória.");
+        }
+        try {
+            return Integer.valueOf(valor);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Valor inválido na coluna " + coluna + ": " + valor);
+        }
+    }
+}
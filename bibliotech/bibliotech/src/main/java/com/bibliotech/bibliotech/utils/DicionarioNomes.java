@@ -0,0 +1,42 @@
+package com.bibliotech.bibliotech.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Nome normalizado -> (id, nome como foi cadastrado) de autores ou generos, para resolver nomes sem ir ao banco.
+// Inclusoes e remocoes feitas dentro de transacoes passam por AposCommit, para que um rollback nao deixe id inexistente
+// no dicionario nem tire dele um nome que continua no banco
+public class DicionarioNomes {
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entrada {
+        private final Integer id;
+        private final String nome;
+    }
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    public Entrada buscar(String nomeNormalizado) {
+        return entradas.get(nomeNormalizado);
+    }
+
+    public void carregar(String nomeNormalizado, Integer id, String nome) {
+        entradas.put(nomeNormalizado, new Entrada(id, nome));
+    }
+
+    public void registrarAposCommit(String nomeNormalizado, Integer id, String nome) {
+        AposCommit.executar(() -> carregar(nomeNormalizado, id, nome));
+    }
+
+    public void remover(String nomeNormalizado) {
+        entradas.remove(nomeNormalizado);
+    }
+
+    public int tamanho() {
+        return entradas.size();
+    }
+}
@@ -0,0 +1,364 @@
+package com.bibliotech.bibliotech.utils;
+
+import com.bibliotech.bibliotech.models.enums.SituacaoExemplar;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Indice da leitura de codigos de barras no balcao: ISBN -> livro e (livro, numero) -> exemplar, com situacao,
+// estante-prateleira e secao de cada exemplar. Tudo em vetores de int (um exemplar e uma posicao em cada vetor) e em
+// MapaLongInt, sem entidades. Os exemplares de um livro formam uma lista encadeada pelos proprios vetores.
+// ISBNs so de digitos (ou 9 digitos + X) viram uma chave long; o que fugir disso vai para um HashMap a parte
+public class IndiceExemplares {
+
+    private static final int SEM_POSICAO = -1;
+    private static final SituacaoExemplar[] SITUACOES = SituacaoExemplar.values();
+
+    @Getter
+    @AllArgsConstructor
+    public static class ExemplarIndexado {
+        private final int idExemplar;
+        private final int numero;
+        private final SituacaoExemplar situacao;
+        // 0 = sem estante-prateleira / secao
+        private final int idEstanteprateleira;
+        private final int idSecao;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class LivroIndexado {
+        private final int idLivro;
+        private final String isbn;
+        private final String titulo;
+        private final List<ExemplarIndexado> exemplares;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Estatisticas {
+        private final int livros;
+        private final int exemplares;
+        private final long bytesEstimados;
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // livros
+    private final MapaLongInt posicaoDoLivro;
+    private final MapaLongInt livroPorIsbn;
+    private final Map<String, Integer> livroPorIsbnTexto = new HashMap<>();
+    private int[] idLivro;
+    private String[] isbn;
+    private String[] titulo;
+    private int[] primeiroExemplar;
+    private int qtdLivros;
+
+    // exemplares
+    private final MapaLongInt posicaoDoExemplar;
+    private final MapaLongInt exemplarPorEtiqueta;
+    private int[] idExemplar;
+    private int[] livroDoExemplar;
+    private int[] numero;
+    private int[] estanteprateleira;
+    private int[] secao;
+    // ordinal de SituacaoExemplar
+    private byte[] situacao;
+    private int[] proximoExemplar;
+    private int qtdExemplares;
+
+    public IndiceExemplares(int livrosPrevistos, int exemplaresPrevistos) {
+        int livros = Math.max(16, livrosPrevistos);
+        int exemplares = Math.max(16, exemplaresPrevistos);
+
+        posicaoDoLivro = new MapaLongInt(livros);
+        livroPorIsbn = new MapaLongInt(livros);
+        idLivro = new int[livros];
+        isbn = new String[livros];
+        titulo = new String[livros];
+        primeiroExemplar = new int[livros];
+
+        posicaoDoExemplar = new MapaLongInt(exemplares);
+        exemplarPorEtiqueta = new MapaLongInt(exemplares);
+        idExemplar = new int[exemplares];
+        livroDoExemplar = new int[exemplares];
+        numero = new int[exemplares];
+        estanteprateleira = new int[exemplares];
+        secao = new int[exemplares];
+        situacao = new byte[exemplares];
+        proximoExemplar = new int[exemplares];
+    }
+
+    public void gravarLivro(int id, String isbnLivro, String tituloLivro) {
+        lock.writeLock().lock();
+        try {
+            int posicao = posicaoDoLivro.buscar(id);
+            if (posicao == MapaLongInt.AUSENTE) {
+                posicao = novoLivro(id);
+            } else if (!Objects.equals(isbn[posicao], isbnLivro)) {
+                removerIsbn(isbn[posicao], id);
+            }
+            isbn[posicao] = isbnLivro;
+            titulo[posicao] = tituloLivro;
+            indexarIsbn(isbnLivro, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // O livro precisa ter sido gravado antes
+    public void gravarExemplar(int id, int idDoLivro, int numeroExemplar, SituacaoExemplar situacaoExemplar, int idEstanteprateleira, int idSecao) {
+        lock.writeLock().lock();
+        try {
+            int posicaoLivro = posicaoDoLivro.buscar(idDoLivro);
+            if (posicaoLivro == MapaLongInt.AUSENTE) {
+                throw new IllegalStateException("Livro " + idDoLivro + " fora do indice");
+            }
+
+            int posicao = posicaoDoExemplar.buscar(id);
+            if (posicao == MapaLongInt.AUSENTE) {
+                posicao = novoExemplar(id);
+                encadear(posicao, posicaoLivro);
+            } else {
+                exemplarPorEtiqueta.remover(etiqueta(livroDoExemplar[posicao], numero[posicao]));
+                if (livroDoExemplar[posicao] != idDoLivro) {
+                    desencadear(posicao, posicaoDoLivro.buscar(livroDoExemplar[posicao]));
+                    encadear(posicao, posicaoLivro);
+                }
+            }
+
+            livroDoExemplar[posicao] = idDoLivro;
+            numero[posicao] = numeroExemplar;
+            situacao[posicao] = (byte) situacaoExemplar.ordinal();
+            estanteprateleira[posicao] = idEstanteprateleira;
+            secao[posicao] = idSecao;
+            exemplarPorEtiqueta.gravar(etiqueta(idDoLivro, numeroExemplar), id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void realocarExemplares(int[] ids, int idEstanteprateleira, int idSecao) {
+        lock.writeLock().lock();
+        try {
+            for (int id : ids) {
+                int posicao = posicaoDoExemplar.buscar(id);
+                if (posicao != MapaLongInt.AUSENTE) {
+                    estanteprateleira[posicao] = idEstanteprateleira;
+                    secao[posicao] = idSecao;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A posicao fica vaga (os vetores nao encolhem); exemplares quase nunca sao apagados
+    public void removerExemplar(int id) {
+        lock.writeLock().lock();
+        try {
+            int posicao = posicaoDoExemplar.remover(id);
+            if (posicao != MapaLongInt.AUSENTE) {
+                exemplarPorEtiqueta.remover(etiqueta(livroDoExemplar[posicao], numero[posicao]));
+                desencadear(posicao, posicaoDoLivro.buscar(livroDoExemplar[posicao]));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<LivroIndexado> buscarPorIsbn(String isbnLido) {
+        lock.readLock().lock();
+        try {
+            int posicaoLivro = posicaoPorIsbn(isbnLido);
+            if (posicaoLivro == SEM_POSICAO) {
+                return Optional.empty();
+            }
+
+            List<ExemplarIndexado> exemplares = new ArrayList<>();
+            for (int posicao = primeiroExemplar[posicaoLivro]; posicao != SEM_POSICAO; posicao = proximoExemplar[posicao]) {
+                exemplares.add(exemplarEm(posicao));
+            }
+            exemplares.sort(Comparator.comparingInt(ExemplarIndexado::getNumero));
+            return Optional.of(livroEm(posicaoLivro, exemplares));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<LivroIndexado> buscarPorEtiqueta(String isbnLido, int numeroExemplar) {
+        lock.readLock().lock();
+        try {
+            int posicaoLivro = posicaoPorIsbn(isbnLido);
+            if (posicaoLivro == SEM_POSICAO) {
+                return Optional.empty();
+            }
+            int id = exemplarPorEtiqueta.buscar(etiqueta(idLivro[posicaoLivro], numeroExemplar));
+            if (id == MapaLongInt.AUSENTE) {
+                return Optional.empty();
+            }
+            return Optional.of(livroEm(posicaoLivro, List.of(exemplarEm(posicaoDoExemplar.buscar(id)))));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Estimativa para JVM 64 bits com referencias comprimidas; titulos e ISBNs contados como strings LATIN1
+    public Estatisticas estatisticas() {
+        lock.readLock().lock();
+        try {
+            long bytes = posicaoDoLivro.bytesEstimados() + livroPorIsbn.bytesEstimados()
+                    + posicaoDoExemplar.bytesEstimados() + exemplarPorEtiqueta.bytesEstimados()
+                    + 16L + 4L * idLivro.length * 2 + 16L + 4L * isbn.length * 2
+                    + 16L + 4L * idExemplar.length * 6 + 16L + situacao.length;
+            for (int posicao = 0; posicao < qtdLivros; posicao++) {
+                bytes += tamanhoString(isbn[posicao]) + tamanhoString(titulo[posicao]);
+            }
+            return new Estatisticas(posicaoDoLivro.tamanho(), posicaoDoExemplar.tamanho(), bytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ISBN como chave long: o tamanho fica nos bits altos para "0123" e "123" nao colidirem; o X final de um ISBN-10
+    // liga o bit 47. Hifens e espacos sao ignorados. Devolve -1 se o texto nao for um ISBN numerico
+    static long chaveIsbn(String isbnTexto) {
+        if (isbnTexto == null) {
+            return -1;
+        }
+        long valor = 0;
+        int digitos = 0;
+        boolean terminaEmX = false;
+        for (int i = 0; i < isbnTexto.length(); i++) {
+            char c = isbnTexto.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            if (terminaEmX) {
+                return -1;
+            }
+            if (c >= '0' && c <= '9') {
+                valor = valor * 10 + (c - '0');
+                digitos++;
+            } else if ((c == 'X' || c == 'x') && digitos == 9) {
+                terminaEmX = true;
+                digitos++;
+            } else {
+                return -1;
+            }
+            if (digitos > 13) {
+                return -1;
+            }
+        }
+        if (digitos == 0) {
+            return -1;
+        }
+        return ((long) digitos << 48) | (terminaEmX ? 1L << 47 : 0) | valor;
+    }
+
+    private static String textoIsbn(String isbnTexto) {
+        return isbnTexto.replace("-", "").replace(" ", "").toUpperCase();
+    }
+
+    private int posicaoPorIsbn(String isbnLido) {
+        long chave = chaveIsbn(isbnLido);
+        int id = chave >= 0 ? livroPorIsbn.buscar(chave)
+                : livroPorIsbnTexto.getOrDefault(textoIsbn(isbnLido), MapaLongInt.AUSENTE);
+        return id == MapaLongInt.AUSENTE ? SEM_POSICAO : posicaoDoLivro.buscar(id);
+    }
+
+    private void indexarIsbn(String isbnLivro, int id) {
+        if (isbnLivro == null) {
+            return;
+        }
+        long chave = chaveIsbn(isbnLivro);
+        if (chave >= 0) {
+            livroPorIsbn.gravar(chave, id);
+        } else {
+            livroPorIsbnTexto.put(textoIsbn(isbnLivro), id);
+        }
+    }
+
+    private void removerIsbn(String isbnLivro, int id) {
+        if (isbnLivro == null) {
+            return;
+        }
+        long chave = chaveIsbn(isbnLivro);
+        if (chave >= 0) {
+            if (livroPorIsbn.buscar(chave) == id) {
+                livroPorIsbn.remover(chave);
+            }
+        } else {
+            livroPorIsbnTexto.remove(textoIsbn(isbnLivro), id);
+        }
+    }
+
+    private int novoLivro(int id) {
+        if (qtdLivros == idLivro.length) {
+            int capacidade = idLivro.length * 2;
+            idLivro = Arrays.copyOf(idLivro, capacidade);
+            isbn = Arrays.copyOf(isbn, capacidade);
+            titulo = Arrays.copyOf(titulo, capacidade);
+            primeiroExemplar = Arrays.copyOf(primeiroExemplar, capacidade);
+        }
+        int posicao = qtdLivros++;
+        idLivro[posicao] = id;
+        primeiroExemplar[posicao] = SEM_POSICAO;
+        posicaoDoLivro.gravar(id, posicao);
+        return posicao;
+    }
+
+    private int novoExemplar(int id) {
+        if (qtdExemplares == idExemplar.length) {
+            int capacidade = idExemplar.length * 2;
+            idExemplar = Arrays.copyOf(idExemplar, capacidade);
+            livroDoExemplar = Arrays.copyOf(livroDoExemplar, capacidade);
+            numero = Arrays.copyOf(numero, capacidade);
+            estanteprateleira = Arrays.copyOf(estanteprateleira, capacidade);
+            secao = Arrays.copyOf(secao, capacidade);
+            situacao = Arrays.copyOf(situacao, capacidade);
+            proximoExemplar = Arrays.copyOf(proximoExemplar, capacidade);
+        }
+        int posicao = qtdExemplares++;
+        idExemplar[posicao] = id;
+        posicaoDoExemplar.gravar(id, posicao);
+        return posicao;
+    }
+
+    private void encadear(int posicao, int posicaoLivro) {
+        proximoExemplar[posicao] = primeiroExemplar[posicaoLivro];
+        primeiroExemplar[posicaoLivro] = posicao;
+    }
+
+    private void desencadear(int posicao, int posicaoLivro) {
+        if (primeiroExemplar[posicaoLivro] == posicao) {
+            primeiroExemplar[posicaoLivro] = proximoExemplar[posicao];
+            return;
+        }
+        for (int anterior = primeiroExemplar[posicaoLivro]; anterior != SEM_POSICAO; anterior = proximoExemplar[anterior]) {
+            if (proximoExemplar[anterior] == posicao) {
+                proximoExemplar[anterior] = proximoExemplar[posicao];
+                return;
+            }
+        }
+    }
+
+    private ExemplarIndexado exemplarEm(int posicao) {
+        return new ExemplarIndexado(idExemplar[posicao], numero[posicao], SITUACOES[situacao[posicao]],
+                estanteprateleira[posicao], secao[posicao]);
+    }
+
+    private LivroIndexado livroEm(int posicao, List<ExemplarIndexado> exemplares) {
+        return new LivroIndexado(idLivro[posicao], isbn[posicao], titulo[posicao], exemplares);
+    }
+
+    private static long etiqueta(int idDoLivro, int numeroExemplar) {
+        return ((long) idDoLivro << 32) | (numeroExemplar & 0xFFFFFFFFL);
+    }
+
+    private static long tamanhoString(String valor) {
+        return valor == null ? 0 : 24 + ((16L + valor.length() + 7) & ~7L);
+    }
+}
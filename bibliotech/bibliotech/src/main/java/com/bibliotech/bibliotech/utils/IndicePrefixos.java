@@ -0,0 +1,313 @@
+package com.bibliotech.bibliotech.utils;
+
+import com.bibliotech.bibliotech.dtos.response.AutocompletarResponseDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Indice de autocompletar de autores ou generos. Cada nome entra com o nome normalizado e com cada palavra a partir
+// da segunda ("isaac asimov" e "asimov") num vetor ordenado; o prefixo vira uma faixa do vetor por busca binaria e uma
+// arvore de segmentos com o maior numero de livros de cada trecho tira os k primeiros da faixa sem percorre-la inteira.
+// As buscas nao travam: leem um retrato imutavel do vetor e da arvore, e toda alteracao publica um retrato novo.
+// Nomes novos ficam numa lista curta de pendentes, lida por varredura, ate que ela encha e seja intercalada ao vetor;
+// a contagem de livros copia so a arvore, uma vez por chamada
+public class IndicePrefixos {
+
+    private static final int LIMITE_PENDENTES = 256;
+
+    private static class Item {
+        private final Integer id;
+        private final String nome;
+        private final AtomicLong qtdLivros;
+        // posicoes das chaves do item no vetor do retrato atual; so mexidas com o lock do indice
+        private int[] posicoes = new int[0];
+
+        private Item(Integer id, String nome, long qtdLivros) {
+            this.id = id;
+            this.nome = nome;
+            this.qtdLivros = new AtomicLong(qtdLivros);
+        }
+    }
+
+    private static class Retrato {
+        private final String[] chaves;
+        private final Item[] itens;
+        // arvore[1] e a raiz; as folhas (arvore[n + i]) guardam a quantidade de livros de itens[i]
+        private final long[] arvore;
+        private final List<Map.Entry<String, Item>> pendentes;
+
+        private Retrato(String[] chaves, Item[] itens, long[] arvore, List<Map.Entry<String, Item>> pendentes) {
+            this.chaves = chaves;
+            this.itens = itens;
+            this.arvore = arvore;
+            this.pendentes = pendentes;
+        }
+    }
+
+    // Quantidade lida uma vez por busca, para o ranking nao mudar enquanto a lista e ordenada
+    private static class Candidato {
+        private final Item item;
+        private final long qtdLivros;
+
+        private Candidato(Item item, long qtdLivros) {
+            this.item = item;
+            this.qtdLivros = qtdLivros;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Estatisticas {
+        private final int itens;
+        private final int chaves;
+        private final int pendentes;
+        private final long bytesEstimados;
+    }
+
+    private static final Comparator<Candidato> RANKING = Comparator
+            .comparingLong((Candidato candidato) -> candidato.qtdLivros).reversed()
+            .thenComparing(candidato -> candidato.item.nome, String.CASE_INSENSITIVE_ORDER);
+
+    private final Map<Integer, Item> itensPorId = new ConcurrentHashMap<>();
+    private volatile Retrato retrato = new Retrato(new String[0], new Item[0], new long[0], List.of());
+
+    public synchronized void recarregar(List<AutocompletarResponseDTO> registros) {
+        itensPorId.clear();
+        List<Map.Entry<String, Item>> entradas = new ArrayList<>();
+        for (AutocompletarResponseDTO registro : registros) {
+            Item item = new Item(registro.getId(), registro.getNome(), registro.getQtdLivros());
+            itensPorId.put(item.id, item);
+            for (String chave : chaves(registro.getNome())) {
+                entradas.add(Map.entry(chave, item));
+            }
+        }
+        retrato = montar(new String[0], new Item[0], entradas);
+    }
+
+    public synchronized void adicionar(Integer id, String nome, long qtdLivros) {
+        if (itensPorId.containsKey(id)) {
+            return;
+        }
+        Item item = new Item(id, nome, qtdLivros);
+        itensPorId.put(id, item);
+
+        Retrato atual = retrato;
+        List<Map.Entry<String, Item>> pendentes = new ArrayList<>(atual.pendentes);
+        for (String chave : chaves(nome)) {
+            pendentes.add(Map.entry(chave, item));
+        }
+
+        if (pendentes.size() > LIMITE_PENDENTES) {
+            retrato = montar(atual.chaves, atual.itens, pendentes);
+        } else {
+            retrato = new Retrato(atual.chaves, atual.itens, atual.arvore, List.copyOf(pendentes));
+        }
+    }
+
+    public synchronized void remover(Collection<Integer> ids) {
+        Set<Integer> removidos = new HashSet<>();
+        for (Integer id : ids) {
+            if (itensPorId.remove(id) != null) {
+                removidos.add(id);
+            }
+        }
+        if (removidos.isEmpty()) {
+            return;
+        }
+
+        Retrato atual = retrato;
+        List<Map.Entry<String, Item>> mantidas = new ArrayList<>(atual.chaves.length);
+        for (int i = 0; i < atual.chaves.length; i++) {
+            if (!removidos.contains(atual.itens[i].id)) {
+                mantidas.add(Map.entry(atual.chaves[i], atual.itens[i]));
+            }
+        }
+        for (Map.Entry<String, Item> pendente : atual.pendentes) {
+            if (!removidos.contains(pendente.getValue().id)) {
+                mantidas.add(pendente);
+            }
+        }
+        retrato = montar(new String[0], new Item[0], mantidas);
+    }
+
+    // A arvore publicada nunca e alterada: uma busca em andamento veria um no interno desatualizado e poderia deixar
+    // de fora um item que esta entre os k primeiros
+    public synchronized void ajustarQuantidade(Collection<Integer> ids, long delta) {
+        Retrato atual = retrato;
+        long[] arvore = null;
+        int folhas = atual.arvore.length / 2;
+        for (Integer id : ids) {
+            Item item = itensPorId.get(id);
+            if (item == null) {
+                continue;
+            }
+            long qtdLivros = item.qtdLivros.addAndGet(delta);
+            for (int posicao : item.posicoes) {
+                if (arvore == null) {
+                    arvore = atual.arvore.clone();
+                }
+                int no = folhas + posicao;
+                arvore[no] = qtdLivros;
+                for (no >>= 1; no >= 1; no >>= 1) {
+                    arvore[no] = Math.max(arvore[2 * no], arvore[2 * no + 1]);
+                }
+            }
+        }
+        if (arvore != null) {
+            retrato = new Retrato(atual.chaves, atual.itens, arvore, atual.pendentes);
+        }
+    }
+
+    public List<AutocompletarResponseDTO> buscar(String prefixo, int k) {
+        String prefixoNormalizado = NormalizarNome.normalizar(prefixo);
+        Retrato atual = retrato;
+
+        Set<Integer> vistos = new HashSet<>();
+        List<Candidato> candidatos = new ArrayList<>(k + atual.pendentes.size());
+
+        int inicio = posicaoDe(atual.chaves, prefixoNormalizado);
+        int fim = posicaoDe(atual.chaves, prefixoNormalizado + Character.MAX_VALUE);
+        melhoresDaFaixa(atual, inicio, fim, k, vistos, candidatos);
+
+        for (Map.Entry<String, Item> pendente : atual.pendentes) {
+            Item item = pendente.getValue();
+            if (pendente.getKey().startsWith(prefixoNormalizado) && vistos.add(item.id)) {
+                candidatos.add(new Candidato(item, item.qtdLivros.get()));
+            }
+        }
+
+        candidatos.sort(RANKING);
+
+        List<AutocompletarResponseDTO> resultado = new ArrayList<>(Math.min(k, candidatos.size()));
+        for (Candidato candidato : candidatos.subList(0, Math.min(k, candidatos.size()))) {
+            resultado.add(new AutocompletarResponseDTO(candidato.item.id, candidato.item.nome, candidato.qtdLivros));
+        }
+        return resultado;
+    }
+
+    // Estimativa para JVM 64 bits com referencias comprimidas e strings LATIN1 (nomes normalizados nao tem acento)
+    public Estatisticas estatisticas() {
+        Retrato atual = retrato;
+        long bytes = tamanhoVetor(atual.chaves.length, 4) * 2 + tamanhoVetor(atual.arvore.length, 8);
+        for (String chave : atual.chaves) {
+            bytes += tamanhoString(chave);
+        }
+        for (Map.Entry<String, Item> pendente : atual.pendentes) {
+            bytes += 24 + tamanhoString(pendente.getKey());
+        }
+        for (Item item : itensPorId.values()) {
+            // Item + Integer + AtomicLong + nome + posicoes + no do ConcurrentHashMap
+            bytes += 24 + 16 + 24 + tamanhoString(item.nome) + tamanhoVetor(item.posicoes.length, 4) + 32;
+        }
+        return new Estatisticas(itensPorId.size(), atual.chaves.length, atual.pendentes.size(), bytes);
+    }
+
+    // Busca pelo melhor primeiro: comeca pelos nos da arvore que cobrem [inicio, fim) e sempre abre o de maior
+    // quantidade, entao as folhas saem em ordem decrescente e basta parar no k-esimo item distinto
+    private static void melhoresDaFaixa(Retrato retrato, int inicio, int fim, int k, Set<Integer> vistos, List<Candidato> candidatos) {
+        if (inicio >= fim) {
+            return;
+        }
+        long[] arvore = retrato.arvore;
+        int folhas = arvore.length / 2;
+
+        PriorityQueue<long[]> fila = new PriorityQueue<>((a, b) -> Long.compare(b[0], a[0]));
+        for (int esquerda = inicio + folhas, direita = fim + folhas; esquerda < direita; esquerda >>= 1, direita >>= 1) {
+            if ((esquerda & 1) == 1) {
+                fila.add(new long[]{arvore[esquerda], esquerda++});
+            }
+            if ((direita & 1) == 1) {
+                fila.add(new long[]{arvore[--direita], direita});
+            }
+        }
+
+        int encontrados = 0;
+        while (!fila.isEmpty() && encontrados < k) {
+            int no = (int) fila.poll()[1];
+            if (no >= folhas) {
+                Item item = retrato.itens[no - folhas];
+                if (vistos.add(item.id)) {
+                    candidatos.add(new Candidato(item, item.qtdLivros.get()));
+                    encontrados++;
+                }
+            } else {
+                fila.add(new long[]{arvore[2 * no], 2 * no});
+                fila.add(new long[]{arvore[2 * no + 1], 2 * no + 1});
+            }
+        }
+    }
+
+    private static List<String> chaves(String nome) {
+        String normalizado = NormalizarNome.normalizar(nome);
+        List<String> chaves = new ArrayList<>();
+        chaves.add(normalizado);
+        for (int i = normalizado.indexOf(' '); i >= 0; i = normalizado.indexOf(' ', i + 1)) {
+            chaves.add(normalizado.substring(i + 1));
+        }
+        return chaves;
+    }
+
+    // Intercala as entradas novas com o vetor ordenado atual e refaz a arvore e as posicoes de cada item
+    private static Retrato montar(String[] chavesAtuais, Item[] itensAtuais, List<Map.Entry<String, Item>> entradas) {
+        entradas.sort(Map.Entry.comparingByKey());
+
+        int total = chavesAtuais.length + entradas.size();
+        String[] chaves = new String[total];
+        Item[] itens = new Item[total];
+
+        int i = 0, j = 0, destino = 0;
+        while (i < chavesAtuais.length || j < entradas.size()) {
+            if (j == entradas.size() || (i < chavesAtuais.length && chavesAtuais[i].compareTo(entradas.get(j).getKey()) <= 0)) {
+                chaves[destino] = chavesAtuais[i];
+                itens[destino++] = itensAtuais[i++];
+            } else {
+                chaves[destino] = entradas.get(j).getKey();
+                itens[destino++] = entradas.get(j++).getValue();
+            }
+        }
+
+        long[] arvore = new long[2 * total];
+        for (int posicao = 0; posicao < total; posicao++) {
+            itens[posicao].posicoes = new int[0];
+        }
+        for (int posicao = 0; posicao < total; posicao++) {
+            Item item = itens[posicao];
+            item.posicoes = Arrays.copyOf(item.posicoes, item.posicoes.length + 1);
+            item.posicoes[item.posicoes.length - 1] = posicao;
+            arvore[total + posicao] = item.qtdLivros.get();
+        }
+        for (int no = total - 1; no >= 1; no--) {
+            arvore[no] = Math.max(arvore[2 * no], arvore[2 * no + 1]);
+        }
+
+        return new Retrato(chaves, itens, arvore, List.of());
+    }
+
+    private static int posicaoDe(String[] chaves, String chave) {
+        int inicio = 0, fim = chaves.length;
+        while (inicio < fim) {
+            int meio = (inicio + fim) >>> 1;
+            if (chaves[meio].compareTo(chave) < 0) {
+                inicio = meio + 1;
+            } else {
+                fim = meio;
+            }
+        }
+        return inicio;
+    }
+
+    private static long tamanhoVetor(int posicoes, int bytesPorPosicao) {
+        return alinhar(16 + (long) bytesPorPosicao * posicoes);
+    }
+
+    private static long tamanhoString(String valor) {
+        return 24 + alinhar(16 + (long) valor.length());
+    }
+
+    private static long alinhar(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
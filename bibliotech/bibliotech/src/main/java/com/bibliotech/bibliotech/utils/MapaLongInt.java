@@ -0,0 +1,123 @@
+package com.bibliotech.bibliotech.utils;
+
+import java.util.Arrays;
+
+// Mapa long -> int de enderecamento aberto (sondagem linear) sobre dois vetores primitivos, sem Long/Integer por
+// entrada. Chaves precisam ser >= 0 (Long.MIN_VALUE marca posicao vazia). Nao e thread-safe
+public class MapaLongInt {
+
+    public static final int AUSENTE = -1;
+
+    private static final long VAZIO = Long.MIN_VALUE;
+
+    private long[] chaves;
+    private int[] valores;
+    private int tamanho;
+    private int mascara;
+
+    public MapaLongInt(int capacidadeInicial) {
+        int capacidade = Integer.highestOneBit(Math.max(16, capacidadeInicial * 2 - 1)) << 1;
+        alocar(capacidade);
+    }
+
+    public int buscar(long chave) {
+        for (int i = posicao(chave); ; i = (i + 1) & mascara) {
+            long atual = chaves[i];
+            if (atual == chave) {
+                return valores[i];
+            }
+            if (atual == VAZIO) {
+                return AUSENTE;
+            }
+        }
+    }
+
+    public void gravar(long chave, int valor) {
+        if (chave < 0) {
+            throw new IllegalArgumentException("Chave negativa: " + chave);
+        }
+        for (int i = posicao(chave); ; i = (i + 1) & mascara) {
+            long atual = chaves[i];
+            if (atual == chave) {
+                valores[i] = valor;
+                return;
+            }
+            if (atual == VAZIO) {
+                chaves[i] = chave;
+                valores[i] = valor;
+                // fator de carga de no maximo 1/2: sondagens curtas mesmo com ids sequenciais
+                if (++tamanho * 2 > chaves.length) {
+                    redimensionar(chaves.length * 2);
+                }
+                return;
+            }
+        }
+    }
+
+    public int remover(long chave) {
+        for (int i = posicao(chave); ; i = (i + 1) & mascara) {
+            long atual = chaves[i];
+            if (atual == VAZIO) {
+                return AUSENTE;
+            }
+            if (atual == chave) {
+                int valor = valores[i];
+                compactarApos(i);
+                tamanho--;
+                return valor;
+            }
+        }
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public long bytesEstimados() {
+        return 16L + 8L * chaves.length + 16L + 4L * valores.length;
+    }
+
+    // Remocao sem marcador: as entradas seguintes do mesmo agrupamento voltam para a posicao livre
+    // quando isso nao as deixa antes da sua posicao ideal
+    private void compactarApos(int livre) {
+        int i = livre;
+        while (true) {
+            i = (i + 1) & mascara;
+            long chave = chaves[i];
+            if (chave == VAZIO) {
+                break;
+            }
+            int ideal = posicao(chave);
+            if (((i - ideal) & mascara) >= ((i - livre) & mascara)) {
+                chaves[livre] = chave;
+                valores[livre] = valores[i];
+                livre = i;
+            }
+        }
+        chaves[livre] = VAZIO;
+    }
+
+    private void redimensionar(int capacidade) {
+        long[] chavesAntigas = chaves;
+        int[] valoresAntigos = valores;
+        alocar(capacidade);
+        tamanho = 0;
+        for (int i = 0; i < chavesAntigas.length; i++) {
+            if (chavesAntigas[i] != VAZIO) {
+                gravar(chavesAntigas[i], valoresAntigos[i]);
+            }
+        }
+    }
+
+    private void alocar(int capacidade) {
+        chaves = new long[capacidade];
+        Arrays.fill(chaves, VAZIO);
+        valores = new int[capacidade];
+        mascara = capacidade - 1;
+    }
+
+    private int posicao(long chave) {
+        long misturado = chave * 0x9E3779B97F4A7C15L;
+        return (int) (misturado ^ (misturado >>> 32)) & mascara;
+    }
+}
@@ -0,0 +1,22 @@
+package com.bibliotech.bibliotech.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Chave usada para comparar nomes de autores e generos: sem acentos, minuscula e com espacos unicos
+public class NormalizarNome {
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACOS = Pattern.compile("\\s+");
+
+    private NormalizarNome() {}
+
+    public static String normalizar(String nome) {
+        if (nome == null) {
+            return null;
+        }
+        String semAcentos = ACENTOS.matcher(Normalizer.normalize(nome, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACOS.matcher(semAcentos.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,482 @@
+-- Schema original do banco (o mesmo de db/init_data.sql, sem os dados).
+-- Bancos criados pelo dump ja tem estas tabelas: o Flyway registra a versao 1 como baseline e comeca pela 2.
+
+CREATE TABLE aluno (
+    id integer NOT NULL,
+    id_turma integer,
+    nome character varying(255) NOT NULL,
+    email character varying(255) NOT NULL,
+    telefone character varying(15),
+    ativo boolean DEFAULT true NOT NULL,
+    situacao character varying(20) DEFAULT 'regular'::character varying,
+    CONSTRAINT aluno_situacao_check CHECK (((situacao)::text = ANY (ARRAY[('regular'::character varying)::text, ('irregular'::character varying)::text, ('debito'::character varying)::text])))
+);
+
+CREATE SEQUENCE aluno_id_seq
+    AS integer
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER SEQUENCE aluno_id_seq OWNED BY aluno.id;
+
+CREATE TABLE autor (
+    id integer NOT NULL,
+    nome character varying(255) NOT NULL
+);
+
+CREATE SEQUENCE autor_id_seq
+    AS integer
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER SEQUENCE autor_id_seq OWNED BY autor.id;
+
+CREATE TABLE autor_livros (
+    autores_id integer NOT NULL,
+    livros_id integer NOT NULL
+);
+
+CREATE TABLE cronogramaalunomonitor (
+    id integer NOT NULL,
+    id_aluno_monitor integer NOT NULL,
+    dia_da_semana character varying(20) NOT NULL,
+    CONSTRAINT cronogramaalunomonitor_dia_da_semana_check CHECK (((dia_da_semana)::text = ANY ((ARRAY['segunda-feira'::character varying, 'terca-feira'::character varying, 'quarta-feira'::character varying, 'quinta-feira'::character varying, 'sexta-feira'::character varying])::text[])))
+);
+
+CREATE SEQUENCE cronogramaalunomonitor_id_seq
+    AS integer
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER SEQUENCE cronogramaalunomonitor_id_seq OWNED BY cronogramaalunomonitor.id;
+
+CREATE TABLE emprestimo (
+    id integer NOT NULL,
+    id_aluno integer NOT NULL,
+    id_exemplar integer NOT NULL,
+    data_emprestimo date DEFAULT CURRENT_DATE NOT NULL,
+    data_conclusao date,
+    data_prazo date NOT NULL,
+    qtd_renovacao integer DEFAULT 0,
+    situacao character varying(20) DEFAULT 'pendente'::character varying,
+    observacao character varying(500),
+    realizado_por integer NOT NULL,
+    concluido_por integer,
+    data_ultima_notificacao date,
+    CONSTRAINT emprestimo_situacao_check CHECK (((situacao)::text = ANY (ARRAY[('pendente'::character varying)::text, ('atrasado'::character varying)::text, ('entregue'::character varying)::text, ('extraviado'::character varying)::text, ('cancelado'::character varying)::text])))
+);
+
+CREATE SEQUENCE emprestimo_id_seq
+    AS integer
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER SEQUENCE emprestimo_id_seq OWNED BY emprestimo.id;
+
+CREATE TABLE estanteprateleira (
+    id integer NOT NULL,
+    estante character varying(1) NOT NULL,
+    prateleira integer NOT NULL
+);
+
+CREATE SEQUENCE estanteprateleira_id_seq
+    AS integer
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER SEQUENCE estanteprateleira_id_seq OWNED BY estanteprateleira.id;
+
+CREATE TABLE estanteprateleirasecao (
+    id integer NOT NULL,
+    id_estante_prateleira integer NOT NULL,
+    id_secao integer NOT NULL
+);
+
+CREATE SEQUENCE estanteprateleirasecao_id_seq
+    AS integer
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER SEQUENCE estanteprateleirasecao_id_seq OWNED BY estanteprateleirasecao.id;
+
+CREATE TABLE exemplar (
+    id integer NOT NULL,
+    id_livro integer NOT NULL,
+    id_secao integer NOT NULL,
+    id_estante_prateleira integer,
+    observacao character varying(500),
+    numero integer NOT NULL,
+    situacao character varying(10) DEFAULT 'disponivel'::character varying,
+    CONSTRAINT exemplar_situacao_check CHECK (((situacao)::text = ANY ((ARRAY['disponivel'::character varying, 'emprestado'::character varying, 'extraviado'::character varying])::text[])))
+);
+
+CREATE SEQUENCE exemplar_id_seq
+    AS integer
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER SEQUENCE exemplar_id_seq OWNED BY exemplar.id;
+
+CREATE TABLE frequenciaalunos (
+    id integer NOT NULL,
+    id_aluno integer NOT NULL,
+    registrada_por integer NOT NULL,
+    atividade character varying(20) DEFAULT 'lendo'::character varying,
+    data_frequencia date NOT NULL,
+    CONSTRAINT frequenciaalunos_atividade_check CHECK (((atividade)::text = ANY ((ARRAY['lendo'::character varying, 'celula_de_estudo'::character varying, 'estudo_individual'::character varying, 'descansando'::character varying, 'outros'::character varying])::text[])))
+);
+
+CREATE SEQUENCE frequenciaalunos_id_seq
+    AS integer
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER SEQUENCE frequenciaalunos_id_seq OWNED BY frequenciaalunos.id;
+
+CREATE TABLE genero (
+    id integer NOT NULL,
+    genero character varying(255) NOT NULL
+);
+
+CREATE SEQUENCE genero_id_seq
+    AS integer
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER SEQUENCE genero_id_seq OWNED BY genero.id;
+
+CREATE TABLE genero_livros (
+    generos_id integer NOT NULL,
+    livros_id integer NOT NULL
+);
+
+CREATE TABLE livro (
+    id integer NOT NULL,
+    isbn character varying(13) NOT NULL,
+    titulo character varying(255) NOT NULL,
+    ativo boolean DEFAULT true NOT NULL
+);
+
+CREATE SEQUENCE livro_id_seq
+    AS integer
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER SEQUENCE livro_id_seq OWNED BY livro.id;
+
+CREATE TABLE livroautor (
+    id integer NOT NULL,
+    id_livro integer NOT NULL,
+    id_autor integer NOT NULL
+);
+
+CREATE SEQUENCE livroautor_id_seq
+    AS integer
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER SEQUENCE livroautor_id_seq OWNED BY livroautor.id;
+
+CREATE TABLE livrogenero (
+    id integer NOT NULL,
+    id_livro integer NOT NULL,
+    id_genero integer NOT NULL
+);
+
+CREATE SEQUENCE livrogenero_id_seq
+    AS integer
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER SEQUENCE livrogenero_id_seq OWNED BY livrogenero.id;
+
+CREATE TABLE ocorrencias (
+    id integer NOT NULL,
+    id_aluno integer NOT NULL,
+    registrada_por integer NOT NULL,
+    detalhes character varying(500),
+    data_ocorrencia date NOT NULL
+);
+
+CREATE SEQUENCE ocorrencias_id_seq
+    AS integer
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER SEQUENCE ocorrencias_id_seq OWNED BY ocorrencias.id;
+
+CREATE TABLE secao (
+    id integer NOT NULL,
+    nome character varying(100) NOT NULL,
+    descricao character varying(500)
+);
+
+CREATE SEQUENCE secao_id_seq
+    AS integer
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER SEQUENCE secao_id_seq OWNED BY secao.id;
+
+CREATE TABLE turma (
+    id integer NOT NULL,
+    serie integer NOT NULL,
+    turma character varying(1) NOT NULL,
+    ano_de_entrada integer NOT NULL,
+    ativo boolean DEFAULT true NOT NULL
+);
+
+CREATE SEQUENCE turma_id_seq
+    AS integer
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER SEQUENCE turma_id_seq OWNED BY turma.id;
+
+CREATE TABLE usuario (
+    id integer NOT NULL,
+    nome character varying(255) NOT NULL,
+    cargo character varying(50) NOT NULL,
+    ativo boolean DEFAULT true NOT NULL,
+    email character varying(255) NOT NULL,
+    senha character varying(255) NOT NULL,
+    data_ultimo_acesso timestamp with time zone,
+    CONSTRAINT usuario_cargo_check CHECK (((cargo)::text = ANY (ARRAY[('bibliotecario'::character varying)::text, ('aluno_monitor'::character varying)::text])))
+);
+
+CREATE SEQUENCE usuario_id_seq
+    AS integer
+    START WITH 1
+    INCREMENT BY 1
+    NO MINVALUE
+    NO MAXVALUE
+    CACHE 1;
+
+ALTER SEQUENCE usuario_id_seq OWNED BY usuario.id;
+
+ALTER TABLE ONLY aluno ALTER COLUMN id SET DEFAULT nextval('aluno_id_seq'::regclass);
+
+ALTER TABLE ONLY autor ALTER COLUMN id SET DEFAULT nextval('autor_id_seq'::regclass);
+
+ALTER TABLE ONLY cronogramaalunomonitor ALTER COLUMN id SET DEFAULT nextval('cronogramaalunomonitor_id_seq'::regclass);
+
+ALTER TABLE ONLY emprestimo ALTER COLUMN id SET DEFAULT nextval('emprestimo_id_seq'::regclass);
+
+ALTER TABLE ONLY estanteprateleira ALTER COLUMN id SET DEFAULT nextval('estanteprateleira_id_seq'::regclass);
+
+ALTER TABLE ONLY estanteprateleirasecao ALTER COLUMN id SET DEFAULT nextval('estanteprateleirasecao_id_seq'::regclass);
+
+ALTER TABLE ONLY exemplar ALTER COLUMN id SET DEFAULT nextval('exemplar_id_seq'::regclass);
+
+ALTER TABLE ONLY frequenciaalunos ALTER COLUMN id SET DEFAULT nextval('frequenciaalunos_id_seq'::regclass);
+
+ALTER TABLE ONLY genero ALTER COLUMN id SET DEFAULT nextval('genero_id_seq'::regclass);
+
+ALTER TABLE ONLY livro ALTER COLUMN id SET DEFAULT nextval('livro_id_seq'::regclass);
+
+ALTER TABLE ONLY livroautor ALTER COLUMN id SET DEFAULT nextval('livroautor_id_seq'::regclass);
+
+ALTER TABLE ONLY livrogenero ALTER COLUMN id SET DEFAULT nextval('livrogenero_id_seq'::regclass);
+
+ALTER TABLE ONLY ocorrencias ALTER COLUMN id SET DEFAULT nextval('ocorrencias_id_seq'::regclass);
+
+ALTER TABLE ONLY secao ALTER COLUMN id SET DEFAULT nextval('secao_id_seq'::regclass);
+
+ALTER TABLE ONLY turma ALTER COLUMN id SET DEFAULT nextval('turma_id_seq'::regclass);
+
+ALTER TABLE ONLY usuario ALTER COLUMN id SET DEFAULT nextval('usuario_id_seq'::regclass);
+
+ALTER TABLE ONLY aluno
+    ADD CONSTRAINT aluno_email_key UNIQUE (email);
+
+ALTER TABLE ONLY aluno
+    ADD CONSTRAINT aluno_pkey PRIMARY KEY (id);
+
+ALTER TABLE ONLY autor
+    ADD CONSTRAINT autor_pkey PRIMARY KEY (id);
+
+ALTER TABLE ONLY cronogramaalunomonitor
+    ADD CONSTRAINT cronogramaalunomonitor_id_aluno_monitor_dia_da_semana_key UNIQUE (id_aluno_monitor, dia_da_semana);
+
+ALTER TABLE ONLY cronogramaalunomonitor
+    ADD CONSTRAINT cronogramaalunomonitor_pkey PRIMARY KEY (id);
+
+ALTER TABLE ONLY emprestimo
+    ADD CONSTRAINT emprestimo_pkey PRIMARY KEY (id);
+
+ALTER TABLE ONLY estanteprateleira
+    ADD CONSTRAINT estanteprateleira_estante_prateleira_key UNIQUE (estante, prateleira);
+
+ALTER TABLE ONLY estanteprateleira
+    ADD CONSTRAINT estanteprateleira_pkey PRIMARY KEY (id);
+
+ALTER TABLE ONLY estanteprateleirasecao
+    ADD CONSTRAINT estanteprateleirasecao_id_estante_prateleira_id_secao_key UNIQUE (id_estante_prateleira, id_secao);
+
+ALTER TABLE ONLY estanteprateleirasecao
+    ADD CONSTRAINT estanteprateleirasecao_pkey PRIMARY KEY (id);
+
+ALTER TABLE ONLY exemplar
+    ADD CONSTRAINT exemplar_id_livro_numero_key UNIQUE (id_livro, numero);
+
+ALTER TABLE ONLY exemplar
+    ADD CONSTRAINT exemplar_pkey PRIMARY KEY (id);
+
+ALTER TABLE ONLY frequenciaalunos
+    ADD CONSTRAINT frequenciaalunos_id_aluno_data_frequencia_key UNIQUE (id_aluno, data_frequencia);
+
+ALTER TABLE ONLY frequenciaalunos
+    ADD CONSTRAINT frequenciaalunos_pkey PRIMARY KEY (id);
+
+ALTER TABLE ONLY genero
+    ADD CONSTRAINT genero_pkey PRIMARY KEY (id);
+
+ALTER TABLE ONLY livro
+    ADD CONSTRAINT livro_isbn_key UNIQUE (isbn);
+
+ALTER TABLE ONLY livro
+    ADD CONSTRAINT livro_pkey PRIMARY KEY (id);
+
+ALTER TABLE ONLY livroautor
+    ADD CONSTRAINT livroautor_id_livro_id_autor_key UNIQUE (id_livro, id_autor);
+
+ALTER TABLE ONLY livroautor
+    ADD CONSTRAINT livroautor_pkey PRIMARY KEY (id);
+
+ALTER TABLE ONLY livrogenero
+    ADD CONSTRAINT livrogenero_id_livro_id_genero_key UNIQUE (id_livro, id_genero);
+
+ALTER TABLE ONLY livrogenero
+    ADD CONSTRAINT livrogenero_pkey PRIMARY KEY (id);
+
+ALTER TABLE ONLY ocorrencias
+    ADD CONSTRAINT ocorrencias_pkey PRIMARY KEY (id);
+
+ALTER TABLE ONLY secao
+    ADD CONSTRAINT secao_pkey PRIMARY KEY (id);
+
+ALTER TABLE ONLY turma
+    ADD CONSTRAINT turma_pkey PRIMARY KEY (id);
+
+ALTER TABLE ONLY turma
+    ADD CONSTRAINT turma_serie_turma_ano_de_entrada_key UNIQUE (serie, turma, ano_de_entrada);
+
+ALTER TABLE ONLY usuario
+    ADD CONSTRAINT usuario_email_key UNIQUE (email);
+
+ALTER TABLE ONLY usuario
+    ADD CONSTRAINT usuario_pkey PRIMARY KEY (id);
+
+ALTER TABLE ONLY aluno
+    ADD CONSTRAINT aluno_id_turma_fkey FOREIGN KEY (id_turma) REFERENCES turma(id);
+
+ALTER TABLE ONLY cronogramaalunomonitor
+    ADD CONSTRAINT cronogramaalunomonitor_id_aluno_monitor_fkey FOREIGN KEY (id_aluno_monitor) REFERENCES usuario(id);
+
+ALTER TABLE ONLY emprestimo
+    ADD CONSTRAINT emprestimo_concluido_por_fkey FOREIGN KEY (concluido_por) REFERENCES usuario(id);
+
+ALTER TABLE ONLY emprestimo
+    ADD CONSTRAINT emprestimo_id_aluno_fkey FOREIGN KEY (id_aluno) REFERENCES aluno(id);
+
+ALTER TABLE ONLY emprestimo
+    ADD CONSTRAINT emprestimo_id_exemplar_fkey FOREIGN KEY (id_exemplar) REFERENCES exemplar(id);
+
+ALTER TABLE ONLY emprestimo
+    ADD CONSTRAINT emprestimo_realizado_por_fkey FOREIGN KEY (realizado_por) REFERENCES usuario(id);
+
+ALTER TABLE ONLY estanteprateleirasecao
+    ADD CONSTRAINT estanteprateleirasecao_id_estante_prateleira_fkey FOREIGN KEY (id_estante_prateleira) REFERENCES estanteprateleira(id) ON DELETE CASCADE;
+
+ALTER TABLE ONLY estanteprateleirasecao
+    ADD CONSTRAINT estanteprateleirasecao_id_secao_fkey FOREIGN KEY (id_secao) REFERENCES secao(id) ON DELETE CASCADE;
+
+ALTER TABLE ONLY exemplar
+    ADD CONSTRAINT exemplar_id_estante_prateleira_fkey FOREIGN KEY (id_estante_prateleira) REFERENCES estanteprateleira(id);
+
+ALTER TABLE ONLY exemplar
+    ADD CONSTRAINT exemplar_id_livro_fkey FOREIGN KEY (id_livro) REFERENCES livro(id);
+
+ALTER TABLE ONLY exemplar
+    ADD CONSTRAINT exemplar_id_secao_fkey FOREIGN KEY (id_secao) REFERENCES secao(id);
+
+ALTER TABLE ONLY autor_livros
+    ADD CONSTRAINT fkcqcotisett8tmmdsg2gmy3un6 FOREIGN KEY (livros_id) REFERENCES livro(id);
+
+ALTER TABLE ONLY genero_livros
+    ADD CONSTRAINT fkenknnir1iu7yfdi5t7shor63m FOREIGN KEY (livros_id) REFERENCES livro(id);
+
+ALTER TABLE ONLY genero_livros
+    ADD CONSTRAINT fkjwshkttf4nf69ksa42nneke5q FOREIGN KEY (generos_id) REFERENCES genero(id);
+
+ALTER TABLE ONLY autor_livros
+    ADD CONSTRAINT fkt9924svrmphfd60nt6s2vg9fc FOREIGN KEY (autores_id) REFERENCES autor(id);
+
+ALTER TABLE ONLY frequenciaalunos
+    ADD CONSTRAINT frequenciaalunos_id_aluno_fkey FOREIGN KEY (id_aluno) REFERENCES aluno(id);
+
+ALTER TABLE ONLY frequenciaalunos
+    ADD CONSTRAINT frequenciaalunos_registrada_por_fkey FOREIGN KEY (registrada_por) REFERENCES usuario(id);
+
+ALTER TABLE ONLY livroautor
+    ADD CONSTRAINT livroautor_id_autor_fkey FOREIGN KEY (id_autor) REFERENCES autor(id) ON DELETE CASCADE;
+
+ALTER TABLE ONLY livroautor
+    ADD CONSTRAINT livroautor_id_livro_fkey FOREIGN KEY (id_livro) REFERENCES livro(id) ON DELETE CASCADE;
+
+ALTER TABLE ONLY livrogenero
+    ADD CONSTRAINT livrogenero_id_genero_fkey FOREIGN KEY (id_genero) REFERENCES genero(id) ON DELETE CASCADE;
+
+ALTER TABLE ONLY livrogenero
+    ADD CONSTRAINT livrogenero_id_livro_fkey FOREIGN KEY (id_livro) REFERENCES livro(id) ON DELETE CASCADE;
+
+ALTER TABLE ONLY ocorrencias
+    ADD CONSTRAINT ocorrencias_id_aluno_fkey FOREIGN KEY (id_aluno) REFERENCES aluno(id);
+
+ALTER TABLE ONLY ocorrencias
+    ADD CONSTRAINT ocorrencias_registrada_por_fkey FOREIGN KEY (registrada_por) REFERENCES usuario(id);
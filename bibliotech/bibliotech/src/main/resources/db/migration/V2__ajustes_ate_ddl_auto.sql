@@ -0,0 +1,87 @@
+-- Tudo o que o ddl-auto=update e o antigo db/ajustes-schema.sql aplicavam por cima da versao 1.
+-- Bancos que ja rodaram versoes anteriores da aplicacao tem parte disso, entao cada comando e idempotente.
+
+-- ids que passaram a usar sequence com allocationSize 50 (inserts em lote)
+ALTER SEQUENCE exemplar_id_seq INCREMENT BY 50;
+ALTER SEQUENCE livro_id_seq INCREMENT BY 50;
+ALTER SEQUENCE livroautor_id_seq INCREMENT BY 50;
+ALTER SEQUENCE livrogenero_id_seq INCREMENT BY 50;
+ALTER SEQUENCE aluno_id_seq INCREMENT BY 50;
+
+-- exemplar separado para uma reserva (situacao 'reservado')
+ALTER TABLE exemplar DROP CONSTRAINT IF EXISTS exemplar_situacao_check;
+ALTER TABLE exemplar ADD CONSTRAINT exemplar_situacao_check
+    CHECK (situacao IN ('disponivel', 'emprestado', 'extraviado', 'reservado'));
+
+-- nomes normalizados de autor e genero; os registros antigos sao preenchidos pelos services na subida
+ALTER TABLE autor ADD COLUMN IF NOT EXISTS nome_normalizado varchar(255);
+ALTER TABLE genero ADD COLUMN IF NOT EXISTS genero_normalizado varchar(255);
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = 'autor'::regclass AND conname = 'autor_nome_normalizado_key') THEN
+        ALTER TABLE autor ADD CONSTRAINT autor_nome_normalizado_key UNIQUE (nome_normalizado);
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = 'genero'::regclass AND conname = 'genero_genero_normalizado_key') THEN
+        ALTER TABLE genero ADD CONSTRAINT genero_genero_normalizado_key UNIQUE (genero_normalizado);
+    END IF;
+END
+$$;
+
+-- contadores de emprestimos por aluno, recalculados pela reconciliacao
+CREATE TABLE IF NOT EXISTS contadoremprestimos (
+    id_aluno integer NOT NULL,
+    emprestimos_ativos integer DEFAULT 0 NOT NULL,
+    emprestimos_atrasados integer DEFAULT 0 NOT NULL,
+    extravios integer DEFAULT 0 NOT NULL,
+    limite_emprestimos integer,
+    CONSTRAINT contadoremprestimos_pkey PRIMARY KEY (id_aluno),
+    CONSTRAINT fkf2ka0c3qql3586g4cs4cjuvcb FOREIGN KEY (id_aluno) REFERENCES aluno(id) ON DELETE CASCADE
+);
+
+-- fila de reservas; aberta fica null quando a reserva e concluida, liberando a unica
+CREATE TABLE IF NOT EXISTS reserva (
+    id integer GENERATED BY DEFAULT AS IDENTITY,
+    id_aluno integer NOT NULL,
+    id_livro integer NOT NULL,
+    id_exemplar integer,
+    situacao varchar(10) NOT NULL,
+    aberta boolean,
+    data_reserva timestamp(6) NOT NULL,
+    data_disponibilidade timestamp(6),
+    prazo_retirada date,
+    data_notificacao timestamp(6),
+    data_conclusao timestamp(6),
+    CONSTRAINT reserva_pkey PRIMARY KEY (id),
+    CONSTRAINT reserva_aberta_key UNIQUE (id_aluno, id_livro, aberta),
+    CONSTRAINT fkjv9l2r0qbuun6gvl6in85jveg FOREIGN KEY (id_aluno) REFERENCES aluno(id),
+    CONSTRAINT fk80chrn017k4mwfl3oaeicq35t FOREIGN KEY (id_livro) REFERENCES livro(id),
+    CONSTRAINT fkhvupshbnl4gk2l8uj6244rifs FOREIGN KEY (id_exemplar) REFERENCES exemplar(id)
+);
+CREATE INDEX IF NOT EXISTS reserva_fila_idx ON reserva (id_livro, situacao, data_reserva, id);
+CREATE INDEX IF NOT EXISTS reserva_aluno_idx ON reserva (id_aluno, situacao);
+
+-- outbox das transicoes de emprestimo e checkpoint do relay
+CREATE TABLE IF NOT EXISTS eventodominio (
+    id bigint GENERATED BY DEFAULT AS IDENTITY,
+    tipo varchar(40) NOT NULL,
+    id_emprestimo integer NOT NULL,
+    id_aluno integer NOT NULL,
+    id_exemplar integer NOT NULL,
+    id_livro integer NOT NULL,
+    situacao_anterior varchar(20),
+    situacao_nova varchar(20) NOT NULL,
+    data_prazo date,
+    transacao bigint NOT NULL,
+    data_criacao timestamp(6) NOT NULL,
+    CONSTRAINT eventodominio_pkey PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS eventodominio_relay_idx ON eventodominio (transacao, id);
+
+CREATE TABLE IF NOT EXISTS checkpointrelay (
+    nome varchar(50) NOT NULL,
+    ultima_transacao bigint NOT NULL,
+    ultimo_id bigint NOT NULL,
+    data_atualizacao timestamp(6) NOT NULL,
+    CONSTRAINT checkpointrelay_pkey PRIMARY KEY (nome)
+);
@@ -0,0 +1,130 @@
+-- Tabelas particionadas por data. As funcoes guardam o search_path da migracao (SET search_path FROM CURRENT),
+-- entao os nomes sem schema continuam resolvendo para o schema da aplicacao quando o ArquivamentoService as chama.
+
+-- historico de emprestimos: so insercao, particionado por mes de data_evento. As particoes mensais sao criadas pelo
+-- HistoricoEmprestimosService; a padrao so recebe linhas fora delas. Sem identity (o Postgres 15 nao aceita em
+-- tabela particionada) e com data_evento na chave, como o particionamento exige
+CREATE SEQUENCE IF NOT EXISTS emprestimo_evento_id_seq;
+CREATE TABLE IF NOT EXISTS emprestimo_evento (
+    id bigint NOT NULL DEFAULT nextval('emprestimo_evento_id_seq'),
+    id_emprestimo integer NOT NULL,
+    tipo varchar(20) NOT NULL,
+    id_aluno integer NOT NULL,
+    id_exemplar integer NOT NULL,
+    data_emprestimo date NOT NULL,
+    data_prazo date NOT NULL,
+    qtd_renovacao integer,
+    situacao varchar(20) NOT NULL,
+    observacao varchar(500),
+    realizado_por integer,
+    concluido_por integer,
+    data_conclusao date,
+    registrado_por integer,
+    data_evento timestamp(6) NOT NULL,
+    PRIMARY KEY (id, data_evento)
+) PARTITION BY RANGE (data_evento);
+CREATE TABLE IF NOT EXISTS emprestimo_evento_padrao PARTITION OF emprestimo_evento DEFAULT;
+-- as linhas entram em ordem de data_evento, entao o BRIN por faixa de paginas resolve intervalos de tempo com um
+-- indice de poucos KB; as consultas por emprestimo e por aluno usam os btree
+CREATE INDEX IF NOT EXISTS emprestimo_evento_data_brin ON emprestimo_evento USING brin (data_evento);
+CREATE INDEX IF NOT EXISTS emprestimo_evento_emprestimo_idx ON emprestimo_evento (id_emprestimo, data_evento);
+CREATE INDEX IF NOT EXISTS emprestimo_evento_aluno_idx ON emprestimo_evento (id_aluno, data_evento);
+
+-- emprestimo, frequenciaalunos e ocorrencias particionadas por ano letivo (ano civil) da coluna de data.
+-- criar_particao_ano: cria a particao do ano se nao existir; linhas do ano que estejam na particao padrao sao
+-- movidas para ela antes de anexa-la
+CREATE OR REPLACE FUNCTION criar_particao_ano(tabela text, coluna text, ano integer) RETURNS void
+LANGUAGE plpgsql SET search_path FROM CURRENT AS $$
+DECLARE
+    particao text := tabela || '_' || ano;
+    inicio date := make_date(ano, 1, 1);
+    fim date := make_date(ano + 1, 1, 1);
+    ocupada boolean;
+BEGIN
+    IF to_regclass(particao) IS NOT NULL THEN
+        RETURN;
+    END IF;
+    EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I WHERE %I >= %L AND %I < %L)',
+        tabela || '_padrao', coluna, inicio, coluna, fim) INTO ocupada;
+    IF ocupada THEN
+        EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', particao, tabela);
+        EXECUTE format('WITH movidas AS (DELETE FROM %I WHERE %I >= %L AND %I < %L RETURNING *) ' ||
+            'INSERT INTO %I SELECT * FROM movidas', tabela || '_padrao', coluna, inicio, coluna, fim, particao);
+        EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', tabela, particao, inicio, fim);
+    ELSE
+        EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)', particao, tabela, inicio, fim);
+    END IF;
+END
+$$;
+
+-- particionar_por_ano: converte a tabela comum (nao faz nada se ja for particionada). A chave passa a (id, coluna),
+-- como o particionamento exige; ids continuam vindo da mesma sequence. Indices nao unicos, unicas que contem a
+-- coluna da particao e chaves estrangeiras sao recriados na tabela nova
+CREATE OR REPLACE FUNCTION particionar_por_ano(tabela text, coluna text) RETURNS void
+LANGUAGE plpgsql SET search_path FROM CURRENT AS $$
+DECLARE
+    antiga text := tabela || '_nao_particionada';
+    sequencia text;
+    indices text[];
+    unicas text[];
+    chaves text[];
+    definicao text;
+    primeiro_ano integer;
+    ano integer;
+BEGIN
+    IF (SELECT c.relkind FROM pg_class c WHERE c.oid = to_regclass(tabela)) IS DISTINCT FROM 'r' THEN
+        RETURN;
+    END IF;
+    EXECUTE format('LOCK TABLE %I IN ACCESS EXCLUSIVE MODE', tabela);
+
+    SELECT array_agg(pg_get_indexdef(i.indexrelid)) INTO indices FROM pg_index i
+        WHERE i.indrelid = to_regclass(tabela) AND NOT i.indisunique;
+    SELECT array_agg(format('ALTER TABLE %I ADD CONSTRAINT %I %s', tabela, c.conname, pg_get_constraintdef(c.oid)))
+        INTO unicas FROM pg_constraint c WHERE c.conrelid = to_regclass(tabela) AND c.contype = 'u'
+        AND (SELECT a.attnum FROM pg_attribute a WHERE a.attrelid = c.conrelid AND a.attname = coluna) = ANY (c.conkey);
+    SELECT array_agg(format('ALTER TABLE %I ADD CONSTRAINT %I %s', tabela, c.conname, pg_get_constraintdef(c.oid)))
+        INTO chaves FROM pg_constraint c WHERE c.conrelid = to_regclass(tabela) AND c.contype = 'f';
+    sequencia := pg_get_serial_sequence(tabela, 'id');
+
+    EXECUTE format('ALTER TABLE %I RENAME TO %I', tabela, antiga);
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS, PRIMARY KEY (id, %I)) ' ||
+        'PARTITION BY RANGE (%I)', tabela, antiga, coluna, coluna);
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I DEFAULT', tabela || '_padrao', tabela);
+    EXECUTE format('SELECT CAST(EXTRACT(YEAR FROM MIN(%I)) AS integer) FROM %I', coluna, antiga) INTO primeiro_ano;
+    FOR ano IN COALESCE(primeiro_ano, CAST(EXTRACT(YEAR FROM CURRENT_DATE) AS integer))
+            .. CAST(EXTRACT(YEAR FROM CURRENT_DATE) AS integer) + 1 LOOP
+        PERFORM criar_particao_ano(tabela, coluna, ano);
+    END LOOP;
+    EXECUTE format('INSERT INTO %I SELECT * FROM %I', tabela, antiga);
+
+    IF sequencia IS NOT NULL THEN
+        EXECUTE format('ALTER SEQUENCE %s OWNED BY %I.id', sequencia, tabela);
+    END IF;
+    EXECUTE format('DROP TABLE %I', antiga);
+    EXECUTE format('ALTER TABLE %I RENAME CONSTRAINT %I TO %I', tabela,
+        (SELECT c.conname FROM pg_constraint c WHERE c.conrelid = to_regclass(tabela) AND c.contype = 'p'),
+        tabela || '_pkey');
+    FOREACH definicao IN ARRAY COALESCE(indices, ARRAY[]::text[]) LOOP
+        EXECUTE definicao;
+    END LOOP;
+    FOREACH definicao IN ARRAY COALESCE(unicas, ARRAY[]::text[]) LOOP
+        EXECUTE definicao;
+    END LOOP;
+    FOREACH definicao IN ARRAY COALESCE(chaves, ARRAY[]::text[]) LOOP
+        EXECUTE definicao;
+    END LOOP;
+END
+$$;
+
+SELECT particionar_por_ano('emprestimo', 'data_emprestimo');
+SELECT particionar_por_ano('frequenciaalunos', 'data_frequencia');
+SELECT particionar_por_ano('ocorrencias', 'data_ocorrencia');
+
+-- uma frequencia por aluno por dia: a unica que a primeira versao da conversao nao recriava
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conrelid = 'frequenciaalunos'::regclass AND c.contype = 'u') THEN
+        ALTER TABLE frequenciaalunos ADD CONSTRAINT frequenciaalunos_id_aluno_data_frequencia_key UNIQUE (id_aluno, data_frequencia);
+    END IF;
+END
+$$;
@@ -0,0 +1,24 @@
+-- Indices para os filtros das consultas mais frequentes. Nas tabelas particionadas o indice e criado na tabela mae e
+-- replicado em cada particao, inclusive nas criadas depois. O IndicesConsultasTest confere que as consultas abaixo
+-- continuam usando estes indices.
+-- livroautor(id_livro) e livrogenero(id_livro) ja sao cobertos pelas unicas (id_livro, id_autor) e
+-- (id_livro, id_genero); faltava o caminho inverso, usado pela limpeza de orfaos e pelas buscas por autor e genero.
+
+-- emprestimos abertos ficam espalhados por todos os anos; com o indice parcial, o findBySituacao e a rotina de
+-- atrasos leem so as entradas 'pendente'/'atrasado' de cada particao em vez de varrer os anos encerrados
+CREATE INDEX IF NOT EXISTS emprestimo_abertos_idx ON emprestimo (situacao, data_prazo)
+    WHERE situacao IN ('pendente', 'atrasado');
+-- historico do aluno, elegibilidade e estado do aluno numa data
+CREATE INDEX IF NOT EXISTS emprestimo_aluno_data_idx ON emprestimo (id_aluno, data_emprestimo);
+-- historico do livro (join por exemplar) e emprestimo aberto de um exemplar
+CREATE INDEX IF NOT EXISTS emprestimo_exemplar_data_idx ON emprestimo (id_exemplar, data_emprestimo);
+
+-- exemplares de um livro por situacao (disponibilidade, reservas)
+CREATE INDEX IF NOT EXISTS exemplar_livro_situacao_idx ON exemplar (id_livro, situacao);
+
+CREATE INDEX IF NOT EXISTS livroautor_autor_idx ON livroautor (id_autor);
+CREATE INDEX IF NOT EXISTS livrogenero_genero_idx ON livrogenero (id_genero);
+
+-- frequencia de um dia e ocorrencias de um periodo, dentro da particao do ano
+CREATE INDEX IF NOT EXISTS frequenciaalunos_data_idx ON frequenciaalunos (data_frequencia);
+CREATE INDEX IF NOT EXISTS ocorrencias_data_idx ON ocorrencias (data_ocorrencia);
@@ -0,0 +1,51 @@
+-- Situacoes e atividade passam de varchar com CHECK para tipos enum do Postgres: 4 bytes por valor em vez do texto,
+-- comparacao por ordinal e nenhum valor fora da lista. Os rotulos sao os mesmos textos de antes, entao literais como
+-- situacao = 'pendente' continuam valendo nas consultas. Os enums Java de models/enums seguem esta ordem.
+-- reserva.situacao e eventodominio.situacao_* continuam varchar.
+
+CREATE TYPE situacao_emprestimo AS ENUM ('pendente', 'atrasado', 'entregue', 'extraviado', 'cancelado');
+CREATE TYPE situacao_exemplar AS ENUM ('disponivel', 'emprestado', 'extraviado', 'reservado');
+CREATE TYPE situacao_aluno AS ENUM ('regular', 'irregular', 'debito');
+CREATE TYPE atividade_frequencia AS ENUM ('lendo', 'celula_de_estudo', 'estudo_individual', 'descansando', 'outros');
+
+-- o predicado do indice parcial compara com varchar; e recriado no fim
+DROP INDEX IF EXISTS emprestimo_abertos_idx;
+
+-- os CHECK ficam redundantes com o tipo. Particoes que ja tinham dados ao serem criadas guardam uma copia local do
+-- CHECK da tabela mae, por isso a remocao passa por todas as tabelas, maes primeiro
+DO $$
+DECLARE
+    r record;
+BEGIN
+    FOR r IN SELECT c.conrelid::regclass AS tabela, c.conname FROM pg_constraint c
+            WHERE c.contype = 'c' AND c.connamespace = current_schema()::regnamespace
+            AND c.conname IN ('emprestimo_situacao_check', 'exemplar_situacao_check', 'aluno_situacao_check',
+                              'frequenciaalunos_atividade_check')
+            ORDER BY c.coninhcount LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT IF EXISTS %I', r.tabela, r.conname);
+    END LOOP;
+END
+$$;
+
+-- o default varchar nao converte sozinho: sai antes da troca de tipo e volta depois. Nas tabelas particionadas a
+-- alteracao vale para todas as particoes
+ALTER TABLE emprestimo ALTER COLUMN situacao DROP DEFAULT;
+ALTER TABLE emprestimo ALTER COLUMN situacao TYPE situacao_emprestimo USING situacao::situacao_emprestimo;
+ALTER TABLE emprestimo ALTER COLUMN situacao SET DEFAULT 'pendente';
+
+ALTER TABLE emprestimo_evento ALTER COLUMN situacao TYPE situacao_emprestimo USING situacao::situacao_emprestimo;
+
+ALTER TABLE exemplar ALTER COLUMN situacao DROP DEFAULT;
+ALTER TABLE exemplar ALTER COLUMN situacao TYPE situacao_exemplar USING situacao::situacao_exemplar;
+ALTER TABLE exemplar ALTER COLUMN situacao SET DEFAULT 'disponivel';
+
+ALTER TABLE aluno ALTER COLUMN situacao DROP DEFAULT;
+ALTER TABLE aluno ALTER COLUMN situacao TYPE situacao_aluno USING situacao::situacao_aluno;
+ALTER TABLE aluno ALTER COLUMN situacao SET DEFAULT 'regular';
+
+ALTER TABLE frequenciaalunos ALTER COLUMN atividade DROP DEFAULT;
+ALTER TABLE frequenciaalunos ALTER COLUMN atividade TYPE atividade_frequencia USING atividade::atividade_frequencia;
+ALTER TABLE frequenciaalunos ALTER COLUMN atividade SET DEFAULT 'lendo';
+
+CREATE INDEX IF NOT EXISTS emprestimo_abertos_idx ON emprestimo (situacao, data_prazo)
+    WHERE situacao IN ('pendente', 'atrasado');
@@ -0,0 +1,8 @@
+-- Hora em que a frequencia foi registrada, para a analise por faixa de horario (AnaliseFrequenciaService).
+-- As frequencias anteriores ficam sem hora: o default so vale a partir daqui, por isso entra depois da coluna (um
+-- ADD COLUMN com default preencheria as linhas existentes com a hora da migracao). O LOCALTIME segue o fuso da
+-- sessao, que o driver acerta para o da aplicacao, o mesmo do LocalDate.now() da data_frequencia.
+-- Nas tabelas particionadas a alteracao vale para todas as particoes
+
+ALTER TABLE frequenciaalunos ADD COLUMN IF NOT EXISTS hora_registro time(0);
+ALTER TABLE frequenciaalunos ALTER COLUMN hora_registro SET DEFAULT LOCALTIME(0);
@@ -0,0 +1,9 @@
+-- Autor e genero com livros nao podem ser apagados. Com ON DELETE CASCADE, a limpeza de orfaos que lesse a tabela
+-- de vinculos antes do commit de um cadastro apagaria o autor (ou genero) e, em cascata, o vinculo recem-gravado.
+-- Com RESTRICT o DELETE da limpeza falha e ela tenta de novo na rodada seguinte (LimpezaOrfaosService)
+
+ALTER TABLE livroautor DROP CONSTRAINT livroautor_id_autor_fkey,
+    ADD CONSTRAINT livroautor_id_autor_fkey FOREIGN KEY (id_autor) REFERENCES autor(id) ON DELETE RESTRICT;
+
+ALTER TABLE livrogenero DROP CONSTRAINT livrogenero_id_genero_fkey,
+    ADD CONSTRAINT livrogenero_id_genero_fkey FOREIGN KEY (id_genero) REFERENCES genero(id) ON DELETE RESTRICT;
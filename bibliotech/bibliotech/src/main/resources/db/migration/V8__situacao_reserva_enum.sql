@@ -0,0 +1,7 @@
+-- reserva.situacao passa de varchar para tipo enum, como as situacoes da V5. Os rotulos sao os textos de antes, entao
+-- os literais das consultas de ReservaRepository continuam valendo; o enum Java SituacaoReserva segue esta ordem.
+-- Os indices reserva_fila_idx e reserva_aluno_idx sao refeitos pela troca de tipo
+
+CREATE TYPE situacao_reserva AS ENUM ('aguardando', 'disponivel', 'atendida', 'cancelada', 'expirada');
+
+ALTER TABLE reserva ALTER COLUMN situacao TYPE situacao_reserva USING situacao::situacao_reserva;
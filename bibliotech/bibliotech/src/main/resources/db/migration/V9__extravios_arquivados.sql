@@ -0,0 +1,4 @@
+-- Extravios de anos de emprestimo que o arquivamento tirou do banco (ArquivamentoService). A reconciliacao dos
+-- contadores recalcula extravios a partir de emprestimo e soma esta coluna, em vez de zerar o que foi arquivado
+
+ALTER TABLE contadoremprestimos ADD COLUMN IF NOT EXISTS extravios_arquivados integer DEFAULT 0 NOT NULL;
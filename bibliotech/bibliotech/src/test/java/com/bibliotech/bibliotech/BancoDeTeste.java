@@ -0,0 +1,114 @@
+package com.bibliotech.bibliotech;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.utility.MountableFile;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Bancos dos testes de integracao: um PostgreSQL do Testcontainers por JVM e, para os testes da replica de leitura,
+// um standby dele montado pelos mesmos scripts do docker-compose (db/replicacao). Sem Docker, os testes usam bancos
+// ja em execucao informados por propriedades do sistema:
+//   -Dbibliotech.teste.jdbc-url=... -Dbibliotech.teste.usuario=... -Dbibliotech.teste.senha=...
+//   -Dbibliotech.teste.replica-url=...   (standby do banco acima)
+// Sem Docker e sem as propriedades os testes sao ignorados (exigir), a menos que -Dbibliotech.teste.exigir-banco=true,
+// como no CI: ai falham, para que um CI sem banco nao passe sem testar nada
+public final class BancoDeTeste {
+
+    private static final String IMAGEM = "postgres:15-alpine";
+
+    private static final String URL = System.getProperty("bibliotech.teste.jdbc-url");
+    private static final String USUARIO = System.getProperty("bibliotech.teste.usuario", "postgres");
+    private static final String SENHA = System.getProperty("bibliotech.teste.senha", "");
+    private static final String REPLICA_URL = System.getProperty("bibliotech.teste.replica-url");
+    private static final boolean EXIGIDO = Boolean.getBoolean("bibliotech.teste.exigir-banco");
+
+    private static PostgreSQLContainer<?> principal;
+    private static GenericContainer<?> replica;
+
+    private BancoDeTeste() {
+    }
+
+    public static boolean disponivel() {
+        return URL != null || DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    public static boolean disponivelComReplica() {
+        return URL != null ? REPLICA_URL != null : DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    // Para o @BeforeAll dos testes: ignora a classe sem banco, ou falha se o banco for exigido
+    public static void exigir(boolean disponivel) {
+        String motivo = "Sem Docker e sem -Dbibliotech.teste.jdbc-url (ou -Dbibliotech.teste.replica-url)";
+        if (EXIGIDO) {
+            assertTrue(disponivel, motivo);
+        } else {
+            assumeTrue(disponivel, motivo);
+        }
+    }
+
+    public static void registrar(DynamicPropertyRegistry registry) {
+        if (URL != null) {
+            registry.add("JDBC_URL", () -> URL);
+            registry.add("DB_USER", () -> USUARIO);
+            registry.add("DB_PASSWORD", () -> SENHA);
+            return;
+        }
+        PostgreSQLContainer<?> banco = principal();
+        registry.add("JDBC_URL", banco::getJdbcUrl);
+        registry.add("DB_USER", banco::getUsername);
+        registry.add("DB_PASSWORD", banco::getPassword);
+    }
+
+    public static void registrarComReplica(DynamicPropertyRegistry registry) {
+        registrar(registry);
+        if (URL != null) {
+            registry.add("JDBC_REPLICA_URL", () -> REPLICA_URL);
+            return;
+        }
+        GenericContainer<?> standby = replica();
+        registry.add("JDBC_REPLICA_URL", () -> "jdbc:postgresql://" + standby.getHost() + ":"
+                + standby.getMappedPort(5432) + "/" + principal().getDatabaseName());
+    }
+
+    private static synchronized PostgreSQLContainer<?> principal() {
+        if (principal == null) {
+            principal = new PostgreSQLContainer<>(IMAGEM)
+                    .withNetwork(Network.SHARED)
+                    .withNetworkAliases("principal")
+                    .withCopyFileToContainer(MountableFile.forHostPath("db/replicacao/principal.sh"),
+                            "/docker-entrypoint-initdb.d/replicacao.sh");
+            principal.start();
+        }
+        return principal;
+    }
+
+    private static synchronized GenericContainer<?> replica() {
+        if (replica == null) {
+            PostgreSQLContainer<?> banco = principal();
+            replica = new GenericContainer<>(IMAGEM)
+                    .withNetwork(Network.SHARED)
+                    .withCreateContainerCmdModifier(cmd -> cmd.withUser("postgres")
+                            .withEntrypoint("/bin/sh", "/replicacao/replica.sh"))
+                    .withCopyFileToContainer(MountableFile.forHostPath("db/replicacao/replica.sh"),
+                            "/replicacao/replica.sh")
+                    .withEnv(Map.of(
+                            "POSTGRES_USER", banco.getUsername(),
+                            "POSTGRES_PASSWORD", banco.getPassword(),
+                            "PRINCIPAL_HOST", "principal"))
+                    .withExposedPorts(5432)
+                    .waitingFor(Wait.forLogMessage(".*ready to accept read-only connections.*", 1)
+                            .withStartupTimeout(Duration.ofMinutes(2)));
+            replica.start();
+        }
+        return replica;
+    }
+}
@@ -0,0 +1,102 @@
+package com.bibliotech.bibliotech;
+
+import com.bibliotech.bibliotech.repositories.UsuarioRepository;
+import com.bibliotech.bibliotech.services.TokenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// Base dos testes de integracao: aplicacao completa sobre o banco do BancoDeTeste, com o schema criado pelo Flyway.
+// Os testes nao limpam o banco; cada um cria os proprios dados com os metodos abaixo, que gravam valores unicos
+@SpringBootTest
+@ActiveProfiles("teste")
+public abstract class IntegracaoBase {
+
+    // Sem Docker e sem -Dbibliotech.teste.jdbc-url as subclasses sao ignoradas (@EnabledIf nao passa para subclasses)
+    @BeforeAll
+    static void exigirBanco() {
+        BancoDeTeste.exigir(BancoDeTeste.disponivel());
+    }
+
+    @DynamicPropertySource
+    static void banco(DynamicPropertyRegistry registry) {
+        BancoDeTeste.registrar(registry);
+    }
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TokenService tokenService;
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Value("${DB_SCHEMA_NAME}")
+    private String schema;
+
+    @AfterEach
+    void limparAutenticacao() {
+        SecurityContextHolder.clearContext();
+    }
+
+    protected Integer criarLivro() {
+        String isbn = String.valueOf(ThreadLocalRandom.current().nextLong(1_000_000_000_000L, 10_000_000_000_000L));
+        return inserir("INSERT INTO {h-schema}livro (isbn, titulo) VALUES (?, ?) RETURNING id", isbn, "Livro " + isbn);
+    }
+
+    protected Integer criarSecao() {
+        return inserir("INSERT INTO {h-schema}secao (nome) VALUES (?) RETURNING id", "Secao " + unico());
+    }
+
+    protected Integer criarEstantePrateleira() {
+        return inserir("INSERT INTO {h-schema}estanteprateleira (estante, prateleira) VALUES ('A', ?) RETURNING id", unico());
+    }
+
+    protected Integer criarAluno() {
+        int numero = unico();
+        return inserir("INSERT INTO {h-schema}aluno (nome, email) VALUES (?, ?) RETURNING id",
+                "Aluno " + numero, "aluno" + numero + "@bibliotech.local");
+    }
+
+    protected Integer criarExemplar(Integer idLivro, Integer idSecao, Integer idEstantePrateleira, int numero) {
+        return inserir("INSERT INTO {h-schema}exemplar (id_livro, id_secao, id_estante_prateleira, numero) "
+                + "VALUES (?, ?, ?, ?) RETURNING id", idLivro, idSecao, idEstantePrateleira, numero);
+    }
+
+    protected Integer criarUsuario() {
+        int numero = unico();
+        return inserir("INSERT INTO {h-schema}usuario (nome, cargo, email, senha) VALUES (?, 'bibliotecario', ?, '-') RETURNING id",
+                "Usuario " + numero, "usuario" + numero + "@bibliotech.local");
+    }
+
+    // Autentica a thread corrente como o usuario, com um token valido (TokenService.getUsuarioId le o id dele).
+    // Cada thread de um teste concorrente precisa chamar de novo
+    protected void autenticar(Integer idUsuario) {
+        String token = tokenService.gerarToken(usuarioRepository.findById(idUsuario).orElseThrow());
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(idUsuario, token));
+    }
+
+    // Inteiro positivo para nomes e numeros que nao podem se repetir entre testes
+    protected int unico() {
+        return ThreadLocalRandom.current().nextInt(1, Integer.MAX_VALUE);
+    }
+
+    // {h-schema} na consulta vira o schema da aplicacao, como nas consultas nativas dos repositorios
+    protected Integer inserir(String sql, Object... parametros) {
+        return jdbcTemplate.queryForObject(sql.replace("{h-schema}", schema + "."), Integer.class, parametros);
+    }
+
+    protected String tabela(String nome) {
+        return schema + "." + nome;
+    }
+}
@@ -0,0 +1,110 @@
+package com.bibliotech.bibliotech.configuration;
+
+import com.bibliotech.bibliotech.BancoDeTeste;
+import com.bibliotech.bibliotech.dtos.request.TurmaRequestDTO;
+import com.bibliotech.bibliotech.models.Turma;
+import com.bibliotech.bibliotech.repositories.TurmaRepository;
+import com.bibliotech.bibliotech.services.TurmasService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Roteamento entre o banco principal e o standby: transacoes readOnly usam o pool bibliotech-replica e o resto o
+// bibliotech-principal. O uso de cada pool e medido pelo timer hikaricp.connections.usage
+@SpringBootTest
+@ActiveProfiles("teste")
+class ReadReplicaRoutingDataSourceTest {
+
+    @BeforeAll
+    static void exigirBanco() {
+        BancoDeTeste.exigir(BancoDeTeste.disponivelComReplica());
+    }
+
+    @DynamicPropertySource
+    static void banco(DynamicPropertyRegistry registry) {
+        BancoDeTeste.registrarComReplica(registry);
+    }
+
+    @Autowired
+    private TurmasService turmasService;
+    @Autowired
+    private TurmaRepository turmaRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void transacaoSomenteLeituraVaiParaAReplica() {
+        long principal = usos("bibliotech-principal");
+        long replica = usos("bibliotech-replica");
+
+        turmasService.obterTurmasMaisLeitoras(LocalDate.now().minusYears(1), LocalDate.now(), null);
+
+        assertTrue(usos("bibliotech-replica") > replica);
+        assertEquals(principal, usos("bibliotech-principal"));
+        assertTrue(emRecuperacao(true));
+    }
+
+    @Test
+    void escritaVaiParaOPrincipal() throws InterruptedException {
+        long principal = usos("bibliotech-principal");
+        long replica = usos("bibliotech-replica");
+
+        TurmaRequestDTO dto = new TurmaRequestDTO();
+        dto.setSerie(1);
+        dto.setTurma("C");
+        dto.setAnoDeEntrada(ThreadLocalRandom.current().nextInt(10_000, 1_000_000));
+        Turma turma = turmasService.cadastrarTurma(dto);
+
+        assertTrue(usos("bibliotech-principal") > principal);
+        assertEquals(replica, usos("bibliotech-replica"));
+        assertFalse(emRecuperacao(false));
+
+        // o standby recebe a turma pelo WAL do principal
+        TransactionTemplate leitura = somenteLeitura(true);
+        boolean replicada = false;
+        for (int tentativa = 0; tentativa < 50 && !replicada; tentativa++) {
+            replicada = Boolean.TRUE.equals(leitura.execute(status -> turmaRepository.existsBySerieAndTurmaAndAnoDeEntrada(
+                    turma.getSerie(), turma.getTurma(), turma.getAnoDeEntrada())));
+            if (!replicada) {
+                Thread.sleep(100);
+            }
+        }
+        assertTrue(replicada);
+    }
+
+    private boolean emRecuperacao(boolean somenteLeitura) {
+        return Boolean.TRUE.equals(somenteLeitura(somenteLeitura).execute(status ->
+                jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class)));
+    }
+
+    private TransactionTemplate somenteLeitura(boolean somenteLeitura) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(somenteLeitura);
+        return template;
+    }
+
+    private long usos(String pool) {
+        Timer timer = meterRegistry.find("hikaricp.connections.usage").tag("pool", pool).timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -0,0 +1,204 @@
+package com.bibliotech.bibliotech.repositories;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.bibliotech.bibliotech.IntegracaoBase;
+import com.bibliotech.bibliotech.models.enums.SituacaoEmprestimo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Confere no EXPLAIN que as consultas mais frequentes dos repositorios continuam usando os indices da
+// V4__indices_consultas. Cada caso chama o metodo do repositorio; o SQL que o Hibernate gerou e os valores ligados a
+// ele saem dos logs org.hibernate.SQL e org.hibernate.orm.jdbc.bind e o plano e o do EXECUTE desse SQL com os mesmos
+// valores. Sem paginacao: o limite da pagina e ligado fora do log
+class IndicesConsultasTest extends IntegracaoBase {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Pattern LIGACAO = Pattern.compile("binding parameter \\((\\d+):[^)]*\\) <- \\[(.*)]", Pattern.DOTALL);
+
+    private record Consulta(String sql, List<String> valores) {
+    }
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+    @Autowired
+    private ExemplarRepository exemplarRepository;
+    @Autowired
+    private LivroRepository livroRepository;
+    @Autowired
+    private AutorRepository autorRepository;
+    @Autowired
+    private GeneroRepository generoRepository;
+    @Autowired
+    private FrequenciaAlunosRepository frequenciaAlunosRepository;
+    @Autowired
+    private OcorrenciaRepository ocorrenciaRepository;
+
+    static Stream<Arguments> consultas() {
+        LocalDate hoje = LocalDate.now();
+        return Stream.of(
+                caso("EmprestimoRepository.findBySituacaoAndDataPrazo", t ->
+                        t.emprestimoRepository.findBySituacaoAndDataPrazo(SituacaoEmprestimo.pendente, hoje.plusDays(1)),
+                        "emprestimo_abertos_idx"),
+                caso("EmprestimoRepository.findBySituacao", t ->
+                        t.emprestimoRepository.findBySituacao(SituacaoEmprestimo.atrasado), "emprestimo_abertos_idx"),
+                caso("EmprestimoRepository.findByAlunoIdAndDataEmprestimoBetween", t ->
+                        t.emprestimoRepository.findByAlunoIdAndDataEmprestimoBetween(1, hoje.minusDays(30), hoje,
+                                Pageable.unpaged()), "emprestimo_aluno_data_idx"),
+                caso("ExemplarRepository.existsByExemplarAndSituacaoPendenteOuAtrasado", t ->
+                        t.exemplarRepository.existsByExemplarAndSituacaoPendenteOuAtrasado(1), "emprestimo_exemplar_data_idx"),
+                caso("LivroRepository.findMaxNumeroExemplarEmprestado", t ->
+                        t.livroRepository.findMaxNumeroExemplarEmprestado(1), "exemplar_livro_situacao_idx"),
+                caso("AutorRepository.deleteAutoresSemLivros", t ->
+                        t.autorRepository.deleteAutoresSemLivros(), "livroautor_autor_idx"),
+                caso("GeneroRepository.deleteGenerosSemLivros", t ->
+                        t.generoRepository.deleteGenerosSemLivros(), "livrogenero_genero_idx"),
+                caso("FrequenciaAlunosRepository.buscarPorPeriodo", t ->
+                        t.frequenciaAlunosRepository.buscarPorPeriodo(hoje, hoje, Pageable.unpaged()),
+                        "frequenciaalunos_data_idx"),
+                caso("OcorrenciaRepository.findByPeriod", t ->
+                        t.ocorrenciaRepository.findByPeriod(hoje.minusDays(30), hoje), "ocorrencias_data_idx"));
+    }
+
+    private static Arguments caso(String nome, Consumer<IndicesConsultasTest> chamada, String indice) {
+        return Arguments.of(Named.of(nome, chamada), indice);
+    }
+
+    @ParameterizedTest
+    @MethodSource("consultas")
+    void consultaUsaOIndice(Consumer<IndicesConsultasTest> chamada, String indice) {
+        List<Consulta> consultas = capturar(chamada);
+        assertThat(consultas).isNotEmpty();
+        assertThat(indicesDoPlano(consultas.get(0))).contains(indice);
+    }
+
+    // Roda a chamada numa transacao desfeita no fim (as limpezas de orfaos apagam de verdade) e devolve os comandos
+    // que ela mandou ao banco, na ordem, com os valores ligados a cada um
+    private List<Consulta> capturar(Consumer<IndicesConsultasTest> chamada) {
+        Logger sql = (Logger) LoggerFactory.getLogger("org.hibernate.SQL");
+        Logger ligacoes = (Logger) LoggerFactory.getLogger("org.hibernate.orm.jdbc.bind");
+        Level nivelSql = sql.getLevel();
+        Level nivelLigacoes = ligacoes.getLevel();
+        ListAppender<ILoggingEvent> eventos = new ListAppender<>();
+        eventos.start();
+        sql.addAppender(eventos);
+        ligacoes.addAppender(eventos);
+        sql.setAdditive(false);
+        ligacoes.setAdditive(false);
+        sql.setLevel(Level.DEBUG);
+        ligacoes.setLevel(Level.TRACE);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                chamada.accept(this);
+                status.setRollbackOnly();
+            });
+        } finally {
+            sql.setLevel(nivelSql);
+            ligacoes.setLevel(nivelLigacoes);
+            sql.setAdditive(true);
+            ligacoes.setAdditive(true);
+            sql.detachAppender(eventos);
+            ligacoes.detachAppender(eventos);
+        }
+
+        String thread = Thread.currentThread().getName();
+        List<Consulta> consultas = new ArrayList<>();
+        for (ILoggingEvent evento : eventos.list) {
+            if (!evento.getThreadName().equals(thread)) {
+                continue;
+            }
+            if (evento.getLoggerName().equals(sql.getName())) {
+                consultas.add(new Consulta(evento.getFormattedMessage(), new ArrayList<>()));
+                continue;
+            }
+            Matcher ligacao = LIGACAO.matcher(evento.getFormattedMessage());
+            if (ligacao.matches() && !consultas.isEmpty()) {
+                List<String> valores = consultas.get(consultas.size() - 1).valores();
+                int posicao = Integer.parseInt(ligacao.group(1));
+                while (valores.size() < posicao) {
+                    valores.add(null);
+                }
+                valores.set(posicao - 1, ligacao.group(2).equals("null") ? null : ligacao.group(2));
+            }
+        }
+        return consultas;
+    }
+
+    // Indices lidos pelo plano, sem varredura sequencial na transacao (com as tabelas quase vazias do teste o
+    // planejador preferiria a varredura). Indices de particao voltam com o nome do indice da tabela mae, que e o
+    // criado pela migracao
+    private Set<String> indicesDoPlano(Consulta consulta) {
+        String nome = "indices_consultas_" + unico();
+        StringBuilder sql = new StringBuilder();
+        int parametros = 0;
+        for (char c : consulta.sql().toCharArray()) {
+            if (c == '?') {
+                sql.append('$').append(++parametros);
+            } else {
+                sql.append(c);
+            }
+        }
+        assertThat(consulta.valores()).as("valores ligados a %s", consulta.sql()).hasSize(parametros);
+        List<String> literais = consulta.valores().stream()
+                .map(valor -> valor == null ? "NULL" : "'" + valor.replace("'", "''") + "'")
+                .toList();
+
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            jdbcTemplate.execute("PREPARE " + nome + " AS " + sql);
+            String explain = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) EXECUTE " + nome
+                    + (literais.isEmpty() ? "" : "(" + String.join(", ", literais) + ")"), String.class);
+            jdbcTemplate.execute("DEALLOCATE " + nome);
+            JsonNode plano;
+            try {
+                plano = JSON.readTree(explain).get(0).get("Plan");
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+
+            List<String> indices = new ArrayList<>();
+            coletarIndices(plano, indices);
+            Set<String> raizes = new LinkedHashSet<>();
+            for (String indice : indices) {
+                raizes.add(jdbcTemplate.queryForList("SELECT c.relname FROM pg_class c "
+                                + "WHERE c.oid = COALESCE(pg_partition_root(to_regclass(?)), to_regclass(?))", String.class,
+                        tabela(indice), tabela(indice)).stream().findFirst().orElse(indice));
+            }
+            return raizes;
+        });
+    }
+
+    private void coletarIndices(JsonNode no, List<String> indices) {
+        if (no.has("Index Name")) {
+            indices.add(no.get("Index Name").asText());
+        }
+        for (JsonNode filho : no.path("Plans")) {
+            coletarIndices(filho, indices);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.IntegracaoBase;
+import com.bibliotech.bibliotech.dtos.request.PromocaoTurmaRequestDTO;
+import com.bibliotech.bibliotech.dtos.response.AnaliseFrequenciaPeriodoDTO;
+import com.bibliotech.bibliotech.dtos.response.AnaliseFrequenciaResponseDTO;
+import com.bibliotech.bibliotech.exception.ValidationException;
+import com.bibliotech.bibliotech.models.enums.AgrupamentoFrequencia;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Datas fixas de um ano encerrado; como o banco nao e limpo entre execucoes, as contagens conferidas sao as das
+// turmas criadas pelo teste, que tem ano de entrada unico
+class AnaliseFrequenciaServiceTest extends IntegracaoBase {
+
+    private static final LocalDate INICIO = LocalDate.of(2020, 1, 1);
+    private static final LocalDate FIM = LocalDate.of(2020, 12, 31);
+
+    @Autowired
+    private AnaliseFrequenciaService analiseFrequenciaService;
+    @Autowired
+    private TurmasService turmasService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private int anoDeEntrada;
+    private Integer idTurma;
+    private Integer idUsuario;
+
+    @BeforeEach
+    void prepararTurma() {
+        anoDeEntrada = unico();
+        idTurma = criarTurma(1);
+        idUsuario = criarUsuario();
+        Integer aluno = criarAlunoNaTurma(idTurma);
+        Integer outro = criarAlunoNaTurma(idTurma);
+        registrarFrequencia(aluno, LocalDate.of(2020, 1, 10));
+        registrarFrequencia(aluno, LocalDate.of(2020, 3, 15));
+        registrarFrequencia(outro, LocalDate.of(2020, 3, 15));
+        registrarFrequencia(outro, LocalDate.of(2020, 11, 30));
+    }
+
+    @Test
+    void mesesEncerradosForaDoCacheVemNumaConsultaSo() {
+        analiseFrequenciaService.invalidar();
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        long comandos = estatisticas.getPrepareStatementCount();
+        AnaliseFrequenciaResponseDTO analise = analiseFrequenciaService.analisar(INICIO, FIM, AgrupamentoFrequencia.dia);
+        // resumo dos doze meses e nomes das turmas
+        assertTrue(estatisticas.getPrepareStatementCount() - comandos <= 2,
+                "comandos preparados: " + (estatisticas.getPrepareStatementCount() - comandos));
+        assertEquals(Map.of(LocalDate.of(2020, 1, 10), 1L, LocalDate.of(2020, 3, 15), 2L,
+                LocalDate.of(2020, 11, 30), 1L), daTurma(analise, rotulo(1)));
+
+        // todos os meses ja no cache: so os nomes das turmas
+        comandos = estatisticas.getPrepareStatementCount();
+        analiseFrequenciaService.analisar(LocalDate.of(2020, 3, 1), LocalDate.of(2020, 3, 31), AgrupamentoFrequencia.dia);
+        assertTrue(estatisticas.getPrepareStatementCount() - comandos <= 1,
+                "comandos preparados: " + (estatisticas.getPrepareStatementCount() - comandos));
+    }
+
+    @Test
+    void intervaloMaiorQueOLimiteERecusado() {
+        assertThrows(ValidationException.class, () -> analiseFrequenciaService.analisar(
+                FIM.minusMonths(36).minusDays(1), FIM, AgrupamentoFrequencia.dia));
+        analiseFrequenciaService.analisar(FIM.minusMonths(36), FIM, AgrupamentoFrequencia.dia);
+    }
+
+    @Test
+    void promocaoDeTurmaInvalidaOsMesesEmCache() {
+        Integer idDestino = criarTurma(2);
+        analiseFrequenciaService.analisar(INICIO, FIM, AgrupamentoFrequencia.dia);
+
+        PromocaoTurmaRequestDTO promocao = new PromocaoTurmaRequestDTO();
+        promocao.setIdTurmaOrigem(idTurma);
+        promocao.setIdTurmaDestino(idDestino);
+        turmasService.promoverTurmas(List.of(promocao));
+
+        AnaliseFrequenciaResponseDTO analise = analiseFrequenciaService.analisar(INICIO, FIM, AgrupamentoFrequencia.dia);
+        assertEquals(Map.of(), daTurma(analise, rotulo(1)));
+        assertEquals(3, daTurma(analise, rotulo(2)).size());
+    }
+
+    private Integer criarTurma(int serie) {
+        return inserir("INSERT INTO {h-schema}turma (serie, turma, ano_de_entrada) VALUES (?, 'A', ?) RETURNING id",
+                serie, anoDeEntrada);
+    }
+
+    private Integer criarAlunoNaTurma(Integer turma) {
+        Integer aluno = criarAluno();
+        jdbcTemplate.update("UPDATE " + tabela("aluno") + " SET id_turma = ? WHERE id = ?", turma, aluno);
+        return aluno;
+    }
+
+    private void registrarFrequencia(Integer aluno, LocalDate data) {
+        jdbcTemplate.update("INSERT INTO " + tabela("frequenciaalunos") + " (id_aluno, registrada_por, atividade, "
+                + "data_frequencia) VALUES (?, ?, 'lendo', ?)", aluno, idUsuario, data);
+    }
+
+    private String rotulo(int serie) {
+        return serie + "º A - " + anoDeEntrada;
+    }
+
+    // dia -> frequencias da turma
+    private Map<LocalDate, Long> daTurma(AnaliseFrequenciaResponseDTO analise, String turma) {
+        return analise.getPeriodos().stream().filter(periodo -> periodo.getPorTurma().containsKey(turma))
+                .collect(Collectors.toMap(AnaliseFrequenciaPeriodoDTO::getInicio, periodo -> periodo.getPorTurma().get(turma)));
+    }
+}
@@ -0,0 +1,91 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.IntegracaoBase;
+import com.bibliotech.bibliotech.dtos.response.EstadoEmprestimoDTO;
+import com.bibliotech.bibliotech.dtos.response.HistoricoEmprestimoDTO;
+import com.bibliotech.bibliotech.models.enums.SituacaoEmprestimo;
+import com.bibliotech.bibliotech.repositories.ContadorEmprestimosRepository;
+import com.bibliotech.bibliotech.repositories.ParticoesAnuaisRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Ano de emprestimo arquivado em arquivo: a particao sai do banco, mas os extravios continuam contando na
+// reconciliacao e o historico do emprestimo continua consultavel por emprestimo_evento
+class ArquivamentoServiceTest extends IntegracaoBase {
+
+    private static final int ANO = 2020;
+
+    @Autowired
+    private ArquivamentoService arquivamentoService;
+    @Autowired
+    private ParticoesAnuaisRepository particoesAnuaisRepository;
+    @Autowired
+    private ContadorEmprestimosRepository contadorEmprestimosRepository;
+    @Autowired
+    private HistoricoEmprestimosService historicoEmprestimosService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void anoArquivadoMantemExtraviosEHistorico(@TempDir Path diretorio) {
+        Integer idAluno = criarAluno();
+        Integer idUsuario = criarUsuario();
+        Integer idExemplar = criarExemplar(criarLivro(), criarSecao(), criarEstantePrateleira(), 1);
+        transactionTemplate.executeWithoutResult(status ->
+                particoesAnuaisRepository.criarParticao("emprestimo", "data_emprestimo", ANO));
+
+        Integer idEmprestimo = inserir("INSERT INTO {h-schema}emprestimo (id_aluno, id_exemplar, data_emprestimo, data_prazo,"
+                        + " data_conclusao, situacao, realizado_por) VALUES (?, ?, ?, ?, ?, 'extraviado', ?) RETURNING id",
+                idAluno, idExemplar, LocalDate.of(ANO, 3, 2), LocalDate.of(ANO, 3, 16), LocalDate.of(ANO, 3, 20), idUsuario);
+        registrarEvento(idEmprestimo, idAluno, idExemplar, "realizado", "pendente", null, "2020-03-02 10:00");
+        registrarEvento(idEmprestimo, idAluno, idExemplar, "extraviado", "extraviado", LocalDate.of(ANO, 3, 20), "2020-03-20 10:00");
+        contadorEmprestimosRepository.ajustar(idAluno, 0, 0, 1);
+
+        ReflectionTestUtils.setField(arquivamentoService, "diretorio", diretorio.toString());
+        try {
+            arquivamentoService.arquivar();
+        } finally {
+            ReflectionTestUtils.setField(arquivamentoService, "diretorio", "");
+        }
+
+        assertTrue(Files.exists(diretorio.resolve("emprestimo_" + ANO + ".csv.gz")));
+        assertNull(jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class, tabela("emprestimo_" + ANO)));
+
+        contadorEmprestimosRepository.reconciliar();
+        assertEquals(Map.of("extravios", 1, "extravios_arquivados", 1), jdbcTemplate.queryForMap(
+                "SELECT extravios, extravios_arquivados FROM " + tabela("contadoremprestimos") + " WHERE id_aluno = ?", idAluno));
+        assertEquals("irregular", jdbcTemplate.queryForObject(
+                "SELECT situacao::text FROM " + tabela("aluno") + " WHERE id = ?", String.class, idAluno));
+
+        assertEquals(List.of("realizado", "extraviado"), historicoEmprestimosService.listarHistorico(idEmprestimo).stream()
+                .map(HistoricoEmprestimoDTO::getTipo).toList());
+        assertEquals(SituacaoEmprestimo.pendente,
+                historicoEmprestimosService.consultarEstado(idEmprestimo, LocalDate.of(ANO, 3, 10)).getSituacao());
+        List<EstadoEmprestimoDTO> doAluno = historicoEmprestimosService.consultarEstadoDoAluno(idAluno, LocalDate.of(ANO, 3, 20));
+        assertEquals(1, doAluno.size());
+        assertEquals(SituacaoEmprestimo.extraviado, doAluno.get(0).getSituacao());
+        assertEquals(List.of(), historicoEmprestimosService.consultarEstadoDoAluno(idAluno, LocalDate.of(ANO, 3, 21)));
+    }
+
+    private void registrarEvento(Integer idEmprestimo, Integer idAluno, Integer idExemplar, String tipo, String situacao,
+                                 LocalDate dataConclusao, String dataEvento) {
+        jdbcTemplate.update("INSERT INTO " + tabela("emprestimo_evento") + " (id_emprestimo, tipo, id_aluno, id_exemplar,"
+                        + " data_emprestimo, data_prazo, qtd_renovacao, situacao, data_conclusao, data_evento)"
+                        + " VALUES (?, ?, ?, ?, ?, ?, 0, CAST(? AS " + tabela("situacao_emprestimo") + "), ?, CAST(? AS timestamp))",
+                idEmprestimo, tipo, idAluno, idExemplar, LocalDate.of(ANO, 3, 2), LocalDate.of(ANO, 3, 16), situacao,
+                dataConclusao, dataEvento);
+    }
+}
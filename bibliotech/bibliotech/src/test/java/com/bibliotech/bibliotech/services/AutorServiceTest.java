@@ -0,0 +1,110 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.IntegracaoBase;
+import com.bibliotech.bibliotech.models.Autor;
+import com.bibliotech.bibliotech.repositories.LivroRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Autores reaproveitados do dicionario contra a limpeza de orfaos
+class AutorServiceTest extends IntegracaoBase {
+
+    @Autowired
+    private AutorService autorService;
+    @Autowired
+    private LivroRepository livroRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void limpezaPulaOAutorTravadoPorUmCadastroEmAndamento() throws Exception {
+        String nome = "Autor " + unico();
+        Integer idAutor = autorService.resolverIdAutor(nome);
+        Integer idLivro = criarLivro();
+
+        CountDownLatch vinculado = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<?> cadastro = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                autorService.cadastrarAutores(List.of(autor(nome)), livroRepository.getReferenceById(idLivro));
+                vinculado.countDown();
+                aguardar(liberar);
+            }));
+            try {
+                assertTrue(vinculado.await(30, TimeUnit.SECONDS));
+                // o autor ainda parece orfao para a limpeza, mas esta travado: ela nao espera o cadastro nem o apaga
+                executor.submit(autorService::removerAutoresSemLivros).get(30, TimeUnit.SECONDS);
+            } finally {
+                liberar.countDown();
+            }
+            cadastro.get(30, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, vinculos(idAutor, idLivro));
+        // depois do commit o autor tem livro e a proxima rodada tambem o mantem
+        autorService.removerAutoresSemLivros();
+        assertEquals(1, vinculos(idAutor, idLivro));
+        assertEquals(idAutor, autorService.resolverIdAutor(nome));
+    }
+
+    @Test
+    void autorApagadoDepoisDeEntrarNoDicionarioEResolvidoDeNovo() {
+        String nome = "Autor " + unico();
+        Integer idAntigo = autorService.resolverIdAutor(nome);
+        jdbcTemplate.update("DELETE FROM " + tabela("autor") + " WHERE id = ?", idAntigo);
+        Integer idLivro = criarLivro();
+
+        List<Autor> autores = transactionTemplate.execute(status ->
+                autorService.cadastrarAutores(List.of(autor(nome)), livroRepository.getReferenceById(idLivro)));
+
+        Integer idNovo = autores.get(0).getId();
+        assertNotEquals(idAntigo, idNovo);
+        assertEquals(1, vinculos(idNovo, idLivro));
+        assertEquals(idNovo, autorService.resolverIdAutor(nome));
+    }
+
+    @Test
+    void autorComLivroNaoPodeSerApagado() {
+        String nome = "Autor " + unico();
+        Integer idLivro = criarLivro();
+        Integer idAutor = transactionTemplate.execute(status -> autorService.cadastrarAutores(List.of(autor(nome)),
+                livroRepository.getReferenceById(idLivro)).get(0).getId());
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("DELETE FROM " + tabela("autor") + " WHERE id = ?", idAutor));
+        assertEquals(1, vinculos(idAutor, idLivro));
+    }
+
+    private Autor autor(String nome) {
+        Autor autor = new Autor();
+        autor.setNome(nome);
+        return autor;
+    }
+
+    private int vinculos(Integer idAutor, Integer idLivro) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + tabela("livroautor")
+                + " WHERE id_autor = ? AND id_livro = ?", Integer.class, idAutor, idLivro);
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
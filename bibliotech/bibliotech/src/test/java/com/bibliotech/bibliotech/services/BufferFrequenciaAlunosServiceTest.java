@@ -0,0 +1,117 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.IntegracaoBase;
+import com.bibliotech.bibliotech.dtos.request.FrequenciaAlunosLoteItemDTO;
+import com.bibliotech.bibliotech.exception.ValidationException;
+import com.bibliotech.bibliotech.models.enums.AtividadeFrequencia;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(OutputCaptureExtension.class)
+class BufferFrequenciaAlunosServiceTest extends IntegracaoBase {
+
+    private static final LocalTime HORA = LocalTime.of(9, 30);
+
+    @Autowired
+    private BufferFrequenciaAlunosService bufferFrequenciaAlunosService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Integer idUsuario;
+    private LocalDate hoje;
+
+    @BeforeEach
+    void prepararUsuario() {
+        idUsuario = criarUsuario();
+        hoje = LocalDate.now();
+    }
+
+    @Test
+    void alunoRepetidoNoBufferFicaComAPrimeiraFrequencia() {
+        Integer aluno = criarAluno();
+
+        assertEquals(List.of(), bufferFrequenciaAlunosService.enfileirar(hoje, HORA, idUsuario,
+                List.of(item(aluno, AtividadeFrequencia.lendo))));
+        assertEquals(List.of(aluno), bufferFrequenciaAlunosService.enfileirar(hoje, HORA, idUsuario,
+                List.of(item(aluno, AtividadeFrequencia.descansando))));
+        bufferFrequenciaAlunosService.descarregar();
+
+        assertEquals(List.of("lendo"), atividades(aluno));
+    }
+
+    @Test
+    void alunoQueJaTinhaFrequenciaNoBancoFicaComADoBanco(CapturedOutput saida) {
+        Integer aluno = criarAluno();
+        Integer outro = criarAluno();
+        jdbcTemplate.update("INSERT INTO " + tabela("frequenciaalunos") + " (id_aluno, registrada_por, atividade, "
+                + "data_frequencia) VALUES (?, ?, 'outros', ?)", aluno, idUsuario, hoje);
+
+        bufferFrequenciaAlunosService.enfileirar(hoje, HORA, idUsuario,
+                List.of(item(aluno, AtividadeFrequencia.lendo), item(outro, AtividadeFrequencia.lendo)));
+        bufferFrequenciaAlunosService.descarregar();
+
+        assertEquals(List.of("outros"), atividades(aluno));
+        assertEquals(List.of("lendo"), atividades(outro));
+        assertTrue(saida.getOut().contains("Frequência do aluno " + aluno + " em " + hoje + " ignorada"));
+    }
+
+    @Test
+    void alunoRemovidoAntesDaDescargaEDescartadoSemPerderOsOutros(CapturedOutput saida) {
+        Integer removido = criarAluno();
+        Integer aluno = criarAluno();
+        double descartadas = meterRegistry.counter("bibliotech.frequencia.buffer.descartadas").count();
+
+        bufferFrequenciaAlunosService.enfileirar(hoje, HORA, idUsuario,
+                List.of(item(removido, AtividadeFrequencia.lendo), item(aluno, AtividadeFrequencia.lendo)));
+        jdbcTemplate.update("DELETE FROM " + tabela("aluno") + " WHERE id = ?", removido);
+        bufferFrequenciaAlunosService.descarregar();
+
+        assertEquals(List.of("lendo"), atividades(aluno));
+        assertEquals(descartadas + 1, meterRegistry.counter("bibliotech.frequencia.buffer.descartadas").count());
+        assertTrue(saida.getOut().contains("Frequência do aluno " + removido + " em " + hoje + " descartada"));
+    }
+
+    // encerrar e o @PreDestroy; depois dele o buffer nao aceita frequencias, entao o contexto e descartado
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void encerramentoGravaAsFrequenciasDoBuffer() {
+        Integer aluno = criarAluno();
+        Integer outro = criarAluno();
+        bufferFrequenciaAlunosService.enfileirar(hoje, HORA, idUsuario,
+                List.of(item(aluno, AtividadeFrequencia.lendo), item(outro, AtividadeFrequencia.celula_de_estudo)));
+        assertEquals(List.of(), atividades(aluno));
+
+        bufferFrequenciaAlunosService.encerrar();
+
+        assertEquals(List.of("lendo"), atividades(aluno));
+        assertEquals(List.of("celula_de_estudo"), atividades(outro));
+        assertThrows(ValidationException.class, () -> bufferFrequenciaAlunosService.enfileirar(hoje, HORA, idUsuario,
+                List.of(item(criarAluno(), AtividadeFrequencia.lendo))));
+    }
+
+    private FrequenciaAlunosLoteItemDTO item(Integer idAluno, AtividadeFrequencia atividade) {
+        FrequenciaAlunosLoteItemDTO item = new FrequenciaAlunosLoteItemDTO();
+        item.setIdAluno(idAluno);
+        item.setAtividade(atividade);
+        return item;
+    }
+
+    private List<String> atividades(Integer idAluno) {
+        return jdbcTemplate.queryForList("SELECT atividade::text FROM " + tabela("frequenciaalunos")
+                + " WHERE id_aluno = ? AND data_frequencia = ?", String.class, idAluno, hoje);
+    }
+}
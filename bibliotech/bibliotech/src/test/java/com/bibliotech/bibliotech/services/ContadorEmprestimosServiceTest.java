@@ -0,0 +1,141 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.IntegracaoBase;
+import com.bibliotech.bibliotech.dtos.response.ContadorEmprestimosResponseDTO;
+import com.bibliotech.bibliotech.exception.ValidationException;
+import com.bibliotech.bibliotech.models.enums.SituacaoEmprestimo;
+import com.bibliotech.bibliotech.repositories.ContadorEmprestimosRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ContadorEmprestimosServiceTest extends IntegracaoBase {
+
+    @Autowired
+    private ContadorEmprestimosService contadorEmprestimosService;
+    @Autowired
+    private ContadorEmprestimosRepository contadorEmprestimosRepository;
+
+    @Test
+    void reservasSimultaneasNaoPassamDoLimite() throws Exception {
+        Integer idAluno = criarAluno();
+        int tentativas = 12;
+
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(tentativas);
+        int aceitas = 0;
+        try {
+            List<Future<?>> resultados = new ArrayList<>();
+            for (int i = 0; i < tentativas; i++) {
+                resultados.add(executor.submit(() -> {
+                    largada.await();
+                    contadorEmprestimosService.registrarNovoEmprestimo(idAluno);
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> resultado : resultados) {
+                try {
+                    resultado.get();
+                    aceitas++;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(ValidationException.class, e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int limite = contadorEmprestimosService.getLimitePadrao();
+        assertEquals(limite, aceitas);
+        assertEquals(limite, contadorEmprestimosService.getContador(idAluno).getEmprestimosAtivos());
+        assertEquals("debito", situacaoAluno(idAluno));
+    }
+
+    @Test
+    void limitePadraoZeroBloqueiaOPrimeiroEmprestimo() {
+        Integer idAluno = criarAluno();
+
+        assertEquals(0, contadorEmprestimosRepository.reservarEmprestimo(idAluno, 0));
+        assertFalse(contadorEmprestimosRepository.existsById(idAluno));
+        assertEquals("regular", situacaoAluno(idAluno));
+    }
+
+    @Test
+    void limiteProprioValeMesmoComLimitePadraoZero() {
+        Integer idAluno = criarAluno();
+        contadorEmprestimosService.definirLimite(idAluno, 1);
+
+        assertEquals(1, contadorEmprestimosRepository.reservarEmprestimo(idAluno, 0));
+        assertEquals(0, contadorEmprestimosRepository.reservarEmprestimo(idAluno, 0));
+        assertEquals(1, contadorEmprestimosService.getContador(idAluno).getEmprestimosAtivos());
+    }
+
+    @Test
+    void emprestimoAtrasadoBloqueiaNovasReservas() {
+        Integer idAluno = criarAluno();
+        contadorEmprestimosService.registrarNovoEmprestimo(idAluno);
+        contadorEmprestimosService.registrarTransicao(idAluno, SituacaoEmprestimo.pendente, SituacaoEmprestimo.atrasado);
+
+        ValidationException erro = assertThrows(ValidationException.class,
+                () -> contadorEmprestimosService.registrarNovoEmprestimo(idAluno));
+        assertEquals("O aluno possui empréstimos atrasados.", erro.getMessage());
+    }
+
+    @Test
+    void transicoesAtualizamContadorESituacaoDoAluno() {
+        Integer idAluno = criarAluno();
+        contadorEmprestimosService.registrarNovoEmprestimo(idAluno);
+        contadorEmprestimosService.registrarNovoEmprestimo(idAluno);
+
+        contadorEmprestimosService.registrarTransicao(idAluno, SituacaoEmprestimo.pendente, SituacaoEmprestimo.entregue);
+        assertContador(idAluno, 1, 0, 0);
+        assertEquals("debito", situacaoAluno(idAluno));
+
+        contadorEmprestimosService.registrarTransicao(idAluno, SituacaoEmprestimo.pendente, SituacaoEmprestimo.entregue);
+        assertContador(idAluno, 0, 0, 0);
+        assertEquals("regular", situacaoAluno(idAluno));
+
+        contadorEmprestimosService.registrarNovoEmprestimo(idAluno);
+        contadorEmprestimosService.registrarTransicao(idAluno, SituacaoEmprestimo.pendente, SituacaoEmprestimo.extraviado);
+        assertContador(idAluno, 0, 0, 1);
+        assertEquals("irregular", situacaoAluno(idAluno));
+    }
+
+    @Test
+    void reconciliacaoCorrigeContadorDivergente() {
+        Integer idAluno = criarAluno();
+        contadorEmprestimosService.registrarNovoEmprestimo(idAluno);
+        contadorEmprestimosService.registrarNovoEmprestimo(idAluno);
+
+        // nenhum emprestimo existe de fato para o aluno
+        contadorEmprestimosService.reconciliar();
+
+        assertContador(idAluno, 0, 0, 0);
+        assertEquals("regular", situacaoAluno(idAluno));
+    }
+
+    private void assertContador(Integer idAluno, int ativos, int atrasados, int extravios) {
+        ContadorEmprestimosResponseDTO contador = contadorEmprestimosService.getContador(idAluno);
+        assertEquals(ativos, contador.getEmprestimosAtivos());
+        assertEquals(atrasados, contador.getEmprestimosAtrasados());
+        assertEquals(extravios, contador.getExtravios());
+    }
+
+    private String situacaoAluno(Integer idAluno) {
+        return jdbcTemplate.queryForObject("SELECT situacao::text FROM " + tabela("aluno") + " WHERE id = ?",
+                String.class, idAluno);
+    }
+}
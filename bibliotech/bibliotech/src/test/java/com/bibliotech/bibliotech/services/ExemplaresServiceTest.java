@@ -0,0 +1,96 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.IntegracaoBase;
+import com.bibliotech.bibliotech.models.Estanteprateleira;
+import com.bibliotech.bibliotech.models.Exemplar;
+import com.bibliotech.bibliotech.models.Livro;
+import com.bibliotech.bibliotech.models.Secao;
+import com.bibliotech.bibliotech.repositories.EstantePrateleiraRepository;
+import com.bibliotech.bibliotech.repositories.LivroRepository;
+import com.bibliotech.bibliotech.repositories.SecaoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExemplaresServiceTest extends IntegracaoBase {
+
+    private static final int LOTE = 50;
+
+    @Autowired
+    private ExemplaresService exemplaresService;
+    @Autowired
+    private LivroRepository livroRepository;
+    @Autowired
+    private SecaoRepository secaoRepository;
+    @Autowired
+    private EstantePrateleiraRepository estantePrateleiraRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // 1000 exemplares: ids da sequence de 50 em 50 e inserts em lotes de hibernate.jdbc.batch_size. Sem os lotes seriam
+    // mais de 1000 comandos; com eles, um nextval e um INSERT em lote para cada 50 exemplares, mais a trava e o MAX
+    @Test
+    void cadastroDeMilExemplaresSaiEmLotes() {
+        Livro livro = livroRepository.findById(criarLivro()).orElseThrow();
+        Secao secao = secaoRepository.findById(criarSecao()).orElseThrow();
+        Estanteprateleira estante = estantePrateleiraRepository.findById(criarEstantePrateleira()).orElseThrow();
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long inseridos = estatisticas.getEntityInsertCount();
+        long comandos = estatisticas.getPrepareStatementCount();
+
+        List<Exemplar> exemplares = exemplaresService.cadastrarExemplares(livro, secao, estante, 1000);
+
+        assertEquals(1000, exemplares.size());
+        assertEquals(1000, estatisticas.getEntityInsertCount() - inseridos);
+        assertTrue(estatisticas.getPrepareStatementCount() - comandos <= 2 * (1000 / LOTE + 1) + 2,
+                "comandos preparados: " + (estatisticas.getPrepareStatementCount() - comandos));
+        assertEquals(1000, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + tabela("exemplar") + " WHERE id_livro = ?",
+                Integer.class, livro.getId()));
+    }
+
+    @Test
+    void cadastrosSimultaneosNaoRepetemNumero() throws Exception {
+        Livro livro = livroRepository.findById(criarLivro()).orElseThrow();
+        Secao secao = secaoRepository.findById(criarSecao()).orElseThrow();
+        Estanteprateleira estante = estantePrateleiraRepository.findById(criarEstantePrateleira()).orElseThrow();
+        int cadastros = 8;
+        int porCadastro = 25;
+
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(cadastros);
+        try {
+            List<Future<List<Exemplar>>> resultados = new ArrayList<>();
+            for (int i = 0; i < cadastros; i++) {
+                Callable<List<Exemplar>> cadastro = () -> {
+                    largada.await();
+                    return exemplaresService.cadastrarExemplares(livro, secao, estante, porCadastro);
+                };
+                resultados.add(executor.submit(cadastro));
+            }
+            largada.countDown();
+            for (Future<List<Exemplar>> resultado : resultados) {
+                assertEquals(porCadastro, resultado.get().size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Integer> numeros = jdbcTemplate.queryForList("SELECT numero FROM " + tabela("exemplar")
+                + " WHERE id_livro = ? ORDER BY numero", Integer.class, livro.getId());
+        assertEquals(IntStream.rangeClosed(1, cadastros * porCadastro).boxed().toList(), numeros);
+    }
+}
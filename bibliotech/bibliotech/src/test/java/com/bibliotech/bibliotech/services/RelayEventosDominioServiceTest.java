@@ -0,0 +1,130 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.IntegracaoBase;
+import com.bibliotech.bibliotech.models.EventoDominio;
+import com.bibliotech.bibliotech.repositories.EventoDominioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(OutputCaptureExtension.class)
+class RelayEventosDominioServiceTest extends IntegracaoBase {
+
+    @TestConfiguration
+    static class Configuracao {
+        @Bean
+        OuvinteEventos ouvinteEventos() {
+            return new OuvinteEventos();
+        }
+    }
+
+    // Guarda os ids entregues e falha nos eventos do tipoComFalha
+    static class OuvinteEventos {
+        private final List<Long> recebidos = new CopyOnWriteArrayList<>();
+        private volatile String tipoComFalha;
+
+        @EventListener
+        public void receber(EventoDominio evento) {
+            if (evento.getTipo().equals(tipoComFalha)) {
+                throw new IllegalStateException("Falha do ouvinte de teste");
+            }
+            recebidos.add(evento.getId());
+        }
+    }
+
+    @Autowired
+    private RelayEventosDominioService relayEventosDominioService;
+    @Autowired
+    private EventoDominioRepository eventoDominioRepository;
+    @Autowired
+    private OuvinteEventos ouvinte;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void limparOuvinte() {
+        ouvinte.tipoComFalha = null;
+    }
+
+    @Test
+    void entregaOsEventosNaOrdemDeGravacao() {
+        List<Long> eventos = List.of(registrar("teste.ordem"), registrar("teste.ordem"), registrar("teste.ordem"));
+
+        relayEventosDominioService.publicarPendentes();
+
+        assertEquals(eventos, ouvinte.recebidos.stream().filter(eventos::contains).toList());
+    }
+
+    @Test
+    void falhaDoOuvinteSeguraAFilaEFicaNoLog(CapturedOutput saida) {
+        Long antes = registrar("teste.antes");
+        Long comFalha = registrar("teste.falha." + unico());
+        Long depois = registrar("teste.depois");
+        ouvinte.tipoComFalha = tipo(comFalha);
+        double falhas = falhas(tipo(comFalha));
+
+        relayEventosDominioService.publicarPendentes();
+
+        assertTrue(ouvinte.recebidos.contains(antes));
+        assertFalse(ouvinte.recebidos.contains(comFalha));
+        assertFalse(ouvinte.recebidos.contains(depois));
+        assertEquals(falhas + 1, falhas(tipo(comFalha)));
+        assertTrue(saida.getOut().contains("Falha ao entregar o evento " + comFalha + " (" + tipo(comFalha) + ","),
+                "falha sem registro no log");
+        assertTrue(saida.getOut().contains("Falha do ouvinte de teste"));
+
+        // o ouvinte voltou: a fila anda a partir do evento que falhou
+        ouvinte.tipoComFalha = null;
+        relayEventosDominioService.publicarPendentes();
+
+        List<Long> recebidos = ouvinte.recebidos;
+        assertTrue(recebidos.indexOf(comFalha) >= 0 && recebidos.indexOf(comFalha) < recebidos.indexOf(depois));
+    }
+
+    @Test
+    void limpezaApagaSoOsEventosJaEntregues() {
+        Long entregue = registrar("teste.entregue");
+        Long pendente = registrar("teste.pendente." + unico());
+        ouvinte.tipoComFalha = tipo(pendente);
+        relayEventosDominioService.publicarPendentes();
+
+        assertTrue(relayEventosDominioService.removerEntregues() >= 1);
+
+        assertTrue(eventoDominioRepository.findById(entregue).isEmpty());
+        assertTrue(eventoDominioRepository.findById(pendente).isPresent());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + tabela("eventodominio") + " e JOIN "
+                + tabela("checkpointrelay") + " c ON c.nome = 'eventos-dominio' "
+                + "WHERE (e.transacao, e.id) <= (c.ultima_transacao, c.ultimo_id)", Integer.class));
+    }
+
+    // Cada evento numa transacao propria, como as transicoes de emprestimo; devolve o id gravado
+    private Long registrar(String tipo) {
+        eventoDominioRepository.registrar(tipo, 1, 1, 1, 1, "pendente", "entregue", LocalDate.now());
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + tabela("eventodominio") + " WHERE tipo = ?", Long.class, tipo);
+    }
+
+    private String tipo(Long idEvento) {
+        return eventoDominioRepository.findById(idEvento).orElseThrow().getTipo();
+    }
+
+    private double falhas(String tipo) {
+        Counter contador = meterRegistry.find("bibliotech.outbox.falhas").tag("tipo", tipo).counter();
+        return contador == null ? 0 : contador.count();
+    }
+}
@@ -0,0 +1,185 @@
+package com.bibliotech.bibliotech.services;
+
+import com.bibliotech.bibliotech.IntegracaoBase;
+import com.bibliotech.bibliotech.dtos.request.EmprestimoRequestDTO;
+import com.bibliotech.bibliotech.dtos.request.EmprestimoRequestDTOConcluir;
+import com.bibliotech.bibliotech.dtos.request.ReservaRequestDTO;
+import com.bibliotech.bibliotech.dtos.response.ReservaResponseDTO;
+import com.bibliotech.bibliotech.exception.ValidationException;
+import com.bibliotech.bibliotech.models.enums.SituacaoReserva;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Fila de reservas com devolucoes simultaneas: cada exemplar devolvido vai para uma reserva diferente
+// (ReservaRepository.atribuirProxima com SKIP LOCKED) e nenhum exemplar e separado duas vezes
+class ReservasServiceTest extends IntegracaoBase {
+
+    @Autowired
+    private EmprestimosService emprestimosService;
+    @Autowired
+    private ReservasService reservasService;
+
+    private Integer idUsuario;
+    private Integer idLivro;
+    private Integer idSecao;
+    private Integer idEstantePrateleira;
+
+    @BeforeEach
+    void prepararLivro() {
+        idUsuario = criarUsuario();
+        idLivro = criarLivro();
+        idSecao = criarSecao();
+        idEstantePrateleira = criarEstantePrateleira();
+        autenticar(idUsuario);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"6, 4", "4, 4", "3, 7"})
+    void devolucoesSimultaneasAtendemReservasDiferentes(int exemplares, int reservas) throws Exception {
+        List<Integer> emprestimos = new ArrayList<>();
+        for (int numero = 1; numero <= exemplares; numero++) {
+            emprestimos.add(emprestar(criarAluno(), criarExemplar(idLivro, idSecao, idEstantePrateleira, numero)));
+        }
+        for (int i = 0; i < reservas; i++) {
+            reservar(criarAluno());
+        }
+
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(exemplares);
+        try {
+            List<Future<String>> devolucoes = new ArrayList<>();
+            for (Integer idEmprestimo : emprestimos) {
+                devolucoes.add(executor.submit(() -> {
+                    autenticar(idUsuario);
+                    largada.await();
+                    return emprestimosService.concluirEmprestimo(idEmprestimo, new EmprestimoRequestDTOConcluir());
+                }));
+            }
+            largada.countDown();
+            for (Future<String> devolucao : devolucoes) {
+                assertEquals("Emprestimo concluido com sucesso.", devolucao.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int atendidas = Math.min(exemplares, reservas);
+        List<Integer> separados = jdbcTemplate.queryForList("SELECT id_exemplar FROM " + tabela("reserva")
+                + " WHERE id_livro = ? AND situacao = 'disponivel'", Integer.class, idLivro);
+        assertEquals(atendidas, separados.size());
+        assertEquals(atendidas, new HashSet<>(separados).size(), "exemplar separado para mais de uma reserva");
+        assertEquals(reservas - atendidas, contarReservas(SituacaoReserva.aguardando));
+
+        Map<String, Integer> situacoes = situacoesDosExemplares();
+        assertEquals(atendidas, situacoes.getOrDefault("reservado", 0));
+        assertEquals(exemplares - atendidas, situacoes.getOrDefault("disponivel", 0));
+        List<Integer> reservados = jdbcTemplate.queryForList("SELECT id FROM " + tabela("exemplar")
+                + " WHERE id_livro = ? AND situacao = 'reservado'", Integer.class, idLivro);
+        assertEquals(new HashSet<>(reservados), new HashSet<>(separados));
+    }
+
+    @Test
+    void cancelarEmprestimoExtraviadoNaoEntregaOExemplarAFila() {
+        Integer idEmprestimo = emprestar(criarAluno(), criarExemplar(idLivro, idSecao, idEstantePrateleira, 1));
+        reservar(criarAluno());
+        EmprestimoRequestDTOConcluir extravio = new EmprestimoRequestDTOConcluir();
+        extravio.setExtraviado(true);
+        emprestimosService.concluirEmprestimo(idEmprestimo, extravio);
+
+        ValidationException erro = assertThrows(ValidationException.class, () -> emprestimosService.cancelarEmprestimo(idEmprestimo));
+        assertEquals("Emprestimo ja concluido.", erro.getMessage());
+        assertEquals(1, contarReservas(SituacaoReserva.aguardando));
+        assertEquals(Map.of("extraviado", 1), situacoesDosExemplares());
+    }
+
+    @Test
+    void cancelarEmprestimoEntregueNaoLiberaExemplarSeparado() {
+        Integer idEmprestimo = emprestar(criarAluno(), criarExemplar(idLivro, idSecao, idEstantePrateleira, 1));
+        emprestar(criarAluno(), criarExemplar(idLivro, idSecao, idEstantePrateleira, 2));
+        reservar(criarAluno());
+        emprestimosService.concluirEmprestimo(idEmprestimo, new EmprestimoRequestDTOConcluir());
+        assertEquals(1, contarReservas(SituacaoReserva.disponivel));
+
+        assertThrows(ValidationException.class, () -> emprestimosService.cancelarEmprestimo(idEmprestimo));
+        assertEquals(1, contarReservas(SituacaoReserva.disponivel));
+        assertEquals(Map.of("reservado", 1, "emprestado", 1), situacoesDosExemplares());
+    }
+
+    @Test
+    void cancelarEmprestimoAbertoEntregaOExemplarAFila() {
+        Integer idEmprestimo = emprestar(criarAluno(), criarExemplar(idLivro, idSecao, idEstantePrateleira, 1));
+        reservar(criarAluno());
+
+        assertEquals("Emprestimo cancelado com sucesso.", emprestimosService.cancelarEmprestimo(idEmprestimo));
+        assertEquals(1, contarReservas(SituacaoReserva.disponivel));
+        assertEquals(Map.of("reservado", 1), situacoesDosExemplares());
+        assertThrows(ValidationException.class, () -> emprestimosService.cancelarEmprestimo(idEmprestimo));
+    }
+
+    @Test
+    void reservasDoAlunoTrazemAPosicaoEmCadaFila() {
+        Integer idOutroLivro = criarLivro();
+        emprestar(criarAluno(), criarExemplar(idLivro, idSecao, idEstantePrateleira, 1));
+        emprestar(criarAluno(), criarExemplar(idOutroLivro, idSecao, idEstantePrateleira, 1));
+        Integer idAluno = criarAluno();
+        reservar(criarAluno(), idLivro);
+        reservar(idAluno, idLivro);
+        reservar(idAluno, idOutroLivro);
+        reservar(criarAluno(), idOutroLivro);
+
+        Map<Integer, Long> posicoes = new HashMap<>();
+        for (ReservaResponseDTO reserva : reservasService.listarReservasDoAluno(idAluno)) {
+            assertEquals(SituacaoReserva.aguardando, reserva.getSituacao());
+            posicoes.put(reserva.getIdLivro(), reserva.getPosicao());
+        }
+        assertEquals(Map.of(idLivro, 2L, idOutroLivro, 1L), posicoes);
+    }
+
+    private Integer emprestar(Integer idAluno, Integer idExemplar) {
+        EmprestimoRequestDTO dto = new EmprestimoRequestDTO();
+        dto.setIdAluno(idAluno);
+        dto.setIdExemplar(idExemplar);
+        return emprestimosService.realizarEmprestimo(dto).getId();
+    }
+
+    private void reservar(Integer idAluno) {
+        reservar(idAluno, idLivro);
+    }
+
+    private void reservar(Integer idAluno, Integer idLivro) {
+        ReservaRequestDTO dto = new ReservaRequestDTO();
+        dto.setIdAluno(idAluno);
+        dto.setIdLivro(idLivro);
+        reservasService.reservar(dto);
+    }
+
+    private int contarReservas(SituacaoReserva situacao) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + tabela("reserva") + " WHERE id_livro = ? AND situacao::text = ?",
+                Integer.class, idLivro, situacao.name());
+    }
+
+    private Map<String, Integer> situacoesDosExemplares() {
+        Map<String, Integer> situacoes = new HashMap<>();
+        jdbcTemplate.query("SELECT situacao::text, COUNT(*) FROM " + tabela("exemplar") + " WHERE id_livro = ? GROUP BY situacao",
+                linha -> {
+                    situacoes.put(linha.getString(1), linha.getInt(2));
+                }, idLivro);
+        return situacoes;
+    }
+}
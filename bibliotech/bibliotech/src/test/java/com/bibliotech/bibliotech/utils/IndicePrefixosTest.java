@@ -0,0 +1,113 @@
+package com.bibliotech.bibliotech.utils;
+
+import com.bibliotech.bibliotech.dtos.response.AutocompletarResponseDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IndicePrefixosTest {
+
+    private IndicePrefixos indice;
+
+    @BeforeEach
+    void carregar() {
+        indice = new IndicePrefixos();
+        indice.recarregar(List.of(
+                new AutocompletarResponseDTO(1, "Isaac Asimov", 5L),
+                new AutocompletarResponseDTO(2, "Arthur C. Clarke", 8L),
+                new AutocompletarResponseDTO(3, "Ana Maria Machado", 8L),
+                new AutocompletarResponseDTO(4, "Álvares de Azevedo", 2L),
+                new AutocompletarResponseDTO(5, "Maria Mariana", 1L)));
+    }
+
+    @Test
+    void prefixoOrdenaPorQuantidadeDeLivrosEDepoisPeloNome() {
+        assertEquals(List.of(3, 2, 1, 4), ids(indice.buscar("a", 10)));
+        assertEquals(List.of(3, 2), ids(indice.buscar("a", 2)));
+        assertEquals(List.of(3, 2, 1, 4, 5), ids(indice.buscar("", 10)));
+    }
+
+    @Test
+    void prefixoCasaComQualquerPalavraSemAcentoNemCaixa() {
+        assertEquals(List.of(1), ids(indice.buscar("AS", 10)));
+        assertEquals(List.of(2), ids(indice.buscar("clarke", 10)));
+        assertEquals(List.of(4), ids(indice.buscar("alva", 10)));
+        assertEquals(List.of(), ids(indice.buscar("zz", 10)));
+    }
+
+    @Test
+    void itemComDuasChavesNaFaixaApareceUmaVez() {
+        assertEquals(List.of(3, 5), ids(indice.buscar("mari", 10)));
+    }
+
+    @Test
+    void pendentesEntramNaBuscaComOsDoVetor() {
+        indice.adicionar(6, "Arnaldo Antunes", 9);
+        indice.adicionar(6, "Repetido", 0);
+
+        assertEquals(2, indice.estatisticas().getPendentes());
+        assertEquals(List.of(6, 3, 2), ids(indice.buscar("a", 3)));
+        assertEquals(List.of(6), ids(indice.buscar("antunes", 10)));
+        assertEquals(List.of(), ids(indice.buscar("repetido", 10)));
+    }
+
+    @Test
+    void pendentesSaoIntercaladosAoVetorQuandoAListaEnche() {
+        int chavesAntes = indice.estatisticas().getChaves();
+        for (int id = 100; id < 400; id++) {
+            indice.adicionar(id, "Autor" + id, id);
+        }
+
+        IndicePrefixos.Estatisticas estatisticas = indice.estatisticas();
+        assertEquals(305, estatisticas.getItens());
+        // intercalou ao passar de 256 pendentes; os que vieram depois estao na lista nova
+        assertEquals(300 + chavesAntes, estatisticas.getChaves() + estatisticas.getPendentes());
+        assertEquals(300 - 257, estatisticas.getPendentes());
+        assertEquals(List.of(399, 398, 397), ids(indice.buscar("autor", 3)));
+        assertEquals(List.of(150), ids(indice.buscar("autor150", 10)));
+    }
+
+    @Test
+    void ajusteDeQuantidadeMudaORanking() {
+        indice.ajustarQuantidade(List.of(4, 5), 10);
+        assertEquals(List.of(4, 3, 2, 1), ids(indice.buscar("a", 10)));
+        assertEquals(12L, indice.buscar("alvares", 1).get(0).getQtdLivros());
+
+        indice.ajustarQuantidade(Set.of(4), -11);
+        indice.ajustarQuantidade(Set.of(99), 50);
+        assertEquals(List.of(3, 2, 1, 4), ids(indice.buscar("a", 10)));
+        assertEquals(List.of(5, 3), ids(indice.buscar("mari", 10)));
+    }
+
+    @Test
+    void ajusteDeQuantidadeValeParaPendentes() {
+        indice.adicionar(6, "Arnaldo Antunes", 0);
+        indice.ajustarQuantidade(List.of(6), 20);
+
+        assertEquals(List.of(6, 3), ids(indice.buscar("a", 2)));
+        assertEquals(20L, indice.buscar("arnaldo", 1).get(0).getQtdLivros());
+    }
+
+    @Test
+    void removerTiraDoVetorEDosPendentes() {
+        indice.adicionar(6, "Arnaldo Antunes", 9);
+        indice.remover(List.of(3, 6, 99));
+
+        assertEquals(List.of(2, 1, 4), ids(indice.buscar("a", 10)));
+        assertEquals(List.of(5), ids(indice.buscar("mari", 10)));
+        assertEquals(4, indice.estatisticas().getItens());
+        assertEquals(0, indice.estatisticas().getPendentes());
+
+        // as posicoes foram refeitas: o ajuste ainda acha as folhas certas
+        indice.ajustarQuantidade(List.of(5), 20);
+        assertEquals(List.of(5, 2, 1, 4), ids(indice.buscar("", 10)));
+    }
+
+    private List<Integer> ids(List<AutocompletarResponseDTO> resultado) {
+        return resultado.stream().map(AutocompletarResponseDTO::getId).toList();
+    }
+}
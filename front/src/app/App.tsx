@@ -11,8 +11,6 @@ import Inicio from "./pages/Inicio/Inicio";
 import Usuarios from "./pages/Usuarios/Usuarios";
 import Login from "./pages/Autenticacao/Login";
 import ProgressBar from "react-bootstrap/ProgressBar";
-import { deleteAutoresSemAssociacao } from "./api/AutorApi";
-import { deleteGeneroesSemAssociacao } from "./api/GeneroApi";
 import { notificarAtrasos } from "./api/EmprestimoApi";
 import Cronograma from "./pages/Cronograma/Cronograma";
 import LoadingBar from "./shared/components/loading-bar/LoadingBar";
@@ -58,8 +56,7 @@ const App: React.FC = () => {
   const tasks = [
     { id: 1, name: 'Carregando recursos...'  },
     { id: 2, name: 'Conectando ao servidor...' },
-    { id: 3, name: 'Organizando a base de dados...' },
-    { id: 4, name: 'Notificando atrasos...' }
+    { id: 3, name: 'Notificando atrasos...' }
   ]
 
   const performRequest = async (taskId: number) => {
@@ -71,15 +68,6 @@ const App: React.FC = () => {
         await new Promise(resolve => setTimeout(resolve, 1400));
         break;
       case 3:
-        await new Promise(resolve => setTimeout(resolve, 1200));
-        try {
-          await deleteAutoresSemAssociacao();
-          await deleteGeneroesSemAssociacao()
-        } catch(err) {
-          console.log(err)
-        }
-        break;
-      case 4:
         await new Promise(resolve => setTimeout(resolve, 1200));
         try {
           await notificarAtrasos()
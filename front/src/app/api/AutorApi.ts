@@ -14,14 +14,3 @@ export const getAutores = async (nome: string): Promise<GetAutorResponse[]> => {
     throw error;
   }
 };
-
-
-export const deleteAutoresSemAssociacao = async (): Promise<void> => {
-  try {
-    await api.delete(`${API_URL}/sem-associacao`);
-  } catch (error) {
-    console.error("Erro ao deletar autores sem associação:", error);
-    throw error;
-  }
-};
-
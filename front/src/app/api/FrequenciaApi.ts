@@ -1,15 +1,16 @@
 import api from "../shared/axios/axios";
 import { getQueryString } from "../shared/utils";
 import { CreateFrequenciaRequest, FrequenciaFiltros, GetFrequenciaResponse } from "../interfaces/frequencia";
+import { ResponsePagination } from "../interfaces/pagination";
 
 const API_URL = "/frequencia-alunos";
 
-export const getFrequencias = async (filtros: FrequenciaFiltros): Promise<GetFrequenciaResponse[]> => {
+export const getFrequencias = async (filtros: FrequenciaFiltros): Promise<ResponsePagination<GetFrequenciaResponse>> => {
   try {
     const queryString = getQueryString(filtros);
     const url = queryString ? `${API_URL}?${queryString}` : `${API_URL}`;
     
-    const response = await api.get<GetFrequenciaResponse[]>(url);
+    const response = await api.get<ResponsePagination<GetFrequenciaResponse>>(url);
     return response.data;
   } catch (error) {
     console.error("Erro ao buscar frequencias:", error);
@@ -17,6 +18,19 @@ export const getFrequencias = async (filtros: FrequenciaFiltros): Promise<GetFre
   }
 };
 
+// Percorre todas as paginas do filtro; a listagem do dia mostra a frequencia inteira, sem paginacao na tela
+export const getTodasFrequencias = async (filtros: FrequenciaFiltros): Promise<GetFrequenciaResponse[]> => {
+  const frequencias: GetFrequenciaResponse[] = [];
+  let page = 0;
+  let pagina: ResponsePagination<GetFrequenciaResponse>;
+  do {
+    pagina = await getFrequencias({ ...filtros, page });
+    frequencias.push(...pagina.content);
+    page++;
+  } while (!pagina.last && page < pagina.totalPages);
+  return frequencias;
+};
+
 export const createFrequencia = async (
   frequencia: CreateFrequenciaRequest
 ): Promise<any> => {
@@ -14,14 +14,3 @@ export const getGeneros = async (genero: string): Promise<GetGeneroResponse[]> =
     throw error;
   }
 };
-
-
-export const deleteGeneroesSemAssociacao = async (): Promise<void> => {
-  try {
-    await api.delete(`${API_URL}/sem-associacao`);
-  } catch (error) {
-    console.error("Erro ao deletar generos sem associação:", error);
-    throw error;
-  }
-};
-
@@ -9,7 +9,11 @@ export interface GetFrequenciaResponse {
 }
 
 export interface FrequenciaFiltros {
-  data: string
+  data?: string
+  dataInicio?: string
+  dataFim?: string
+  page?: number
+  size?: number
 }
 
 export interface RegistradaPor {
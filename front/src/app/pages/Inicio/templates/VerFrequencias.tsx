@@ -10,7 +10,7 @@ import DatePicker from "react-datepicker";
 import "react-datepicker/dist/react-datepicker.css";
 import ListagemFrequencias from "./ListagemFrequencias";
 import { CreateFrequenciaRequest, FrequenciaFiltros, GetFrequenciaResponse } from "./../../../interfaces/frequencia";
-import { createFrequencia, deleteFrequencia, getFrequencias } from "./../../../api/FrequenciaApi";
+import { createFrequencia, deleteFrequencia, getTodasFrequencias } from "./../../../api/FrequenciaApi";
 
 import { format } from "date-fns/format";
 import { registerLocale } from 'react-datepicker';
@@ -49,10 +49,10 @@ const VerFrequencias: React.FC = () => {
   const listarFrequencias = async (): Promise<void> => {
     try {
       const filtros: FrequenciaFiltros = {
-        data: format(dataFrequencia, "yyyy-MM-dd")
+        data: format(dataFrequencia, "yyyy-MM-dd"),
+        size: 1000
       }
-      const data = await getFrequencias(filtros);
-      setFrequencias(data);
+      setFrequencias(await getTodasFrequencias(filtros));
     } catch(err) {
       console.log(err)
     }
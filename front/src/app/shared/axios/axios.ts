@@ -31,7 +31,7 @@ api.interceptors.request.use(
 );
 
 const successMethods = ['post', 'put', 'patch', 'delete'];
-const ignoredSuccessEndpoints = ['/auth/login', '/generos/sem-associacao', '/autor/sem-associacao', '/emprestimos/enviar-email'];
+const ignoredSuccessEndpoints = ['/auth/login', '/emprestimos/enviar-email'];
 const ignoredErrorEndpoints = ['?'];
 
 api.interceptors.response.use(